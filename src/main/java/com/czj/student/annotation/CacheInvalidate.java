@@ -13,4 +13,21 @@ public @interface CacheInvalidate {
      * 要失效的缓存组名称
      */
     String[] cacheGroups();
+    
+    /**
+     * 实体标签属性名，与查询注解的entityTag对应；为空时清除整个缓存组。
+     * 只用于修改单个实体且不影响未过滤结果总数和顺序的方法，新增和删除应清除整个缓存组
+     */
+    String entityTag() default "";
+    
+    /**
+     * 实体ID的SpEL表达式，如#studentDTO.sid，在原方法执行前求值；结果为null时清除整个缓存组
+     */
+    String tagKey() default "";
+    
+    /**
+     * 用于匹配查询参数的实体对象的SpEL表达式，在原方法执行前求值，
+     * 应同时给出修改前和修改后的实体，如{"@studentMapper.selectById(#studentDTO.sid)", "#studentDTO"}
+     */
+    String[] tagMatch() default {};
 }
\ No newline at end of file
@@ -18,4 +18,20 @@ public @interface PageQuery {
      * 缓存过期时间(毫秒)，默认30分钟
      */
     long expiration() default 30 * 60 * 1000;
+    
+    /**
+     * 刷新间隔(毫秒)，缓存加载超过该时长后命中时直接返回旧值并异步重新加载，默认0不提前刷新
+     */
+    long refreshAfter() default 0;
+    
+    /**
+     * 过期后仍可返回旧值的时长(毫秒)，期间命中会触发异步重新加载，默认0过期即失效
+     */
+    long staleTtl() default 0;
+    
+    /**
+     * 实体标签属性名，如sid；设置后记录结果中各行的该属性值，
+     * 修改单个实体时只清除受影响的缓存，见{@link CacheInvalidate#entityTag()}
+     */
+    String entityTag() default "";
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+package com.czj.student.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * 响应缓存注解，用于标记缓存序列化后JSON的GET接口
+ * 命中时直接输出缓存的字节，不再调用控制器和Jackson；缓存组被清除后缓存的响应随之失效。
+ * 命中的请求不经过控制器上的切面，@Log由ResponseCacheInterceptor记录模块、操作和请求键，不再记录参数、返回值和耗时。
+ * 只用于响应与当前登录用户无关的接口
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ResponseCache {
+    /**
+     * 响应依赖的缓存组，应与服务方法@PageQuery/@CacheQuery的缓存组一致
+     */
+    String[] cacheGroups() default {};
+
+    /**
+     * 缓存过期时间(毫秒)，默认1分钟
+     */
+    long expiration() default 60 * 1000;
+
+    /**
+     * 是否同时保存gzip压缩后的字节，客户端支持时直接输出
+     */
+    boolean gzip() default true;
+}
@@ -1,23 +1,54 @@
 package com.czj.student.aspect;
 
 import com.czj.student.annotation.CacheInvalidate;
+import com.czj.student.util.TransactionUtils;
 import com.czj.student.util.pool.QueryPool;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Pointcut;
+import org.aspectj.lang.reflect.MethodSignature;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.context.expression.BeanFactoryResolver;
+import org.springframework.context.expression.MethodBasedEvaluationContext;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.expression.Expression;
+import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.stereotype.Component;
 
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * 缓存失效切面
+ * 原方法在事务中执行时，在事务提交后清除缓存；提交前清除会让并发的查询把未提交前的旧数据重新写入缓存
  */
 @Aspect
 @Component
-public class CacheInvalidateAspect {
+public class CacheInvalidateAspect implements BeanFactoryAware {
     private static final Logger logger = LoggerFactory.getLogger(CacheInvalidateAspect.class);
     
+    private final ExpressionParser parser = new SpelExpressionParser();
+    private final ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
+    
+    // 已解析的SpEL表达式
+    private final ConcurrentHashMap<String, Expression> expressions = new ConcurrentHashMap<>();
+    
+    private BeanFactory beanFactory;
+    
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) {
+        this.beanFactory = beanFactory;
+    }
+    
     /**
      * 缓存失效切点
      */
@@ -29,18 +60,65 @@ public class CacheInvalidateAspect {
      */
     @Around("cacheInvalidatePointcut() && @annotation(cacheInvalidate)")
     public Object handleCacheInvalidate(ProceedingJoinPoint joinPoint, CacheInvalidate cacheInvalidate) throws Throwable {
-        // 先执行原方法
+        String[] cacheGroups = cacheInvalidate.cacheGroups();
+        
+        // 按实体失效时，在原方法修改数据前计算实体ID和修改前的实体
+        String entityTag = cacheInvalidate.entityTag();
+        Object id = null;
+        List<Object> matchValues = null;
+        if (!entityTag.isEmpty() && !cacheInvalidate.tagKey().isEmpty()) {
+            MethodBasedEvaluationContext context = createContext(joinPoint);
+            id = evaluate(cacheInvalidate.tagKey(), context);
+            matchValues = new ArrayList<>();
+            if (id != null) {
+                for (String expression : cacheInvalidate.tagMatch()) {
+                    matchValues.add(evaluate(expression, context));
+                }
+            }
+        }
+        
+        // 执行原方法
         Object result = joinPoint.proceed();
         
-        // 清除指定的缓存组
-        String[] cacheGroups = cacheInvalidate.cacheGroups();
+        // 事务提交后清除指定的缓存组，没有事务时立即清除
         if (cacheGroups != null && cacheGroups.length > 0) {
-            for (String group : cacheGroups) {
-                logger.debug("清除缓存组: {}, 方法: {}", group, joinPoint.getSignature());
-                QueryPool.clearCacheGroup(group);
-            }
+            Object entityId = id;
+            List<Object> entityValues = matchValues;
+            TransactionUtils.afterCommit(() -> {
+                for (String group : cacheGroups) {
+                    if (entityValues != null) {
+                        logger.debug("按实体清除缓存组: {}, {}: {}, 方法: {}", group, entityTag, entityId,
+                                joinPoint.getSignature());
+                        QueryPool.invalidateEntity(group, entityTag, entityId, entityValues);
+                    } else {
+                        logger.debug("清除缓存组: {}, 方法: {}", group, joinPoint.getSignature());
+                        QueryPool.clearCacheGroup(group);
+                    }
+                }
+            });
         }
         
         return result;
     }
-}
\ No newline at end of file
+    
+    /**
+     * 创建SpEL求值上下文，支持按参数名(#studentDTO)、#p0和@bean引用
+     */
+    private MethodBasedEvaluationContext createContext(ProceedingJoinPoint joinPoint) {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        if (joinPoint.getTarget() != null) {
+            // 接口方法上没有参数名信息，使用实现类的方法
+            method = AopUtils.getMostSpecificMethod(method, joinPoint.getTarget().getClass());
+        }
+        MethodBasedEvaluationContext context = new MethodBasedEvaluationContext(
+                joinPoint.getTarget(), method, joinPoint.getArgs(), parameterNameDiscoverer);
+        if (beanFactory != null) {
+            context.setBeanResolver(new BeanFactoryResolver(beanFactory));
+        }
+        return context;
+    }
+    
+    private Object evaluate(String expression, MethodBasedEvaluationContext context) {
+        return expressions.computeIfAbsent(expression, parser::parseExpression).getValue(context);
+    }
+}
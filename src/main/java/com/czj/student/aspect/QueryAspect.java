@@ -3,16 +3,29 @@ package com.czj.student.aspect;
 import com.czj.student.annotation.CacheQuery;
 import com.czj.student.annotation.PageQuery;
 import com.czj.student.model.vo.PageInfo;
+import com.czj.student.util.pool.CacheEntry;
+import com.czj.student.util.pool.QueryKey;
 import com.czj.student.util.pool.QueryPool;
+import com.czj.student.util.pool.QueryWarmer;
+import com.czj.student.util.pool.SingleFlight;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Pointcut;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 查询缓存切面
@@ -22,6 +35,43 @@ import java.util.List;
 public class QueryAspect {
     private static final Logger logger = LoggerFactory.getLogger(QueryAspect.class);
     
+    // 同一缓存键的并发未命中只由一个线程查询数据库
+    private final SingleFlight<QueryKey> singleFlight = new SingleFlight<>();
+    
+    // 等待其他线程加载的最长时间(毫秒)，超时后自行查询
+    @Value("${query.pool.loadWaitMillis:3000}")
+    private long loadWaitMillis = 3000;
+    
+    // 异步刷新线程数
+    @Value("${query.pool.refreshThreads:2}")
+    private int refreshThreads = 2;
+    
+    // 异步刷新队列长度，队列满时放弃本次刷新，由后续命中再次触发
+    @Value("${query.pool.refreshQueueSize:100}")
+    private int refreshQueueSize = 100;
+    
+    private ThreadPoolExecutor refreshExecutor;
+    
+    @Autowired
+    private QueryWarmer queryWarmer;
+    
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        refreshExecutor = new ThreadPoolExecutor(refreshThreads, refreshThreads,
+                60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(refreshQueueSize), r -> {
+                    Thread thread = new Thread(r, "query-refresh-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        refreshExecutor.allowCoreThreadTimeOut(true);
+    }
+    
+    @PreDestroy
+    public void destroy() {
+        refreshExecutor.shutdownNow();
+    }
+    
     /**
      * 分页查询切点
      */
@@ -57,90 +107,197 @@ public class QueryAspect {
             return joinPoint.proceed();
         }
         
-        // 生成方法键
-        String methodKey = QueryPool.generateMethodKey(joinPoint);
+        // 生成缓存键：查询键对应共用的总数，分页窗口键对应当前页的行
+        QueryKey cacheKey = QueryPool.createKey(joinPoint);
+        QueryKey pageKey = cacheKey.withPage(pageInfo.getPage(), pageInfo.getSize());
+        String uuid = Integer.toHexString(cacheKey.hashCode());
+        queryWarmer.record(pageKey, args, pageQuery.cacheGroups());
         
         // 检查是否有已缓存的数据
-        String cacheKey = QueryPool.getCacheKeyByMethod(methodKey);
-        if (cacheKey != null && pageInfo.getUuid() == null) {
-            pageInfo.setUuid(cacheKey);
-            
-            // 尝试从缓存获取结果
-            PageInfo<?> cachedResult = QueryPool.getPagedResult(cacheKey, pageInfo);
-            if (cachedResult != null) {
-                logger.debug("分页查询命中缓存: {}", methodKey);
+        if (pageInfo.getUuid() == null) {
+            // 尝试从缓存获取结果，当前页和总数都命中才使用
+            CacheEntry entry = QueryPool.getEntry(pageKey);
+            CacheEntry totalEntry = entry != null ? QueryPool.getTotalEntry(cacheKey) : null;
+            if (totalEntry != null) {
+                PageInfo<?> cachedResult = QueryPool.fillPage(entry, totalEntry, pageInfo);
+                cachedResult.setUuid(uuid);
+                logger.debug("分页查询命中缓存: {}", pageKey);
+                SingleFlight.Loader<Object> reloader = () -> reloadPage(joinPoint, pageQuery, cacheKey, args);
+                if (!refreshIfNeeded(entry, pageKey, reloader)) {
+                    refreshIfNeeded(totalEntry, cacheKey, reloader);
+                }
                 return cachedResult;
             }
         }
         
-        // 缓存未命中，执行原方法
-        logger.debug("分页查询未命中缓存，执行原方法: {}", methodKey);
-        Object result = joinPoint.proceed();
+        // 缓存未命中，合并同一页的并发查询；等待者使用领头者的结果填充自己的分页参数，本次请求已计为未命中
+        PageInfo<?> finalPageInfo = pageInfo;
+        return singleFlight.execute(pageKey, loadWaitMillis,
+                () -> loadPage(joinPoint, pageQuery, cacheKey, pageKey, finalPageInfo, uuid),
+                leaderResult -> leaderResult instanceof PageInfo
+                        ? copyPage((PageInfo<?>) leaderResult, finalPageInfo, uuid) : leaderResult);
+    }
+    
+    /**
+     * 把领头者的分页结果填入等待者自己的PageInfo参数
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> PageInfo<T> copyPage(PageInfo<?> source, PageInfo<T> target, String uuid) {
+        target.of((List<T>) source.getRows(), source.getTotal());
+        target.setUuid(uuid);
+        return target;
+    }
+    
+    /**
+     * 先查二级缓存，未命中再执行分页查询并写入缓存
+     */
+    private Object loadPage(ProceedingJoinPoint joinPoint, PageQuery pageQuery, QueryKey cacheKey, QueryKey pageKey,
+                            PageInfo<?> pageInfo, String uuid) throws Throwable {
+        long version = QueryPool.groupVersion(pageQuery.cacheGroups());
+        CacheEntry shared = QueryPool.getFromL2(pageKey, pageQuery.expiration(), pageQuery.refreshAfter(),
+                pageQuery.staleTtl(), pageQuery.cacheGroups(), pageQuery.entityTag(), version);
+        CacheEntry sharedTotal = shared != null ? QueryPool.getFromL2(cacheKey, pageQuery.expiration(),
+                pageQuery.refreshAfter(), pageQuery.staleTtl(), pageQuery.cacheGroups(), pageQuery.entityTag(),
+                version) : null;
+        if (sharedTotal != null) {
+            pageInfo.setUuid(uuid);
+            return QueryPool.fillPage(shared, sharedTotal, pageInfo);
+        }
+        
+        logger.debug("分页查询未命中缓存，执行原方法: {}", pageKey);
+        Object result = proceedAndRecord(joinPoint, null, cacheKey, pageQuery.cacheGroups());
         
         // 如果返回值不是PageInfo，直接返回
         if (!(result instanceof PageInfo)) {
             return result;
         }
         
-        // 生成新的缓存键并保存结果
-        if (cacheKey == null) {
-            cacheKey = QueryPool.generateCacheKey();
-            pageInfo.setUuid(cacheKey);
-            QueryPool.putMethodMapping(methodKey, cacheKey);
+        pageInfo.setUuid(uuid);
+        cachePage(pageQuery, cacheKey, (PageInfo<?>) result, version);
+        return result;
+    }
+    
+    /**
+     * 异步刷新分页缓存
+     * 使用新的PageInfo副本执行原方法，不修改调用方持有的参数对象
+     */
+    private Object reloadPage(ProceedingJoinPoint joinPoint, PageQuery pageQuery, QueryKey cacheKey,
+                              Object[] args) throws Throwable {
+        long version = QueryPool.groupVersion(pageQuery.cacheGroups());
+        Object[] refreshArgs = args.clone();
+        for (int i = 0; i < refreshArgs.length; i++) {
+            if (refreshArgs[i] instanceof PageInfo) {
+                PageInfo<?> pageInfo = (PageInfo<?>) refreshArgs[i];
+                refreshArgs[i] = new PageInfo<>(pageInfo.getPage(), pageInfo.getSize());
+            }
         }
-        
-        PageInfo<?> resultPageInfo = (PageInfo<?>) result;
-        List<?> allData = resultPageInfo.getRows();
-        
-        // 保存所有数据到缓存
-        if (allData != null && !allData.isEmpty()) {
-            QueryPool.putResult(cacheKey, allData, pageQuery.expiration(), pageQuery.cacheGroups());
+        Object result = proceedAndRecord(joinPoint, refreshArgs, cacheKey, pageQuery.cacheGroups());
+        if (result instanceof PageInfo) {
+            cachePage(pageQuery, cacheKey, (PageInfo<?>) result, version);
         }
-        
         return result;
     }
     
+    /**
+     * 保存分页结果到缓存，当前页为空时同样缓存，避免总数为0的查询每次都访问数据库
+     * @param version 执行查询前的缓存组版本，查询期间缓存组被清除时不缓存
+     */
+    private void cachePage(PageQuery pageQuery, QueryKey cacheKey, PageInfo<?> resultPageInfo, long version) {
+        QueryPool.putPage(cacheKey, resultPageInfo, pageQuery.expiration(), pageQuery.refreshAfter(),
+                pageQuery.staleTtl(), pageQuery.cacheGroups(), pageQuery.entityTag(), version);
+    }
+    
     /**
      * 处理普通缓存查询
      */
     @Around("cacheQueryPointcut() && @annotation(cacheQuery)")
     public Object handleCacheQuery(ProceedingJoinPoint joinPoint, CacheQuery cacheQuery) throws Throwable {
-        // 生成方法键
-        String methodKey = QueryPool.generateMethodKey(joinPoint);
+        // 生成缓存键
+        QueryKey cacheKey = QueryPool.createKey(joinPoint);
         
-        // 检查是否有已缓存的数据
-        String cacheKey = QueryPool.getCacheKeyByMethod(methodKey);
-        if (cacheKey != null) {
-            // 尝试从缓存获取结果
-            List<?> cachedResult = QueryPool.getList(cacheKey);
-            if (cachedResult != null) {
-                logger.debug("普通查询命中缓存: {}", methodKey);
-                return cachedResult;
-            }
+        // 尝试从缓存获取结果
+        CacheEntry entry = QueryPool.getEntry(cacheKey);
+        if (entry != null) {
+            logger.debug("普通查询命中缓存: {}", cacheKey);
+            refreshIfNeeded(entry, cacheKey, () -> loadList(joinPoint, cacheQuery, cacheKey));
+            return entry.getValue();
         }
         
-        // 缓存未命中，执行原方法
-        logger.debug("普通查询未命中缓存，执行原方法: {}", methodKey);
-        Object result = joinPoint.proceed();
+        // 缓存未命中，先查二级缓存，再合并同键的并发查询；等待者直接使用领头者的结果(包括不缓存的空结果)
+        return singleFlight.execute(cacheKey, loadWaitMillis,
+                () -> {
+                    long version = QueryPool.groupVersion(cacheQuery.cacheGroups());
+                    CacheEntry shared = QueryPool.getFromL2(cacheKey, cacheQuery.expiration(), cacheQuery.refreshAfter(),
+                            cacheQuery.staleTtl(), cacheQuery.cacheGroups(), cacheQuery.entityTag(), version);
+                    return shared != null ? shared.getValue() : loadList(joinPoint, cacheQuery, cacheKey);
+                },
+                leaderResult -> leaderResult);
+    }
+    
+    /**
+     * 执行普通查询并写入缓存
+     */
+    private Object loadList(ProceedingJoinPoint joinPoint, CacheQuery cacheQuery, QueryKey cacheKey) throws Throwable {
+        logger.debug("普通查询未命中缓存，执行原方法: {}", cacheKey);
+        long version = QueryPool.groupVersion(cacheQuery.cacheGroups());
+        Object result = proceedAndRecord(joinPoint, null, cacheKey, cacheQuery.cacheGroups());
         
         // 如果返回值不是List，直接返回
         if (!(result instanceof List)) {
             return result;
         }
         
-        // 生成新的缓存键并保存结果
-        if (cacheKey == null) {
-            cacheKey = QueryPool.generateCacheKey();
-            QueryPool.putMethodMapping(methodKey, cacheKey);
-        }
-        
         List<?> resultList = (List<?>) result;
         
         // 保存结果到缓存
         if (!resultList.isEmpty()) {
-            QueryPool.putResult(cacheKey, resultList, cacheQuery.expiration(), cacheQuery.cacheGroups());
+            QueryPool.putResult(cacheKey, resultList, cacheQuery.expiration(), cacheQuery.refreshAfter(),
+                    cacheQuery.staleTtl(), cacheQuery.cacheGroups(), cacheQuery.entityTag(), version);
         }
         
         return result;
     }
+    
+    /**
+     * 执行原方法并记录加载次数和耗时
+     * @param args 替换的参数，为null时使用原参数
+     */
+    private Object proceedAndRecord(ProceedingJoinPoint joinPoint, Object[] args, QueryKey cacheKey,
+                                    String[] cacheGroups) throws Throwable {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            Object result = args != null ? joinPoint.proceed(args) : joinPoint.proceed();
+            success = true;
+            return result;
+        } finally {
+            QueryPool.recordLoad(cacheKey, cacheGroups, System.nanoTime() - start, success);
+        }
+    }
+    
+    /**
+     * 命中的条目到达刷新时间或已过期时，提交异步重新加载，调用方直接使用旧值
+     * 同一条目同时只有一个刷新任务；队列已满或加载失败时放弃，由后续命中再次触发
+     * @return 是否需要刷新并已尝试提交
+     */
+    private boolean refreshIfNeeded(CacheEntry entry, QueryKey cacheKey, SingleFlight.Loader<?> reloader) {
+        if (!entry.tryStartRefresh(System.currentTimeMillis())) {
+            return false;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    reloader.load();
+                    logger.debug("异步刷新缓存完成: {}", cacheKey);
+                } catch (Throwable t) {
+                    entry.cancelRefresh();
+                    logger.warn("异步刷新缓存失败: {}", cacheKey, t);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            entry.cancelRefresh();
+            logger.debug("刷新队列已满，跳过本次刷新: {}", cacheKey);
+        }
+        return true;
+    }
 }
\ No newline at end of file
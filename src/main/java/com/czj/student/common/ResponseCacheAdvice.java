@@ -0,0 +1,114 @@
+package com.czj.student.common;
+
+import com.czj.student.annotation.ResponseCache;
+import com.czj.student.interceptor.ResponseCacheInterceptor;
+import com.czj.student.util.pool.ResponseBytesCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import javax.annotation.Resource;
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 响应缓存写入
+ * 标记@ResponseCache的接口未命中缓存时，将成功的响应序列化为JSON并保存，后续请求由ResponseCacheInterceptor直接输出；
+ * 序列化后的字节直接写入响应，消息转换器不再重复序列化
+ */
+@ControllerAdvice
+public class ResponseCacheAdvice implements ResponseBodyAdvice<Object> {
+
+    private static final Logger log = LoggerFactory.getLogger(ResponseCacheAdvice.class);
+
+    @Resource
+    private ResponseBytesCache responseBytesCache;
+
+    // 处理器适配器创建时才查找ControllerAdvice，延迟获取避免循环依赖
+    @Autowired
+    private ObjectProvider<RequestMappingHandlerAdapter> handlerAdapter;
+
+    // spring-mvc.xml中配置的Jackson消息转换器使用的ObjectMapper，保证缓存的字节与直接输出的相同
+    private volatile ObjectMapper objectMapper;
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return returnType.hasMethodAnnotation(ResponseCache.class);
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (!(request instanceof ServletServerHttpRequest) || !isSuccess(body)
+                || !MediaType.APPLICATION_JSON.isCompatibleWith(selectedContentType)) {
+            return body;
+        }
+        HttpServletRequest servletRequest = ((ServletServerHttpRequest) request).getServletRequest();
+        String key = (String) servletRequest.getAttribute(ResponseCacheInterceptor.KEY_ATTRIBUTE);
+        Long version = (Long) servletRequest.getAttribute(ResponseCacheInterceptor.VERSION_ATTRIBUTE);
+        if (key == null || version == null) {
+            return body;
+        }
+        ResponseCache annotation = returnType.getMethodAnnotation(ResponseCache.class);
+        byte[] json;
+        try {
+            json = objectMapper().writeValueAsBytes(body);
+        } catch (Exception e) {
+            // 序列化失败只是不缓存，响应仍由消息转换器正常输出
+            log.warn("缓存响应失败: {}, {}", key, e.getMessage());
+            return body;
+        }
+        responseBytesCache.put(key, json, annotation.gzip(), annotation.expiration(), version);
+        try {
+            response.getHeaders().setContentType(new MediaType(MediaType.APPLICATION_JSON, StandardCharsets.UTF_8));
+            response.getHeaders().setContentLength(json.length);
+            response.getBody().write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        // 返回null时消息转换器不再输出
+        return null;
+    }
+
+    /**
+     * 取消息转换器的ObjectMapper，首次使用时从处理器适配器的消息转换器中查找
+     */
+    private ObjectMapper objectMapper() {
+        ObjectMapper mapper = objectMapper;
+        if (mapper == null) {
+            for (HttpMessageConverter<?> converter : handlerAdapter.getObject().getMessageConverters()) {
+                if (converter instanceof MappingJackson2HttpMessageConverter) {
+                    mapper = ((MappingJackson2HttpMessageConverter) converter).getObjectMapper();
+                    break;
+                }
+            }
+            if (mapper == null) {
+                throw new IllegalStateException("未配置MappingJackson2HttpMessageConverter，无法缓存响应");
+            }
+            objectMapper = mapper;
+        }
+        return mapper;
+    }
+
+    /**
+     * 只缓存成功的响应，错误信息可能随时间变化
+     */
+    private static boolean isSuccess(Object body) {
+        return body instanceof ApiResponse && Integer.valueOf(200).equals(((ApiResponse<?>) body).getCode());
+    }
+}
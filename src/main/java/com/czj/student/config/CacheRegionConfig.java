@@ -0,0 +1,44 @@
+package com.czj.student.config;
+
+import com.czj.student.util.pool.CacheRegion;
+import com.czj.student.util.pool.QueryPool;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * 查询缓存区域配置
+ * cache.regions列出区域名称，每个区域的配置项为cache.region.名称.*，未配置的项使用默认值；
+ * groups为归属该区域的缓存组，默认与区域同名。未归属任何区域的缓存组使用默认区域(query.pool.*)
+ */
+@Configuration
+public class CacheRegionConfig {
+
+    @Autowired
+    private Environment environment;
+
+    @PostConstruct
+    public void init() {
+        for (String name : StringUtils.commaDelimitedListToStringArray(environment.getProperty("cache.regions", ""))) {
+            name = name.trim();
+            if (name.isEmpty() || QueryPool.DEFAULT_REGION.equals(name)) {
+                continue;
+            }
+            String prefix = "cache.region." + name + ".";
+            CacheRegion region = new CacheRegion(name,
+                    environment.getProperty(prefix + "maxWeightBytes", Long.class, 16L * 1024 * 1024),
+                    environment.getProperty(prefix + "maxOffHeapBytes", Long.class, 64L * 1024 * 1024),
+                    environment.getProperty(prefix + "expectedEntries", Integer.class, 1000),
+                    environment.getProperty(prefix + "ttlMillis", Long.class, 0L),
+                    CacheRegion.Policy.valueOf(environment.getProperty(prefix + "policy", "tiny_lfu").trim().toUpperCase()),
+                    CacheRegion.Backend.valueOf(environment.getProperty(prefix + "backend", "auto").trim().toUpperCase()),
+                    environment.getProperty(prefix + "l2", Boolean.class, true));
+            String[] groups = StringUtils.trimArrayElements(
+                    StringUtils.commaDelimitedListToStringArray(environment.getProperty(prefix + "groups", name)));
+            QueryPool.configureRegion(region, groups);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.czj.student.config;
+
+import com.czj.student.model.entity.Course;
+import com.czj.student.model.entity.Student;
+import com.czj.student.util.pool.EntityCache;
+import com.czj.student.util.pool.QueryPool;
+import com.czj.student.util.pool.l2.InvalidationBus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 学生、课程单行实体缓存配置
+ * 学生以学号、课程以课程编号作为自然键；
+ * 启用了跨节点失效通知时，修改或删除提交后通知其他节点清除对应的实体
+ */
+@Configuration
+public class EntityCacheConfig {
+    private static final Logger logger = LoggerFactory.getLogger(EntityCacheConfig.class);
+
+    // 实体失效通知的主题，消息格式为"缓存名称:主键"
+    private static final String TOPIC = "entity";
+
+    private final AtomicBoolean started = new AtomicBoolean(false);
+
+    // 过期时间(毫秒)
+    @Value("${entity.cache.ttlMillis:300000}")
+    private long ttlMillis;
+
+    // 每种实体的最大条目数
+    @Value("${entity.cache.maxEntries:10000}")
+    private int maxEntries;
+
+    @Bean
+    public EntityCache<Student> studentCache() {
+        return new EntityCache<>("student", Student::getSid, Student::getSno, ttlMillis, maxEntries);
+    }
+
+    @Bean
+    public EntityCache<Course> courseCache() {
+        return new EntityCache<>("course", Course::getCid, Course::getCourseNo, ttlMillis, maxEntries);
+    }
+
+    @EventListener
+    public void onContextRefreshed(ContextRefreshedEvent event) {
+        InvalidationBus bus = QueryPool.getInvalidationBus();
+        if (bus == null || !started.compareAndSet(false, true)) {
+            return;
+        }
+        List<EntityCache<?>> caches = Arrays.asList(studentCache(), courseCache());
+        for (EntityCache<?> cache : caches) {
+            String prefix = cache.getName() + ":";
+            cache.setPublisher(id -> {
+                try {
+                    bus.publish(TOPIC, prefix + id);
+                } catch (RuntimeException e) {
+                    // 通知失败时其他节点的旧实体在过期后失效
+                    logger.warn("实体缓存失效通知失败: {}, {}", cache.getName(), e.getMessage());
+                }
+            });
+        }
+        bus.subscribe(TOPIC, message -> {
+            for (EntityCache<?> cache : caches) {
+                String prefix = cache.getName() + ":";
+                if (message.startsWith(prefix)) {
+                    cache.invalidateRemote(Long.valueOf(message.substring(prefix.length())));
+                    return;
+                }
+            }
+        });
+    }
+}
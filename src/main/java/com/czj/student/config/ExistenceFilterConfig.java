@@ -0,0 +1,175 @@
+package com.czj.student.config;
+
+import com.czj.student.mapper.CourseMapper;
+import com.czj.student.mapper.StudentMapper;
+import com.czj.student.util.pool.ExistenceFilter;
+import com.czj.student.util.pool.QueryPool;
+import com.czj.student.util.pool.l2.InvalidationBus;
+import org.apache.ibatis.session.ResultHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * 学号、身份证号、课程编号的存在性过滤器配置
+ * 启动后在后台线程扫描全表重建，之后定期重新扫描，键数超过容量时提前重新扫描扩容；
+ * 启用了跨节点失效通知时，各节点新增的键通过通知同步到其他节点
+ */
+@Configuration
+public class ExistenceFilterConfig {
+    private static final Logger logger = LoggerFactory.getLogger(ExistenceFilterConfig.class);
+
+    // 新键通知的主题，消息格式为"过滤器名称:键"
+    private static final String TOPIC = "existence";
+
+    @Value("${existence.filter.enabled:true}")
+    private boolean enabled;
+
+    // 最小预计键数
+    @Value("${existence.filter.minCapacity:100000}")
+    private long minCapacity;
+
+    // 目标误判率
+    @Value("${existence.filter.fpp:0.01}")
+    private double fpp;
+
+    // 定期全表重新扫描的间隔(毫秒)，覆盖通知丢失和直接写库新增的键
+    @Value("${existence.filter.rebuildMillis:600000}")
+    private long rebuildMillis;
+
+    // 判断为不存在的键是否仍查询数据库确认，存在绕过本应用的写入时开启
+    @Value("${existence.filter.verifyNegatives:false}")
+    private boolean verifyNegatives;
+
+    @Autowired
+    private StudentMapper studentMapper;
+
+    @Autowired
+    private CourseMapper courseMapper;
+
+    private final AtomicBoolean started = new AtomicBoolean(false);
+
+    // 同时只有一个重建任务
+    private final AtomicBoolean rebuilding = new AtomicBoolean(false);
+
+    // 上次全部重建的开始时间
+    private volatile long lastRebuild;
+
+    @Bean
+    public ExistenceFilter snoFilter() {
+        return new ExistenceFilter("sno", minCapacity, fpp);
+    }
+
+    @Bean
+    public ExistenceFilter sfzhFilter() {
+        return new ExistenceFilter("sfzh", minCapacity, fpp);
+    }
+
+    @Bean
+    public ExistenceFilter courseNoFilter() {
+        return new ExistenceFilter("courseNo", minCapacity, fpp);
+    }
+
+    @EventListener
+    public void onContextRefreshed(ContextRefreshedEvent event) {
+        if (!enabled || !started.compareAndSet(false, true)) {
+            return;
+        }
+        List<ExistenceFilter> filters = Arrays.asList(snoFilter(), sfzhFilter(), courseNoFilter());
+        for (ExistenceFilter filter : filters) {
+            filter.setVerifyNegatives(verifyNegatives);
+        }
+        subscribe(filters);
+        rebuildAsync(false);
+    }
+
+    /**
+     * 本节点加入的新键通知其他节点，收到的新键加入对应的过滤器
+     */
+    private void subscribe(List<ExistenceFilter> filters) {
+        InvalidationBus bus = QueryPool.getInvalidationBus();
+        if (bus == null) {
+            return;
+        }
+        for (ExistenceFilter filter : filters) {
+            String prefix = filter.getName() + ":";
+            filter.setPublisher(key -> {
+                try {
+                    bus.publish(TOPIC, prefix + key);
+                } catch (RuntimeException e) {
+                    // 通知失败时其他节点由定期重建补入
+                    logger.warn("存在性过滤器新键通知失败: {}, {}", filter.getName(), e.getMessage());
+                }
+            });
+        }
+        bus.subscribe(TOPIC, message -> {
+            for (ExistenceFilter filter : filters) {
+                String prefix = filter.getName() + ":";
+                if (message.startsWith(prefix)) {
+                    filter.putRemote(message.substring(prefix.length()));
+                    return;
+                }
+            }
+        });
+    }
+
+    /**
+     * 每分钟检查一次：距上次全部重建超过间隔时重新扫描所有过滤器，否则只重新扫描键数超过容量的过滤器
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void rebuildScheduled() {
+        if (enabled && started.get()) {
+            rebuildAsync(System.currentTimeMillis() - lastRebuild < rebuildMillis);
+        }
+    }
+
+    private void rebuildAsync(boolean saturatedOnly) {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        if (!saturatedOnly) {
+            lastRebuild = System.currentTimeMillis();
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                rebuild(snoFilter(), saturatedOnly, handler -> studentMapper.scanSno(scan(handler)));
+                rebuild(sfzhFilter(), saturatedOnly, handler -> studentMapper.scanSfzh(scan(handler)));
+                rebuild(courseNoFilter(), saturatedOnly, handler -> courseMapper.scanCourseNo(scan(handler)));
+            } finally {
+                rebuilding.set(false);
+            }
+        }, "existence-filter-rebuild");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void rebuild(ExistenceFilter filter, boolean saturatedOnly, Consumer<Consumer<String>> source) {
+        if (saturatedOnly && !filter.isSaturated()) {
+            return;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            long count = filter.rebuild(source);
+            logger.info("存在性过滤器重建完成: {}, {}个键, 耗时{}ms", filter.getName(), count,
+                    System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            // 未就绪的过滤器一律判断为可能存在，不影响正确性
+            logger.warn("存在性过滤器重建失败: {}", filter.getName(), e);
+        }
+    }
+
+    private static ResultHandler<String> scan(Consumer<String> handler) {
+        return context -> handler.accept(context.getResultObject());
+    }
+}
@@ -0,0 +1,89 @@
+package com.czj.student.config;
+
+import com.czj.student.util.pool.QueryPool;
+import com.czj.student.util.pool.l2.LocalInvalidationBus;
+import com.czj.student.util.pool.l2.LocalL2Cache;
+import com.czj.student.util.pool.l2.RedisInvalidationBus;
+import com.czj.student.util.pool.l2.RedisL2Cache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.UUID;
+
+/**
+ * 查询缓存二级缓存配置
+ * cache.l2.type为redis时多个节点共享Redis中的查询结果，并通过发布订阅同步缓存组失效；
+ * 为local时使用进程内实现，仅用于单节点和测试；为none时只使用本地缓存
+ */
+@Configuration
+public class QueryCacheL2Config {
+    private static final Logger logger = LoggerFactory.getLogger(QueryCacheL2Config.class);
+
+    @Value("${cache.l2.type:none}")
+    private String type;
+
+    @Value("${cache.l2.redis.host:localhost}")
+    private String host;
+
+    @Value("${cache.l2.redis.port:6379}")
+    private int port;
+
+    @Value("${cache.l2.redis.password:}")
+    private String password;
+
+    @Value("${cache.l2.redis.database:0}")
+    private int database;
+
+    @Value("${cache.l2.redis.timeout:2000}")
+    private int timeout;
+
+    @Value("${cache.l2.redis.maxTotal:16}")
+    private int maxTotal;
+
+    @Value("${cache.l2.keyPrefix:student_system:}")
+    private String keyPrefix;
+
+    @Value("${cache.l2.channel:student_system:cache-invalidate}")
+    private String channel;
+
+    // 节点ID，为空时随机生成，用于忽略本节点发出的失效通知
+    @Value("${cache.l2.nodeId:}")
+    private String nodeId;
+
+    @PostConstruct
+    public void init() {
+        String node = StringUtils.hasText(nodeId) ? nodeId : UUID.randomUUID().toString().substring(0, 8);
+        switch (type.trim().toLowerCase()) {
+            case "redis":
+                JedisPoolConfig poolConfig = new JedisPoolConfig();
+                poolConfig.setMaxTotal(maxTotal);
+                // 订阅线程长期占用一个连接
+                poolConfig.setMaxIdle(maxTotal);
+                JedisPool jedisPool = new JedisPool(poolConfig, host, port, timeout,
+                        StringUtils.hasText(password) ? password : null, database);
+                QueryPool.enableL2(new RedisL2Cache(jedisPool, keyPrefix),
+                        new RedisInvalidationBus(jedisPool, channel, node));
+                logger.info("查询缓存二级缓存: Redis {}:{}/{}, 节点: {}", host, port, database, node);
+                break;
+            case "local":
+                QueryPool.enableL2(new LocalL2Cache(), new LocalInvalidationBus(node));
+                break;
+            case "none":
+                break;
+            default:
+                throw new IllegalArgumentException("不支持的cache.l2.type: " + type);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        QueryPool.disableL2();
+    }
+}
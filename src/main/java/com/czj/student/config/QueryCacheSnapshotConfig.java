@@ -0,0 +1,104 @@
+package com.czj.student.config;
+
+import com.czj.student.mapper.StudentMapper;
+import com.czj.student.util.pool.CacheVersionProvider;
+import com.czj.student.util.pool.QueryPoolSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.File;
+
+/**
+ * 查询缓存快照配置
+ * 停机时把查询缓存写入本地文件，启动后在后台线程读回，避免重新部署后的请求全部落到数据库；
+ * 各缓存组以对应表的行数、最大ID及最后更新时间作为数据版本，停机期间数据有变化的缓存组不恢复
+ */
+@Configuration
+public class QueryCacheSnapshotConfig implements CacheVersionProvider {
+    private static final Logger logger = LoggerFactory.getLogger(QueryCacheSnapshotConfig.class);
+
+    @Value("${query.pool.snapshot.enabled:true}")
+    private boolean enabled;
+
+    // 快照文件，为空时使用临时目录下的student_system/query-pool.snapshot
+    @Value("${query.pool.snapshot.file:}")
+    private String path;
+
+    @Autowired
+    private StudentMapper studentMapper;
+
+    private volatile Thread restoreThread;
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        File file = snapshotFile();
+        if (!file.isFile()) {
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                long start = System.currentTimeMillis();
+                int count = QueryPoolSnapshot.read(file, this);
+                logger.info("查询缓存快照恢复完成: {}条, 耗时{}ms", count, System.currentTimeMillis() - start);
+            } catch (Exception e) {
+                logger.warn("查询缓存快照恢复失败: {}", file, e);
+            } finally {
+                // 快照只使用一次，异常退出后不再读取旧快照
+                if (!file.delete()) {
+                    logger.debug("删除查询缓存快照失败: {}", file);
+                }
+                restoreThread = null;
+            }
+        }, "query-pool-restore");
+        thread.setDaemon(true);
+        restoreThread = thread;
+        thread.start();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (!enabled) {
+            return;
+        }
+        Thread thread = restoreThread;
+        if (thread != null) {
+            // 恢复未完成时写入快照会覆盖尚未读取的条目
+            logger.info("查询缓存快照恢复未完成，跳过本次写入");
+            return;
+        }
+        File file = snapshotFile();
+        try {
+            long start = System.currentTimeMillis();
+            int count = QueryPoolSnapshot.write(file, this);
+            logger.info("查询缓存快照已写入: {}, {}条, 耗时{}ms", file, count, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            logger.warn("查询缓存快照写入失败: {}", file, e);
+        }
+    }
+
+    @Override
+    public String getVersion(String group) {
+        switch (group) {
+            case "student":
+                return studentMapper.selectVersion();
+            default:
+                return null;
+        }
+    }
+
+    private File snapshotFile() {
+        if (StringUtils.hasText(path)) {
+            return new File(path.trim());
+        }
+        return new File(new File(System.getProperty("java.io.tmpdir"), "student_system"), "query-pool.snapshot");
+    }
+}
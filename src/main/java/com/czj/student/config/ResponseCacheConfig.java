@@ -0,0 +1,28 @@
+package com.czj.student.config;
+
+import com.czj.student.util.pool.ResponseBytesCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 响应缓存配置
+ * 标记@ResponseCache的接口命中时由ResponseCacheInterceptor直接输出缓存的JSON字节，
+ * 未命中时由ResponseCacheAdvice在输出前序列化并保存
+ */
+@Configuration
+public class ResponseCacheConfig {
+
+    // 缓存字节数上限，默认16MB
+    @Value("${response.cache.maxBytes:16777216}")
+    private long maxBytes;
+
+    // JSON达到该字节数时才保存gzip压缩结果
+    @Value("${response.cache.gzipMinBytes:1024}")
+    private int gzipMinBytes;
+
+    @Bean
+    public ResponseBytesCache responseBytesCache() {
+        return new ResponseBytesCache(maxBytes, gzipMinBytes);
+    }
+}
@@ -1,10 +1,19 @@
 package com.czj.student.config;
 
+import com.czj.student.session.pool.FileSessionStore;
+import com.czj.student.session.pool.LocalSessionRegistry;
+import com.czj.student.session.pool.RedisSessionRegistry;
 import com.czj.student.session.pool.SessionPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import javax.servlet.ServletContext;
 import org.springframework.web.context.ServletContextAware;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
+import java.io.File;
+import java.io.IOException;
 
 /**
  * 会话池配置类
@@ -12,6 +21,8 @@ import org.springframework.web.context.ServletContextAware;
 @Configuration
 public class SessionPoolConfig implements ServletContextAware {
     
+    private static final Logger logger = LoggerFactory.getLogger(SessionPoolConfig.class);
+    
     private ServletContext servletContext;
     
     @Override
@@ -27,8 +38,56 @@ public class SessionPoolConfig implements ServletContextAware {
         int minIdle = getIntParameter("session.pool.minIdle", 5);
         long maxWaitMillis = getLongParameter("session.pool.maxWaitMillis", 5000L);
         long sessionTimeout = getLongParameter("session.pool.sessionTimeout", 1800000L);
+        int maxQueue = getIntParameter("session.pool.maxQueue", 200);
+        
+        SessionPool pool = new SessionPool(maxTotal, maxIdle, minIdle, maxWaitMillis, sessionTimeout, maxQueue);
+        
+        // 集群会话登记：redis为多节点共享，local为进程内(单节点/测试)，none为只在本地检查重复登录
+        long leaseMillis = getLongParameter("session.registry.leaseMillis", 10000L);
+        String registryType = getStringParameter("session.registry.type", "none").toLowerCase();
+        switch (registryType) {
+            case "redis":
+                String host = getStringParameter("session.registry.redis.host", "localhost");
+                int port = getIntParameter("session.registry.redis.port", 6379);
+                int database = getIntParameter("session.registry.redis.database", 0);
+                JedisPoolConfig poolConfig = new JedisPoolConfig();
+                poolConfig.setMaxTotal(getIntParameter("session.registry.redis.maxTotal", 16));
+                JedisPool jedisPool = new JedisPool(poolConfig, host, port,
+                        getIntParameter("session.registry.redis.timeout", 2000),
+                        getStringParameter("session.registry.redis.password", null), database);
+                pool.enableRegistry(new RedisSessionRegistry(jedisPool,
+                        getStringParameter("session.registry.keyPrefix", "student_system:")), leaseMillis);
+                logger.info("集群会话登记: Redis {}:{}/{}, 租约: {}ms", host, port, database, leaseMillis);
+                break;
+            case "local":
+                pool.enableRegistry(new LocalSessionRegistry(), leaseMillis);
+                break;
+            case "none":
+                break;
+            default:
+                throw new IllegalArgumentException("不支持的session.registry.type: " + registryType);
+        }
         
-        return new SessionPool(maxTotal, maxIdle, minIdle, maxWaitMillis, sessionTimeout);
+        // 恢复上次运行时的会话，存储不可用时只在内存中保存会话；日志文件只允许所有者读写
+        if ("file".equals(getStringParameter("session.store.type", "file"))) {
+            String path = getStringParameter("session.store.file",
+                    System.getProperty("java.io.tmpdir") + "/student_system/sessions.log");
+            long flushMillis = getLongParameter("session.store.flushMillis", 200L);
+            int maxPending = getIntParameter("session.store.maxPending", FileSessionStore.DEFAULT_MAX_PENDING);
+            FileSessionStore store = new FileSessionStore(new File(path), flushMillis, maxPending);
+            try {
+                pool.recover(store);
+            } catch (IOException e) {
+                logger.warn("会话存储不可用，会话不持久化: {}", path, e);
+                store.close();
+            }
+        }
+        return pool;
+    }
+    
+    private String getStringParameter(String name, String defaultValue) {
+        String value = servletContext.getInitParameter(name);
+        return value != null && !value.trim().isEmpty() ? value.trim() : defaultValue;
     }
     
     private int getIntParameter(String name, int defaultValue) {
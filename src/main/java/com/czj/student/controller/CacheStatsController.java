@@ -0,0 +1,77 @@
+package com.czj.student.controller;
+
+import com.czj.student.common.ApiResponse;
+import com.czj.student.util.pool.CacheMetrics;
+import com.czj.student.util.pool.EntityCache;
+import com.czj.student.util.pool.ExistenceFilter;
+import com.czj.student.util.pool.PrometheusFormatter;
+import com.czj.student.util.pool.QueryPool;
+import com.czj.student.util.pool.ResponseBytesCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 查询缓存统计控制器 - 按方法和缓存组输出命中、加载耗时、移除原因等统计，以及存在性过滤器的误判率、实体缓存和响应缓存的命中率
+ */
+@RestController
+@RequestMapping("/api/cache")
+public class CacheStatsController {
+    
+    @Autowired
+    private List<ExistenceFilter> existenceFilters;
+    
+    @Autowired
+    private List<EntityCache<?>> entityCaches;
+    
+    @Autowired
+    private ResponseBytesCache responseBytesCache;
+    
+    /**
+     * JSON格式的缓存统计
+     */
+    @GetMapping("/stats")
+    public ApiResponse<Map<String, Object>> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("global", QueryPool.getGlobalStats());
+        stats.put("regions", QueryPool.getRegionStats());
+        stats.put("methods", snapshot(QueryPool.getMethodMetrics()));
+        stats.put("groups", snapshot(QueryPool.getGroupMetrics()));
+        Map<String, Object> filters = new TreeMap<>();
+        for (ExistenceFilter filter : existenceFilters) {
+            filters.put(filter.getName(), filter.snapshot());
+        }
+        stats.put("filters", filters);
+        Map<String, Object> entities = new TreeMap<>();
+        for (EntityCache<?> cache : entityCaches) {
+            entities.put(cache.getName(), cache.snapshot());
+        }
+        stats.put("entities", entities);
+        stats.put("responses", responseBytesCache.snapshot());
+        return ApiResponse.success(stats);
+    }
+    
+    /**
+     * Prometheus文本格式的缓存统计
+     */
+    @GetMapping("/metrics")
+    public ResponseEntity<String> getMetrics() {
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_TYPE, PrometheusFormatter.CONTENT_TYPE)
+                .body(PrometheusFormatter.format(QueryPool.getMethodMetrics(), QueryPool.getGroupMetrics()));
+    }
+    
+    private Map<String, Object> snapshot(Map<String, CacheMetrics> metrics) {
+        Map<String, Object> result = new TreeMap<>();
+        for (Map.Entry<String, CacheMetrics> entry : metrics.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().snapshot());
+        }
+        return result;
+    }
+}
@@ -1,6 +1,7 @@
 package com.czj.student.controller;
 
 import com.czj.student.annotation.Log;
+import com.czj.student.annotation.ResponseCache;
 import com.czj.student.common.ApiResponse;
 import com.czj.student.model.dto.StudentDTO;
 import com.czj.student.model.entity.Student;
@@ -41,6 +42,7 @@ public class StudentController {
      * 使用新分页框架查询学生列表
      */
     @Log(module = "学生管理", type = "查询", description = "使用新分页框架查询学生列表")
+    @ResponseCache(cacheGroups = {"student"})
     @GetMapping("/page")
     public ApiResponse<PageInfo<StudentVO>> getStudentsByPage(
             @RequestParam(defaultValue = "1") Integer page,
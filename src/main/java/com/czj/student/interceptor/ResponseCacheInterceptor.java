@@ -0,0 +1,124 @@
+package com.czj.student.interceptor;
+
+import com.czj.student.annotation.Log;
+import com.czj.student.annotation.ResponseCache;
+import com.czj.student.util.pool.QueryPool;
+import com.czj.student.util.pool.ResponseBytesCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.annotation.Resource;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 响应缓存拦截器
+ * 标记@ResponseCache的GET接口命中缓存时直接将JSON字节写入输出流，不再调用控制器；
+ * 未命中时记录请求键和执行前的缓存组版本，由ResponseCacheAdvice保存序列化结果。
+ * 配置在登录拦截器之后，未登录的请求不会读到缓存。
+ * 命中时控制器及其切面都不会执行，标记了@Log的接口由这里记录命中的请求
+ */
+public class ResponseCacheInterceptor implements HandlerInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResponseCacheInterceptor.class);
+
+    // 未命中时保存的请求属性
+    public static final String KEY_ATTRIBUTE = ResponseCacheInterceptor.class.getName() + ".key";
+    public static final String VERSION_ATTRIBUTE = ResponseCacheInterceptor.class.getName() + ".version";
+
+    @Resource
+    private ResponseBytesCache responseBytesCache;
+
+    @Value("${response.cache.enabled:true}")
+    private boolean enabled;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        if (!enabled || !"GET".equals(request.getMethod()) || !(handler instanceof HandlerMethod)) {
+            return true;
+        }
+        HandlerMethod handlerMethod = (HandlerMethod) handler;
+        ResponseCache annotation = handlerMethod.getMethodAnnotation(ResponseCache.class);
+        if (annotation == null) {
+            return true;
+        }
+
+        // 命中和未命中都声明按Accept-Encoding区分，中间缓存看到的响应头一致
+        response.setHeader("Vary", "Accept-Encoding");
+        String key = keyOf(request);
+        // 版本在调用控制器前取得，执行期间缓存组被清除时保存的响应不会再命中
+        long version = QueryPool.groupVersion(annotation.cacheGroups());
+        ResponseBytesCache.CachedResponse cached = responseBytesCache.get(key, version);
+        if (cached == null) {
+            request.setAttribute(KEY_ATTRIBUTE, key);
+            request.setAttribute(VERSION_ATTRIBUTE, version);
+            return true;
+        }
+
+        logHit(handlerMethod, key);
+        byte[] body = cached.getJson();
+        response.setContentType("application/json;charset=UTF-8");
+        if (cached.getGzip() != null && acceptsGzip(request)) {
+            body = cached.getGzip();
+            response.setHeader("Content-Encoding", "gzip");
+        }
+        response.setContentLength(body.length);
+        ServletOutputStream out = response.getOutputStream();
+        out.write(body);
+        out.flush();
+        return false;
+    }
+
+    /**
+     * 命中时LogAspect不会执行，按相同格式记录@Log接口的请求
+     */
+    private static void logHit(HandlerMethod handlerMethod, String key) {
+        Log logAnnotation = handlerMethod.getMethodAnnotation(Log.class);
+        if (logAnnotation == null) {
+            return;
+        }
+        logger.info("模块名称: {}", logAnnotation.module());
+        logger.info("操作类型: {}", logAnnotation.type());
+        logger.info("操作描述: {}", logAnnotation.description());
+        logger.info("响应缓存命中: {}.{}, 请求: {}", handlerMethod.getBeanType().getName(),
+                handlerMethod.getMethod().getName(), key);
+    }
+
+    /**
+     * 请求键：路径加按名称排序的参数，参数顺序不同的相同请求共用缓存；
+     * 参数名和值重新URL编码，值中含有&、=的请求不会与拆开后的参数得到相同的键
+     */
+    static String keyOf(HttpServletRequest request) {
+        StringBuilder key = new StringBuilder(request.getRequestURI());
+        Map<String, String[]> params = new TreeMap<>(request.getParameterMap());
+        char separator = '?';
+        for (Map.Entry<String, String[]> param : params.entrySet()) {
+            for (String value : param.getValue()) {
+                key.append(separator).append(encode(param.getKey())).append('=').append(encode(value));
+                separator = '&';
+            }
+        }
+        return key.toString();
+    }
+
+    private static String encode(String value) {
+        try {
+            return URLEncoder.encode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader("Accept-Encoding");
+        return acceptEncoding != null && acceptEncoding.contains("gzip");
+    }
+}
@@ -2,6 +2,7 @@ package com.czj.student.mapper;
 
 import com.czj.student.model.entity.Course;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.session.ResultHandler;
 import java.util.List;
 
 /**
@@ -13,6 +14,11 @@ public interface CourseMapper {
      */
     Course selectById(@Param("cid") Long cid);
 
+    /**
+     * 根据ID批量查询课程
+     */
+    List<Course> selectByIds(@Param("cids") List<Long> cids);
+
     /**
      * 根据课程编号查询课程
      */
@@ -48,6 +54,11 @@ public interface CourseMapper {
      */
     int delete(@Param("cid") Long cid);
 
+    /**
+     * 逐行读取全部课程编号，用于重建存在性过滤器
+     */
+    void scanCourseNo(ResultHandler<String> handler);
+
 
         
 
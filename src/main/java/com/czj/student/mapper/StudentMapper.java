@@ -3,7 +3,9 @@ package com.czj.student.mapper;
 import com.czj.student.model.entity.Student;
 import com.czj.student.model.vo.StudentVO;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.session.ResultHandler;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 学生Mapper接口
@@ -41,6 +43,14 @@ public interface StudentMapper {
      */
     Student selectById(@Param("sid") Long sid);
 
+    /**
+     * 根据ID批量查询学生
+     *
+     * @param sids 学生ID
+     * @return 学生信息，不保证顺序
+     */
+    List<Student> selectByIds(@Param("sids") List<Long> sids);
+
     /**
      * 根据学号查询学生
      *
@@ -83,4 +93,40 @@ public interface StudentMapper {
         @Param("offset") int offset, 
         @Param("size") int size, 
         @Param("keyword") String keyword);
+
+    /**
+     * 查询学生表数据版本：行数、最大ID及最后更新时间，任一变化说明数据已变化
+     * @return 版本字符串
+     */
+    String selectVersion();
+
+    /**
+     * 查询学生ID范围
+     * @return minSid、maxSid
+     */
+    Map<String, Object> selectSidRange();
+
+    /**
+     * 从指定ID起按ID顺序读取一段学生，统计其中匹配关键字的行数，用于估算总数
+     * @param startSid 起始ID
+     * @param limit 读取行数
+     * @param keyword 关键字
+     * @return scanned为读取的行数，matched为匹配的行数
+     */
+    Map<String, Object> sampleKeywordMatches(
+        @Param("startSid") long startSid,
+        @Param("limit") int limit,
+        @Param("keyword") String keyword);
+
+    /**
+     * 逐行读取全部学号，用于重建存在性过滤器
+     * @param handler 行处理器
+     */
+    void scanSno(ResultHandler<String> handler);
+
+    /**
+     * 逐行读取全部身份证号，用于重建存在性过滤器
+     * @param handler 行处理器
+     */
+    void scanSfzh(ResultHandler<String> handler);
 } 
\ No newline at end of file
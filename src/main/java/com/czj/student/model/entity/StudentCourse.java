@@ -1,6 +1,8 @@
 package com.czj.student.model.entity;
 
 import lombok.Data;
+
+import java.io.Serializable;
 import java.math.BigDecimal;
 import java.util.Date;
 
@@ -8,7 +10,9 @@ import java.util.Date;
  * 选课及成绩实体类
  */
 @Data
-public class StudentCourse {
+public class StudentCourse implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     /**
      * 学生ID
      */
@@ -5,6 +5,8 @@ import com.czj.student.model.entity.Course;
 import com.czj.student.util.PageRequest;
 import com.czj.student.util.PageResult;
 
+import java.util.List;
+
 /**
  * 课程服务接口
  */
@@ -33,6 +35,13 @@ public interface CourseService {
    */
   Course getCourseByCourseNo(String courseNo);
 
+  /**
+   * 根据ID批量查询课程
+   * @param cids 课程ID列表
+   * @return 存在的课程，按ID列表的顺序
+   */
+  List<Course> getCoursesByIds(List<Long> cids);
+
   /**
    * 新增课程
    * @param course 课程信息
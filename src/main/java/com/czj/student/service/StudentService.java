@@ -8,6 +8,8 @@ import com.czj.student.model.vo.PageInfo;
 import com.czj.student.util.PageRequest;
 import com.czj.student.util.PageResult;
 
+import java.util.List;
+
 @Service
 public interface StudentService {
     /**
@@ -44,6 +46,14 @@ public interface StudentService {
      */
     Student getStudentByNo(String sno);
 
+    /**
+     * 根据ID批量查询学生
+     *
+     * @param sids 学生ID列表
+     * @return 存在的学生，按ID列表的顺序
+     */
+    List<Student> getStudentsByIds(List<Long> sids);
+
     /**
      * 新增学生
      *
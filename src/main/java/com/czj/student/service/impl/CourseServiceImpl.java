@@ -11,7 +11,10 @@ import com.czj.student.model.entity.Course;
 import com.czj.student.util.PageRequest;
 import com.czj.student.util.PageResult;
 import com.czj.student.util.ValidateUtils;
+import com.czj.student.util.pool.EntityCache;
+import com.czj.student.util.pool.ExistenceFilter;
 
+import javax.annotation.Resource;
 import java.util.Collections;
 import java.util.List;
 
@@ -20,6 +23,12 @@ public class CourseServiceImpl implements CourseService {
     
     @Autowired
     private CourseMapper courseMapper;
+    
+    @Resource(name = "courseNoFilter")
+    private ExistenceFilter courseNoFilter;
+    
+    @Resource(name = "courseCache")
+    private EntityCache<Course> courseCache;
 
     @Override
     public PageResult<Course> listCourses(Course course, PageRequest pageRequest) {
@@ -46,7 +55,7 @@ public class CourseServiceImpl implements CourseService {
         }
         
         // 查询课程信息
-        Course course = courseMapper.selectById(cid);
+        Course course = courseCache.get(cid, courseMapper::selectById);
         if (course == null) {
             throw new RuntimeException("课程不存在");
         }
@@ -61,8 +70,9 @@ public class CourseServiceImpl implements CourseService {
             throw new IllegalArgumentException("课程编号不能为空");
         }
         
-        // 查询课程信息
-        Course course = courseMapper.selectByCourseNo(courseNo);
+        // 查询课程信息，过滤器判断一定不存在且不需要确认的课程编号不查询数据库
+        Course course = courseNoFilter.lookup(courseNo,
+                () -> courseCache.getByNaturalKey(courseNo, courseMapper::selectByCourseNo));
         if (course == null) {
             throw new RuntimeException("课程不存在");
         }
@@ -70,6 +80,14 @@ public class CourseServiceImpl implements CourseService {
         return course;
     }
 
+    @Override
+    public List<Course> getCoursesByIds(List<Long> cids) {
+        if (cids == null || cids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return courseCache.getAll(cids, courseMapper::selectByIds);
+    }
+
     @Override
     @Transactional
     public void addCourse(Course course) {
@@ -77,12 +95,12 @@ public class CourseServiceImpl implements CourseService {
         validateCourse(course);
         
         // 检查课程编号是否已存在
-        Course existingCourse = courseMapper.selectByCourseNo(course.getCourseNo());
-        if (existingCourse != null) {
+        if (courseNoExists(course.getCourseNo())) {
             throw new RuntimeException("课程编号已存在");
         }
         
-        // 插入课程信息
+        // 插入课程信息，新键先加入过滤器
+        courseNoFilter.put(course.getCourseNo());
         int rows = courseMapper.insert(course);
         if (rows != 1) {
             throw new RuntimeException("新增课程失败");
@@ -105,14 +123,13 @@ public class CourseServiceImpl implements CourseService {
         }
         
         // 如果修改了课程编号，检查新编号是否已存在
-        if (!existingCourse.getCourseNo().equals(course.getCourseNo())) {
-            Course courseWithSameNo = courseMapper.selectByCourseNo(course.getCourseNo());
-            if (courseWithSameNo != null) {
-                throw new RuntimeException("课程编号已存在");
-            }
+        if (!existingCourse.getCourseNo().equals(course.getCourseNo()) && courseNoExists(course.getCourseNo())) {
+            throw new RuntimeException("课程编号已存在");
         }
         
-        // 更新课程信息
+        // 更新课程信息，新键先加入过滤器
+        courseNoFilter.put(course.getCourseNo());
+        courseCache.invalidate(course.getCid());
         int rows = courseMapper.update(course);
         if (rows != 1) {
             throw new RuntimeException("更新课程失败");
@@ -136,12 +153,20 @@ public class CourseServiceImpl implements CourseService {
         // TODO: 检查课程是否有关联的选课记录，如果有则不能删除
         
         // 删除课程信息
+        courseCache.invalidate(cid);
         int rows = courseMapper.delete(cid);
         if (rows != 1) {
             throw new RuntimeException("删除课程失败");
         }
     }
     
+    /**
+     * 课程编号是否已存在，过滤器判断一定不存在且不需要确认时不查询数据库
+     */
+    private boolean courseNoExists(String courseNo) {
+        return courseNoFilter.lookup(courseNo, () -> courseMapper.selectByCourseNo(courseNo)) != null;
+    }
+    
     /**
      * 校验课程信息
      */
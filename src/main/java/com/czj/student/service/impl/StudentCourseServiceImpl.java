@@ -9,10 +9,12 @@ import com.czj.student.model.entity.Course;
 import com.czj.student.service.StudentCourseService;
 import com.czj.student.util.PageRequest;
 import com.czj.student.util.PageResult;
+import com.czj.student.util.pool.EntityCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.annotation.Resource;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.Collections;
@@ -32,6 +34,12 @@ public class StudentCourseServiceImpl implements StudentCourseService {
     
     @Autowired
     private CourseMapper courseMapper;
+    
+    @Resource(name = "studentCache")
+    private EntityCache<Student> studentCache;
+    
+    @Resource(name = "courseCache")
+    private EntityCache<Course> courseCache;
 
     @Override
     @Transactional
@@ -40,13 +48,13 @@ public class StudentCourseServiceImpl implements StudentCourseService {
         validateParams(studentSid, courseCid, semester);
         
         // 检查学生是否存在
-        Student student = studentMapper.selectById(studentSid);
+        Student student = studentCache.get(studentSid, studentMapper::selectById);
         if (student == null) {
             throw new RuntimeException("学生不存在");
         }
         
         // 检查课程是否存在
-        Course course = courseMapper.selectById(courseCid);
+        Course course = courseCache.get(courseCid, courseMapper::selectById);
         if (course == null) {
             throw new RuntimeException("课程不存在");
         }
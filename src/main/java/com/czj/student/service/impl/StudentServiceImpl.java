@@ -11,26 +11,51 @@ import com.czj.student.service.StudentService;
 import com.czj.student.util.PageRequest;
 import com.czj.student.util.PageResult;
 import com.czj.student.util.ValidateUtils;
+import com.czj.student.util.pool.CountCache;
+import com.czj.student.util.pool.EntityCache;
+import com.czj.student.util.pool.ExistenceFilter;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
+import javax.annotation.Resource;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
 
 @Service
 public class StudentServiceImpl implements StudentService {
     
+    // 总数缓存中的表名
+    private static final String COUNT_TABLE = "student";
+    
+    // 估算总数时的抽样段数及每段行数
+    private static final int SAMPLE_BLOCKS = 8;
+    private static final int SAMPLE_BLOCK_ROWS = 500;
+    
     @Autowired
     private StudentMapper studentMapper;
+    
+    @Autowired
+    private CountCache countCache;
+    
+    @Resource(name = "snoFilter")
+    private ExistenceFilter snoFilter;
+    
+    @Resource(name = "sfzhFilter")
+    private ExistenceFilter sfzhFilter;
+    
+    @Resource(name = "studentCache")
+    private EntityCache<Student> studentCache;
 
     @Override
     public PageResult<Student> listStudents(Student student, PageRequest pageRequest) {
         // 查询总记录数
-        long total = studentMapper.selectCount(student);
+        long total = countCache.get(COUNT_TABLE, listFilter(student), () -> studentMapper.selectCount(student));
         
         // 如果没有记录，直接返回空结果
         if (total == 0) {
@@ -45,10 +70,10 @@ public class StudentServiceImpl implements StudentService {
     }
     
     @Override
-    @PageQuery(cacheGroups = {"student"})
+    @PageQuery(cacheGroups = {"student"}, entityTag = "sid")
     public PageInfo<StudentVO> queryStudentsByPage(PageInfo<StudentVO> pageInfo, String keyword) {
-        // 查询总数
-        int total = studentMapper.countStudentsByKeyword(keyword);
+        // 查询总数，翻页时使用缓存的总数
+        long total = countByKeyword(keyword);
         
         // 如果没有记录，直接返回空结果
         if (total == 0) {
@@ -74,7 +99,7 @@ public class StudentServiceImpl implements StudentService {
         }
         
         // 查询学生信息
-        Student student = studentMapper.selectById(sid);
+        Student student = studentCache.get(sid, studentMapper::selectById);
         if (student == null) {
             throw new RuntimeException("学生不存在");
         }
@@ -89,8 +114,9 @@ public class StudentServiceImpl implements StudentService {
             throw new IllegalArgumentException("学号不能为空");
         }
         
-        // 查询学生信息
-        Student student = studentMapper.selectByStudentNo(sno);
+        // 查询学生信息，过滤器判断一定不存在且不需要确认的学号不查询数据库
+        Student student = snoFilter.lookup(sno,
+                () -> studentCache.getByNaturalKey(sno, studentMapper::selectByStudentNo));
         if (student == null) {
             throw new RuntimeException("学生不存在");
         }
@@ -98,6 +124,14 @@ public class StudentServiceImpl implements StudentService {
         return student;
     }
 
+    @Override
+    public List<Student> getStudentsByIds(List<Long> sids) {
+        if (sids == null || sids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return studentCache.getAll(sids, studentMapper::selectByIds);
+    }
+
     @Override
     @Transactional
     public void addStudent(Student student) {
@@ -105,24 +139,23 @@ public class StudentServiceImpl implements StudentService {
         validateStudent(student);
         
         // 检查学号是否已存在
-        Student existingStudent = studentMapper.selectByStudentNo(student.getSno());
-        if (existingStudent != null) {
+        if (snoExists(student.getSno())) {
             throw new RuntimeException("学号已存在");
         }
         
         // 检查身份证号是否已存在
-        Student existingStudentBySfzh = studentMapper.selectList(new Student() {{
-            setSfzh(student.getSfzh());
-        }}).stream().findFirst().orElse(null);
-        if (existingStudentBySfzh != null) {
+        if (sfzhExists(student.getSfzh())) {
             throw new RuntimeException("身份证号已存在");
         }
         
-        // 插入学生信息
+        // 插入学生信息，新键先加入过滤器
+        snoFilter.put(student.getSno());
+        sfzhFilter.put(student.getSfzh());
         int rows = studentMapper.insert(student);
         if (rows != 1) {
             throw new RuntimeException("添加学生失败");
         }
+        countCache.adjust(COUNT_TABLE, 1);
     }
     
     @Override
@@ -135,8 +168,7 @@ public class StudentServiceImpl implements StudentService {
         }
         
         // 检查学号是否已存在
-        Student existingStudent = studentMapper.selectByStudentNo(studentDTO.getSno());
-        if (existingStudent != null) {
+        if (snoExists(studentDTO.getSno())) {
             throw new RuntimeException("学号已存在");
         }
         
@@ -148,8 +180,13 @@ public class StudentServiceImpl implements StudentService {
         student.setCreatedTime(new Date());
         student.setUpdatedTime(new Date());
         
-        // 插入学生信息
+        // 插入学生信息，新键先加入过滤器
+        snoFilter.put(student.getSno());
+        sfzhFilter.put(student.getSfzh());
         int rows = studentMapper.insert(student);
+        if (rows == 1) {
+            countCache.adjust(COUNT_TABLE, 1);
+        }
         return rows == 1;
     }
 
@@ -169,33 +206,30 @@ public class StudentServiceImpl implements StudentService {
         }
         
         // 如果修改了学号，检查新学号是否已存在
-        if (!existingStudent.getSno().equals(student.getSno())) {
-            Student studentWithSameNo = studentMapper.selectByStudentNo(student.getSno());
-            if (studentWithSameNo != null) {
-                throw new RuntimeException("学号已存在");
-            }
+        if (!existingStudent.getSno().equals(student.getSno()) && snoExists(student.getSno())) {
+            throw new RuntimeException("学号已存在");
         }
         
         // 如果修改了身份证号，检查新身份证号是否已存在
-        if (!existingStudent.getSfzh().equals(student.getSfzh())) {
-            Student studentWithSameSfzh = studentMapper.selectList(new Student() {{
-                setSfzh(student.getSfzh());
-            }}).stream().findFirst().orElse(null);
-            if (studentWithSameSfzh != null) {
-                throw new RuntimeException("身份证号已存在");
-            }
+        if (!existingStudent.getSfzh().equals(student.getSfzh()) && sfzhExists(student.getSfzh())) {
+            throw new RuntimeException("身份证号已存在");
         }
         
-        // 更新学生信息
+        // 更新学生信息，新键先加入过滤器
+        snoFilter.put(student.getSno());
+        sfzhFilter.put(student.getSfzh());
+        studentCache.invalidate(student.getSid());
         int rows = studentMapper.update(student);
         if (rows != 1) {
             throw new RuntimeException("更新学生信息失败");
         }
+        countCache.invalidateFiltered(COUNT_TABLE);
     }
     
     @Override
     @Transactional
-    @CacheInvalidate(cacheGroups = {"student"})
+    @CacheInvalidate(cacheGroups = {"student"}, entityTag = "sid", tagKey = "#studentDTO?.sid",
+            tagMatch = {"@studentMapper.selectById(#studentDTO.sid)", "#studentDTO"})
     public boolean updateStudentDTO(StudentDTO studentDTO) {
         // 参数校验
         if (studentDTO == null || studentDTO.getSid() == null) {
@@ -210,7 +244,8 @@ public class StudentServiceImpl implements StudentService {
         
         // 如果修改了学号，检查新学号是否已存在
         if (!existingStudent.getSno().equals(studentDTO.getSno())) {
-            Student studentWithSameNo = studentMapper.selectByStudentNo(studentDTO.getSno());
+            Student studentWithSameNo = snoFilter.lookup(studentDTO.getSno(),
+                    () -> studentMapper.selectByStudentNo(studentDTO.getSno()));
             if (studentWithSameNo != null && !studentWithSameNo.getSid().equals(studentDTO.getSid())) {
                 throw new RuntimeException("学号已存在");
             }
@@ -223,8 +258,14 @@ public class StudentServiceImpl implements StudentService {
         // 设置更新时间
         student.setUpdatedTime(new Date());
         
-        // 更新学生信息
+        // 更新学生信息，新键先加入过滤器
+        snoFilter.put(student.getSno());
+        sfzhFilter.put(student.getSfzh());
+        studentCache.invalidate(student.getSid());
         int rows = studentMapper.update(student);
+        if (rows == 1) {
+            countCache.invalidateFiltered(COUNT_TABLE);
+        }
         return rows == 1;
     }
 
@@ -246,10 +287,87 @@ public class StudentServiceImpl implements StudentService {
         // TODO: 检查学生是否有关联的选课记录，如果有则不能删除
         
         // 删除学生信息
+        studentCache.invalidate(sid);
         int rows = studentMapper.deleteById(sid);
         if (rows != 1) {
             throw new RuntimeException("删除学生失败");
         }
+        countCache.adjust(COUNT_TABLE, -1);
+    }
+    
+    /**
+     * 按关键字统计学生总数
+     * 无关键字的总数随新增删除调整；开启估算且表足够大时，带关键字的总数按抽样比例估算
+     */
+    private long countByKeyword(String keyword) {
+        if (!StringUtils.hasText(keyword)) {
+            return countCache.get(COUNT_TABLE, null, () -> studentMapper.countStudentsByKeyword(null));
+        }
+        return countCache.get(COUNT_TABLE, "keyword:" + keyword, () -> {
+            long rows = countCache.get(COUNT_TABLE, null, () -> studentMapper.countStudentsByKeyword(null));
+            if (countCache.useApproximate(rows)) {
+                long estimate = estimateByKeyword(keyword, rows);
+                if (estimate > 0) {
+                    return estimate;
+                }
+            }
+            return studentMapper.countStudentsByKeyword(keyword);
+        });
+    }
+    
+    /**
+     * 从随机位置起按主键读取若干段学生，按匹配比例乘以总行数估算总数
+     * @return 估算的总数，样本中没有匹配时返回0，由调用方精确统计
+     */
+    private long estimateByKeyword(String keyword, long rows) {
+        Map<String, Object> range = studentMapper.selectSidRange();
+        long minSid = ((Number) range.get("minSid")).longValue();
+        long maxSid = ((Number) range.get("maxSid")).longValue();
+        long scanned = 0;
+        long matched = 0;
+        for (int i = 0; i < SAMPLE_BLOCKS; i++) {
+            long startSid = ThreadLocalRandom.current().nextLong(minSid, maxSid + 1);
+            Map<String, Object> sample = studentMapper.sampleKeywordMatches(startSid, SAMPLE_BLOCK_ROWS, keyword);
+            scanned += ((Number) sample.get("scanned")).longValue();
+            matched += ((Number) sample.get("matched")).longValue();
+        }
+        return scanned > 0 ? Math.round((double) matched / scanned * rows) : 0;
+    }
+    
+    /**
+     * 学号是否已存在，过滤器判断一定不存在且不需要确认时不查询数据库
+     */
+    private boolean snoExists(String sno) {
+        return snoFilter.lookup(sno, () -> studentMapper.selectByStudentNo(sno)) != null;
+    }
+    
+    /**
+     * 身份证号是否已存在，过滤器判断一定不存在且不需要确认时不查询数据库
+     */
+    private boolean sfzhExists(String sfzh) {
+        Student condition = new Student();
+        condition.setSfzh(sfzh);
+        return sfzhFilter.lookup(sfzh, () -> studentMapper.selectList(condition).isEmpty() ? null : Boolean.TRUE) != null;
+    }
+    
+    /**
+     * 列表查询条件对应的总数缓存键，没有条件时为null
+     */
+    private String listFilter(Student student) {
+        if (student == null) {
+            return null;
+        }
+        String[] values = {student.getSno(), student.getName(), student.getSfzh(), student.getGender(), student.getMajor()};
+        StringBuilder filter = new StringBuilder("list");
+        boolean empty = true;
+        for (String value : values) {
+            filter.append('|');
+            if (StringUtils.hasText(value)) {
+                filter.append(value);
+                empty = false;
+            }
+        }
+        return empty ? null : filter.toString();
     }
     
     /**
@@ -1,6 +1,5 @@
 package com.czj.student.session;
 
-import java.util.Date;
 import com.czj.student.session.pool.SessionPool;
 import com.czj.student.session.pool.UserSession;
 import com.czj.student.session.pool.SessionException;
@@ -8,7 +7,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 import javax.annotation.Resource;
-import org.springframework.scheduling.annotation.Scheduled;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.ConcurrentHashMap;
@@ -44,17 +42,19 @@ public class SessionManager {
         try {
             logger.info("尝试登录 - 学号: {}, 会话ID: {}, IP: {}", sno, sessionId, ip);
             // 使用传入的sessionId(JSESSIONID)获取会话
-            UserSession session = sessionPool.borrowSession(sno, sessionId);
-            
-            // 设置会话信息
-            session.setIp(ip);
-            session.setLoginTime(new Date());
+            // 登录IP和时间在会话可见前设置
+            sessionPool.borrowSession(sno, sessionId, ip);
             
             logger.info("用户[{}]从IP[{}]登录成功", sno, ip);
             return true;
         } catch (SessionException e) {
-            logger.info("用户[{}]在IP[{}]尝试登录，但已在IP[{}]登录", 
-                sno, ip, sessionPool.getCurrentLoginIp(sno));
+            String currentIp = sessionPool.getCurrentLoginIp(sno);
+            if (currentIp != null) {
+                logger.info("用户[{}]在IP[{}]尝试登录，但已在IP[{}]登录", sno, ip, currentIp);
+            } else {
+                // 排队已满或等待超时
+                logger.warn("用户[{}]从IP[{}]登录失败: {}", sno, ip, e.getMessage());
+            }
             return false;
         }
     }
@@ -104,9 +104,9 @@ public class SessionManager {
     public boolean isValidSession(String sno, String sessionId) {
         try {
             logger.debug("验证会话 - 学号: {}, 会话ID: {}", sno, sessionId);
-            boolean isValid = sessionPool.isValidSession(sno, sessionId);
+            // 验证和更新访问时间在会话池中一次完成
+            boolean isValid = sessionPool.validateAndTouch(sno, sessionId);
             if (isValid) {
-                sessionPool.updateSessionActivity(sno);
                 logger.debug("会话验证成功 - 学号: {}", sno);
             } else {
                 logger.debug("会话验证失败 - 学号: {}", sno);
@@ -126,12 +126,4 @@ public class SessionManager {
     public String getCurrentLoginIp(String sno) {
         return sessionPool.getCurrentLoginIp(sno);
     }
-    
-    /**
-     * 定时清理过期会话
-     */
-    @Scheduled(fixedDelay = 60000)  // 每分钟执行一次
-    public void cleanExpiredSessions() {
-        sessionPool.maintain();  // 使用SessionPool的maintain方法进行维护
-    }
 } 
\ No newline at end of file
@@ -0,0 +1,121 @@
+package com.czj.student.session.pool;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 登录准入队列
+ * 会话名额用公平信号量控制，名额不足时按到达顺序排队，每个请求在各自的截止时间前未获得名额即失败；
+ * 排队人数达到上限时新请求直接拒绝，不再等待。获取名额在任何会话锁之外进行，排队不影响验证和登出
+ */
+class AdmissionQueue {
+
+    private final Semaphore permits;
+    private final int maxQueue;
+
+    // 正在排队的请求数
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    // 统计信息
+    private final AtomicLong admittedCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    // 排队后完成等待(获得名额或超时)的请求数
+    private final AtomicLong queuedCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    /**
+     * @param permits 会话名额
+     * @param maxQueue 最多排队的请求数，0表示名额不足时直接拒绝
+     */
+    AdmissionQueue(int permits, int maxQueue) {
+        this.permits = new Semaphore(permits, true);
+        this.maxQueue = maxQueue;
+    }
+
+    /**
+     * 获取一个会话名额
+     * @param deadlineMillis 最长等待时间(毫秒)
+     * @return 是否获得名额，等待超时返回false
+     * @throws SessionException 排队人数已满
+     * @throws InterruptedException 等待被中断
+     */
+    boolean acquire(long deadlineMillis) throws InterruptedException {
+        // 公平信号量下不插队：有人排队时也进入队列
+        if (permits.tryAcquire(0, TimeUnit.MILLISECONDS)) {
+            admittedCount.incrementAndGet();
+            return true;
+        }
+        if (waiting.incrementAndGet() > maxQueue) {
+            waiting.decrementAndGet();
+            rejectedCount.incrementAndGet();
+            throw new SessionException("登录人数过多，请稍后重试");
+        }
+        long start = System.nanoTime();
+        try {
+            boolean acquired = permits.tryAcquire(deadlineMillis, TimeUnit.MILLISECONDS);
+            long waited = System.nanoTime() - start;
+            queuedCount.incrementAndGet();
+            totalWaitNanos.addAndGet(waited);
+            maxWaitNanos.accumulateAndGet(waited, Math::max);
+            if (acquired) {
+                admittedCount.incrementAndGet();
+            } else {
+                timeoutCount.incrementAndGet();
+            }
+            return acquired;
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    /**
+     * 不等待地获取一个会话名额，用于启动时恢复会话
+     * @return 是否获得名额
+     */
+    boolean tryAcquire() {
+        if (permits.tryAcquire()) {
+            admittedCount.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 归还一个会话名额
+     */
+    void release() {
+        permits.release();
+    }
+
+    int getWaiting() {
+        return waiting.get();
+    }
+
+    long getAdmittedCount() {
+        return admittedCount.get();
+    }
+
+    long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    long getTimeoutCount() {
+        return timeoutCount.get();
+    }
+
+    /**
+     * @return 排队请求的平均等待时间(毫秒)
+     */
+    double getAverageWaitMillis() {
+        long queued = queuedCount.get();
+        return queued == 0 ? 0.0 : totalWaitNanos.get() / 1e6 / queued;
+    }
+
+    long getMaxWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get());
+    }
+}
@@ -0,0 +1,356 @@
+package com.czj.student.session.pool;
+
+import com.czj.student.util.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * 基于本地追加日志的会话存储
+ * 请求线程只把修改放入队列，后台线程按批写入日志并同步到磁盘；
+ * 每条记录带长度和CRC校验，异常退出时末尾不完整的记录在读取时丢弃。
+ * 日志记录数超过存活会话数的两倍(且不少于1000条)时，把存活的会话重写为新日志。
+ * 写入或重写失败时写入线程继续运行并定期重试重写；待写入的修改超过上限或写入线程已退出时丢弃并计数。
+ * 日志中有会话ID，文件和新建的目录只允许所有者访问，属于其他用户或其他用户可写的日志不读取
+ */
+public class FileSessionStore implements SessionStore {
+    private static final Logger logger = LoggerFactory.getLogger(FileSessionStore.class);
+
+    private static final int MAGIC = 0x53534C31;
+
+    private static final int FORMAT_VERSION = 1;
+
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+
+    // 触发重写的最少日志记录数
+    private static final int MIN_COMPACT_RECORDS = 1000;
+
+    // 重写失败后的默认重试间隔(毫秒)
+    private static final long COMPACT_RETRY_MILLIS = 5000;
+
+    // 默认的待写入修改上限
+    public static final int DEFAULT_MAX_PENDING = 10000;
+
+    private final File file;
+    private final long flushMillis;
+    private volatile long compactRetryMillis = COMPACT_RETRY_MILLIS;
+
+    // 待写入的修改，record为null表示删除
+    private final LinkedBlockingQueue<Change> changes;
+
+    // 队列已满或写入线程退出后丢弃的修改数
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    // 以下字段只由写入线程访问(启动前由load访问)
+    private final Map<String, SessionRecord> live = new LinkedHashMap<>();
+    private FileOutputStream fileOut;
+    private DataOutputStream out;
+    private int logRecords;
+    // 重写失败后下次重试的时间，0表示不需要重试
+    private long compactRetryAt;
+
+    private volatile boolean closed;
+    private volatile Thread writer;
+    // 写入线程已退出，之后的修改不再入队
+    private volatile boolean writerStopped;
+
+    /**
+     * @param file 日志文件
+     * @param flushMillis 批量写入的间隔(毫秒)
+     */
+    public FileSessionStore(File file, long flushMillis) {
+        this(file, flushMillis, DEFAULT_MAX_PENDING);
+    }
+
+    /**
+     * @param file 日志文件
+     * @param flushMillis 批量写入的间隔(毫秒)
+     * @param maxPending 待写入修改的上限，超过时丢弃新的修改
+     */
+    public FileSessionStore(File file, long flushMillis, int maxPending) {
+        this.file = file;
+        this.flushMillis = Math.max(1, flushMillis);
+        this.changes = new LinkedBlockingQueue<>(Math.max(1, maxPending));
+    }
+
+    @Override
+    public void save(SessionRecord record) {
+        enqueue(new Change(record.getSno(), record));
+    }
+
+    @Override
+    public void remove(String sno) {
+        enqueue(new Change(sno, null));
+    }
+
+    private void enqueue(Change change) {
+        if (closed) {
+            return;
+        }
+        if (writerStopped || !changes.offer(change)) {
+            // 第一次丢弃时记录日志，之后只计数
+            if (droppedCount.getAndIncrement() == 0) {
+                logger.warn("会话存储{}，丢弃修改: {}", writerStopped ? "写入线程已退出" : "待写入的修改已满", file);
+            }
+        }
+    }
+
+    /**
+     * 设置重写失败后的重试间隔(毫秒)，用于测试
+     */
+    void setCompactRetryMillis(long compactRetryMillis) {
+        this.compactRetryMillis = Math.max(1, compactRetryMillis);
+    }
+
+    /**
+     * @return 丢弃的修改数
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    @Override
+    public synchronized Collection<SessionRecord> load() throws IOException {
+        if (writer != null) {
+            throw new IllegalStateException("会话存储已加载");
+        }
+        if (file.isFile()) {
+            // 其他用户放置的日志可以伪造会话，不读取
+            File dir = file.getAbsoluteFile().getParentFile();
+            if (dir != null) {
+                FileUtils.checkPrivate(dir.toPath());
+            }
+            FileUtils.checkPrivate(file.toPath());
+            readLog();
+        }
+        // 读取后立即重写，去掉已删除的会话及末尾不完整的记录
+        compact();
+        Thread thread = new Thread(this::writeLoop, "session-store-writer");
+        thread.setDaemon(true);
+        writer = thread;
+        thread.start();
+        return new ArrayList<>(live.values());
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        Thread thread = writer;
+        if (thread == null) {
+            return;
+        }
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeLoop() {
+        List<Change> batch = new ArrayList<>();
+        try {
+            while (!closed || !changes.isEmpty()) {
+                Change first = changes.poll(flushMillis, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    changes.drainTo(batch);
+                    writeBatch(batch);
+                    batch.clear();
+                }
+                if (compactRetryAt > 0 ? System.currentTimeMillis() >= compactRetryAt
+                        : logRecords >= MIN_COMPACT_RECORDS && logRecords > 2 * live.size()) {
+                    tryCompact();
+                }
+            }
+            // 停止前重写一次，下次启动只需读取存活的会话
+            tryCompact();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException | Error e) {
+            logger.error("会话存储写入线程异常退出: {}", file, e);
+            throw e;
+        } finally {
+            writerStopped = true;
+            closeQuietly();
+        }
+    }
+
+    /**
+     * 重写日志，失败时保留内存中的状态并在稍后重试，写入线程不退出
+     */
+    private void tryCompact() {
+        try {
+            compact();
+            compactRetryAt = 0;
+        } catch (IOException e) {
+            logger.warn("会话存储重写失败，{}ms后重试: {}", compactRetryMillis, file, e);
+            compactRetryAt = System.currentTimeMillis() + compactRetryMillis;
+        }
+    }
+
+    private void writeBatch(List<Change> batch) {
+        for (Change change : batch) {
+            if (change.record != null) {
+                live.put(change.sno, change.record);
+            } else {
+                live.remove(change.sno);
+            }
+        }
+        if (out == null) {
+            // 上次重写失败，日志未打开，等待重试时一并写入
+            return;
+        }
+        try {
+            for (Change change : batch) {
+                writeRecord(out, change.sno, change.record);
+                logRecords++;
+            }
+            out.flush();
+            fileOut.getFD().sync();
+        } catch (IOException e) {
+            // 内存中的状态已更新，下次重写时补齐
+            logger.warn("写入会话存储失败: {}, {}条", file, batch.size(), e);
+            compactRetryAt = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * 把存活的会话写入临时文件后替换日志，并重新打开追加
+     */
+    private void compact() throws IOException {
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (dir != null) {
+            FileUtils.createPrivateDirectories(dir.toPath());
+        }
+        closeQuietly();
+        File temp = new File(file.getPath() + ".tmp");
+        FileUtils.createPrivateFile(temp.toPath());
+        try (FileOutputStream tempOut = new FileOutputStream(temp);
+             DataOutputStream data = new DataOutputStream(new BufferedOutputStream(tempOut))) {
+            data.writeInt(MAGIC);
+            data.writeInt(FORMAT_VERSION);
+            for (SessionRecord record : live.values()) {
+                writeRecord(data, record.getSno(), record);
+            }
+            data.flush();
+            tempOut.getFD().sync();
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        logRecords = live.size();
+        fileOut = new FileOutputStream(file, true);
+        out = new DataOutputStream(new BufferedOutputStream(fileOut));
+    }
+
+    private void readLog() throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                logger.warn("会话存储格式不匹配，忽略: {}", file);
+                return;
+            }
+            CRC32 crc = new CRC32();
+            while (true) {
+                byte[] payload;
+                int checksum;
+                try {
+                    int length = in.readInt();
+                    if (length <= 0 || length > 64 * 1024) {
+                        logger.warn("会话存储记录长度异常，忽略之后的内容: {}", file);
+                        return;
+                    }
+                    payload = new byte[length];
+                    in.readFully(payload);
+                    checksum = in.readInt();
+                } catch (EOFException e) {
+                    // 正常结束或末尾记录不完整
+                    return;
+                }
+                crc.reset();
+                crc.update(payload, 0, payload.length);
+                if ((int) crc.getValue() != checksum) {
+                    logger.warn("会话存储记录校验失败，忽略之后的内容: {}", file);
+                    return;
+                }
+                applyRecord(payload);
+            }
+        } catch (EOFException e) {
+            logger.warn("会话存储文件不完整，忽略: {}", file);
+        }
+    }
+
+    private void applyRecord(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte op = in.readByte();
+        String sno = in.readUTF();
+        if (op == REMOVE) {
+            live.remove(sno);
+            return;
+        }
+        String sessionId = in.readUTF();
+        String ip = in.readUTF();
+        long loginTime = in.readLong();
+        long createTime = in.readLong();
+        long lastAccessTime = in.readLong();
+        live.put(sno, new SessionRecord(sno, sessionId, ip.isEmpty() ? null : ip, loginTime, createTime,
+                lastAccessTime));
+    }
+
+    /**
+     * 记录格式：长度、内容、CRC32；record为null时写入删除记录
+     */
+    private static void writeRecord(DataOutputStream target, String sno, SessionRecord record) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(96);
+        DataOutputStream data = new DataOutputStream(bytes);
+        if (record == null) {
+            data.writeByte(REMOVE);
+            data.writeUTF(sno);
+        } else {
+            data.writeByte(PUT);
+            data.writeUTF(sno);
+            data.writeUTF(record.getSessionId());
+            data.writeUTF(record.getIp() != null ? record.getIp() : "");
+            data.writeLong(record.getLoginTime());
+            data.writeLong(record.getCreateTime());
+            data.writeLong(record.getLastAccessTime());
+        }
+        CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray(), 0, bytes.size());
+        target.writeInt(bytes.size());
+        bytes.writeTo(target);
+        target.writeInt((int) crc.getValue());
+    }
+
+    private void closeQuietly() {
+        if (out != null) {
+            try {
+                out.close();
+            } catch (IOException e) {
+                logger.debug("关闭会话存储失败: {}", file, e);
+            }
+            out = null;
+            fileOut = null;
+        }
+    }
+
+    private static final class Change {
+        final String sno;
+        final SessionRecord record;
+
+        Change(String sno, SessionRecord record) {
+            this.sno = sno;
+            this.record = record;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.czj.student.session.pool;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 进程内会话登记
+ * 语义与Redis实现一致，用于单节点部署和测试；多个会话池共用一个实例即模拟多个节点
+ */
+public class LocalSessionRegistry implements SessionRegistry {
+
+    private static class Claim {
+        final String sessionId;
+        final long lastAccessTime;
+        final long expireAt;
+
+        Claim(String sessionId, long lastAccessTime, long expireAt) {
+            this.sessionId = sessionId;
+            this.lastAccessTime = lastAccessTime;
+            this.expireAt = expireAt;
+        }
+
+        boolean ownedBy(String sessionId, long now) {
+            return expireAt > now && this.sessionId.equals(sessionId);
+        }
+    }
+
+    private final ConcurrentHashMap<String, Claim> claims = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean claim(String sno, String sessionId, long accessTime, long ttlMillis) {
+        long now = System.currentTimeMillis();
+        Claim claim = new Claim(sessionId, accessTime, now + ttlMillis);
+        return claims.compute(sno, (k, current) ->
+                current == null || current.expireAt <= now ? claim : current) == claim;
+    }
+
+    @Override
+    public boolean renew(String sno, String sessionId, long accessTime, long maxIdleMillis, long ttlMillis) {
+        long now = System.currentTimeMillis();
+        Claim[] renewed = new Claim[1];
+        claims.computeIfPresent(sno, (k, current) -> {
+            if (!current.ownedBy(sessionId, now) || accessTime - current.lastAccessTime > maxIdleMillis) {
+                return current;
+            }
+            renewed[0] = new Claim(sessionId, Math.max(accessTime, current.lastAccessTime), now + ttlMillis);
+            return renewed[0];
+        });
+        return renewed[0] != null;
+    }
+
+    @Override
+    public void release(String sno, String sessionId) {
+        claims.computeIfPresent(sno, (k, current) -> current.sessionId.equals(sessionId) ? null : current);
+    }
+
+    @Override
+    public void expire(String sno, String sessionId, long lastAccessTime) {
+        claims.computeIfPresent(sno, (k, current) ->
+                current.sessionId.equals(sessionId) && current.lastAccessTime <= lastAccessTime ? null : current);
+    }
+
+    @Override
+    public void close() {
+        // 多个会话池可能共用，关闭时保留登记
+    }
+}
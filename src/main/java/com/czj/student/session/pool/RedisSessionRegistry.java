@@ -0,0 +1,97 @@
+package com.czj.student.session.pool;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.params.SetParams;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Redis会话登记
+ * 登记以"前缀+session:学号"存储"会话ID|最后访问时间"：占用用SET NX PX，续期和删除用Lua脚本先比较会话ID，
+ * 不会误改其他会话的登记；续期同时检查空闲时间并保留较晚的访问时间，过期删除只在没有更晚的访问时进行
+ */
+public class RedisSessionRegistry implements SessionRegistry {
+
+    // 取得登记并比较会话ID，不属于该会话时返回0；之后last为登记的访问时间，stamp为其原文。
+    // 升级前只存会话ID的登记按访问时间0处理：登出和过期可以删除，续期超过空闲时间被拒绝
+    private static final String OWNED =
+            "local v = redis.call('get', KEYS[1]) "
+                    + "if not v then return 0 end "
+                    + "local sep = string.find(v, '|', 1, true) "
+                    + "local id, stamp = v, '0' "
+                    + "if sep then id, stamp = string.sub(v, 1, sep - 1), string.sub(v, sep + 1) end "
+                    + "if id ~= ARGV[1] then return 0 end "
+                    + "local last = tonumber(stamp) or 0 ";
+
+    // ARGV: 会话ID、本次访问时间、最长空闲时间、过期时间
+    private static final String RENEW_SCRIPT = OWNED
+            + "local access = tonumber(ARGV[2]) "
+            + "if access - last > tonumber(ARGV[3]) then return 0 end "
+            + "if access > last then stamp = ARGV[2] end "
+            + "redis.call('set', KEYS[1], ARGV[1] .. '|' .. stamp, 'PX', ARGV[4]) "
+            + "return 1";
+
+    private static final String RELEASE_SCRIPT = OWNED
+            + "return redis.call('del', KEYS[1])";
+
+    // ARGV: 会话ID、本节点的最后访问时间
+    private static final String EXPIRE_SCRIPT = OWNED
+            + "if last > tonumber(ARGV[2]) then return 0 end "
+            + "return redis.call('del', KEYS[1])";
+
+    private final JedisPool jedisPool;
+    private final String keyPrefix;
+
+    /**
+     * @param jedisPool 连接池，由调用方创建，close时关闭
+     * @param keyPrefix 键前缀，区分不同应用
+     */
+    public RedisSessionRegistry(JedisPool jedisPool, String keyPrefix) {
+        this.jedisPool = jedisPool;
+        this.keyPrefix = keyPrefix;
+    }
+
+    @Override
+    public boolean claim(String sno, String sessionId, long accessTime, long ttlMillis) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            return "OK".equals(jedis.set(key(sno), sessionId + "|" + accessTime,
+                    SetParams.setParams().nx().px(ttlMillis)));
+        }
+    }
+
+    @Override
+    public boolean renew(String sno, String sessionId, long accessTime, long maxIdleMillis, long ttlMillis) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            Object result = jedis.eval(RENEW_SCRIPT, Collections.singletonList(key(sno)),
+                    Arrays.asList(sessionId, String.valueOf(accessTime), String.valueOf(maxIdleMillis),
+                            String.valueOf(ttlMillis)));
+            return Long.valueOf(1L).equals(result);
+        }
+    }
+
+    @Override
+    public void release(String sno, String sessionId) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            jedis.eval(RELEASE_SCRIPT, Collections.singletonList(key(sno)), Collections.singletonList(sessionId));
+        }
+    }
+
+    @Override
+    public void expire(String sno, String sessionId, long lastAccessTime) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            jedis.eval(EXPIRE_SCRIPT, Collections.singletonList(key(sno)),
+                    Arrays.asList(sessionId, String.valueOf(lastAccessTime)));
+        }
+    }
+
+    @Override
+    public void close() {
+        jedisPool.close();
+    }
+
+    private String key(String sno) {
+        return keyPrefix + "session:" + sno;
+    }
+}
@@ -3,18 +3,30 @@ package com.czj.student.session.pool;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
 import java.util.Queue;
-import java.util.Map;
-import java.util.UUID;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import com.czj.student.util.pool.TimerWheel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * 会话池核心类
+ * 每个请求都要执行的验证会话是无锁的：按学号一次Map查找，比较会话ID、判断过期并更新访问时间；
+ * 登录、登出、过期清理等改变会话归属的操作按学号分段加锁，不同学号之间互不阻塞。
+ * 过期清理使用时间轮：登录时按"访问时间+超时时间"登记，访问只更新时间戳不移动登记；
+ * 到期时再检查实际访问时间，仍活跃的会话按新的到期时间重新登记，清理代价与到期的会话数成正比。
+ * 设置了SessionStore时，登录、登出、过期和重新登记都通知存储，由存储在后台写盘，启动时通过recover恢复。
+ * 设置了SessionRegistry时，登录须在集群共享的登记中占用学号，活跃池作为登记的近端缓存：
+ * 会话在租约期内只在本地验证，租约到期后的第一次验证向登记续期并记录访问时间，登记已被删除或替换时移除本地会话；
+ * 本地未缓存的会话(其他节点登录)在登记中确认未空闲超时后加入活跃池，本地名额已满时拒绝；
+ * 本地会话过期时，登记中没有其他节点更晚的访问则一并删除登记
  */
 @Component
 public class SessionPool {
@@ -24,17 +36,18 @@ public class SessionPool {
     // 默认配置
     private static final int DEFAULT_MIN_IDLE = 5;
     private static final long DEFAULT_SESSION_TIMEOUT = 30 * 60 * 1000; // 30分钟
+    private static final int DEFAULT_MAX_QUEUE = 200; // 名额不足时最多排队的登录请求数
     // TODO: 后续添加监控告警功能
     // private static final double WARN_THRESHOLD = 0.8; // 80%容量报警阈值
     
+    // 分段锁数量，须为2的幂
+    private static final int LOCK_STRIPES = 64;
+    
     // 空闲会话队列
     private final Queue<UserSession> idlePool;
     
-    // 活跃会话Map
-    private final Map<String, UserSession> activePool;
-    
-    // 学号到会话ID的映射
-    private final Map<String, String> snoToSessionId;
+    // 活跃会话：学号到会话，验证时只需一次查找
+    private final ConcurrentHashMap<String, UserSession> activePool;
     
     // 配置信息
     private final int maxTotal;
@@ -44,9 +57,21 @@ public class SessionPool {
     private final long sessionTimeout;
     
     // 并发控制
-    private final Semaphore semaphore;
+    // 登录准入：会话名额及排队，在会话锁之外获取
+    private final AdmissionQueue admission;
     private final Lock maintainLock = new ReentrantLock();
-    private final Lock sessionLock = new ReentrantLock();  // 用于会话状态变更
+    // 会话到期时间轮，按学号登记，由expiryLock保护，请求线程不访问
+    private final TimerWheel<String> expiryWheel = new TimerWheel<>(System.currentTimeMillis());
+    private final Lock expiryLock = new ReentrantLock();
+    // 按学号分段的锁，用于会话状态变更
+    private final Lock[] sessionLocks = new Lock[LOCK_STRIPES];
+    
+    // 会话持久化存储，recover之后设置，关闭时先置空
+    private volatile SessionStore store;
+    
+    // 集群会话登记及本地缓存的租约时间，关闭时先置空
+    private volatile SessionRegistry registry;
+    private volatile long leaseMillis;
     
     // 统计信息
     private final AtomicInteger createdCount = new AtomicInteger(0);
@@ -63,7 +88,13 @@ public class SessionPool {
     }
     
     public SessionPool(int maxTotal, int maxIdle, int minIdle, long maxWaitMillis, long sessionTimeout) {
-        if (maxTotal <= 0 || maxIdle <= 0 || minIdle < 0 || maxWaitMillis <= 0 || sessionTimeout <= 0) {
+        this(maxTotal, maxIdle, minIdle, maxWaitMillis, sessionTimeout, DEFAULT_MAX_QUEUE);
+    }
+    
+    public SessionPool(int maxTotal, int maxIdle, int minIdle, long maxWaitMillis, long sessionTimeout,
+                       int maxQueue) {
+        if (maxTotal <= 0 || maxIdle <= 0 || minIdle < 0 || maxWaitMillis <= 0 || sessionTimeout <= 0
+                || maxQueue < 0) {
             throw new IllegalArgumentException("Invalid pool configuration");
         }
         if (maxIdle > maxTotal) {
@@ -81,8 +112,10 @@ public class SessionPool {
         
         this.idlePool = new ConcurrentLinkedQueue<>();
         this.activePool = new ConcurrentHashMap<>();
-        this.snoToSessionId = new ConcurrentHashMap<>();
-        this.semaphore = new Semaphore(maxTotal);
+        this.admission = new AdmissionQueue(maxTotal, maxQueue);
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            sessionLocks[i] = new ReentrantLock();
+        }
         
         // 初始化最小空闲会话
         for (int i = 0; i < minIdle; i++) {
@@ -94,6 +127,13 @@ public class SessionPool {
      * 获取会话
      */
     public UserSession borrowSession(String sno, String sessionId) throws SessionException {
+        return borrowSession(sno, sessionId, null);
+    }
+    
+    /**
+     * 获取会话并记录登录IP，登录信息在会话放入活跃池前设置，持久化的记录是完整的
+     */
+    public UserSession borrowSession(String sno, String sessionId, String ip) throws SessionException {
         checkPoolState();
         if (sno == null || sno.trim().isEmpty()) {
             throw new IllegalArgumentException("sno cannot be null or empty");
@@ -102,65 +142,91 @@ public class SessionPool {
             throw new IllegalArgumentException("sessionId cannot be null or empty");
         }
         
+        // 1. 已登录且未过期时直接拒绝，不占用排队名额
+        UserSession existingSession = activePool.get(sno);
+        if (existingSession != null && !isSessionExpired(existingSession)) {
+            throw new SessionException("该账号已在其他地方登录");
+        }
+        
+        // 2. 在会话锁之外获取名额：名额不足时公平排队，超过截止时间或排队已满即失败
+        try {
+            if (!admission.acquire(maxWaitMillis)) {
+                throw new SessionException("获取会话超时");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SessionException("获取会话被中断", e);
+        }
+        
         UserSession session = null;
-        sessionLock.lock();
+        Lock lock = lockFor(sno);
+        lock.lock();
         try {
-            // 1. 检查是否已存在会话
-            String existingSessionId = snoToSessionId.get(sno);
-            if (existingSessionId != null) {
-                UserSession existingSession = activePool.get(existingSessionId);
-                if (existingSession != null) {
+            // 3. 排队期间同一学号可能已登录，再检查一次，已过期的会话直接清理，其集群登记一并删除
+            existingSession = activePool.get(sno);
+            if (existingSession != null) {
+                if (!isSessionExpired(existingSession)) {
+                    admission.release();
                     throw new SessionException("该账号已在其他地方登录");
                 }
-                // 如果会话不存在，清理映射
-                snoToSessionId.remove(sno);
+                expireRegistration(sno, existingSession);
+                release(existingSession, true);
             }
             
-            // 2. 尝试获取信号量
-            if (!semaphore.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS)) {
-                throw new SessionException("获取会话超时");
+            // 4. 在集群登记中占用学号，其他节点已登录时失败
+            SessionRegistry currentRegistry = registry;
+            if (currentRegistry != null) {
+                boolean claimed;
+                try {
+                    claimed = currentRegistry.claim(sno, sessionId, System.currentTimeMillis(), registryTtl());
+                } catch (RuntimeException e) {
+                    admission.release();
+                    throw new SessionException("会话登记失败", e);
+                }
+                if (!claimed) {
+                    admission.release();
+                    throw new SessionException("该账号已在其他地方登录");
+                }
             }
             
             try {
-                // 3. 检查是否超过最大会话数
-                if (activePool.size() >= maxTotal) {
-                    throw new SessionException("会话池已满");
-                }
-                
-                // 4. 尝试从空闲池获取或创建新会话
+                // 5. 尝试从空闲池获取或创建新会话
                 session = idlePool.poll();
                 if (session == null) {
                     session = createSession();
                 }
                 
-                // 5. 初始化会话，使用传入的sessionId
+                // 6. 初始化会话，使用传入的sessionId；放入活跃池前完成，验证线程看到的总是完整的会话
+                long now = System.currentTimeMillis();
                 session.reset(); // 确保会话状态干净
                 session.setInPool(true);
                 session.setSno(sno);
                 session.setSessionId(sessionId); // 使用传入的sessionId
-                // 添加到活跃池和映射中
-                activePool.put(session.getSessionId(), session);
-                snoToSessionId.put(sno, session.getSessionId());
-                session.setCreateTime(System.currentTimeMillis());
-                session.setLastAccessTime(System.currentTimeMillis());
+                session.setIp(ip);
+                session.setLoginTime(new Date(now));
+                session.setCreateTime(now);
+                session.setLastAccessTime(now);
+                session.setLeaseDeadline(now + leaseMillis);
                 session.touch();
+                activePool.put(sno, session);
+                scheduleExpiry(sno, now);
+                persist(session);
                 
-                // 6. 更新借用计数
+                // 7. 更新借用计数
                 borrowedCount.incrementAndGet();
                 
                 return session;
-            } catch (Exception e) {
+            } catch (RuntimeException e) {
                 if (session != null) {
+                    activePool.remove(sno, session);
                     discardSession(session);
                 }
-                semaphore.release();
+                admission.release();
+                unregister(sno, sessionId);
                 throw new SessionException("获取会话失败", e);
             }
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new SessionException("获取会话被中断", e);
         } finally {
-            sessionLock.unlock();
+            lock.unlock();
         }
     }
     
@@ -172,20 +238,15 @@ public class SessionPool {
             return;
         }
         
-        sessionLock.lock();
-        try {
-            String sessionId = snoToSessionId.get(sno);
-            if (sessionId != null) {
-                UserSession session = activePool.get(sessionId);
-                if (session != null && isSessionValid(session)) {
-                    session.touch();
-                } else {
-                    // 会话无效，清理相关资源
-                    invalidateSession(sno);
-                }
-            }
-        } finally {
-            sessionLock.unlock();
+        UserSession session = activePool.get(sno);
+        if (session == null) {
+            return;
+        }
+        if (isSessionExpired(session)) {
+            // 会话无效，清理相关资源
+            removeExpiredSession(sno, session);
+        } else {
+            session.touch();
         }
     }
     
@@ -197,38 +258,24 @@ public class SessionPool {
             return;
         }
         
-        sessionLock.lock();
+        String sno = session.getSno();
+        if (sno == null) {
+            return;
+        }
+        Lock lock = lockFor(sno);
+        lock.lock();
         try {
-            // 1. 从活跃池和映射中移除
-            activePool.remove(session.getSessionId());
-            snoToSessionId.remove(session.getSno());
-            
-            // 2. 检查是否可以重用
-            if (!isSessionValid(session)) {
-                discardSession(session);
-                return;
-            }
-            
-            // 3. 检查空闲池大小
-            if (idlePool.size() >= maxIdle) {
-                discardSession(session);
-                return;
+            if (activePool.remove(sno, session)) {
+                forget(sno);
+                unregister(sno, session.getSessionId());
+                boolean reusable = isSessionValid(session) && idlePool.size() < maxIdle;
+                release(session, reusable);
+                if (reusable) {
+                    returnedCount.incrementAndGet();
+                }
             }
-            
-            // 4. 重置会话状态
-            session.reset();
-            
-            // 5. 放入空闲池
-            idlePool.offer(session);
-            
-            // 6. 更新统计信息
-            returnedCount.incrementAndGet();
         } finally {
-            if (session.isInPool()) {
-                semaphore.release();
-                session.setInPool(false);
-            }
-            sessionLock.unlock();
+            lock.unlock();
         }
     }
     
@@ -242,7 +289,56 @@ public class SessionPool {
     }
     
     /**
-     * 定时维护任务
+     * 释放已从活跃池移除的会话，调用方须持有该学号的分段锁
+     * @param reusable 是否放回空闲池
+     */
+    private void release(UserSession session, boolean reusable) {
+        if (activePool.remove(session.getSno(), session)) {
+            forget(session.getSno());
+        }
+        if (reusable && idlePool.size() < maxIdle) {
+            session.reset();
+            idlePool.offer(session);
+        } else {
+            discardSession(session);
+        }
+        admission.release();
+    }
+    
+    /**
+     * 清理到期的会话，只处理时间轮中到期的学号
+     * 到期时仍有访问的会话按最后访问时间重新登记，过期的在所属分段内确认后移除
+     */
+    @Scheduled(fixedDelay = 1000)
+    public void expireSessions() {
+        if (closed) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        List<String> due;
+        expiryLock.lock();
+        try {
+            due = expiryWheel.advance(now);
+        } finally {
+            expiryLock.unlock();
+        }
+        for (String sno : due) {
+            UserSession session = activePool.get(sno);
+            if (session == null) {
+                continue;
+            }
+            if (isSessionExpired(session)) {
+                removeExpiredSession(sno, session);
+            } else {
+                // 每个超时周期保存一次最新的访问时间
+                scheduleExpiry(sno, session.getLastAccessTime());
+                persist(session);
+            }
+        }
+    }
+    
+    /**
+     * 定时维护任务，维持空闲会话数量；过期会话由expireSessions清理
      */
     @Scheduled(fixedRate = 60000) // 每分钟执行一次
     public void maintain() {
@@ -252,35 +348,17 @@ public class SessionPool {
         
         try {
             checkPoolState();
-            sessionLock.lock();
-            try {
-                // 1. 清理过期会话
-                long now = System.currentTimeMillis();
-                activePool.entrySet().removeIf(entry -> {
-                    UserSession session = entry.getValue();
-                    if (now - session.getLastAccessTime() > sessionTimeout) {
-                        snoToSessionId.remove(session.getSno());
-                        discardSession(session);
-                        semaphore.release();
-                        return true;
-                    }
-                    return false;
-                });
-                
-                // 2. 确保最小空闲会话数
-                while (idlePool.size() < minIdle) {
-                    idlePool.offer(createSession());
-                }
-                
-                // 3. 清理多余的空闲会话
-                while (idlePool.size() > maxIdle) {
-                    UserSession session = idlePool.poll();
-                    if (session != null) {
-                        discardSession(session);
-                    }
+            // 1. 确保最小空闲会话数
+            while (idlePool.size() < minIdle) {
+                idlePool.offer(createSession());
+            }
+            
+            // 2. 清理多余的空闲会话
+            while (idlePool.size() > maxIdle) {
+                UserSession session = idlePool.poll();
+                if (session != null) {
+                    discardSession(session);
                 }
-            } finally {
-                sessionLock.unlock();
             }
         } finally {
             maintainLock.unlock();
@@ -288,59 +366,175 @@ public class SessionPool {
     }
     
     /**
-     * 检查会话是否有效
+     * 检查会话是否有效，有效时更新访问时间
      */
     public boolean isValidSession(String sno, String sessionId) {
-        sessionLock.lock();
+        return validateAndTouch(sno, sessionId);
+    }
+    
+    /**
+     * 验证会话并更新访问时间，无锁
+     * 会话对象会被复用，比较会话ID时读取的是当前归属，登出后复用给其他学号的会话不会通过验证
+     * @param sno 学号
+     * @param sessionId 会话ID
+     * @return 会话是否有效
+     */
+    public boolean validateAndTouch(String sno, String sessionId) {
+        if (sno == null || sessionId == null) {
+            return false;
+        }
+        
+        // 1. 按学号查找会话，本地未缓存时向集群登记确认
+        UserSession session = activePool.get(sno);
+        if (session == null) {
+            logger.debug("学号[{}]未找到会话", sno);
+            return registry != null && adopt(sno, sessionId);
+        }
+        
+        // 2. 检查会话ID是否匹配，不匹配时可能已在其他节点重新登录
+        String currentSessionId = session.getSessionId();
+        if (!sessionId.equals(currentSessionId)) {
+            logger.debug("学号[{}]的会话ID不匹配 - 期望: {}, 实际: {}", sno, currentSessionId, sessionId);
+            return registry != null && adopt(sno, sessionId);
+        }
+        
+        // 3. 检查会话是否过期
+        if (isSessionExpired(session)) {
+            logger.debug("会话[{}]已过期", sessionId);
+            removeExpiredSession(sno, session);
+            return false;
+        }
+        
+        // 4. 租约到期时向集群登记续期
+        if (registry != null && System.currentTimeMillis() >= session.getLeaseDeadline()
+                && !renewLease(sno, session)) {
+            return false;
+        }
+        
+        // 5. 更新最后访问时间
+        session.touch();
+        return true;
+    }
+    
+    /**
+     * 向集群登记续期并记录本次访问，登记已被删除或替换时移除本地会话
+     * 本地会话已确认未过期，登记的访问时间最多晚一个租约，空闲上限为超时时间加一个租约；
+     * 登记不可用时保留本地会话并延长租约，避免所有用户被登出
+     */
+    private boolean renewLease(String sno, UserSession session) {
+        SessionRegistry currentRegistry = registry;
+        if (currentRegistry == null) {
+            return true;
+        }
+        String sessionId = session.getSessionId();
+        boolean renewed;
         try {
-            // 1. 先检查映射关系
-            String mappedSessionId = snoToSessionId.get(sno);
-            if (mappedSessionId == null) {
-                logger.debug("学号[{}]未找到会话映射", sno);
-                return false;
+            renewed = sessionId != null && currentRegistry.renew(sno, sessionId, System.currentTimeMillis(),
+                    sessionTimeout + leaseMillis, registryTtl());
+        } catch (RuntimeException e) {
+            logger.warn("会话登记续期失败，继续使用本地会话: {}", e.getMessage());
+            renewed = true;
+        }
+        if (renewed) {
+            session.setLeaseDeadline(System.currentTimeMillis() + leaseMillis);
+            return true;
+        }
+        logger.debug("学号[{}]的会话登记已失效", sno);
+        Lock lock = lockFor(sno);
+        lock.lock();
+        try {
+            if (activePool.get(sno) == session) {
+                release(session, true);
             }
-            
-            // 2. 检查会话ID是否匹配
-            if (!mappedSessionId.equals(sessionId)) {
-                logger.debug("学号[{}]的会话ID不匹配 - 期望: {}, 实际: {}", 
-                    sno, mappedSessionId, sessionId);
+        } finally {
+            lock.unlock();
+        }
+        return false;
+    }
+    
+    /**
+     * 登记、续期时登记的有效期
+     * 登记和续期都发生在一次访问时，本地会话在"最后访问时间+超时时间"过期；
+     * 续期后租约期内的访问只更新本地访问时间不续期，最后访问时间最多比续期晚一个租约，
+     * 因此有效期为超时时间加一个租约(即 超时时间-(当前时间-最后访问时间)+租约，续期时两个时间相同)，
+     * 保证登记不会早于本地会话过期，其他节点不能在本地会话仍有效时登录同一学号。
+     * 本地会话过期时由expireRegistration删除登记，多出的租约不会延长会话
+     */
+    private long registryTtl() {
+        return sessionTimeout + leaseMillis;
+    }
+    
+    /**
+     * 会话登记在其他节点时，确认登记属于该会话且空闲未超过超时时间后加入本地活跃池
+     * 登记的访问时间可能比实际的最后访问早一个租约，空闲接近超时的会话可能提前失效；
+     * 本地名额已满时拒绝，不返回未缓存的确认结果，避免该用户的每个请求都访问登记
+     */
+    private boolean adopt(String sno, String sessionId) {
+        SessionRegistry currentRegistry = registry;
+        if (currentRegistry == null || closed) {
+            return false;
+        }
+        try {
+            if (!currentRegistry.renew(sno, sessionId, System.currentTimeMillis(), sessionTimeout,
+                    registryTtl())) {
                 return false;
             }
-            
-            // 3. 获取并验证会话
-            UserSession session = activePool.get(sessionId);
-            if (session == null) {
-                logger.debug("会话ID[{}]在活跃池中未找到", sessionId);
-                // 清理不一致的映射
-                snoToSessionId.remove(sno);
-                return false;
+        } catch (RuntimeException e) {
+            logger.warn("查询会话登记失败: {}", e.getMessage());
+            return false;
+        }
+        
+        Lock lock = lockFor(sno);
+        lock.lock();
+        try {
+            UserSession existing = activePool.get(sno);
+            if (existing != null) {
+                if (sessionId.equals(existing.getSessionId())) {
+                    existing.touch();
+                    return true;
+                }
+                // 本地缓存的是已被替换的会话
+                release(existing, true);
             }
-            
-            // 4. 检查会话是否过期
-            if (isSessionExpired(session)) {
-                logger.debug("会话[{}]已过期", sessionId);
-                // 清理过期会话
-                removeExpiredSession(session);
+            if (!admission.tryAcquire()) {
+                logger.debug("本地会话名额已满，拒绝学号[{}]的其他节点会话", sno);
                 return false;
             }
-            
-            // 5. 更新最后访问时间
+            UserSession session = idlePool.poll();
+            if (session == null) {
+                session = createSession();
+            }
+            long now = System.currentTimeMillis();
+            session.reset();
+            session.setInPool(true);
+            session.setSno(sno);
+            session.setSessionId(sessionId);
+            session.setCreateTime(now);
+            session.setLastAccessTime(now);
+            session.setLeaseDeadline(now + leaseMillis);
             session.touch();
+            activePool.put(sno, session);
+            scheduleExpiry(sno, now);
+            persist(session);
             return true;
         } finally {
-            sessionLock.unlock();
+            lock.unlock();
         }
     }
     
-    private void removeExpiredSession(UserSession session) {
-        if (session != null) {
-            String sno = session.getSno();
-            String sessionId = session.getSessionId();
-            activePool.remove(sessionId);
-            snoToSessionId.remove(sno);
-            session.reset();
-            idlePool.offer(session);
-            semaphore.release(); // 释放信号量
+    /**
+     * 在分段锁内确认会话仍属于该学号且已过期后移除，会话放回空闲池
+     */
+    private void removeExpiredSession(String sno, UserSession session) {
+        Lock lock = lockFor(sno);
+        lock.lock();
+        try {
+            if (activePool.get(sno) == session && isSessionExpired(session)) {
+                expireRegistration(sno, session);
+                release(session, true);
+            }
+        } finally {
+            lock.unlock();
         }
     }
     
@@ -352,14 +546,8 @@ public class SessionPool {
             return null;
         }
         
-        String sessionId = snoToSessionId.get(sno);
-        if (sessionId != null) {
-            UserSession session = activePool.get(sessionId);
-            if (session != null) {
-                return session.getIp();
-            }
-        }
-        return null;
+        UserSession session = activePool.get(sno);
+        return session != null ? session.getIp() : null;
     }
     
     /**
@@ -376,7 +564,7 @@ public class SessionPool {
      * 验证会话是否有效
      */
     private boolean isSessionValid(UserSession session) {
-        return session != null && 
+        return session != null &&
                System.currentTimeMillis() - session.getLastAccessTime() <= sessionTimeout;
     }
     
@@ -390,7 +578,13 @@ public class SessionPool {
             returnedCount.get(),
             discardedCount.get(),
             activePool.size(),
-            idlePool.size()
+            idlePool.size(),
+            admission.getWaiting(),
+            admission.getAdmittedCount(),
+            admission.getRejectedCount(),
+            admission.getTimeoutCount(),
+            admission.getAverageWaitMillis(),
+            admission.getMaxWaitMillis()
         );
     }
     
@@ -402,20 +596,169 @@ public class SessionPool {
             return;
         }
         
-        sessionLock.lock();
+        Lock lock = lockFor(sno);
+        lock.lock();
         try {
-            String sessionId = snoToSessionId.get(sno);
-            if (sessionId != null) {
-                UserSession session = activePool.remove(sessionId);
-                snoToSessionId.remove(sno);
-                if (session != null) {
-                    discardSession(session);
-                    semaphore.release();
-                }
+            UserSession session = activePool.remove(sno);
+            if (session != null) {
+                forget(sno);
+                unregister(sno, session.getSessionId());
+                discardSession(session);
+                admission.release();
             }
         } finally {
-            sessionLock.unlock();
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * 按最后访问时间登记会话的到期时间
+     */
+    private void scheduleExpiry(String sno, long lastAccessTime) {
+        expiryLock.lock();
+        try {
+            expiryWheel.schedule(sno, lastAccessTime + sessionTimeout + 1);
+        } finally {
+            expiryLock.unlock();
+        }
+    }
+    
+    private void cancelExpiry(String sno) {
+        expiryLock.lock();
+        try {
+            expiryWheel.cancel(sno);
+        } finally {
+            expiryLock.unlock();
+        }
+    }
+    
+    /**
+     * 会话离开活跃池：取消到期登记并从存储中删除
+     */
+    private void forget(String sno) {
+        cancelExpiry(sno);
+        SessionStore current = store;
+        if (current != null) {
+            current.remove(sno);
+        }
+    }
+    
+    /**
+     * 登出时删除集群登记
+     */
+    private void unregister(String sno, String sessionId) {
+        SessionRegistry currentRegistry = registry;
+        if (currentRegistry != null && sessionId != null) {
+            try {
+                currentRegistry.release(sno, sessionId);
+            } catch (RuntimeException e) {
+                logger.warn("删除会话登记失败: {}", e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * 本地会话过期时删除集群登记；其他节点记录了更晚的访问时，会话在该节点上可能仍有效，登记保留。
+     * 须在会话被重置之前调用
+     */
+    private void expireRegistration(String sno, UserSession session) {
+        SessionRegistry currentRegistry = registry;
+        String sessionId = session.getSessionId();
+        if (currentRegistry != null && sessionId != null) {
+            try {
+                currentRegistry.expire(sno, sessionId, session.getLastAccessTime());
+            } catch (RuntimeException e) {
+                logger.warn("删除过期的会话登记失败: {}", e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * 启用集群会话登记，须在开始登录前调用
+     * @param registry 会话登记，关闭会话池时一并关闭
+     * @param leaseMillis 本地会话的租约时间：其他节点登出后本节点最迟在该时间后发现
+     */
+    public void enableRegistry(SessionRegistry registry, long leaseMillis) {
+        if (leaseMillis <= 0) {
+            throw new IllegalArgumentException("leaseMillis must be positive");
+        }
+        this.leaseMillis = leaseMillis;
+        this.registry = registry;
+    }
+    
+    /**
+     * 把会话当前状态交给存储，只入队不等待写盘
+     */
+    private void persist(UserSession session) {
+        SessionStore current = store;
+        if (current != null) {
+            SessionRecord record = SessionRecord.of(session);
+            if (record != null) {
+                current.save(record);
+            }
+        }
+    }
+    
+    /**
+     * 从存储恢复会话，之后的会话变更都写入该存储，启动时调用一次
+     * 已过期、已登录或超出名额的记录不恢复，并从存储中删除
+     * @param store 会话存储
+     * @return 恢复的会话数
+     * @throws IOException 读取存储失败
+     */
+    public int recover(SessionStore store) throws IOException {
+        checkPoolState();
+        if (this.store != null) {
+            throw new IllegalStateException("Session store already attached");
+        }
+        Collection<SessionRecord> records = store.load();
+        long now = System.currentTimeMillis();
+        int recovered = 0;
+        for (SessionRecord record : records) {
+            String sno = record.getSno();
+            if (now - record.getLastAccessTime() > sessionTimeout || !admission.tryAcquire()) {
+                store.remove(sno);
+                continue;
+            }
+            Lock lock = lockFor(sno);
+            lock.lock();
+            try {
+                if (activePool.containsKey(sno)) {
+                    admission.release();
+                    store.remove(sno);
+                    continue;
+                }
+                UserSession session = idlePool.poll();
+                if (session == null) {
+                    session = createSession();
+                }
+                session.reset();
+                session.setInPool(true);
+                session.setSno(sno);
+                session.setSessionId(record.getSessionId());
+                session.setIp(record.getIp());
+                session.setLoginTime(record.getLoginTime() > 0 ? new Date(record.getLoginTime()) : null);
+                session.setCreateTime(record.getCreateTime());
+                session.setLastAccessTime(record.getLastAccessTime());
+                // 租约为0：启用集群登记时第一次验证先向登记确认
+                activePool.put(sno, session);
+                scheduleExpiry(sno, record.getLastAccessTime());
+                recovered++;
+            } finally {
+                lock.unlock();
+            }
         }
+        this.store = store;
+        logger.info("从存储恢复会话{}个，共{}条记录", recovered, records.size());
+        return recovered;
+    }
+    
+    /**
+     * 学号所在分段的锁
+     */
+    private Lock lockFor(String sno) {
+        int h = sno.hashCode();
+        return sessionLocks[(h ^ (h >>> 16)) & (LOCK_STRIPES - 1)];
     }
     
     /**
@@ -427,10 +770,10 @@ public class SessionPool {
         }
         
         // TODO: 后续添加容量监控和告警
-        /* 
+        /*
         double usage = (double) activePool.size() / maxTotal;
         if (usage >= WARN_THRESHOLD) {
-            logger.warn("Session pool is nearly full: {}/{} ({:.1f}%)", 
+            logger.warn("Session pool is nearly full: {}/{} ({:.1f}%)",
                 activePool.size(), maxTotal, usage * 100);
         }
         */
@@ -481,24 +824,38 @@ public class SessionPool {
             scheduler.shutdownNow();
         }
         
-        // 清理所有会话
-        sessionLock.lock();
-        try {
-            // 清理活跃会话
-            for (UserSession session : activePool.values()) {
-                discardSession(session);
-                semaphore.release();
+        // 停机不删除集群登记，用户可以继续在其他节点访问
+        SessionRegistry currentRegistry = registry;
+        if (currentRegistry != null) {
+            registry = null;
+            currentRegistry.close();
+        }
+        
+        // 保存所有活跃会话的最新状态后关闭存储，之后的清理不写入存储
+        SessionStore current = store;
+        if (current != null) {
+            store = null;
+            for (UserSession active : activePool.values()) {
+                SessionRecord record = SessionRecord.of(active);
+                if (record != null) {
+                    current.save(record);
+                }
             }
-            activePool.clear();
-            snoToSessionId.clear();
-            
-            // 清理空闲会话
-            UserSession session;
-            while ((session = idlePool.poll()) != null) {
-                discardSession(session);
+            current.close();
+        }
+        
+        // 清理所有会话
+        for (UserSession session : activePool.values()) {
+            String sno = session.getSno();
+            if (sno != null) {
+                invalidateSession(sno);
             }
-        } finally {
-            sessionLock.unlock();
+        }
+        
+        // 清理空闲会话
+        UserSession session;
+        while ((session = idlePool.poll()) != null) {
+            discardSession(session);
         }
         
         logger.info("Session pool shutdown completed");
@@ -508,7 +865,7 @@ public class SessionPool {
      * 验证会话是否过期
      */
     private boolean isSessionExpired(UserSession session) {
-        return session == null || 
+        return session == null ||
                System.currentTimeMillis() - session.getLastAccessTime() > sessionTimeout;
     }
-} 
\ No newline at end of file
+}
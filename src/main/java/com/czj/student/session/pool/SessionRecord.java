@@ -0,0 +1,63 @@
+package com.czj.student.session.pool;
+
+/**
+ * 持久化的会话记录，不可变
+ */
+public class SessionRecord {
+
+    private final String sno;
+    private final String sessionId;
+    private final String ip;
+    // 登录时间，未设置时为0
+    private final long loginTime;
+    private final long createTime;
+    private final long lastAccessTime;
+
+    public SessionRecord(String sno, String sessionId, String ip, long loginTime, long createTime,
+                         long lastAccessTime) {
+        this.sno = sno;
+        this.sessionId = sessionId;
+        this.ip = ip;
+        this.loginTime = loginTime;
+        this.createTime = createTime;
+        this.lastAccessTime = lastAccessTime;
+    }
+
+    /**
+     * @return 会话当前状态的记录，会话已归还时返回null
+     */
+    static SessionRecord of(UserSession session) {
+        String sno = session.getSno();
+        String sessionId = session.getSessionId();
+        if (sno == null || sessionId == null) {
+            return null;
+        }
+        return new SessionRecord(sno, sessionId, session.getIp(),
+                session.getLoginTime() != null ? session.getLoginTime().getTime() : 0,
+                session.getCreateTime(), session.getLastAccessTime());
+    }
+
+    public String getSno() {
+        return sno;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public String getIp() {
+        return ip;
+    }
+
+    public long getLoginTime() {
+        return loginTime;
+    }
+
+    public long getCreateTime() {
+        return createTime;
+    }
+
+    public long getLastAccessTime() {
+        return lastAccessTime;
+    }
+}
@@ -0,0 +1,52 @@
+package com.czj.student.session.pool;
+
+/**
+ * 集群共享的会话登记
+ * 保存学号到会话ID及最后访问时间的映射并设置过期时间，所有节点登录时在此占用学号，保证同一学号在集群内只登录一次。
+ * 各节点的活跃会话作为近端缓存，在租约期内直接使用，租约到期时再通过renew确认登记并记录访问时间；
+ * 登记的访问时间最多比会话实际的最后访问早一个租约
+ */
+public interface SessionRegistry {
+
+    /**
+     * 学号未被占用时登记会话
+     * @param sno 学号
+     * @param sessionId 会话ID
+     * @param accessTime 登录时间，作为最后访问时间
+     * @param ttlMillis 登记的过期时间(毫秒)
+     * @return 是否登记成功，学号已被占用时返回false
+     */
+    boolean claim(String sno, String sessionId, long accessTime, long ttlMillis);
+
+    /**
+     * 学号仍登记为该会话、且登记的最后访问时间距本次访问不超过maxIdleMillis时，记录本次访问并延长过期时间
+     * @param sno 学号
+     * @param sessionId 会话ID
+     * @param accessTime 本次访问时间，早于登记的访问时间时不改变登记的访问时间
+     * @param maxIdleMillis 允许的最长空闲时间(毫秒)
+     * @param ttlMillis 新的过期时间(毫秒)
+     * @return 是否续期成功，登记已不属于该会话或空闲超时时返回false
+     */
+    boolean renew(String sno, String sessionId, long accessTime, long maxIdleMillis, long ttlMillis);
+
+    /**
+     * 学号仍登记为该会话时删除登记，用于登出
+     * @param sno 学号
+     * @param sessionId 会话ID
+     */
+    void release(String sno, String sessionId);
+
+    /**
+     * 学号仍登记为该会话、且登记的最后访问时间不晚于lastAccessTime时删除登记，用于本地会话过期：
+     * 其他节点记录了更晚的访问时，会话在该节点上可能仍有效，登记保留
+     * @param sno 学号
+     * @param sessionId 会话ID
+     * @param lastAccessTime 本节点看到的最后访问时间
+     */
+    void expire(String sno, String sessionId, long lastAccessTime);
+
+    /**
+     * 释放资源
+     */
+    void close();
+}
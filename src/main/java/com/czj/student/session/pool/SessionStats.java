@@ -11,14 +11,36 @@ public class SessionStats {
     private final int activeCount;     // 当前活跃会话数
     private final int idleCount;       // 当前空闲会话数
     
+    // 登录准入统计
+    private final int waitingCount;        // 当前排队的登录请求数
+    private final long admittedCount;      // 获得名额的登录请求总数
+    private final long rejectedCount;      // 排队已满被直接拒绝的总数
+    private final long timeoutCount;       // 排队超时的总数
+    private final double averageWaitMillis; // 排队请求的平均等待时间(毫秒)
+    private final long maxWaitMillis;      // 排队请求的最长等待时间(毫秒)
+    
     public SessionStats(int createdCount, int borrowedCount, int returnedCount, 
                        int discardedCount, int activeCount, int idleCount) {
+        this(createdCount, borrowedCount, returnedCount, discardedCount, activeCount, idleCount,
+             0, 0, 0, 0, 0.0, 0);
+    }
+    
+    public SessionStats(int createdCount, int borrowedCount, int returnedCount, 
+                       int discardedCount, int activeCount, int idleCount,
+                       int waitingCount, long admittedCount, long rejectedCount, long timeoutCount,
+                       double averageWaitMillis, long maxWaitMillis) {
         this.createdCount = createdCount;
         this.borrowedCount = borrowedCount;
         this.returnedCount = returnedCount;
         this.discardedCount = discardedCount;
         this.activeCount = activeCount;
         this.idleCount = idleCount;
+        this.waitingCount = waitingCount;
+        this.admittedCount = admittedCount;
+        this.rejectedCount = rejectedCount;
+        this.timeoutCount = timeoutCount;
+        this.averageWaitMillis = averageWaitMillis;
+        this.maxWaitMillis = maxWaitMillis;
     }
     
     public int getCreatedCount() {
@@ -45,11 +67,37 @@ public class SessionStats {
         return idleCount;
     }
     
+    public int getWaitingCount() {
+        return waitingCount;
+    }
+    
+    public long getAdmittedCount() {
+        return admittedCount;
+    }
+    
+    public long getRejectedCount() {
+        return rejectedCount;
+    }
+    
+    public long getTimeoutCount() {
+        return timeoutCount;
+    }
+    
+    public double getAverageWaitMillis() {
+        return averageWaitMillis;
+    }
+    
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+    
     @Override
     public String toString() {
         return String.format(
-            "SessionStats{created=%d, borrowed=%d, returned=%d, discarded=%d, active=%d, idle=%d}",
-            createdCount, borrowedCount, returnedCount, discardedCount, activeCount, idleCount
+            "SessionStats{created=%d, borrowed=%d, returned=%d, discarded=%d, active=%d, idle=%d, " +
+            "waiting=%d, admitted=%d, rejected=%d, timeout=%d, avgWait=%.1fms, maxWait=%dms}",
+            createdCount, borrowedCount, returnedCount, discardedCount, activeCount, idleCount,
+            waitingCount, admittedCount, rejectedCount, timeoutCount, averageWaitMillis, maxWaitMillis
         );
     }
 } 
\ No newline at end of file
@@ -0,0 +1,36 @@
+package com.czj.student.session.pool;
+
+import java.io.IOException;
+import java.util.Collection;
+
+/**
+ * 活跃会话的持久化存储
+ * 登录、登出、过期时由SessionPool通知，启动时读回，重新部署后已登录的用户不需要重新登录。
+ * save和remove在请求线程中调用，实现不得等待磁盘I/O
+ */
+public interface SessionStore {
+
+    /**
+     * 保存或更新会话，异步写入
+     * @param record 会话记录
+     */
+    void save(SessionRecord record);
+
+    /**
+     * 删除学号的会话，异步写入
+     * @param sno 学号
+     */
+    void remove(String sno);
+
+    /**
+     * 读取保存的会话，启动时调用一次，之后才开始写入
+     * @return 保存的会话，每个学号最多一条
+     * @throws IOException 读取失败
+     */
+    Collection<SessionRecord> load() throws IOException;
+
+    /**
+     * 写入所有未完成的修改并关闭
+     */
+    void close();
+}
@@ -1,22 +1,30 @@
 package com.czj.student.session.pool;
 
 import java.util.Date;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 /**
  * 增强的会话对象，支持池化
+ * 验证会话不加锁，学号、会话ID、IP及访问时间为volatile，保证验证线程读到最新值
  */
 public class UserSession {
+    
+    private static final AtomicIntegerFieldUpdater<UserSession> USE_COUNT =
+            AtomicIntegerFieldUpdater.newUpdater(UserSession.class, "useCount");
+    
     // 基础属性
-    private String sno;          // 学号
-    private String sessionId;    // 会话ID
-    private String ip;          // IP地址
+    private volatile String sno;          // 学号
+    private volatile String sessionId;    // 会话ID
+    private volatile String ip;          // IP地址
     private Date loginTime;     // 登录时间
-    private long lastAccessTime; // 最后访问时间
+    private volatile long lastAccessTime; // 最后访问时间
     
     // 池化相关属性
     private boolean inPool;     // 是否在池中
     private long createTime;    // 创建时间
-    private int useCount;       // 使用次数
+    private volatile int useCount;       // 使用次数
+    // 共享登记的租约到期时间，到期前验证只读本地
+    private volatile long leaseDeadline;
     
     // Getters and Setters
     public String getSno() {
@@ -83,6 +91,14 @@ public class UserSession {
         this.useCount = useCount;
     }
     
+    public long getLeaseDeadline() {
+        return leaseDeadline;
+    }
+    
+    public void setLeaseDeadline(long leaseDeadline) {
+        this.leaseDeadline = leaseDeadline;
+    }
+    
     /**
      * 重置会话状态
      */
@@ -93,6 +109,7 @@ public class UserSession {
         this.loginTime = null;
         this.lastAccessTime = 0;
         this.useCount = 0;
+        this.leaseDeadline = 0;
         this.inPool = false;
     }
     
@@ -101,6 +118,6 @@ public class UserSession {
      */
     public void touch() {
         this.lastAccessTime = System.currentTimeMillis();
-        this.useCount++;
+        USE_COUNT.incrementAndGet(this);
     }
 } 
\ No newline at end of file
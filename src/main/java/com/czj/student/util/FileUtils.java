@@ -0,0 +1,78 @@
+package com.czj.student.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Set;
+
+/**
+ * 文件工具类
+ * 会话日志、缓存快照等本地文件默认放在共享的临时目录下，内容含会话ID或读回时会反序列化，
+ * 只能由当前用户创建和读取：新建的目录和文件只允许所有者访问，已存在的须属于当前用户且其他用户不可写。
+ * 不支持POSIX权限的文件系统上不做限制
+ */
+public class FileUtils {
+
+    private static final Set<PosixFilePermission> OWNER_FILE = PosixFilePermissions.fromString("rw-------");
+    private static final Set<PosixFilePermission> OWNER_DIR = PosixFilePermissions.fromString("rwx------");
+
+    /**
+     * 创建只允许所有者访问的目录(含不存在的上级目录)，已存在时检查所有者
+     * @param dir 目录
+     * @throws IOException 创建失败或目录属于其他用户
+     */
+    public static void createPrivateDirectories(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            if (isPosix(dir)) {
+                Files.createDirectories(dir, PosixFilePermissions.asFileAttribute(OWNER_DIR));
+            } else {
+                Files.createDirectories(dir);
+            }
+        }
+        checkPrivate(dir);
+    }
+
+    /**
+     * 新建只允许所有者读写的文件，已存在时先删除；替换其他文件后权限随之生效
+     * @param file 文件
+     * @throws IOException 创建失败
+     */
+    public static void createPrivateFile(Path file) throws IOException {
+        Files.deleteIfExists(file);
+        if (isPosix(file)) {
+            Files.createFile(file, PosixFilePermissions.asFileAttribute(OWNER_FILE));
+        } else {
+            Files.createFile(file);
+        }
+    }
+
+    /**
+     * 检查文件或目录属于当前用户，且组和其他用户不可写
+     * @param path 文件或目录
+     * @throws IOException 属于其他用户或其他用户可写
+     */
+    public static void checkPrivate(Path path) throws IOException {
+        if (!isPosix(path)) {
+            return;
+        }
+        PosixFileAttributes attributes = Files.readAttributes(path, PosixFileAttributes.class,
+                LinkOption.NOFOLLOW_LINKS);
+        String owner = attributes.owner().getName();
+        if (!owner.equals(System.getProperty("user.name"))) {
+            throw new IOException("拒绝使用其他用户(" + owner + ")的文件: " + path);
+        }
+        Set<PosixFilePermission> permissions = attributes.permissions();
+        if (permissions.contains(PosixFilePermission.GROUP_WRITE)
+                || permissions.contains(PosixFilePermission.OTHERS_WRITE)) {
+            throw new IOException("拒绝使用其他用户可写的文件: " + path);
+        }
+    }
+
+    private static boolean isPosix(Path path) {
+        return path.getFileSystem().supportedFileAttributeViews().contains("posix");
+    }
+}
@@ -0,0 +1,148 @@
+package com.czj.student.util.pool;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 布隆过滤器
+ * 判断不存在的键一定不存在，判断存在的键可能误判；位数组按预计键数和目标误判率计算，
+ * 多个哈希函数由两个64位哈希组合得出。写入以CAS设置位，可并发读写
+ */
+public class BloomFilter {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final long SECOND_SEED = 0x9e3779b97f4a7c15L;
+
+    private final AtomicLongArray bits;
+    private final long bitSize;
+    private final int hashCount;
+    private final long capacity;
+
+    // 已设置的位数，用于估算当前误判率
+    private final AtomicLong bitCount = new AtomicLong();
+
+    // 写入时至少设置了一个新位的次数，近似为不同键的数量
+    private final AtomicLong insertions = new AtomicLong();
+
+    /**
+     * @param capacity 预计键数
+     * @param fpp 预计键数下的目标误判率
+     */
+    public BloomFilter(long capacity, double fpp) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("预计键数必须大于0");
+        }
+        if (fpp <= 0 || fpp >= 1) {
+            throw new IllegalArgumentException("误判率必须在0和1之间");
+        }
+        long bitsNeeded = (long) Math.ceil(-capacity * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.min((bitsNeeded + 63) >>> 6, Integer.MAX_VALUE - 8);
+        this.bits = new AtomicLongArray(Math.max(words, 1));
+        this.bitSize = (long) bits.length() << 6;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitSize / capacity * Math.log(2)));
+        this.capacity = capacity;
+    }
+
+    /**
+     * 写入键
+     * @return 是否设置了新的位，为false时键可能已存在
+     */
+    public boolean put(String key) {
+        long hash1 = hash1(key);
+        long hash2 = hash2(hash1);
+        boolean changed = false;
+        long combined = hash1;
+        for (int i = 0; i < hashCount; i++) {
+            if (setBit((combined & Long.MAX_VALUE) % bitSize)) {
+                changed = true;
+            }
+            combined += hash2;
+        }
+        if (changed) {
+            insertions.incrementAndGet();
+        }
+        return changed;
+    }
+
+    /**
+     * @return 为false时键一定不存在
+     */
+    public boolean mightContain(String key) {
+        long hash1 = hash1(key);
+        long hash2 = hash2(hash1);
+        long combined = hash1;
+        for (int i = 0; i < hashCount; i++) {
+            long index = (combined & Long.MAX_VALUE) % bitSize;
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+            combined += hash2;
+        }
+        return true;
+    }
+
+    /**
+     * 按已设置的位数估算当前的误判率，键数超过预计键数后会明显上升
+     */
+    public double expectedFpp() {
+        return Math.pow((double) bitCount.get() / bitSize, hashCount);
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    public long getBitSize() {
+        return bitSize;
+    }
+
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    public long getInsertions() {
+        return insertions.get();
+    }
+
+    private boolean setBit(long index) {
+        int word = (int) (index >>> 6);
+        long mask = 1L << index;
+        while (true) {
+            long value = bits.get(word);
+            if ((value & mask) != 0) {
+                return false;
+            }
+            if (bits.compareAndSet(word, value, value | mask)) {
+                bitCount.incrementAndGet();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 按字符的FNV-1a哈希，再混合高低位
+     */
+    private static long hash1(String key) {
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        return mix(hash);
+    }
+
+    private static long hash2(long hash1) {
+        // 第二个哈希为奇数，步长不会退化为0
+        return mix(hash1 ^ SECOND_SEED) | 1L;
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,292 @@
+package com.czj.student.util.pool;
+
+import java.lang.ref.SoftReference;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 查询缓存条目
+ * 过期时间从加载时刻起算，命中不会延长；
+ * 超过刷新时间或已过期但仍在陈旧容忍期内的条目可以继续返回，同时触发异步刷新；
+ * 结果保存在堆内列表、堆内列式存储或堆外压缩存储三者之一；
+ * 列式存储的条目在命中后短时间内保留还原出的行，连续命中复用同一份行而不是每次重新创建
+ */
+public class CacheEntry {
+
+    // 列式存储还原出的行保留的时长(毫秒)，0表示每次命中都重新还原
+    private static volatile long decodedTtlMillis = 1000;
+
+    /**
+     * 列式存储最近一次还原出的全部行
+     * 软引用，不计入条目权重，内存紧张时可被回收
+     */
+    private static final class Decoded {
+        final SoftReference<List<?>> rows;
+        final long expireAt;
+
+        Decoded(List<?> rows, long expireAt) {
+            this.rows = new SoftReference<>(rows);
+            this.expireAt = expireAt;
+        }
+    }
+
+    // 堆内结果，列式或堆外存储时为null
+    private final List<?> value;
+
+    // 列式存储的结果，其他存储方式时为null
+    private final ColumnarRows<?> columnar;
+
+    // 堆外结果，堆内存储时为null
+    private final OffHeapRows offHeap;
+
+    // 加载时间
+    private final long loadTime;
+
+    // 到达该时间后命中触发异步刷新，Long.MAX_VALUE表示不提前刷新
+    private final long refreshAt;
+
+    // 过期时间
+    private final long expireAt;
+
+    // 陈旧容忍截止时间，超过后条目不可用
+    private final long staleUntil;
+
+    // 估算字节数：堆内为估算大小，堆外为压缩后大小
+    private long weight;
+
+    // 所属缓存组，移除时只需更新这些组
+    private String[] groups = new String[0];
+
+    // 实体标签属性名，如sid，未设置时为null
+    private String entityTag;
+
+    // 结果中包含的实体标签，如sid:1，由QueryPool在放入缓存前设置
+    private Set<String> tags = Collections.emptySet();
+
+    // 是否已有刷新任务在进行
+    private final AtomicBoolean refreshing = new AtomicBoolean(false);
+
+    // 所属缓存区域，由QueryPool在放入缓存前设置
+    private CacheRegion region;
+
+    // 列式存储最近还原出的行，其他存储方式时始终为null
+    private volatile Decoded decoded;
+
+    /**
+     * @param value 查询结果
+     * @param expiration 过期时间(毫秒)
+     * @param refreshAfter 刷新间隔(毫秒)，0表示不提前刷新
+     * @param staleTtl 过期后仍可返回旧值的时长(毫秒)
+     */
+    public CacheEntry(List<?> value, long expiration, long refreshAfter, long staleTtl) {
+        this(value, null, null, expiration, refreshAfter, staleTtl);
+    }
+
+    /**
+     * @param columnar 列式存储的查询结果
+     * @param expiration 过期时间(毫秒)
+     * @param refreshAfter 刷新间隔(毫秒)，0表示不提前刷新
+     * @param staleTtl 过期后仍可返回旧值的时长(毫秒)
+     */
+    public CacheEntry(ColumnarRows<?> columnar, long expiration, long refreshAfter, long staleTtl) {
+        this(null, columnar, null, expiration, refreshAfter, staleTtl);
+    }
+
+    /**
+     * @param offHeap 堆外存储的查询结果
+     * @param expiration 过期时间(毫秒)
+     * @param refreshAfter 刷新间隔(毫秒)，0表示不提前刷新
+     * @param staleTtl 过期后仍可返回旧值的时长(毫秒)
+     */
+    public CacheEntry(OffHeapRows offHeap, long expiration, long refreshAfter, long staleTtl) {
+        this(null, null, offHeap, expiration, refreshAfter, staleTtl);
+    }
+
+    private CacheEntry(List<?> value, ColumnarRows<?> columnar, OffHeapRows offHeap,
+                       long expiration, long refreshAfter, long staleTtl) {
+        this.value = value;
+        this.columnar = columnar;
+        this.offHeap = offHeap;
+        this.loadTime = System.currentTimeMillis();
+        this.refreshAt = refreshAfter > 0 ? loadTime + refreshAfter : Long.MAX_VALUE;
+        this.expireAt = loadTime + expiration;
+        this.staleUntil = expireAt + Math.max(0, staleTtl);
+    }
+
+    /**
+     * @return 完整结果，列式或堆外存储时还原全部行
+     */
+    public List<?> getValue() {
+        if (columnar != null) {
+            return decodeColumnar();
+        }
+        return offHeap != null ? offHeap.toList() : value;
+    }
+
+    /**
+     * @return 结果行数
+     */
+    public int size() {
+        if (columnar != null) {
+            return columnar.size();
+        }
+        return offHeap != null ? offHeap.size() : value.size();
+    }
+
+    /**
+     * 获取指定范围的行，列式存储时只还原该范围的行，堆外存储时只解码覆盖该范围的块
+     * @param fromIndex 起始行(包含)
+     * @param toIndex 结束行(不包含)
+     * @return 行列表
+     */
+    public List<?> slice(int fromIndex, int toIndex) {
+        if (columnar != null) {
+            // 分页窗口的条目只含当前页，命中时总是读取全部行
+            return fromIndex == 0 && toIndex == columnar.size()
+                    ? decodeColumnar() : columnar.slice(fromIndex, toIndex);
+        }
+        return offHeap != null ? offHeap.slice(fromIndex, toIndex) : value.subList(fromIndex, toIndex);
+    }
+
+    /**
+     * 还原列式存储的全部行，保留时长内复用上次还原的结果
+     * 与堆内列表存储一样，返回的行由同一时间段内的命中共享，调用方不应修改
+     */
+    private List<?> decodeColumnar() {
+        long ttl = decodedTtlMillis;
+        if (ttl <= 0) {
+            return columnar.toList();
+        }
+        long now = System.currentTimeMillis();
+        Decoded current = decoded;
+        List<?> rows = current != null && current.expireAt > now ? current.rows.get() : null;
+        if (rows == null) {
+            rows = columnar.toList();
+            decoded = new Decoded(rows, now + ttl);
+        }
+        return rows;
+    }
+
+    /**
+     * @param millis 列式存储还原出的行保留的时长(毫秒)，0表示每次命中都重新还原
+     */
+    static void setDecodedTtlMillis(long millis) {
+        decodedTtlMillis = Math.max(0, millis);
+    }
+
+    /**
+     * @return 堆外存储的结果，堆内存储时返回null
+     */
+    public OffHeapRows getOffHeap() {
+        return offHeap;
+    }
+
+    /**
+     * @return 列式存储的结果，其他存储方式时返回null
+     */
+    public ColumnarRows<?> getColumnar() {
+        return columnar;
+    }
+
+    public long getLoadTime() {
+        return loadTime;
+    }
+
+    /**
+     * @return 触发异步刷新的时间，Long.MAX_VALUE表示不提前刷新
+     */
+    public long getRefreshAt() {
+        return refreshAt;
+    }
+
+    public long getExpireAt() {
+        return expireAt;
+    }
+
+    /**
+     * @return 实体标签属性名，未设置时为null
+     */
+    public String getEntityTag() {
+        return entityTag;
+    }
+
+    /**
+     * @return 结果中包含的实体标签
+     */
+    public Set<String> getTags() {
+        return tags;
+    }
+
+    void setTags(String entityTag, Set<String> tags) {
+        this.entityTag = entityTag;
+        this.tags = tags;
+    }
+
+    /**
+     * @return 陈旧容忍截止时间，超过后条目不可用
+     */
+    public long getStaleUntil() {
+        return staleUntil;
+    }
+
+    /**
+     * @return 估算字节数
+     */
+    public long getWeight() {
+        return weight;
+    }
+
+    void setWeight(long weight) {
+        this.weight = weight;
+    }
+
+    CacheRegion getRegion() {
+        return region;
+    }
+
+    void setRegion(CacheRegion region) {
+        this.region = region;
+    }
+
+    /**
+     * @return 所属缓存组
+     */
+    public String[] getGroups() {
+        return groups;
+    }
+
+    void setGroups(String[] groups) {
+        this.groups = groups;
+    }
+
+    /**
+     * @return 条目是否仍可返回(未过期或在陈旧容忍期内)
+     */
+    public boolean isUsable(long now) {
+        return now < staleUntil;
+    }
+
+    /**
+     * @return 是否已过期(可能仍在陈旧容忍期内)
+     */
+    public boolean isExpired(long now) {
+        return now >= expireAt;
+    }
+
+    /**
+     * 需要刷新时抢占刷新权，保证同一条目同时只有一个刷新任务
+     * @return 是否由调用方负责刷新
+     */
+    public boolean tryStartRefresh(long now) {
+        return (now >= refreshAt || now >= expireAt) && refreshing.compareAndSet(false, true);
+    }
+
+    /**
+     * 刷新任务未能执行或失败，允许后续命中再次触发
+     */
+    public void cancelRefresh() {
+        refreshing.set(false);
+    }
+}
@@ -0,0 +1,161 @@
+package com.czj.student.util.pool;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 缓存统计
+ * 按方法或缓存组分别统计命中、加载耗时、移除原因及当前条目数和估算字节数，
+ * 计数使用LongAdder，高并发命中时不争用同一个计数器
+ */
+public class CacheMetrics {
+
+    // 加载耗时直方图的桶上限(毫秒)，最后一个桶为无穷大
+    static final long[] LATENCY_BUCKETS_MILLIS = {1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000};
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    private final LongAdder loadNanos = new LongAdder();
+    private final LongAdder[] latencyBuckets = newAdders(LATENCY_BUCKETS_MILLIS.length + 1);
+    private final LongAdder[] removals = newAdders(RemovalCause.values().length);
+    private final LongAdder entries = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+
+    public void recordHit() {
+        hits.increment();
+    }
+
+    public void recordMiss() {
+        misses.increment();
+    }
+
+    /**
+     * 记录一次加载
+     * @param nanos 耗时(纳秒)
+     * @param success 是否成功
+     */
+    public void recordLoad(long nanos, boolean success) {
+        loads.increment();
+        if (!success) {
+            loadFailures.increment();
+        }
+        loadNanos.add(nanos);
+        long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        int i = 0;
+        while (i < LATENCY_BUCKETS_MILLIS.length && millis > LATENCY_BUCKETS_MILLIS[i]) {
+            i++;
+        }
+        latencyBuckets[i].increment();
+    }
+
+    /**
+     * 记录条目放入缓存
+     * @param weight 估算字节数
+     */
+    public void recordInsert(long weight) {
+        entries.increment();
+        bytes.add(weight);
+    }
+
+    /**
+     * 记录条目移出缓存
+     * @param weight 估算字节数
+     * @param cause 移除原因，被新结果替换时为null
+     */
+    public void recordRemoval(long weight, RemovalCause cause) {
+        entries.decrement();
+        bytes.add(-weight);
+        if (cause != null) {
+            removals[cause.ordinal()].increment();
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getLoads() {
+        return loads.sum();
+    }
+
+    public long getLoadFailures() {
+        return loadFailures.sum();
+    }
+
+    /**
+     * @return 加载总耗时(纳秒)
+     */
+    public long getLoadNanos() {
+        return loadNanos.sum();
+    }
+
+    /**
+     * @return 各耗时桶的计数(非累计)，最后一个为超过最大上限的次数
+     */
+    public long[] getLatencyCounts() {
+        long[] counts = new long[latencyBuckets.length];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = latencyBuckets[i].sum();
+        }
+        return counts;
+    }
+
+    public long getRemovals(RemovalCause cause) {
+        return removals[cause.ordinal()].sum();
+    }
+
+    public long getEntries() {
+        return entries.sum();
+    }
+
+    public long getBytes() {
+        return bytes.sum();
+    }
+
+    /**
+     * @return 用于JSON输出的统计快照
+     */
+    public Map<String, Object> snapshot() {
+        long hitCount = getHits();
+        long missCount = getMisses();
+        long loadCount = getLoads();
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("hits", hitCount);
+        map.put("misses", missCount);
+        map.put("hitRate", hitCount + missCount > 0 ? (double) hitCount / (hitCount + missCount) : 0);
+        map.put("loads", loadCount);
+        map.put("loadFailures", getLoadFailures());
+        map.put("avgLoadMillis", loadCount > 0 ? getLoadNanos() / 1e6 / loadCount : 0);
+        Map<String, Long> histogram = new LinkedHashMap<>();
+        long[] counts = getLatencyCounts();
+        for (int i = 0; i < counts.length; i++) {
+            histogram.put(i < LATENCY_BUCKETS_MILLIS.length ? "le" + LATENCY_BUCKETS_MILLIS[i] + "ms" : "gt"
+                    + LATENCY_BUCKETS_MILLIS[LATENCY_BUCKETS_MILLIS.length - 1] + "ms", counts[i]);
+        }
+        map.put("loadLatency", histogram);
+        Map<String, Long> removalMap = new LinkedHashMap<>();
+        for (RemovalCause cause : RemovalCause.values()) {
+            removalMap.put(cause.name().toLowerCase(), getRemovals(cause));
+        }
+        map.put("removals", removalMap);
+        map.put("entries", getEntries());
+        map.put("bytes", getBytes());
+        return map;
+    }
+
+    private static LongAdder[] newAdders(int count) {
+        LongAdder[] adders = new LongAdder[count];
+        for (int i = 0; i < count; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+}
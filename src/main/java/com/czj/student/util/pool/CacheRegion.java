@@ -0,0 +1,146 @@
+package com.czj.student.util.pool;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 查询缓存区域
+ * 每个区域有独立的内存和堆外预算、过期时间上限、淘汰策略及存储方式，
+ * 一个区域的条目只会淘汰同区域的条目。缓存组通过配置归属区域，未归属的缓存组使用默认区域。
+ * 淘汰策略非线程安全，由QueryPool加锁访问
+ */
+public class CacheRegion {
+
+    /**
+     * 淘汰策略
+     */
+    public enum Policy {
+        // 按访问频率决定是否接纳新条目，适合读多写少的热点数据
+        TINY_LFU,
+        // 最久未访问的先淘汰，适合变化频繁、存活时间短的数据
+        LRU
+    }
+
+    /**
+     * 存储方式
+     */
+    public enum Backend {
+        // 只存堆内
+        HEAP,
+        // 可序列化的结果都压缩后存入堆外
+        OFF_HEAP,
+        // 行数达到query.pool.offHeapMinRows的结果存入堆外，其余存堆内
+        AUTO
+    }
+
+    private final String name;
+    private final long maxWeightBytes;
+    private final long maxOffHeapBytes;
+    private final int expectedEntries;
+    private final long ttlMillis;
+    private final Policy policy;
+    private final Backend backend;
+    private final boolean l2;
+
+    final EvictionPolicy<QueryKey> heapPolicy;
+    final EvictionPolicy<QueryKey> offHeapPolicy;
+
+    /**
+     * @param name 区域名称
+     * @param maxWeightBytes 堆内估算字节数上限
+     * @param maxOffHeapBytes 堆外压缩后字节数上限
+     * @param expectedEntries 预计条目数，用于确定频率统计表大小
+     * @param ttlMillis 过期时间上限(毫秒)，注解的过期时间更长时以此为准，0表示不限制
+     * @param policy 淘汰策略
+     * @param backend 存储方式
+     * @param l2 是否使用二级缓存
+     */
+    public CacheRegion(String name, long maxWeightBytes, long maxOffHeapBytes, int expectedEntries,
+                       long ttlMillis, Policy policy, Backend backend, boolean l2) {
+        if (maxWeightBytes <= 0 || maxOffHeapBytes <= 0) {
+            throw new IllegalArgumentException("缓存区域的容量必须大于0: " + name);
+        }
+        this.name = name;
+        this.maxWeightBytes = maxWeightBytes;
+        this.maxOffHeapBytes = maxOffHeapBytes;
+        this.expectedEntries = Math.max(16, expectedEntries);
+        this.ttlMillis = Math.max(0, ttlMillis);
+        this.policy = policy;
+        this.backend = backend;
+        this.l2 = l2;
+        this.heapPolicy = newPolicy(maxWeightBytes);
+        this.offHeapPolicy = newPolicy(maxOffHeapBytes);
+    }
+
+    /**
+     * @return 只修改堆内预算的新区域，淘汰策略重新创建
+     */
+    public CacheRegion withMaxWeightBytes(long bytes) {
+        return new CacheRegion(name, bytes, maxOffHeapBytes, expectedEntries, ttlMillis, policy, backend, l2);
+    }
+
+    /**
+     * @return 只修改堆外预算的新区域，淘汰策略重新创建
+     */
+    public CacheRegion withMaxOffHeapBytes(long bytes) {
+        return new CacheRegion(name, maxWeightBytes, bytes, expectedEntries, ttlMillis, policy, backend, l2);
+    }
+
+    /**
+     * @param expiration 注解指定的过期时间(毫秒)
+     * @return 不超过区域上限的过期时间
+     */
+    long capTtl(long expiration) {
+        return ttlMillis > 0 ? Math.min(expiration, ttlMillis) : expiration;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getMaxWeightBytes() {
+        return maxWeightBytes;
+    }
+
+    public long getMaxOffHeapBytes() {
+        return maxOffHeapBytes;
+    }
+
+    public long getTtlMillis() {
+        return ttlMillis;
+    }
+
+    public Policy getPolicy() {
+        return policy;
+    }
+
+    public Backend getBackend() {
+        return backend;
+    }
+
+    public boolean isL2() {
+        return l2;
+    }
+
+    /**
+     * 调用方须持有QueryPool的淘汰锁
+     * @return 统计快照
+     */
+    Map<String, Object> snapshot() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("policy", policy.name());
+        map.put("backend", backend.name());
+        map.put("l2", l2);
+        map.put("ttlMillis", ttlMillis);
+        map.put("entries", heapPolicy.size() + offHeapPolicy.size());
+        map.put("weightedBytes", heapPolicy.weightedSize());
+        map.put("maxWeightBytes", maxWeightBytes);
+        map.put("offHeapBytes", offHeapPolicy.weightedSize());
+        map.put("maxOffHeapBytes", maxOffHeapBytes);
+        return map;
+    }
+
+    private EvictionPolicy<QueryKey> newPolicy(long maximumWeight) {
+        return policy == Policy.LRU ? new LruPolicy<>(maximumWeight) : new TinyLfuPolicy<>(maximumWeight, expectedEntries);
+    }
+}
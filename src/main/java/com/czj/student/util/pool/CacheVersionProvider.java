@@ -0,0 +1,14 @@
+package com.czj.student.util.pool;
+
+/**
+ * 缓存组数据版本
+ * 版本字符串在该组对应的数据变化后应随之变化，用于判断快照中的缓存结果是否仍然有效
+ */
+public interface CacheVersionProvider {
+
+    /**
+     * @param group 缓存组
+     * @return 当前数据版本，无法判断时返回null
+     */
+    String getVersion(String group);
+}
@@ -0,0 +1,102 @@
+package com.czj.student.util.pool;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 列式存储的查询结果
+ * 行类型须在RowSchema中登记，按列存为基本类型数组、UTF-8字节数组及字典编码；
+ * 读取时只还原请求范围内的行，每次返回新创建的对象
+ * @param <T> 行类型
+ */
+public class ColumnarRows<T> {
+
+    // 对象本身及列数组的开销
+    private static final int OVERHEAD = 64;
+
+    private final RowSchema<T> schema;
+    private final RowSchema.Column<T>[] columns;
+    private final int size;
+    private final long estimatedBytes;
+
+    private ColumnarRows(RowSchema<T> schema, RowSchema.Column<T>[] columns, int size) {
+        this.schema = schema;
+        this.columns = columns;
+        this.size = size;
+        long bytes = OVERHEAD + 4L * columns.length;
+        for (RowSchema.Column<T> column : columns) {
+            bytes += column.bytes();
+        }
+        this.estimatedBytes = bytes;
+    }
+
+    /**
+     * 按列编码查询结果
+     * @param rows 查询结果
+     * @return 列式存储的结果，结果为空、含null行、行类型不一致或未登记时返回null
+     */
+    @SuppressWarnings("unchecked")
+    public static ColumnarRows<?> encode(List<?> rows) {
+        if (rows == null || rows.isEmpty() || rows.get(0) == null) {
+            return null;
+        }
+        Class<?> type = rows.get(0).getClass();
+        RowSchema<?> schema = RowSchema.of(type);
+        if (schema == null) {
+            return null;
+        }
+        for (Object row : rows) {
+            // 子类可能有未登记的字段，只接受精确类型
+            if (row == null || row.getClass() != type) {
+                return null;
+            }
+        }
+        return encode((RowSchema<Object>) schema, (List<Object>) rows);
+    }
+
+    private static <T> ColumnarRows<T> encode(RowSchema<T> schema, List<T> rows) {
+        return new ColumnarRows<>(schema, schema.encode(rows), rows.size());
+    }
+
+    /**
+     * @return 总行数
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return 估算占用的堆内存字节数
+     */
+    public long getEstimatedBytes() {
+        return estimatedBytes;
+    }
+
+    /**
+     * 还原指定范围的行
+     * @param fromIndex 起始行(包含)
+     * @param toIndex 结束行(不包含)
+     * @return 新创建的行列表
+     */
+    public List<T> slice(int fromIndex, int toIndex) {
+        if (fromIndex < 0 || toIndex > size || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException("fromIndex: " + fromIndex + ", toIndex: " + toIndex + ", size: " + size);
+        }
+        if (fromIndex == toIndex) {
+            return Collections.emptyList();
+        }
+        List<T> result = new ArrayList<>(toIndex - fromIndex);
+        for (int row = fromIndex; row < toIndex; row++) {
+            result.add(schema.materialize(columns, row));
+        }
+        return result;
+    }
+
+    /**
+     * @return 还原全部行
+     */
+    public List<T> toList() {
+        return slice(0, size);
+    }
+}
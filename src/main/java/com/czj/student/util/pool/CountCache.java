@@ -0,0 +1,217 @@
+package com.czj.student.util.pool;
+
+import com.czj.student.util.TransactionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * 总数缓存
+ * 与行缓存分开，按表和过滤条件缓存COUNT结果，有独立的过期时间；
+ * 无过滤条件的总数在新增、删除提交后按+1/-1调整，不重新查询；
+ * 带过滤条件的总数在该表有任何修改提交后清除，因为无法判断修改是否影响匹配
+ */
+@Component
+public class CountCache {
+    private static final Logger logger = LoggerFactory.getLogger(CountCache.class);
+
+    // 无过滤条件的键
+    private static final String UNFILTERED = "";
+
+    // 过期时间(毫秒)
+    @Value("${count.cache.ttlMillis:60000}")
+    private long ttlMillis = 60000;
+
+    // 每个表的最大条目数，超出时按LRU淘汰最久未使用的过滤条件
+    @Value("${count.cache.maxEntries:1000}")
+    private int maxEntries = 1000;
+
+    // 是否对大表的过滤条件使用抽样估算的总数
+    @Value("${count.cache.approximate:false}")
+    private boolean approximate;
+
+    // 表行数达到该值时才使用估算
+    @Value("${count.cache.approximateMinRows:100000}")
+    private long approximateMinRows = 100000;
+
+    // 键为表名，值为该表的总数
+    private final ConcurrentHashMap<String, TableCounts> tables = new ConcurrentHashMap<>();
+
+    // 各表的修改版本，加载期间版本变化时不缓存加载结果
+    private final ConcurrentHashMap<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    /**
+     * 缓存的总数
+     */
+    private static final class Count {
+        final long value;
+        final long expireAt;
+
+        Count(long value, long expireAt) {
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+    }
+
+    /**
+     * 一个表的总数及其淘汰顺序
+     * 每个条目权重为1，LRU容量即最大条目数；淘汰策略非线程安全，由lock保护，读路径使用tryLock
+     */
+    private static final class TableCounts {
+        final ConcurrentHashMap<String, Count> counts = new ConcurrentHashMap<>();
+        final LruPolicy<String> policy;
+        final ReentrantLock lock = new ReentrantLock();
+
+        TableCounts(int maxEntries) {
+            this.policy = new LruPolicy<>(maxEntries);
+        }
+
+        void recordAccess(String key) {
+            // 锁被占用时丢弃本次访问记录，只影响淘汰顺序的精度
+            if (lock.tryLock()) {
+                try {
+                    policy.recordAccess(key);
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+
+        void put(String key, Count count) {
+            lock.lock();
+            try {
+                counts.put(key, count);
+                List<String> victims = policy.recordInsert(key, 1);
+                for (String victim : victims) {
+                    counts.remove(victim);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void remove(String key) {
+            lock.lock();
+            try {
+                counts.remove(key);
+                policy.remove(key);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void removeFiltered() {
+            lock.lock();
+            try {
+                for (String key : counts.keySet()) {
+                    if (!UNFILTERED.equals(key)) {
+                        counts.remove(key);
+                        policy.remove(key);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void clear() {
+            lock.lock();
+            try {
+                counts.clear();
+                policy.clear();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 获取总数，未命中或已过期时执行查询并缓存
+     * @param table 表名
+     * @param filter 过滤条件，为空表示无过滤条件
+     * @param loader 执行COUNT查询
+     * @return 总数
+     */
+    public long get(String table, String filter, LongSupplier loader) {
+        String key = filter != null ? filter : UNFILTERED;
+        TableCounts counts = counts(table);
+        Count count = counts.counts.get(key);
+        if (count != null && count.expireAt > System.currentTimeMillis()) {
+            counts.recordAccess(key);
+            return count.value;
+        }
+
+        AtomicLong version = version(table);
+        long before = version.get();
+        long value = loader.getAsLong();
+        if (version.get() == before) {
+            counts.put(key, new Count(value, System.currentTimeMillis() + ttlMillis));
+            // 加载期间有修改提交时，已放入的结果可能未计入修改，移除
+            if (version.get() != before) {
+                counts.remove(key);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * 新增或删除行后调整总数，在当前事务提交后执行
+     * @param table 表名
+     * @param delta 行数变化，新增为正，删除为负
+     */
+    public void adjust(String table, int delta) {
+        TransactionUtils.afterCommit(() -> {
+            TableCounts counts = counts(table);
+            version(table).incrementAndGet();
+            counts.counts.computeIfPresent(UNFILTERED, (k, c) -> new Count(Math.max(0, c.value + delta), c.expireAt));
+            counts.removeFiltered();
+            logger.debug("调整总数缓存: {}, {}", table, delta);
+        });
+    }
+
+    /**
+     * 修改行后清除带过滤条件的总数，无过滤条件的总数不变，在当前事务提交后执行
+     * @param table 表名
+     */
+    public void invalidateFiltered(String table) {
+        TransactionUtils.afterCommit(() -> {
+            version(table).incrementAndGet();
+            counts(table).removeFiltered();
+        });
+    }
+
+    /**
+     * 清除表的所有总数，如批量导入后，在当前事务提交后执行
+     * @param table 表名
+     */
+    public void invalidate(String table) {
+        TransactionUtils.afterCommit(() -> {
+            version(table).incrementAndGet();
+            counts(table).clear();
+        });
+    }
+
+    /**
+     * 判断带过滤条件的总数是否使用抽样估算
+     * @param tableRows 表的总行数
+     * @return 是否估算
+     */
+    public boolean useApproximate(long tableRows) {
+        return approximate && tableRows >= approximateMinRows;
+    }
+
+    private TableCounts counts(String table) {
+        return tables.computeIfAbsent(table, k -> new TableCounts(maxEntries));
+    }
+
+    private AtomicLong version(String table) {
+        return versions.computeIfAbsent(table, k -> new AtomicLong());
+    }
+}
@@ -0,0 +1,293 @@
+package com.czj.student.util.pool;
+
+import com.czj.student.util.TransactionUtils;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 单行实体缓存
+ * 按主键缓存实体，并以自然键(学号、课程编号等)建立到主键的索引；未命中时读取数据库并缓存。
+ * 修改和删除时按主键失效，写库前和事务提交后各清除一次，加载期间有失效时不缓存加载结果；
+ * 提交后的失效同时通知其他节点。条目数超出上限时按W-TinyLFU淘汰。
+ * 返回的对象为缓存中的实例，调用方不应修改
+ * @param <E> 实体类型
+ */
+public class EntityCache<E> {
+
+    /**
+     * 缓存的实体
+     */
+    private static final class Entry<E> {
+        final E value;
+        final String naturalKey;
+        final long expireAt;
+
+        Entry(E value, String naturalKey, long expireAt) {
+            this.value = value;
+            this.naturalKey = naturalKey;
+            this.expireAt = expireAt;
+        }
+    }
+
+    private final String name;
+    private final Function<E, Long> idOf;
+    private final Function<E, String> naturalKeyOf;
+    private final long ttlMillis;
+    private final int maxEntries;
+
+    private final ConcurrentHashMap<Long, Entry<E>> entries = new ConcurrentHashMap<>();
+
+    // 自然键到主键的索引
+    private final ConcurrentHashMap<String, Long> naturalIndex = new ConcurrentHashMap<>();
+
+    // 失效版本，加载期间版本变化时不缓存加载结果
+    private final AtomicLong version = new AtomicLong();
+
+    // 淘汰策略，每个实体权重为1；写入、移除及淘汰在lock内完成，读路径使用tryLock
+    private final TinyLfuPolicy<Long> policy;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // 事务提交后通知其他节点失效，未设置时只在本节点生效
+    private volatile Consumer<Long> publisher;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param name 名称
+     * @param idOf 取主键
+     * @param naturalKeyOf 取自然键
+     * @param ttlMillis 过期时间(毫秒)
+     * @param maxEntries 最大条目数，超出时按访问频率和时间淘汰
+     */
+    public EntityCache(String name, Function<E, Long> idOf, Function<E, String> naturalKeyOf,
+                       long ttlMillis, int maxEntries) {
+        this.name = name;
+        this.idOf = idOf;
+        this.naturalKeyOf = naturalKeyOf;
+        this.ttlMillis = ttlMillis;
+        this.maxEntries = maxEntries;
+        this.policy = new TinyLfuPolicy<>(maxEntries, maxEntries);
+    }
+
+    /**
+     * 按主键获取实体
+     * @param id 主键
+     * @param loader 按主键查询数据库
+     * @return 实体，不存在时为null
+     */
+    public E get(Long id, Function<Long, E> loader) {
+        Entry<E> entry = entries.get(id);
+        if (entry != null && entry.expireAt > System.currentTimeMillis()) {
+            hits.increment();
+            recordAccess(id);
+            return entry.value;
+        }
+        misses.increment();
+        long before = version.get();
+        E value = loader.apply(id);
+        store(value, before);
+        return value;
+    }
+
+    /**
+     * 按自然键获取实体
+     * @param naturalKey 自然键
+     * @param loader 按自然键查询数据库
+     * @return 实体，不存在时为null
+     */
+    public E getByNaturalKey(String naturalKey, Function<String, E> loader) {
+        Long id = naturalIndex.get(naturalKey);
+        Entry<E> entry = id != null ? entries.get(id) : null;
+        // 索引可能指向已修改自然键的实体，需核对
+        if (entry != null && entry.expireAt > System.currentTimeMillis() && naturalKey.equals(entry.naturalKey)) {
+            hits.increment();
+            recordAccess(id);
+            return entry.value;
+        }
+        misses.increment();
+        long before = version.get();
+        E value = loader.apply(naturalKey);
+        store(value, before);
+        return value;
+    }
+
+    /**
+     * 批量按主键获取实体，未命中的主键一次查询
+     * @param ids 主键
+     * @param loader 按主键批量查询数据库
+     * @return 存在的实体，按主键的顺序
+     */
+    public List<E> getAll(Collection<Long> ids, Function<List<Long>, List<E>> loader) {
+        Map<Long, E> found = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (Long id : new LinkedHashSet<>(ids)) {
+            Entry<E> entry = entries.get(id);
+            if (entry != null && entry.expireAt > now) {
+                found.put(id, entry.value);
+                recordAccess(id);
+            } else {
+                missing.add(id);
+            }
+        }
+        hits.add(found.size());
+        if (!missing.isEmpty()) {
+            misses.add(missing.size());
+            long before = version.get();
+            for (E value : loader.apply(missing)) {
+                found.put(idOf.apply(value), value);
+                store(value, before);
+            }
+        }
+        List<E> result = new ArrayList<>(found.size());
+        for (Long id : ids) {
+            E value = found.get(id);
+            if (value != null) {
+                result.add(value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 修改或删除实体时调用，立即清除并在当前事务提交后再清除一次，
+     * 覆盖事务提交前其他线程读到旧数据并写入缓存的情况；提交后通知其他节点清除
+     * @param id 主键
+     */
+    public void invalidate(Long id) {
+        if (id == null) {
+            return;
+        }
+        remove(id);
+        TransactionUtils.afterCommit(() -> {
+            remove(id);
+            Consumer<Long> current = publisher;
+            if (current != null) {
+                current.accept(id);
+            }
+        });
+    }
+
+    /**
+     * 其他节点修改或删除实体后清除本节点的缓存，不再转发
+     * @param id 主键
+     */
+    public void invalidateRemote(Long id) {
+        if (id != null) {
+            remove(id);
+        }
+    }
+
+    /**
+     * @param publisher 事务提交后调用，用于通知其他节点失效；为null时不通知
+     */
+    public void setPublisher(Consumer<Long> publisher) {
+        this.publisher = publisher;
+    }
+
+    /**
+     * 清除所有实体
+     */
+    public void clear() {
+        lock.lock();
+        try {
+            version.incrementAndGet();
+            entries.clear();
+            naturalIndex.clear();
+            policy.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return 统计快照：条目数、命中和未命中次数
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        result.put("entries", entries.size());
+        result.put("maxEntries", maxEntries);
+        result.put("hits", hitCount);
+        result.put("misses", missCount);
+        result.put("hitRate", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        return result;
+    }
+
+    private void store(E value, long before) {
+        if (value == null || version.get() != before) {
+            return;
+        }
+        Long id = idOf.apply(value);
+        if (id == null) {
+            return;
+        }
+        String naturalKey = naturalKeyOf.apply(value);
+        lock.lock();
+        try {
+            Entry<E> previous = entries.put(id, new Entry<>(value, naturalKey, System.currentTimeMillis() + ttlMillis));
+            if (previous != null) {
+                removeIndex(id, previous);
+            }
+            if (naturalKey != null) {
+                naturalIndex.put(naturalKey, id);
+            }
+            // 超出上限时移除被淘汰的实体，可能是刚放入的实体本身
+            for (Long victim : policy.recordInsert(id, 1)) {
+                Entry<E> evicted = entries.remove(victim);
+                if (evicted != null) {
+                    removeIndex(victim, evicted);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        // 放入期间有失效时，已放入的实体可能是旧数据，移除
+        if (version.get() != before) {
+            remove(id);
+        }
+    }
+
+    private void recordAccess(Long id) {
+        // 锁被占用时丢弃本次访问记录，只影响频率统计的精度
+        if (lock.tryLock()) {
+            try {
+                policy.recordAccess(id);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void remove(Long id) {
+        version.incrementAndGet();
+        lock.lock();
+        try {
+            Entry<E> entry = entries.remove(id);
+            if (entry != null) {
+                removeIndex(id, entry);
+            }
+            policy.remove(id);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void removeIndex(Long id, Entry<E> entry) {
+        if (entry.naturalKey != null) {
+            naturalIndex.remove(entry.naturalKey, id);
+        }
+    }
+}
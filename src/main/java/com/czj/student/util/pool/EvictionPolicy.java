@@ -0,0 +1,46 @@
+package com.czj.student.util.pool;
+
+import java.util.List;
+
+/**
+ * 缓存淘汰策略
+ * 只维护键的顺序、频率和权重，不持有缓存数据；非线程安全，由调用方加锁
+ * @param <K> 缓存键类型
+ */
+public interface EvictionPolicy<K> {
+
+    /**
+     * 记录一次缓存命中
+     * @param key 缓存键
+     */
+    void recordAccess(K key);
+
+    /**
+     * 记录新写入的键，已存在的键会更新权重
+     * @param key 缓存键
+     * @param weight 条目权重(估算字节数)
+     * @return 需要从缓存中移除的键，可能包含刚写入的键本身
+     */
+    List<K> recordInsert(K key, long weight);
+
+    /**
+     * 键已从缓存中移除（过期、失效等）
+     * @param key 缓存键
+     */
+    void remove(K key);
+
+    /**
+     * 清空所有键
+     */
+    void clear();
+
+    /**
+     * @return 当前跟踪的键数量
+     */
+    int size();
+
+    /**
+     * @return 当前跟踪的总权重
+     */
+    long weightedSize();
+}
@@ -0,0 +1,242 @@
+package com.czj.student.util.pool;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 维护中的键存在性过滤器
+ * 启动后由全表扫描重建布隆过滤器并定期重新扫描，新增或修改时在写库之前加入新键并通知其他节点；
+ * 学号、身份证号、课程编号只通过本应用写入，判断为"一定不存在"的键默认直接返回，不查询数据库；
+ * 其他节点的通知丢失或直接写库新增的键由定期重建补入，期间的重复检查由数据库唯一索引兜底。
+ * 存在直接写库等绕过本应用的写入时可开启确认，判断为不存在的键仍查询数据库，查到后补入过滤器。
+ * 重建完成前一律判断为可能存在。删除的键不会移除，只增加误判，由下次重建清理
+ */
+public class ExistenceFilter {
+
+    // 重建完成时补入最近写入的键，覆盖扫描时尚未提交的事务
+    private static final long RECENT_MILLIS = 10 * 60 * 1000;
+
+    private static final class Recent {
+        final String key;
+        final long time;
+
+        Recent(String key, long time) {
+            this.key = key;
+            this.time = time;
+        }
+    }
+
+    private final String name;
+    private final long minCapacity;
+    private final double fpp;
+
+    // 为null时尚未完成重建
+    private volatile BloomFilter filter;
+
+    private final ConcurrentLinkedQueue<Recent> recent = new ConcurrentLinkedQueue<>();
+
+    // 判断为不存在、省去数据库查询的次数
+    private final LongAdder negatives = new LongAdder();
+
+    // 判断为可能存在、数据库中却不存在的次数
+    private final LongAdder falsePositives = new LongAdder();
+
+    // 判断为不存在、数据库中却存在的次数，即过滤器漏掉的新键
+    private final LongAdder falseNegatives = new LongAdder();
+
+    // 判断为不存在的键是否仍查询数据库确认
+    private volatile boolean verifyNegatives;
+
+    // 本节点加入新键后通知其他节点，未设置时只在本节点生效
+    private volatile Consumer<String> publisher;
+
+    /**
+     * @param name 名称
+     * @param minCapacity 最小预计键数，重建时按实际键数的2倍与其中较大者分配
+     * @param fpp 目标误判率
+     */
+    public ExistenceFilter(String name, long minCapacity, double fpp) {
+        this.name = name;
+        this.minCapacity = minCapacity;
+        this.fpp = fpp;
+    }
+
+    /**
+     * 只按过滤器判断，不查询数据库
+     * @return 为false时过滤器没有见过该键
+     */
+    public boolean mightContain(String key) {
+        BloomFilter current = filter;
+        if (current == null || key == null || current.mightContain(key)) {
+            return true;
+        }
+        negatives.increment();
+        return false;
+    }
+
+    /**
+     * 查询键对应的数据：过滤器判断可能存在时查询；判断不存在时按设置直接返回null或仍查询确认，
+     * 确认存在的键补入过滤器
+     * @param key 键
+     * @param loader 查询数据库，不存在时返回null
+     * @param <T> 数据类型
+     * @return 查询到的数据，不存在时返回null
+     */
+    public <T> T lookup(String key, Supplier<T> loader) {
+        BloomFilter current = filter;
+        if (current == null || key == null || current.mightContain(key)) {
+            T value = loader.get();
+            if (value == null) {
+                recordFalsePositive();
+            }
+            return value;
+        }
+        if (!verifyNegatives) {
+            negatives.increment();
+            return null;
+        }
+        T value = loader.get();
+        if (value != null) {
+            falseNegatives.increment();
+            add(key);
+        }
+        return value;
+    }
+
+    /**
+     * 判断为可能存在的键查询数据库后不存在时调用，用于统计实际误判率
+     */
+    public void recordFalsePositive() {
+        if (filter != null) {
+            falsePositives.increment();
+        }
+    }
+
+    /**
+     * 加入新键，应在写入数据库之前调用；事务回滚时多出的键只增加误判
+     */
+    public void put(String key) {
+        if (key == null) {
+            return;
+        }
+        add(key);
+        Consumer<String> current = publisher;
+        if (current != null) {
+            current.accept(key);
+        }
+    }
+
+    /**
+     * 加入其他节点通知的新键，不再转发
+     */
+    public void putRemote(String key) {
+        if (key != null) {
+            add(key);
+        }
+    }
+
+    private void add(String key) {
+        long now = System.currentTimeMillis();
+        // 先登记再写入当前过滤器，重建替换过滤器后补入时一定能看到
+        recent.add(new Recent(key, now));
+        BloomFilter current = filter;
+        if (current != null) {
+            current.put(key);
+        }
+        Recent head;
+        while ((head = recent.peek()) != null && head.time < now - RECENT_MILLIS) {
+            recent.poll();
+        }
+    }
+
+    /**
+     * 扫描全部键重建过滤器，扫描期间不影响判断；实际键数超过分配的容量时按实际键数再扫描一次
+     * @param source 把全部键依次交给参数的扫描
+     * @return 扫描到的键数
+     */
+    public long rebuild(Consumer<Consumer<String>> source) {
+        BloomFilter current = filter;
+        long capacity = Math.max(minCapacity, current != null ? current.getInsertions() * 2 : 0);
+        while (true) {
+            BloomFilter rebuilt = new BloomFilter(capacity, fpp);
+            long[] count = new long[1];
+            source.accept(key -> {
+                if (key != null) {
+                    rebuilt.put(key);
+                    count[0]++;
+                }
+            });
+            if (count[0] > capacity) {
+                capacity = count[0] * 2;
+                continue;
+            }
+            filter = rebuilt;
+            Iterator<Recent> iterator = recent.iterator();
+            while (iterator.hasNext()) {
+                rebuilt.put(iterator.next().key);
+            }
+            return count[0];
+        }
+    }
+
+    /**
+     * @return 键数已超过容量，误判率高于目标值，需要重建
+     */
+    public boolean isSaturated() {
+        BloomFilter current = filter;
+        return current != null && current.getInsertions() > current.getCapacity();
+    }
+
+    /**
+     * @param verifyNegatives 判断为不存在的键是否仍查询数据库确认
+     */
+    public void setVerifyNegatives(boolean verifyNegatives) {
+        this.verifyNegatives = verifyNegatives;
+    }
+
+    /**
+     * @param publisher 本节点加入新键后调用，用于通知其他节点；为null时不通知
+     */
+    public void setPublisher(Consumer<String> publisher) {
+        this.publisher = publisher;
+    }
+
+    public boolean isReady() {
+        return filter != null;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return 统计快照：容量、键数、按位估算的误判率及实际观测到的误判率
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        BloomFilter current = filter;
+        result.put("ready", current != null);
+        result.put("verifyNegatives", verifyNegatives);
+        result.put("targetFpp", fpp);
+        if (current != null) {
+            result.put("capacity", current.getCapacity());
+            result.put("insertions", current.getInsertions());
+            result.put("bitSize", current.getBitSize());
+            result.put("hashCount", current.getHashCount());
+            result.put("expectedFpp", current.expectedFpp());
+        }
+        long negativeCount = negatives.sum();
+        long falsePositiveCount = falsePositives.sum();
+        long absent = negativeCount + falsePositiveCount;
+        result.put("negatives", negativeCount);
+        result.put("falsePositives", falsePositiveCount);
+        result.put("falseNegatives", falseNegatives.sum());
+        result.put("observedFpp", absent == 0 ? 0.0 : (double) falsePositiveCount / absent);
+        return result;
+    }
+}
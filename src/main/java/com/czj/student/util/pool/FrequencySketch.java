@@ -0,0 +1,113 @@
+package com.czj.student.util.pool;
+
+/**
+ * 访问频率估算器（Count-Min Sketch，4位计数器）
+ * 每个long存放16个4位计数器，计数上限为15；
+ * 累计增量达到采样窗口后所有计数减半，使历史热点随时间衰减
+ * 非线程安全，由调用方加锁
+ */
+public class FrequencySketch {
+
+    // 四组哈希种子
+    private static final long[] SEED = {
+        0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+    };
+
+    // 减半时清除每个计数器最高位的掩码
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    // 每个long中最低位的掩码，用于统计奇数计数器
+    private static final long ONE_MASK = 0x1111111111111111L;
+
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+    private int size;
+
+    /**
+     * @param maximumSize 缓存最大条目数，决定计数表大小和采样窗口
+     */
+    public FrequencySketch(int maximumSize) {
+        int capacity = tableSizeFor(Math.max(maximumSize, 8));
+        this.table = new long[capacity];
+        this.tableMask = capacity - 1;
+        this.sampleSize = 10 * Math.max(maximumSize, 1);
+    }
+
+    /**
+     * 估算元素的访问频率
+     * @param e 元素
+     * @return 频率，范围0-15
+     */
+    public int frequency(Object e) {
+        int hash = spread(e.hashCode());
+        int start = (hash & 3) << 2;
+        int frequency = Integer.MAX_VALUE;
+        for (int i = 0; i < 4; i++) {
+            int index = indexOf(hash, i);
+            int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    /**
+     * 记录一次访问
+     * @param e 元素
+     */
+    public void increment(Object e) {
+        int hash = spread(e.hashCode());
+        int start = (hash & 3) << 2;
+
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            added |= incrementAt(indexOf(hash, i), start + i);
+        }
+
+        if (added && ++size >= sampleSize) {
+            reset();
+        }
+    }
+
+    /**
+     * 计数器自增，达到上限15时不再增加
+     */
+    private boolean incrementAt(int i, int j) {
+        int offset = j << 2;
+        long mask = 0xfL << offset;
+        if ((table[i] & mask) != mask) {
+            table[i] += 1L << offset;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 所有计数器减半，实现频率衰减
+     */
+    void reset() {
+        int count = 0;
+        for (int i = 0; i < table.length; i++) {
+            count += Long.bitCount(table[i] & ONE_MASK);
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        size = (size >>> 1) - (count >>> 2);
+    }
+
+    private int indexOf(int item, int i) {
+        long hash = (item + SEED[i]) * SEED[i];
+        hash += (hash >>> 32);
+        return ((int) hash) & tableMask;
+    }
+
+    private static int spread(int x) {
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        return (x >>> 16) ^ x;
+    }
+
+    private static int tableSizeFor(int x) {
+        int n = Integer.highestOneBit(x - 1) << 1;
+        return Math.max(n, 1);
+    }
+}
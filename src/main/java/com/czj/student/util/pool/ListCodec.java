@@ -0,0 +1,140 @@
+package com.czj.student.util.pool;
+
+import com.czj.student.util.PageRequest;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * 查询结果编解码
+ * 使用Java序列化并压缩，供堆外存储、二级缓存、快照和热点查询列表使用，所有行须可序列化。
+ * 二级缓存和本地文件的内容可能被他人写入，解码时只允许白名单中的类型：
+ * 实体/VO/DTO、查询参数、java.lang包装类型、java.util集合与日期、java.sql日期、java.math和java.time类型
+ */
+public class ListCodec {
+
+    // 允许的应用包前缀
+    private static final String MODEL_PACKAGE = "com.czj.student.model.";
+
+    // 允许的单个类型
+    private static final Set<String> ALLOWED_CLASSES = new HashSet<>(Arrays.asList(
+            "java.lang.Object", "java.lang.String", "java.lang.Number", "java.lang.Enum",
+            "java.lang.Boolean", "java.lang.Byte", "java.lang.Character", "java.lang.Short",
+            "java.lang.Integer", "java.lang.Long", "java.lang.Float", "java.lang.Double",
+            "java.math.BigDecimal", "java.math.BigInteger",
+            "java.sql.Date", "java.sql.Time", "java.sql.Timestamp",
+            // java.time类型序列化时都替换为该类
+            "java.time.Ser",
+            PageRequest.class.getName(),
+            QueryWarmer.class.getName() + "$SavedCandidate"));
+
+    private ListCodec() {
+    }
+
+    /**
+     * @param rows 查询结果
+     * @return 是否所有行都可以序列化，且行的类型在解码白名单中
+     */
+    public static boolean supports(List<?> rows) {
+        for (Object row : rows) {
+            if (!(row instanceof Serializable) || !isAllowed(row.getClass().getName())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 序列化并压缩
+     * @param rows 查询结果
+     * @return 压缩后的字节
+     * @throws IOException 序列化失败
+     */
+    public static byte[] encode(List<?> rows) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (ObjectOutputStream out = new ObjectOutputStream(new DeflaterOutputStream(bytes, deflater))) {
+            out.writeObject(rows.toArray());
+        } finally {
+            deflater.end();
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * 解压并反序列化
+     * @param bytes 压缩后的字节
+     * @return 新的行列表
+     */
+    public static List<Object> decode(byte[] bytes) {
+        return decode(bytes, 0, bytes.length);
+    }
+
+    /**
+     * 解压并反序列化
+     * @param bytes 压缩后的字节
+     * @param offset 起始位置
+     * @param length 长度
+     * @return 新的行列表
+     */
+    public static List<Object> decode(byte[] bytes, int offset, int length) {
+        try (ObjectInputStream in = new AllowListInputStream(
+                new InflaterInputStream(new ByteArrayInputStream(bytes, offset, length)))) {
+            return Arrays.asList((Object[]) in.readObject());
+        } catch (IOException | ClassNotFoundException e) {
+            throw new IllegalStateException("缓存数据解码失败", e);
+        }
+    }
+
+    /**
+     * @param className 类名，数组为JVM描述符形式
+     * @return 是否允许反序列化
+     */
+    static boolean isAllowed(String className) {
+        String name = className;
+        while (name.startsWith("[")) {
+            name = name.substring(1);
+        }
+        if (name.length() == 1) {
+            // 基本类型数组
+            return true;
+        }
+        if (name.startsWith("L") && name.endsWith(";")) {
+            name = name.substring(1, name.length() - 1);
+        }
+        if (ALLOWED_CLASSES.contains(name) || name.startsWith(MODEL_PACKAGE)) {
+            return true;
+        }
+        // java.util下的集合、Date及其内部类，不包括子包
+        return name.startsWith("java.util.") && name.indexOf('.', "java.util.".length()) < 0;
+    }
+
+    /**
+     * 只解析白名单中类型的对象输入流，拒绝动态代理
+     */
+    private static final class AllowListInputStream extends ObjectInputStream {
+
+        AllowListInputStream(InputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            if (!isAllowed(desc.getName())) {
+                throw new InvalidClassException(desc.getName(), "不允许反序列化的类型");
+            }
+            return super.resolveClass(desc);
+        }
+
+        @Override
+        protected Class<?> resolveProxyClass(String[] interfaces) throws IOException {
+            throw new InvalidClassException("不允许反序列化动态代理");
+        }
+    }
+}
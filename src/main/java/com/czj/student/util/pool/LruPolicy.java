@@ -0,0 +1,80 @@
+package com.czj.student.util.pool;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * LRU淘汰策略（按权重计算容量）
+ * 不统计访问频率，适合访问分布均匀或数据变化频繁、条目存活时间短的区域
+ * @param <K> 缓存键类型
+ */
+public class LruPolicy<K> implements EvictionPolicy<K> {
+
+    private final long maximumWeight;
+
+    // 访问顺序的LinkedHashMap，头部为最久未访问的键，值为权重
+    private final LinkedHashMap<K, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long weight;
+
+    /**
+     * @param maximumWeight 最大总权重
+     */
+    public LruPolicy(long maximumWeight) {
+        if (maximumWeight <= 0) {
+            throw new IllegalArgumentException("maximumWeight must be positive");
+        }
+        this.maximumWeight = maximumWeight;
+    }
+
+    @Override
+    public void recordAccess(K key) {
+        entries.get(key);
+    }
+
+    @Override
+    public List<K> recordInsert(K key, long keyWeight) {
+        Long old = entries.put(key, keyWeight);
+        weight += keyWeight - (old != null ? old : 0);
+        if (weight <= maximumWeight) {
+            return Collections.emptyList();
+        }
+        List<K> victims = new ArrayList<>(1);
+        Iterator<Map.Entry<K, Long>> iterator = entries.entrySet().iterator();
+        while (weight > maximumWeight && iterator.hasNext()) {
+            Map.Entry<K, Long> eldest = iterator.next();
+            iterator.remove();
+            weight -= eldest.getValue();
+            victims.add(eldest.getKey());
+        }
+        return victims;
+    }
+
+    @Override
+    public void remove(K key) {
+        Long old = entries.remove(key);
+        if (old != null) {
+            weight -= old;
+        }
+    }
+
+    @Override
+    public void clear() {
+        entries.clear();
+        weight = 0;
+    }
+
+    @Override
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public long weightedSize() {
+        return weight;
+    }
+}
@@ -0,0 +1,161 @@
+package com.czj.student.util.pool;
+
+import com.czj.student.model.vo.PageInfo;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 缓存方法描述符
+ * 每个被缓存的方法只解析一次：方法全名及参与缓存键的参数下标(PageInfo参数不参与)，
+ * 同一方法始终对应同一个描述符实例，可按引用比较
+ */
+public final class MethodDescriptor {
+
+    private static final ConcurrentHashMap<Method, MethodDescriptor> DESCRIPTORS = new ConcurrentHashMap<>();
+
+    private static final int[] NO_INDEXES = new int[0];
+
+    private final Method method;
+
+    // 类名.方法名，用于日志和统计
+    private final String name;
+
+    // 参与缓存键的参数下标
+    private final int[] keyArgIndexes;
+
+    // 是否有PageInfo参数
+    private final boolean paged;
+
+    private final int hash;
+
+    // 无键参数的方法共享同一个缓存键
+    private final QueryKey emptyKey;
+
+    // 按方法名统计，重载方法共用
+    private final CacheMetrics metrics;
+
+    private MethodDescriptor(Method method) {
+        this.method = method;
+        this.name = method.getDeclaringClass().getName() + "." + method.getName();
+        this.keyArgIndexes = resolveKeyArgIndexes(method);
+        this.paged = keyArgIndexes.length < method.getParameterCount();
+        this.hash = name.hashCode() * 31 + method.getParameterCount();
+        this.emptyKey = new QueryKey(this, new Object[0]);
+        this.metrics = QueryPool.methodMetrics(name);
+    }
+
+    /**
+     * 获取方法描述符，首次访问时解析并缓存
+     * @param method 被缓存的方法
+     * @return 描述符
+     */
+    public static MethodDescriptor of(Method method) {
+        MethodDescriptor descriptor = DESCRIPTORS.get(method);
+        if (descriptor == null) {
+            descriptor = DESCRIPTORS.computeIfAbsent(method, MethodDescriptor::new);
+        }
+        return descriptor;
+    }
+
+    /**
+     * 按类名、方法名和参数类型名查找方法，用于从快照等持久化数据中恢复
+     * @param className 声明方法的类
+     * @param methodName 方法名
+     * @param typeNames 参数类型名，支持基本类型和数组
+     * @return 方法
+     * @throws ClassNotFoundException 类不存在
+     * @throws NoSuchMethodException 方法不存在
+     */
+    static Method resolve(String className, String methodName, String[] typeNames)
+            throws ClassNotFoundException, NoSuchMethodException {
+        ClassLoader classLoader = MethodDescriptor.class.getClassLoader();
+        Class<?>[] types = new Class<?>[typeNames.length];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = ClassUtils.forName(typeNames[i], classLoader);
+        }
+        return ClassUtils.forName(className, classLoader).getDeclaredMethod(methodName, types);
+    }
+
+    /**
+     * @param method 方法
+     * @return 参数类型名，与resolve对应
+     */
+    static String[] typeNames(Method method) {
+        Class<?>[] types = method.getParameterTypes();
+        String[] names = new String[types.length];
+        for (int i = 0; i < types.length; i++) {
+            names[i] = types[i].getName();
+        }
+        return names;
+    }
+
+    /**
+     * 根据调用参数生成缓存键
+     * 参数对象需正确实现equals/hashCode，且在缓存期间不被修改
+     * @param args 方法调用参数
+     * @return 缓存键
+     */
+    public QueryKey keyOf(Object[] args) {
+        int length = keyArgIndexes.length;
+        if (length == 0) {
+            return emptyKey;
+        }
+        Object[] keyArgs = new Object[length];
+        for (int i = 0; i < length; i++) {
+            keyArgs[i] = args[keyArgIndexes[i]];
+        }
+        return new QueryKey(this, keyArgs);
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return 是否为分页查询方法(有PageInfo参数)
+     */
+    public boolean isPaged() {
+        return paged;
+    }
+
+    public CacheMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    private static int[] resolveKeyArgIndexes(Method method) {
+        Class<?>[] types = method.getParameterTypes();
+        int count = 0;
+        for (Class<?> type : types) {
+            if (!PageInfo.class.isAssignableFrom(type)) {
+                count++;
+            }
+        }
+        if (count == 0) {
+            return NO_INDEXES;
+        }
+        int[] indexes = new int[count];
+        int j = 0;
+        for (int i = 0; i < types.length; i++) {
+            if (!PageInfo.class.isAssignableFrom(types[i])) {
+                indexes[j++] = i;
+            }
+        }
+        return indexes;
+    }
+}
@@ -0,0 +1,114 @@
+package com.czj.student.util.pool;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 堆外压缩存储的查询结果
+ * 结果按固定行数分块序列化并压缩，整体存放在一块直接内存中；
+ * 读取时只解码请求范围覆盖的块，每次返回新反序列化的对象
+ */
+public class OffHeapRows {
+
+    // 每块行数，分页读取时最多多解码一块
+    static final int CHUNK_ROWS = 64;
+
+    // 压缩后的数据
+    private final ByteBuffer buffer;
+
+    // 各块在buffer中的起始位置，末尾多一个元素表示总长度
+    private final int[] chunkOffsets;
+
+    // 总行数
+    private final int size;
+
+    private OffHeapRows(ByteBuffer buffer, int[] chunkOffsets, int size) {
+        this.buffer = buffer;
+        this.chunkOffsets = chunkOffsets;
+        this.size = size;
+    }
+
+    /**
+     * 序列化并压缩查询结果
+     * @param rows 查询结果，所有行须可序列化
+     * @return 堆外存储的结果
+     * @throws IOException 序列化失败
+     */
+    public static OffHeapRows encode(List<?> rows) throws IOException {
+        int chunkCount = (rows.size() + CHUNK_ROWS - 1) / CHUNK_ROWS;
+        int[] offsets = new int[chunkCount + 1];
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        for (int i = 0; i < chunkCount; i++) {
+            offsets[i] = bytes.size();
+            int from = i * CHUNK_ROWS;
+            bytes.write(ListCodec.encode(rows.subList(from, Math.min(from + CHUNK_ROWS, rows.size()))));
+        }
+        offsets[chunkCount] = bytes.size();
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.size());
+        buffer.put(bytes.toByteArray());
+        buffer.flip();
+        return new OffHeapRows(buffer, offsets, rows.size());
+    }
+
+    /**
+     * @return 总行数
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return 压缩后占用的直接内存字节数
+     */
+    public int getStoredBytes() {
+        return buffer.capacity();
+    }
+
+    /**
+     * 解码指定范围的行
+     * @param fromIndex 起始行(包含)
+     * @param toIndex 结束行(不包含)
+     * @return 新解码的行列表
+     */
+    public List<Object> slice(int fromIndex, int toIndex) {
+        if (fromIndex < 0 || toIndex > size || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException("fromIndex: " + fromIndex + ", toIndex: " + toIndex + ", size: " + size);
+        }
+        if (fromIndex == toIndex) {
+            return Collections.emptyList();
+        }
+        List<Object> result = new ArrayList<>(toIndex - fromIndex);
+        int firstChunk = fromIndex / CHUNK_ROWS;
+        int lastChunk = (toIndex - 1) / CHUNK_ROWS;
+        for (int i = firstChunk; i <= lastChunk; i++) {
+            List<Object> chunk = decodeChunk(i);
+            int chunkStart = i * CHUNK_ROWS;
+            int from = Math.max(fromIndex - chunkStart, 0);
+            int to = Math.min(toIndex - chunkStart, chunk.size());
+            result.addAll(chunk.subList(from, to));
+        }
+        return result;
+    }
+
+    /**
+     * @return 解码全部行
+     */
+    public List<Object> toList() {
+        return slice(0, size);
+    }
+
+    private List<Object> decodeChunk(int index) {
+        int start = chunkOffsets[index];
+        byte[] compressed = new byte[chunkOffsets[index + 1] - start];
+        // duplicate保证并发读取互不影响position
+        ByteBuffer view = buffer.duplicate();
+        view.position(start);
+        view.get(compressed);
+        return ListCodec.decode(compressed);
+    }
+}
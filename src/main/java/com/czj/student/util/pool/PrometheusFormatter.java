@@ -0,0 +1,133 @@
+package com.czj.student.util.pool;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 把缓存统计输出为Prometheus文本格式(0.0.4)
+ */
+public final class PrometheusFormatter {
+
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final String PREFIX = "query_cache_";
+
+    private PrometheusFormatter() {
+    }
+
+    /**
+     * @param methods 按方法的统计
+     * @param groups 按缓存组的统计
+     * @return Prometheus文本
+     */
+    public static String format(Map<String, CacheMetrics> methods, Map<String, CacheMetrics> groups) {
+        StringBuilder sb = new StringBuilder(4096);
+        // 排序后输出，每次抓取的顺序一致
+        Map<String, CacheMetrics> sortedMethods = new TreeMap<>(methods);
+        Map<String, CacheMetrics> sortedGroups = new TreeMap<>(groups);
+
+        counter(sb, "hits_total", "缓存命中次数");
+        for (Map.Entry<String, CacheMetrics> e : sortedMethods.entrySet()) {
+            sample(sb, "hits_total", "method", e.getKey(), null, e.getValue().getHits());
+        }
+        for (Map.Entry<String, CacheMetrics> e : sortedGroups.entrySet()) {
+            sample(sb, "hits_total", "group", e.getKey(), null, e.getValue().getHits());
+        }
+
+        counter(sb, "misses_total", "缓存未命中次数");
+        for (Map.Entry<String, CacheMetrics> e : sortedMethods.entrySet()) {
+            sample(sb, "misses_total", "method", e.getKey(), null, e.getValue().getMisses());
+        }
+
+        counter(sb, "load_failures_total", "加载失败次数");
+        for (Map.Entry<String, CacheMetrics> e : sortedMethods.entrySet()) {
+            sample(sb, "load_failures_total", "method", e.getKey(), null, e.getValue().getLoadFailures());
+        }
+        for (Map.Entry<String, CacheMetrics> e : sortedGroups.entrySet()) {
+            sample(sb, "load_failures_total", "group", e.getKey(), null, e.getValue().getLoadFailures());
+        }
+
+        counter(sb, "removals_total", "按原因统计的移除次数");
+        for (Map.Entry<String, CacheMetrics> e : sortedMethods.entrySet()) {
+            removals(sb, "method", e.getKey(), e.getValue());
+        }
+        for (Map.Entry<String, CacheMetrics> e : sortedGroups.entrySet()) {
+            removals(sb, "group", e.getKey(), e.getValue());
+        }
+
+        gauge(sb, "entries", "当前条目数");
+        for (Map.Entry<String, CacheMetrics> e : sortedMethods.entrySet()) {
+            sample(sb, "entries", "method", e.getKey(), null, e.getValue().getEntries());
+        }
+        for (Map.Entry<String, CacheMetrics> e : sortedGroups.entrySet()) {
+            sample(sb, "entries", "group", e.getKey(), null, e.getValue().getEntries());
+        }
+
+        gauge(sb, "bytes", "当前条目估算字节数");
+        for (Map.Entry<String, CacheMetrics> e : sortedMethods.entrySet()) {
+            sample(sb, "bytes", "method", e.getKey(), null, e.getValue().getBytes());
+        }
+        for (Map.Entry<String, CacheMetrics> e : sortedGroups.entrySet()) {
+            sample(sb, "bytes", "group", e.getKey(), null, e.getValue().getBytes());
+        }
+
+        sb.append("# HELP ").append(PREFIX).append("load_duration_seconds 加载(执行原方法)耗时\n");
+        sb.append("# TYPE ").append(PREFIX).append("load_duration_seconds histogram\n");
+        for (Map.Entry<String, CacheMetrics> e : sortedMethods.entrySet()) {
+            histogram(sb, "method", e.getKey(), e.getValue());
+        }
+        for (Map.Entry<String, CacheMetrics> e : sortedGroups.entrySet()) {
+            histogram(sb, "group", e.getKey(), e.getValue());
+        }
+        return sb.toString();
+    }
+
+    private static void removals(StringBuilder sb, String label, String value, CacheMetrics metrics) {
+        for (RemovalCause cause : RemovalCause.values()) {
+            sample(sb, "removals_total", label, value, "cause=\"" + cause.name().toLowerCase() + "\"",
+                    metrics.getRemovals(cause));
+        }
+    }
+
+    /**
+     * 直方图的桶为累计计数，最后一个桶为+Inf
+     */
+    private static void histogram(StringBuilder sb, String label, String value, CacheMetrics metrics) {
+        long[] counts = metrics.getLatencyCounts();
+        long cumulative = 0;
+        for (int i = 0; i < counts.length; i++) {
+            cumulative += counts[i];
+            String le = i < CacheMetrics.LATENCY_BUCKETS_MILLIS.length
+                    ? Double.toString(CacheMetrics.LATENCY_BUCKETS_MILLIS[i] / 1000.0) : "+Inf";
+            sample(sb, "load_duration_seconds_bucket", label, value, "le=\"" + le + "\"", cumulative);
+        }
+        sb.append(PREFIX).append("load_duration_seconds_sum{").append(label).append("=\"")
+                .append(escape(value)).append("\"} ").append(metrics.getLoadNanos() / 1e9).append('\n');
+        sample(sb, "load_duration_seconds_count", label, value, null, cumulative);
+    }
+
+    private static void counter(StringBuilder sb, String name, String help) {
+        sb.append("# HELP ").append(PREFIX).append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(PREFIX).append(name).append(" counter\n");
+    }
+
+    private static void gauge(StringBuilder sb, String name, String help) {
+        sb.append("# HELP ").append(PREFIX).append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(PREFIX).append(name).append(" gauge\n");
+    }
+
+    private static void sample(StringBuilder sb, String name, String label, String value, String extraLabel, long sample) {
+        sb.append(PREFIX).append(name).append('{').append(label).append("=\"").append(escape(value)).append('"');
+        if (extraLabel != null) {
+            sb.append(',').append(extraLabel);
+        }
+        sb.append("} ").append(sample).append('\n');
+    }
+
+    /**
+     * 转义标签值中的反斜杠、双引号和换行
+     */
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
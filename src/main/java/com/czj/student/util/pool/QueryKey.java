@@ -0,0 +1,129 @@
+package com.czj.student.util.pool;
+
+import java.util.Arrays;
+
+/**
+ * 查询缓存键
+ * 由方法描述符和参数值组成，哈希值在创建时计算一次；
+ * 按参数的equals比较，不依赖toString，不同参数不会因字符串表示相同而冲突。
+ * 分页查询的每一页以页码和每页条数区分，不带页码的键对应该查询共用的总数
+ */
+public final class QueryKey {
+
+    private final MethodDescriptor descriptor;
+    private final Object[] args;
+
+    // 页码及每页条数，不是分页窗口时为0
+    private final int page;
+    private final int size;
+
+    private final int hash;
+
+    QueryKey(MethodDescriptor descriptor, Object[] args) {
+        this(descriptor, args, 0, 0);
+    }
+
+    QueryKey(MethodDescriptor descriptor, Object[] args, int page, int size) {
+        this.descriptor = descriptor;
+        this.args = args;
+        this.page = page;
+        this.size = size;
+        this.hash = ((descriptor.hashCode() * 31 + Arrays.deepHashCode(args)) * 31 + page) * 31 + size;
+    }
+
+    /**
+     * 同一查询的某一页
+     * @param page 页码
+     * @param size 每页条数
+     * @return 分页窗口的缓存键
+     */
+    public QueryKey withPage(int page, int size) {
+        return new QueryKey(descriptor, args, page, size);
+    }
+
+    /**
+     * @return 不带页码的键，分页查询时对应共用的总数
+     */
+    public QueryKey withoutPage() {
+        return page == 0 ? this : new QueryKey(descriptor, args, 0, 0);
+    }
+
+    /**
+     * @return 页码，不是分页窗口时为0
+     */
+    public int getPage() {
+        return page;
+    }
+
+    /**
+     * @return 每页条数，不是分页窗口时为0
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return 是否为分页查询的总数键
+     */
+    public boolean isTotal() {
+        return page == 0 && descriptor.isPaged();
+    }
+
+    public MethodDescriptor getDescriptor() {
+        return descriptor;
+    }
+
+    /**
+     * @return 参与缓存键的参数个数
+     */
+    public int getArgCount() {
+        return args.length;
+    }
+
+    /**
+     * @param index 参数序号(不含PageInfo参数)
+     * @return 参数值
+     */
+    public Object getArg(int index) {
+        return args[index];
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof QueryKey)) {
+            return false;
+        }
+        QueryKey other = (QueryKey) o;
+        return hash == other.hash
+                && descriptor == other.descriptor
+                && page == other.page
+                && size == other.size
+                && Arrays.deepEquals(args, other.args);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(descriptor.getName()).append('(');
+        for (int i = 0; i < args.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(args[i]);
+        }
+        sb.append(')');
+        if (page > 0) {
+            sb.append('[').append(page).append(',').append(size).append(']');
+        } else if (descriptor.isPaged()) {
+            sb.append("[total]");
+        }
+        return sb.toString();
+    }
+}
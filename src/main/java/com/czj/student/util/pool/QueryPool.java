@@ -1,17 +1,27 @@
 package com.czj.student.util.pool;
 
 import com.czj.student.model.vo.PageInfo;
+import com.czj.student.util.pool.l2.InvalidationBus;
+import com.czj.student.util.pool.l2.L2Cache;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.reflect.MethodSignature;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.beans.PropertyDescriptor;
+import java.io.IOException;
 import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 
 /**
  * 查询结果缓存池
@@ -20,70 +30,335 @@ import java.util.concurrent.atomic.AtomicLong;
 public class QueryPool {
     private static final Logger logger = LoggerFactory.getLogger(QueryPool.class);
     
-    // 缓存数据，键为查询标识，值为查询结果
-    private static final ConcurrentHashMap<String, List<?>> queryCache = new ConcurrentHashMap<>();
-    
-    // 方法签名映射，键为方法信息，值为查询标识
-    private static final ConcurrentHashMap<String, String> methodCache = new ConcurrentHashMap<>();
+    // 缓存数据，键为方法及参数组成的查询键，值为带加载/过期时间的缓存条目
+    private static final ConcurrentHashMap<QueryKey, CacheEntry> queryCache = new ConcurrentHashMap<>();
     
     // 缓存组映射，键为组名，值为该组的缓存键集合
-    private static final ConcurrentHashMap<String, Set<String>> groupCache = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, Set<QueryKey>> groupCache = new ConcurrentHashMap<>();
+    
+    // 默认区域的预计条目数，用于确定访问频率统计表的大小
+    private static final int EXPECTED_CACHE_SIZE = 1000;
+    
+    // 默认区域的缓存内存预算：64MB
+    private static final long DEFAULT_MAX_WEIGHT_BYTES = 64L * 1024 * 1024;
+    
+    // 默认区域的堆外存储预算：256MB，超出时按同样的策略淘汰堆外条目
+    private static final long DEFAULT_MAX_OFF_HEAP_BYTES = 256L * 1024 * 1024;
+    
+    // 默认区域名称，未归属任何区域的缓存组使用默认区域
+    public static final String DEFAULT_REGION = "default";
+    
+    // 行数达到该值的结果存入堆外，0表示不使用堆外存储；只对存储方式为AUTO的区域生效
+    private static volatile int offHeapMinRows = 1000;
+    
+    // 堆内结果的行类型已在RowSchema中登记时是否按列存储
+    private static volatile boolean columnar = true;
+    
+    // 缓存区域，各区域的条目只在本区域的预算内淘汰
+    private static final ConcurrentHashMap<String, CacheRegion> regions = new ConcurrentHashMap<>();
+    
+    // 缓存组所属的区域
+    private static final ConcurrentHashMap<String, CacheRegion> groupRegions = new ConcurrentHashMap<>();
+    
+    private static volatile CacheRegion defaultRegion = new CacheRegion(DEFAULT_REGION, DEFAULT_MAX_WEIGHT_BYTES,
+            DEFAULT_MAX_OFF_HEAP_BYTES, EXPECTED_CACHE_SIZE, 0, CacheRegion.Policy.TINY_LFU, CacheRegion.Backend.AUTO, true);
+    
+    static {
+        regions.put(DEFAULT_REGION, defaultRegion);
+    }
+    
+    // 过期时间轮，按条目不可用的时间登记，定时推进时只处理到期的条目
+    private static final TimerWheel<QueryKey> expiryWheel = new TimerWheel<>(System.currentTimeMillis());
     
-    // 缓存时间戳，用于自动过期
-    private static final ConcurrentHashMap<String, Long> cacheTimestamps = new ConcurrentHashMap<>();
+    // 淘汰策略及过期时间轮的锁，读路径使用tryLock，竞争时放弃本次访问记录
+    private static final ReentrantLock evictionLock = new ReentrantLock();
     
-    // 最大缓存条目数
-    private static final int MAX_CACHE_SIZE = 1000;
+    // 二级缓存，未启用时为null
+    private static volatile L2Cache l2Cache;
     
-    // 缓存访问计数，用于LRU策略
-    private static final ConcurrentHashMap<String, AtomicLong> cacheHits = new ConcurrentHashMap<>();
+    // 跨节点失效通知，未启用时为null
+    private static volatile InvalidationBus invalidationBus;
     
     // 统计信息
     private static final AtomicLong hits = new AtomicLong(0);
     private static final AtomicLong misses = new AtomicLong(0);
     private static final AtomicLong evictions = new AtomicLong(0);
+    private static final AtomicLong l2Hits = new AtomicLong(0);
+    private static final AtomicLong l2Misses = new AtomicLong(0);
+    private static final AtomicLong l2Errors = new AtomicLong(0);
+    
+    // 缓存组被清除后的回调，如缓存预热
+    private static final List<Consumer<String>> groupClearListeners = new CopyOnWriteArrayList<>();
+    
+    // 按方法和缓存组的统计
+    private static final ConcurrentHashMap<String, CacheMetrics> methodMetrics = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, CacheMetrics> groupMetrics = new ConcurrentHashMap<>();
+    
+    // 各缓存组的失效版本，清除缓存组时递增；加载期间版本变化的结果不写入缓存
+    private static final ConcurrentHashMap<String, AtomicLong> groupVersions = new ConcurrentHashMap<>();
+    
+    // 写入时不检查缓存组版本
+    public static final long ANY_VERSION = -1;
+    
+    /**
+     * 设置默认区域的缓存内存预算，重建淘汰策略并重新登记已有条目
+     * @param bytes 最大字节数
+     */
+    @Value("${query.pool.maxWeightBytes:67108864}")
+    public void setMaxWeightBytes(long bytes) {
+        if (bytes <= 0) {
+            throw new IllegalArgumentException("query.pool.maxWeightBytes must be positive");
+        }
+        configureRegion(defaultRegion.withMaxWeightBytes(bytes));
+        logger.info("QueryPool内存预算: {}字节", bytes);
+    }
+    
+    /**
+     * 设置默认区域的堆外存储预算，重建堆外淘汰策略并重新登记已有条目
+     * 需同时保证JVM的-XX:MaxDirectMemorySize不小于各区域堆外预算之和
+     * @param bytes 最大字节数
+     */
+    @Value("${query.pool.offHeapMaxBytes:268435456}")
+    public void setMaxOffHeapBytes(long bytes) {
+        if (bytes <= 0) {
+            throw new IllegalArgumentException("query.pool.offHeapMaxBytes must be positive");
+        }
+        configureRegion(defaultRegion.withMaxOffHeapBytes(bytes));
+        logger.info("QueryPool堆外存储预算: {}字节", bytes);
+    }
     
     /**
-     * 从缓存获取分页结果
+     * 配置缓存区域，同名区域被替换；已有条目按所属缓存组重新归属区域并登记到新的淘汰策略
+     * @param region 区域，名称为default时替换默认区域
+     * @param cacheGroups 归属该区域的缓存组
+     */
+    public static void configureRegion(CacheRegion region, String... cacheGroups) {
+        List<QueryKey> victimKeys = new ArrayList<>();
+        Map<QueryKey, CacheEntry> victims;
+        evictionLock.lock();
+        try {
+            CacheRegion old = regions.put(region.getName(), region);
+            if (DEFAULT_REGION.equals(region.getName())) {
+                defaultRegion = region;
+            }
+            if (old != null) {
+                groupRegions.values().removeIf(r -> r == old);
+            }
+            for (String group : cacheGroups) {
+                groupRegions.put(group, region);
+            }
+            for (Map.Entry<QueryKey, CacheEntry> e : queryCache.entrySet()) {
+                CacheEntry entry = e.getValue();
+                CacheRegion target = regionOf(entry.getGroups());
+                if (entry.getRegion() == target) {
+                    continue;
+                }
+                if (entry.getRegion() != null) {
+                    entry.getRegion().heapPolicy.remove(e.getKey());
+                    entry.getRegion().offHeapPolicy.remove(e.getKey());
+                }
+                entry.setRegion(target);
+                victimKeys.addAll((entry.getOffHeap() != null ? target.offHeapPolicy : target.heapPolicy)
+                        .recordInsert(e.getKey(), entry.getWeight()));
+            }
+            victims = currentEntries(victimKeys);
+        } finally {
+            evictionLock.unlock();
+        }
+        evictAll(victims);
+        logger.info("QueryPool缓存区域: {}, 缓存组: {}", region.getName(), Arrays.toString(cacheGroups));
+    }
+    
+    /**
+     * @param name 区域名称
+     * @return 区域，未配置时返回null
+     */
+    public static CacheRegion region(String name) {
+        return regions.get(name);
+    }
+    
+    /**
+     * 按缓存组确定区域：第一个归属了区域的缓存组决定，都未归属时为默认区域
+     */
+    static CacheRegion regionOf(String[] cacheGroups) {
+        if (cacheGroups != null) {
+            for (String group : cacheGroups) {
+                CacheRegion region = groupRegions.get(group);
+                if (region != null) {
+                    return region;
+                }
+            }
+        }
+        return defaultRegion;
+    }
+    
+    /**
+     * 设置存入堆外的最小行数
+     * @param rows 行数，0表示不使用堆外存储
+     */
+    @Value("${query.pool.offHeapMinRows:1000}")
+    public void setOffHeapMinRows(int rows) {
+        offHeapMinRows = Math.max(0, rows);
+    }
+    
+    /**
+     * 设置堆内结果是否按列存储
+     * @param enabled 是否启用，关闭时堆内直接保存查询返回的列表
+     */
+    @Value("${query.pool.columnar:true}")
+    public void setColumnar(boolean enabled) {
+        columnar = enabled;
+    }
+    
+    /**
+     * 设置列式存储的条目命中后保留还原出的行的时长，期间的命中复用同一份行
+     * @param millis 时长(毫秒)，0表示每次命中都重新还原
+     */
+    @Value("${query.pool.columnarDecodedMillis:1000}")
+    public void setColumnarDecodedMillis(long millis) {
+        CacheEntry.setDecodedTtlMillis(millis);
+    }
+    
+    /**
+     * 启用二级缓存和跨节点失效通知
+     * @param cache 二级缓存
+     * @param bus 失效通知，收到其他节点的通知时只清除本地缓存
+     */
+    public static void enableL2(L2Cache cache, InvalidationBus bus) {
+        l2Cache = cache;
+        invalidationBus = bus;
+        if (bus != null) {
+            bus.subscribe(QueryPool::clearLocalGroup);
+        }
+        logger.info("QueryPool启用二级缓存: {}", cache != null ? cache.getClass().getSimpleName() : "无");
+    }
+    
+    /**
+     * 跨节点通知，供实体缓存、存在性过滤器等按各自主题同步本地状态
+     * @return 失效通知，未启用时返回null
+     */
+    public static InvalidationBus getInvalidationBus() {
+        return invalidationBus;
+    }
+    
+    /**
+     * 停用二级缓存并释放资源
+     */
+    public static void disableL2() {
+        InvalidationBus bus = invalidationBus;
+        L2Cache cache = l2Cache;
+        invalidationBus = null;
+        l2Cache = null;
+        if (bus != null) {
+            bus.close();
+        }
+        if (cache != null) {
+            cache.close();
+        }
+    }
+    
+    /**
+     * 获取缓存条目
+     * 已超过陈旧容忍期的条目视为未命中并移除
      * @param cacheKey 缓存键
-     * @param pageInfo 分页参数
-     * @param <T> 数据类型
-     * @return 填充了数据的PageInfo对象，如果缓存未命中则返回null
+     * @return 缓存条目，未命中则返回null
      */
-    @SuppressWarnings("unchecked")
-    public static <T> PageInfo<T> getPagedResult(String cacheKey, PageInfo<T> pageInfo) {
-        List<T> cachedList = (List<T>) queryCache.get(cacheKey);
-        if (cachedList == null) {
+    public static CacheEntry getEntry(QueryKey cacheKey) {
+        CacheEntry entry = queryCache.get(cacheKey);
+        if (entry == null) {
+            misses.incrementAndGet();
+            cacheKey.getDescriptor().getMetrics().recordMiss();
+            return null;
+        }
+        if (!entry.isUsable(System.currentTimeMillis())) {
             misses.incrementAndGet();
+            cacheKey.getDescriptor().getMetrics().recordMiss();
+            if (queryCache.remove(cacheKey, entry)) {
+                afterRemoval(cacheKey, entry, RemovalCause.EXPIRED);
+            }
             return null;
         }
         
-        // 更新访问计数和时间戳
+        // 更新访问记录
         hits.incrementAndGet();
-        recordCacheHit(cacheKey);
-        
-        // 提取分页数据
-        int page = pageInfo.getPage();
-        int size = pageInfo.getSize();
-        int total = cachedList.size();
-        int pages = (total + size - 1) / size;
-        
-        int fromIndex = (page - 1) * size;
-        if (fromIndex >= total) {
-            fromIndex = 0;
-            page = 1;
+        cacheKey.getDescriptor().getMetrics().recordHit();
+        for (String group : entry.getGroups()) {
+            groupMetrics(group).recordHit();
         }
-        
-        int toIndex = Math.min(fromIndex + size, total);
-        List<T> pagedData = cachedList.subList(fromIndex, toIndex);
-        
-        // 设置分页信息
-        pageInfo.setTotal(total);
-        pageInfo.setPages(pages);
-        pageInfo.setRows(pagedData);
-        pageInfo.setPage(page);
-        
-        return pageInfo;
+        recordCacheHit(cacheKey, entry);
+        return entry;
+    }
+    
+    /**
+     * 获取分页查询共用的总数条目
+     * 只在当前页已命中时调用，不计入命中统计
+     * @param queryKey 不带页码的查询键
+     * @return 缓存条目，未命中返回null
+     */
+    public static CacheEntry getTotalEntry(QueryKey queryKey) {
+        return peekEntry(queryKey);
+    }
+    
+    /**
+     * 获取缓存条目，不计入命中/未命中统计
+     * 用于分页总数等同一请求已在首次查找时计入统计的读取
+     * @param cacheKey 缓存键
+     * @return 缓存条目，未命中或已不可用时返回null
+     */
+    public static CacheEntry peekEntry(QueryKey cacheKey) {
+        CacheEntry entry = queryCache.get(cacheKey);
+        if (entry == null || !entry.isUsable(System.currentTimeMillis())) {
+            return null;
+        }
+        recordCacheHit(cacheKey, entry);
+        return entry;
+    }
+    
+    /**
+     * 从缓存获取分页结果，当前页和总数都命中时才返回
+     * @param queryKey 不带页码的查询键
+     * @param pageInfo 分页参数
+     * @param <T> 数据类型
+     * @return 填充了数据的PageInfo对象，如果缓存未命中则返回null
+     */
+    public static <T> PageInfo<T> getPagedResult(QueryKey queryKey, PageInfo<T> pageInfo) {
+        CacheEntry entry = getEntry(queryKey.withPage(pageInfo.getPage(), pageInfo.getSize()));
+        CacheEntry totalEntry = entry != null ? getTotalEntry(queryKey) : null;
+        return totalEntry == null ? null : fillPage(entry, totalEntry, pageInfo);
+    }
+    
+    /**
+     * 用缓存条目填充分页结果
+     * @param entry 当前页的缓存条目
+     * @param totalEntry 总数的缓存条目
+     * @param pageInfo 分页参数
+     * @param <T> 数据类型
+     * @return 填充了数据的PageInfo对象
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> PageInfo<T> fillPage(CacheEntry entry, CacheEntry totalEntry, PageInfo<T> pageInfo) {
+        long total = ((Number) totalEntry.getValue().get(0)).longValue();
+        return pageInfo.of((List<T>) entry.slice(0, entry.size()), total);
+    }
+    
+    /**
+     * 存储分页查询结果：当前页的行存入分页窗口，总数存入该查询共用的条目
+     * @param queryKey 不带页码的查询键
+     * @param result 查询返回的分页结果
+     * @param expiration 过期时间(毫秒)
+     * @param refreshAfter 刷新间隔(毫秒)，0表示不提前刷新
+     * @param staleTtl 过期后仍可返回旧值的时长(毫秒)
+     * @param cacheGroups 缓存组
+     * @param entityTag 实体标签属性名，为空时不记录
+     * @param groupVersion 执行查询前取得的缓存组版本，已变化时不写入
+     */
+    public static void putPage(QueryKey queryKey, PageInfo<?> result, long expiration, long refreshAfter,
+                               long staleTtl, String[] cacheGroups, String entityTag, long groupVersion) {
+        List<?> rows = result.getRows() != null ? result.getRows() : Collections.emptyList();
+        putResult(queryKey.withPage(result.getPage(), result.getSize()), rows, expiration,
+                refreshAfter, staleTtl, cacheGroups, entityTag, groupVersion);
+        putResult(queryKey, Collections.singletonList(result.getTotal()), expiration,
+                refreshAfter, staleTtl, cacheGroups, entityTag, groupVersion);
     }
     
     /**
@@ -93,16 +368,87 @@ public class QueryPool {
      * @return 缓存的数据列表，未命中则返回null
      */
     @SuppressWarnings("unchecked")
-    public static <T> List<T> getList(String cacheKey) {
-        List<T> result = (List<T>) queryCache.get(cacheKey);
-        if (result == null) {
-            misses.incrementAndGet();
+    public static <T> List<T> getList(QueryKey cacheKey) {
+        CacheEntry entry = getEntry(cacheKey);
+        return entry == null ? null : (List<T>) entry.getValue();
+    }
+    
+    /**
+     * 获取普通缓存数据，不计入命中/未命中统计
+     * @param cacheKey 缓存键
+     * @param <T> 数据类型
+     * @return 缓存的数据列表，未命中则返回null
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> List<T> peekList(QueryKey cacheKey) {
+        CacheEntry entry = peekEntry(cacheKey);
+        return entry == null ? null : (List<T>) entry.getValue();
+    }
+    
+    /**
+     * 存储查询结果
+     * @param cacheKey 缓存键
+     * @param result 查询结果
+     * @param expiration 过期时间(毫秒)
+     * @param cacheGroups 缓存组
+     * @param <T> 数据类型
+     */
+    public static <T> void putResult(QueryKey cacheKey, List<T> result, long expiration, String[] cacheGroups) {
+        putResult(cacheKey, result, expiration, 0, 0, cacheGroups);
+    }
+    
+    /**
+     * 从二级缓存加载，命中时写入本地缓存
+     * 只在本地未命中时调用，二级缓存访问失败按未命中处理
+     * @param cacheKey 缓存键
+     * @param expiration 过期时间(毫秒)，本地条目取该值与二级缓存剩余时间的较小者
+     * @param refreshAfter 刷新间隔(毫秒)
+     * @param staleTtl 过期后仍可返回旧值的时长(毫秒)
+     * @param cacheGroups 缓存组
+     * @param entityTag 实体标签属性名，可为null
+     * @param groupVersion 读取前取得的缓存组版本，已变化时按未命中处理
+     * @return 缓存条目，未启用或未命中返回null
+     */
+    public static CacheEntry getFromL2(QueryKey cacheKey, long expiration, long refreshAfter, long staleTtl,
+                                       String[] cacheGroups, String entityTag, long groupVersion) {
+        L2Cache cache = l2Cache;
+        if (cache == null || !regionOf(cacheGroups).isL2()) {
+            return null;
+        }
+        byte[] bytes;
+        try {
+            bytes = cache.get(l2Key(cacheKey));
+        } catch (RuntimeException e) {
+            l2Errors.incrementAndGet();
+            logger.warn("读取二级缓存失败: {}, {}", cacheKey, e.getMessage());
             return null;
         }
         
-        hits.incrementAndGet();
-        recordCacheHit(cacheKey);
-        return result;
+        // 前8字节为写入节点计算的过期时间
+        long remaining = bytes != null && bytes.length > 8
+                ? ByteBuffer.wrap(bytes).getLong() - System.currentTimeMillis() : 0;
+        if (remaining <= 0) {
+            l2Misses.incrementAndGet();
+            return null;
+        }
+        List<Object> rows;
+        try {
+            rows = ListCodec.decode(bytes, 8, bytes.length - 8);
+        } catch (IllegalStateException e) {
+            // 数据损坏或含有白名单以外的类型，按未命中处理
+            l2Errors.incrementAndGet();
+            logger.warn("二级缓存数据解码失败: {}, {}", cacheKey, e.getCause() != null ? e.getCause() : e);
+            return null;
+        }
+        // 读取期间缓存组已被清除，读到的可能是清除前写入的旧值
+        if (!putLocal(cacheKey, rows, Math.min(expiration, remaining), refreshAfter, staleTtl,
+                cacheGroups, entityTag, groupVersion)) {
+            l2Misses.incrementAndGet();
+            return null;
+        }
+        l2Hits.incrementAndGet();
+        logger.debug("二级缓存命中: {}", cacheKey);
+        return queryCache.get(cacheKey);
     }
     
     /**
@@ -110,155 +456,512 @@ public class QueryPool {
      * @param cacheKey 缓存键
      * @param result 查询结果
      * @param expiration 过期时间(毫秒)
+     * @param refreshAfter 刷新间隔(毫秒)，0表示不提前刷新
+     * @param staleTtl 过期后仍可返回旧值的时长(毫秒)
+     * @param cacheGroups 缓存组
+     * @param <T> 数据类型
+     */
+    public static <T> void putResult(QueryKey cacheKey, List<T> result, long expiration,
+                                     long refreshAfter, long staleTtl, String[] cacheGroups) {
+        putResult(cacheKey, result, expiration, refreshAfter, staleTtl, cacheGroups, null);
+    }
+    
+    /**
+     * 存储查询结果并记录结果中包含的实体标签
+     * @param cacheKey 缓存键
+     * @param result 查询结果
+     * @param expiration 过期时间(毫秒)
+     * @param refreshAfter 刷新间隔(毫秒)，0表示不提前刷新
+     * @param staleTtl 过期后仍可返回旧值的时长(毫秒)
+     * @param cacheGroups 缓存组
+     * @param entityTag 实体标签属性名，如sid，为空时不记录
+     * @param <T> 数据类型
+     */
+    public static <T> void putResult(QueryKey cacheKey, List<T> result, long expiration,
+                                     long refreshAfter, long staleTtl, String[] cacheGroups, String entityTag) {
+        putResult(cacheKey, result, expiration, refreshAfter, staleTtl, cacheGroups, entityTag, ANY_VERSION);
+    }
+    
+    /**
+     * 存储查询结果，执行查询期间缓存组被清除时不写入，避免清除前读到的旧数据在清除后写回缓存
+     * @param cacheKey 缓存键
+     * @param result 查询结果
+     * @param expiration 过期时间(毫秒)
+     * @param refreshAfter 刷新间隔(毫秒)，0表示不提前刷新
+     * @param staleTtl 过期后仍可返回旧值的时长(毫秒)
      * @param cacheGroups 缓存组
+     * @param entityTag 实体标签属性名，如sid，为空时不记录
+     * @param groupVersion 执行查询前由{@link #groupVersion(String[])}取得的版本，为ANY_VERSION时不检查
      * @param <T> 数据类型
      */
-    public static <T> void putResult(String cacheKey, List<T> result, long expiration, String[] cacheGroups) {
-        // 检查缓存容量
-        checkCacheCapacity();
+    public static <T> void putResult(QueryKey cacheKey, List<T> result, long expiration, long refreshAfter,
+                                     long staleTtl, String[] cacheGroups, String entityTag, long groupVersion) {
+        if (!putLocal(cacheKey, result, expiration, refreshAfter, staleTtl, cacheGroups, entityTag, groupVersion)) {
+            return;
+        }
+        CacheRegion region = regionOf(cacheGroups);
+        if (!region.isL2()) {
+            return;
+        }
+        putL2(cacheKey, result, region.capTtl(expiration), cacheGroups);
+        // 写入二级缓存期间缓存组被清除时，写入的值可能晚于清除，再清除一次共享缓存
+        if (!isCurrentVersion(cacheGroups, groupVersion)) {
+            invalidateL2Groups(cacheGroups);
+        }
+    }
+    
+    /**
+     * 写入本地缓存
+     * @return 是否写入，缓存组版本已变化时不写入
+     */
+    private static boolean putLocal(QueryKey cacheKey, List<?> result, long expiration, long refreshAfter,
+                                    long staleTtl, String[] cacheGroups, String entityTag, long groupVersion) {
+        if (!isCurrentVersion(cacheGroups, groupVersion)) {
+            logger.debug("缓存组已清除，不写入加载结果: {}", cacheKey);
+            return false;
+        }
         
-        // 存储结果
-        queryCache.put(cacheKey, result);
-        cacheTimestamps.put(cacheKey, System.currentTimeMillis() + expiration);
-        recordCacheHit(cacheKey);
+        // 过期时间不超过区域的上限，按区域的存储方式决定是否压缩后存入堆外，留在堆内的结果尽量按列存储
+        CacheRegion region = regionOf(cacheGroups);
+        expiration = region.capTtl(expiration);
+        OffHeapRows offHeap = toOffHeap(region, cacheKey, result);
+        ColumnarRows<?> columnarRows = offHeap == null && columnar ? ColumnarRows.encode(result) : null;
+        CacheEntry entry;
+        long weight;
+        if (offHeap != null) {
+            entry = new CacheEntry(offHeap, expiration, refreshAfter, staleTtl);
+            weight = offHeap.getStoredBytes();
+        } else if (columnarRows != null) {
+            entry = new CacheEntry(columnarRows, expiration, refreshAfter, staleTtl);
+            weight = QueryWeigher.ENTRY_OVERHEAD + columnarRows.getEstimatedBytes();
+        } else {
+            entry = new CacheEntry(result, expiration, refreshAfter, staleTtl);
+            weight = QueryWeigher.weigh(result);
+        }
+        if (entityTag != null && !entityTag.isEmpty()) {
+            // 总数条目不含实体，只按查询参数判断是否受影响
+            entry.setTags(entityTag, cacheKey.isTotal() ? Collections.emptySet() : collectTags(result, entityTag));
+        }
+        if (cacheGroups != null) {
+            entry.setGroups(cacheGroups);
+        }
+        entry.setWeight(weight);
+        entry.setRegion(region);
         
-        // 关联缓存组
-        if (cacheGroups != null && cacheGroups.length > 0) {
-            for (String group : cacheGroups) {
-                groupCache.computeIfAbsent(group, k -> Collections.newSetFromMap(new ConcurrentHashMap<>()))
-                         .add(cacheKey);
+        // 写入、关联缓存组及登记淘汰策略在同一把锁内完成，并发移除旧条目的清理不会撤销本条目的登记
+        CacheEntry previous;
+        Map<QueryKey, CacheEntry> victims;
+        evictionLock.lock();
+        try {
+            previous = queryCache.put(cacheKey, entry);
+            if (previous != null) {
+                // 同一个键可能换了区域或缓存组，撤销旧条目中新条目未覆盖的登记
+                unregister(cacheKey, previous, entry);
             }
+            if (cacheGroups != null) {
+                for (String group : cacheGroups) {
+                    groupCache.computeIfAbsent(group, k -> Collections.newSetFromMap(new ConcurrentHashMap<>()))
+                             .add(cacheKey);
+                }
+            }
+            // 同一个键可能从一个存储层换到另一个，先从另一层的策略中移除；超出容量时移除被淘汰的条目
+            List<QueryKey> victimKeys;
+            if (offHeap != null) {
+                region.heapPolicy.remove(cacheKey);
+                victimKeys = region.offHeapPolicy.recordInsert(cacheKey, weight);
+            } else {
+                region.offHeapPolicy.remove(cacheKey);
+                victimKeys = region.heapPolicy.recordInsert(cacheKey, weight);
+            }
+            expiryWheel.schedule(cacheKey, entry.getStaleUntil());
+            victims = currentEntries(victimKeys);
+        } finally {
+            evictionLock.unlock();
+        }
+        if (previous != null) {
+            recordRemoval(cacheKey, previous, null);
+        }
+        recordInsert(cacheKey, entry);
+        evictAll(victims);
+        
+        // 写入期间缓存组被清除时，清除可能未看到本条目，移除
+        if (!isCurrentVersion(cacheGroups, groupVersion)) {
+            if (queryCache.remove(cacheKey, entry)) {
+                afterRemoval(cacheKey, entry, RemovalCause.INVALIDATED);
+            }
+            return false;
         }
         
         logger.debug("缓存数据, 键: {}, 大小: {}, 组: {}", cacheKey, result.size(), 
                      cacheGroups != null ? Arrays.toString(cacheGroups) : "无");
+        return true;
     }
     
     /**
-     * 存储方法签名到缓存键的映射
-     * @param methodKey 方法签名键
-     * @param cacheKey 缓存键
+     * 恢复快照中的条目，只写入本地缓存，本地已有该键时跳过
+     * @return 是否写入
      */
-    public static void putMethodMapping(String methodKey, String cacheKey) {
-        methodCache.put(methodKey, cacheKey);
+    static boolean restore(QueryKey cacheKey, List<?> result, long expiration, long refreshAfter,
+                           long staleTtl, String[] cacheGroups, String entityTag) {
+        if (queryCache.containsKey(cacheKey)) {
+            return false;
+        }
+        return putLocal(cacheKey, result, expiration, refreshAfter, staleTtl, cacheGroups, entityTag, ANY_VERSION);
     }
     
     /**
-     * 根据方法签名获取缓存键
-     * @param methodKey 方法签名键
-     * @return 缓存键
+     * @return 当前所有缓存条目的只读视图，供写入快照使用
      */
-    public static String getCacheKeyByMethod(String methodKey) {
-        return methodCache.get(methodKey);
+    static Map<QueryKey, CacheEntry> entries() {
+        return Collections.unmodifiableMap(queryCache);
     }
     
     /**
-     * 生成方法签名键
+     * 写入二级缓存，失败时只记录日志
+     */
+    private static void putL2(QueryKey cacheKey, List<?> result, long expiration, String[] cacheGroups) {
+        L2Cache cache = l2Cache;
+        if (cache == null || !ListCodec.supports(result)) {
+            return;
+        }
+        try {
+            byte[] rows = ListCodec.encode(result);
+            byte[] bytes = ByteBuffer.allocate(8 + rows.length)
+                    .putLong(System.currentTimeMillis() + expiration)
+                    .put(rows)
+                    .array();
+            cache.put(l2Key(cacheKey), bytes, expiration, cacheGroups);
+        } catch (IOException | RuntimeException e) {
+            l2Errors.incrementAndGet();
+            logger.warn("写入二级缓存失败: {}, {}", cacheKey, e.getMessage());
+        }
+    }
+    
+    /**
+     * 二级缓存键，各节点须得到相同的字符串，只在本地未命中时计算
+     * 参数按toString拼接，缓存方法的参数应为字符串、数字等值类型
+     */
+    private static String l2Key(QueryKey cacheKey) {
+        return cacheKey.toString();
+    }
+    
+    /**
+     * 将大结果序列化压缩到堆外
+     * @return 堆外存储的结果，不满足条件或序列化失败时返回null
+     */
+    private static OffHeapRows toOffHeap(CacheRegion region, QueryKey cacheKey, List<?> result) {
+        if (region.getBackend() == CacheRegion.Backend.HEAP || result.isEmpty()) {
+            return null;
+        }
+        int minRows = region.getBackend() == CacheRegion.Backend.OFF_HEAP ? 1 : offHeapMinRows;
+        if (minRows <= 0 || result.size() < minRows || !ListCodec.supports(result)) {
+            return null;
+        }
+        try {
+            return OffHeapRows.encode(result);
+        } catch (IOException | OutOfMemoryError e) {
+            // 序列化失败或直接内存不足时退回堆内存储
+            logger.warn("堆外存储失败，改为堆内缓存: {}", cacheKey, e);
+            return null;
+        }
+    }
+    
+    /**
+     * 生成查询缓存键
+     * 方法描述符按Method缓存，只在首次调用时解析；PageInfo参数不参与缓存键
      * @param joinPoint AOP连接点
-     * @param additionalParams 附加参数
-     * @return 方法签名键
+     * @return 缓存键
      */
-    public static String generateMethodKey(ProceedingJoinPoint joinPoint, Object... additionalParams) {
+    public static QueryKey createKey(ProceedingJoinPoint joinPoint) {
         MethodSignature signature = (MethodSignature) joinPoint.getSignature();
-        Method method = signature.getMethod();
-        String className = method.getDeclaringClass().getName();
-        String methodName = method.getName();
-        
-        StringBuilder key = new StringBuilder(className)
-            .append(".")
-            .append(methodName)
-            .append("(");
-        
-        // 添加方法参数
-        Object[] args = joinPoint.getArgs();
-        for (int i = 0; i < args.length; i++) {
-            Object arg = args[i];
-            // 跳过PageInfo参数，因为它会变化
-            if (arg instanceof PageInfo) {
+        return MethodDescriptor.of(signature.getMethod()).keyOf(joinPoint.getArgs());
+    }
+    
+    /**
+     * 清除指定缓存组的所有缓存
+     * 启用二级缓存时同时清除共享缓存，并通知其他节点清除本地缓存
+     * @param cacheGroup 缓存组名称
+     */
+    public static void clearCacheGroup(String cacheGroup) {
+        clearLocalGroup(cacheGroup);
+        clearSharedGroup(cacheGroup);
+    }
+    
+    /**
+     * 按实体失效缓存组中受影响的条目
+     * 以下条目会被清除，其余保留：
+     * 未按该实体标签建立索引的条目；结果中包含该实体的条目；
+     * 查询参数不是字符串，或字符串参数可能匹配实体某个字符串属性(修改前或修改后)的条目。
+     * 只适用于不改变未过滤结果总数和顺序的修改，新增和删除应清除整个缓存组。
+     * 二级缓存不保存标签，启用时共享缓存仍整组清除
+     * @param cacheGroup 缓存组名称
+     * @param entityTag 实体标签属性名，如sid
+     * @param id 实体ID，为null时清除整个缓存组
+     * @param matchValues 用于匹配查询参数的实体对象，如修改前后的实体
+     */
+    public static void invalidateEntity(String cacheGroup, String entityTag, Object id, Collection<?> matchValues) {
+        if (id == null) {
+            clearCacheGroup(cacheGroup);
+            return;
+        }
+        nextVersion(cacheGroup);
+        Set<QueryKey> keys = groupCache.get(cacheGroup);
+        if (keys != null) {
+            String tag = entityTag + ":" + id;
+            List<String> texts = collectTexts(matchValues);
+            int count = 0;
+            for (QueryKey key : keys) {
+                CacheEntry entry = queryCache.get(key);
+                if (entry == null || !isAffected(key, entry, entityTag, tag, texts)) {
+                    continue;
+                }
+                if (queryCache.remove(key, entry)) {
+                    afterRemoval(key, entry, RemovalCause.INVALIDATED);
+                    count++;
+                }
+            }
+            logger.debug("按实体清除缓存组: {}, 标签: {}, 共清除{}条缓存, 保留{}条", cacheGroup, tag, count, keys.size());
+        }
+        clearSharedGroup(cacheGroup);
+    }
+    
+    /**
+     * 判断条目是否受实体修改影响
+     */
+    private static boolean isAffected(QueryKey key, CacheEntry entry, String entityTag, String tag, List<String> texts) {
+        if (!entityTag.equals(entry.getEntityTag()) || entry.getTags().contains(tag)) {
+            return true;
+        }
+        for (int i = 0; i < key.getArgCount(); i++) {
+            Object arg = key.getArg(i);
+            if (arg == null || "".equals(arg)) {
                 continue;
             }
-            if (i > 0) {
-                key.append(",");
+            if (!(arg instanceof String)) {
+                return true;
+            }
+            String keyword = ((String) arg).toLowerCase();
+            // 含LIKE通配符的关键字无法按包含关系判断
+            if (keyword.indexOf('%') >= 0 || keyword.indexOf('_') >= 0) {
+                return true;
+            }
+            for (String text : texts) {
+                if (text.contains(keyword)) {
+                    return true;
+                }
             }
-            key.append(arg == null ? "null" : arg.toString());
         }
-        
-        // 添加额外参数
-        if (additionalParams != null && additionalParams.length > 0) {
-            for (Object param : additionalParams) {
-                key.append(",").append(param == null ? "null" : param.toString());
+        return false;
+    }
+    
+    /**
+     * 收集实体对象的所有字符串属性值(小写)，与数据库默认的大小写不敏感匹配一致
+     */
+    private static List<String> collectTexts(Collection<?> values) {
+        List<String> texts = new ArrayList<>();
+        if (values == null) {
+            return texts;
+        }
+        for (Object value : values) {
+            if (value == null) {
+                continue;
+            }
+            for (PropertyDescriptor pd : BeanUtils.getPropertyDescriptors(value.getClass())) {
+                Method reader = pd.getReadMethod();
+                if (reader == null || pd.getPropertyType() != String.class) {
+                    continue;
+                }
+                try {
+                    Object text = reader.invoke(value);
+                    if (text != null) {
+                        texts.add(((String) text).toLowerCase());
+                    }
+                } catch (ReflectiveOperationException e) {
+                    throw new IllegalStateException("读取实体属性失败: " + pd.getName(), e);
+                }
             }
         }
-        
-        key.append(")");
-        return key.toString();
+        return texts;
     }
     
     /**
-     * 生成缓存键
-     * @return 缓存键
+     * 收集结果中各行的实体标签
      */
-    public static String generateCacheKey() {
-        return UUID.randomUUID().toString().replace("-", "");
+    private static Set<String> collectTags(List<?> rows, String entityTag) {
+        Set<String> tags = new HashSet<>(rows.size() * 2);
+        for (Object row : rows) {
+            if (row == null) {
+                continue;
+            }
+            PropertyDescriptor pd = BeanUtils.getPropertyDescriptor(row.getClass(), entityTag);
+            if (pd == null || pd.getReadMethod() == null) {
+                throw new IllegalArgumentException(row.getClass().getName() + "没有实体标签属性: " + entityTag);
+            }
+            try {
+                Object value = pd.getReadMethod().invoke(row);
+                if (value != null) {
+                    tags.add(entityTag + ":" + value);
+                }
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("读取实体标签失败: " + entityTag, e);
+            }
+        }
+        return tags;
     }
     
     /**
-     * 清除指定缓存组的所有缓存
+     * 缓存组的当前版本，在执行查询前取得，写入结果时传入
+     * @param cacheGroups 缓存组
+     * @return 各缓存组版本之和，版本只增不减，任一缓存组被清除后都会变化
+     */
+    public static long groupVersion(String[] cacheGroups) {
+        long sum = 0;
+        if (cacheGroups != null) {
+            for (String group : cacheGroups) {
+                sum += groupVersions.computeIfAbsent(group, k -> new AtomicLong()).get();
+            }
+        }
+        return sum;
+    }
+    
+    private static boolean isCurrentVersion(String[] cacheGroups, long groupVersion) {
+        return groupVersion == ANY_VERSION || groupVersion(cacheGroups) == groupVersion;
+    }
+    
+    private static void nextVersion(String cacheGroup) {
+        groupVersions.computeIfAbsent(cacheGroup, k -> new AtomicLong()).incrementAndGet();
+    }
+    
+    /**
+     * 只清除二级缓存中的缓存组，不通知其他节点
+     */
+    private static void invalidateL2Groups(String[] cacheGroups) {
+        L2Cache cache = l2Cache;
+        if (cache == null || cacheGroups == null) {
+            return;
+        }
+        try {
+            for (String group : cacheGroups) {
+                cache.invalidateGroup(group);
+            }
+        } catch (RuntimeException e) {
+            l2Errors.incrementAndGet();
+            logger.warn("清除二级缓存组失败: {}, {}", Arrays.toString(cacheGroups), e.getMessage());
+        }
+    }
+    
+    /**
+     * 清除二级缓存中的缓存组并通知其他节点
+     */
+    private static void clearSharedGroup(String cacheGroup) {
+        L2Cache cache = l2Cache;
+        InvalidationBus bus = invalidationBus;
+        try {
+            if (cache != null) {
+                cache.invalidateGroup(cacheGroup);
+            }
+            if (bus != null) {
+                bus.publish(cacheGroup);
+            }
+        } catch (RuntimeException e) {
+            l2Errors.incrementAndGet();
+            logger.warn("清除二级缓存组失败: {}, {}", cacheGroup, e.getMessage());
+        }
+    }
+    
+    /**
+     * 清除本地缓存中指定缓存组的所有缓存
      * @param cacheGroup 缓存组名称
      */
-    public static void clearCacheGroup(String cacheGroup) {
-        Set<String> keys = groupCache.get(cacheGroup);
+    static void clearLocalGroup(String cacheGroup) {
+        // 先递增版本再清除，清除前开始的加载不会在清除后写入
+        nextVersion(cacheGroup);
+        Set<QueryKey> keys = groupCache.get(cacheGroup);
         if (keys != null) {
             int count = 0;
-            for (String key : keys) {
-                if (queryCache.remove(key) != null) {
-                    cacheTimestamps.remove(key);
-                    cacheHits.remove(key);
+            for (QueryKey key : keys) {
+                CacheEntry entry = queryCache.remove(key);
+                if (entry != null) {
+                    // 同时从该条目所属的各缓存组中移除；不整体清空，以免去掉清除期间新写入的键
+                    afterRemoval(key, entry, RemovalCause.INVALIDATED);
                     count++;
-                    evictions.incrementAndGet();
                 }
             }
-            keys.clear();
             logger.debug("清除缓存组: {}, 共清除{}条缓存", cacheGroup, count);
         }
+        for (Consumer<String> listener : groupClearListeners) {
+            listener.accept(cacheGroup);
+        }
+    }
+    
+    /**
+     * 注册缓存组被清除后的回调，本节点清除和收到其他节点的失效通知时都会调用
+     * 回调在清除缓存的线程中执行，不应阻塞
+     * @param listener 参数为缓存组名称
+     */
+    public static void addGroupClearListener(Consumer<String> listener) {
+        groupClearListeners.add(listener);
+    }
+    
+    /**
+     * @param listener 已注册的回调
+     */
+    public static void removeGroupClearListener(Consumer<String> listener) {
+        groupClearListeners.remove(listener);
     }
     
     /**
      * 清除所有缓存
      */
     public static void clearAll() {
-        int size = queryCache.size();
-        queryCache.clear();
-        methodCache.clear();
+        for (AtomicLong version : groupVersions.values()) {
+            version.incrementAndGet();
+        }
+        int size = 0;
+        for (Map.Entry<QueryKey, CacheEntry> entry : queryCache.entrySet()) {
+            if (queryCache.remove(entry.getKey(), entry.getValue())) {
+                recordRemoval(entry.getKey(), entry.getValue(), RemovalCause.INVALIDATED);
+                size++;
+            }
+        }
         groupCache.clear();
-        cacheTimestamps.clear();
-        cacheHits.clear();
+        evictionLock.lock();
+        try {
+            for (CacheRegion region : regions.values()) {
+                region.heapPolicy.clear();
+                region.offHeapPolicy.clear();
+            }
+            expiryWheel.clear();
+        } finally {
+            evictionLock.unlock();
+        }
         evictions.addAndGet(size);
         logger.debug("清除所有缓存, 共{}条", size);
     }
     
     /**
-     * 定期清理过期缓存，每5分钟执行一次
+     * 定期清理过期缓存，每秒推进一次过期时间轮，只处理到期的条目
+     * Spring不调度静态方法，因此为实例方法
      */
-    @Scheduled(fixedRate = 300000)
-    public static void cleanExpiredCache() {
+    @Scheduled(fixedRate = 1000)
+    public void cleanExpiredCache() {
         long now = System.currentTimeMillis();
         int count = 0;
         
-        for (Iterator<Map.Entry<String, Long>> it = cacheTimestamps.entrySet().iterator(); it.hasNext();) {
-            Map.Entry<String, Long> entry = it.next();
-            if (entry.getValue() < now) {
-                String key = entry.getKey();
-                queryCache.remove(key);
-                it.remove();
-                cacheHits.remove(key);
+        List<QueryKey> expired;
+        evictionLock.lock();
+        try {
+            expired = expiryWheel.advance(now);
+        } finally {
+            evictionLock.unlock();
+        }
+        
+        for (QueryKey key : expired) {
+            CacheEntry entry = queryCache.get(key);
+            // 条目可能已被替换为新的结果，新条目另行登记了到期时间
+            if (entry != null && !entry.isUsable(now) && queryCache.remove(key, entry)) {
+                afterRemoval(key, entry, RemovalCause.EXPIRED);
                 count++;
-                evictions.incrementAndGet();
-                
-                // 从缓存组中移除
-                for (Set<String> keys : groupCache.values()) {
-                    keys.remove(key);
-                }
             }
         }
         
@@ -277,48 +980,238 @@ public class QueryPool {
         long total = hitCount + missCount;
         double hitRate = total > 0 ? (double) hitCount / total * 100 : 0;
         
-        return String.format("QueryPool统计{缓存数: %d, 命中: %d, 未命中: %d, 清除: %d, 命中率: %.2f%%}",
-                queryCache.size(), hitCount, missCount, evictions.get(), hitRate);
+        return String.format("QueryPool统计{缓存数: %d, 估算内存: %d/%d字节, 堆外: %d/%d字节, 命中: %d, 未命中: %d, 清除: %d, 命中率: %.2f%%, 二级缓存命中: %d, 未命中: %d, 错误: %d}",
+                queryCache.size(), getWeightedSize(), getMaxWeightBytes(), getOffHeapSize(), getMaxOffHeapBytes(),
+                hitCount, missCount, evictions.get(), hitRate, l2Hits.get(), l2Misses.get(), l2Errors.get());
+    }
+    
+    /**
+     * @return 整体统计，用于JSON输出
+     */
+    public static Map<String, Object> getGlobalStats() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("entries", queryCache.size());
+        map.put("weightedBytes", getWeightedSize());
+        map.put("maxWeightBytes", getMaxWeightBytes());
+        map.put("offHeapBytes", getOffHeapSize());
+        map.put("maxOffHeapBytes", getMaxOffHeapBytes());
+        map.put("hits", hits.get());
+        map.put("misses", misses.get());
+        map.put("evictions", evictions.get());
+        map.put("l2Hits", l2Hits.get());
+        map.put("l2Misses", l2Misses.get());
+        map.put("l2Errors", l2Errors.get());
+        return map;
+    }
+    
+    /**
+     * 记录一次缓存加载(执行原方法)
+     * @param cacheKey 缓存键
+     * @param cacheGroups 缓存组
+     * @param nanos 耗时(纳秒)
+     * @param success 是否成功
+     */
+    public static void recordLoad(QueryKey cacheKey, String[] cacheGroups, long nanos, boolean success) {
+        cacheKey.getDescriptor().getMetrics().recordLoad(nanos, success);
+        if (cacheGroups != null) {
+            for (String group : cacheGroups) {
+                groupMetrics(group).recordLoad(nanos, success);
+            }
+        }
+    }
+    
+    /**
+     * @return 按方法名的统计，键为类名.方法名
+     */
+    public static Map<String, CacheMetrics> getMethodMetrics() {
+        return Collections.unmodifiableMap(methodMetrics);
+    }
+    
+    /**
+     * @return 按缓存组的统计
+     */
+    public static Map<String, CacheMetrics> getGroupMetrics() {
+        return Collections.unmodifiableMap(groupMetrics);
+    }
+    
+    /**
+     * 获取方法的统计，供方法描述符创建时使用
+     */
+    static CacheMetrics methodMetrics(String methodName) {
+        return methodMetrics.computeIfAbsent(methodName, k -> new CacheMetrics());
+    }
+    
+    private static CacheMetrics groupMetrics(String group) {
+        CacheMetrics metrics = groupMetrics.get(group);
+        return metrics != null ? metrics : groupMetrics.computeIfAbsent(group, k -> new CacheMetrics());
+    }
+    
+    /**
+     * @return 按区域的统计，键为区域名称
+     */
+    public static Map<String, Object> getRegionStats() {
+        Map<String, Object> map = new TreeMap<>();
+        evictionLock.lock();
+        try {
+            for (CacheRegion region : regions.values()) {
+                map.put(region.getName(), region.snapshot());
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+        return map;
+    }
+    
+    /**
+     * 获取缓存估算占用的字节数
+     * @return 各区域估算字节数之和
+     */
+    public static long getWeightedSize() {
+        evictionLock.lock();
+        try {
+            long sum = 0;
+            for (CacheRegion region : regions.values()) {
+                sum += region.heapPolicy.weightedSize();
+            }
+            return sum;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+    
+    /**
+     * 获取堆外存储占用的字节数
+     * @return 各区域压缩后字节数之和
+     */
+    public static long getOffHeapSize() {
+        evictionLock.lock();
+        try {
+            long sum = 0;
+            for (CacheRegion region : regions.values()) {
+                sum += region.offHeapPolicy.weightedSize();
+            }
+            return sum;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+    
+    private static long getMaxWeightBytes() {
+        long sum = 0;
+        for (CacheRegion region : regions.values()) {
+            sum += region.getMaxWeightBytes();
+        }
+        return sum;
+    }
+    
+    private static long getMaxOffHeapBytes() {
+        long sum = 0;
+        for (CacheRegion region : regions.values()) {
+            sum += region.getMaxOffHeapBytes();
+        }
+        return sum;
     }
     
     /**
      * 记录缓存命中
      */
-    private static void recordCacheHit(String cacheKey) {
-        cacheHits.computeIfAbsent(cacheKey, k -> new AtomicLong(0)).incrementAndGet();
-        cacheTimestamps.put(cacheKey, System.currentTimeMillis() + 30 * 60 * 1000); // 重置过期时间
+    private static void recordCacheHit(QueryKey cacheKey, CacheEntry entry) {
+        // 读路径不阻塞，锁被占用时丢弃本次访问记录，只影响频率统计的精度
+        if (evictionLock.tryLock()) {
+            try {
+                CacheRegion region = entry.getRegion();
+                (entry.getOffHeap() != null ? region.offHeapPolicy : region.heapPolicy).recordAccess(cacheKey);
+            } finally {
+                evictionLock.unlock();
+            }
+        }
     }
     
     /**
-     * 检查缓存容量，如果超出上限则清理最少使用的条目
+     * 条目已从缓存中移除后的清理：淘汰策略、过期时间轮、缓存组及统计
+     * 移除后该键可能已被重新写入，此时只撤销新条目未覆盖的登记
      */
-    private static void checkCacheCapacity() {
-        if (queryCache.size() >= MAX_CACHE_SIZE) {
-            // 查找访问次数最低的条目
-            String leastUsedKey = null;
-            long leastHits = Long.MAX_VALUE;
-            
-            for (Map.Entry<String, AtomicLong> entry : cacheHits.entrySet()) {
-                if (entry.getValue().get() < leastHits) {
-                    leastHits = entry.getValue().get();
-                    leastUsedKey = entry.getKey();
-                }
+    private static void afterRemoval(QueryKey cacheKey, CacheEntry entry, RemovalCause cause) {
+        evictionLock.lock();
+        try {
+            unregister(cacheKey, entry, queryCache.get(cacheKey));
+        } finally {
+            evictionLock.unlock();
+        }
+        evictions.incrementAndGet();
+        recordRemoval(cacheKey, entry, cause);
+    }
+    
+    private static void recordInsert(QueryKey cacheKey, CacheEntry entry) {
+        cacheKey.getDescriptor().getMetrics().recordInsert(entry.getWeight());
+        for (String group : entry.getGroups()) {
+            groupMetrics(group).recordInsert(entry.getWeight());
+        }
+    }
+    
+    private static void recordRemoval(QueryKey cacheKey, CacheEntry entry, RemovalCause cause) {
+        cacheKey.getDescriptor().getMetrics().recordRemoval(entry.getWeight(), cause);
+        for (String group : entry.getGroups()) {
+            groupMetrics(group).recordRemoval(entry.getWeight(), cause);
+        }
+    }
+    
+    /**
+     * 撤销已移除或被替换的条目在淘汰策略、过期时间轮和缓存组中的登记，调用方须持有evictionLock
+     * @param removed 已移除或被替换的条目
+     * @param current 该键当前的条目，为null时全部撤销，否则保留当前条目同样需要的登记
+     */
+    private static void unregister(QueryKey cacheKey, CacheEntry removed, CacheEntry current) {
+        CacheRegion region = removed.getRegion();
+        if (region != null && (current == null || current.getRegion() != region)) {
+            region.heapPolicy.remove(cacheKey);
+            region.offHeapPolicy.remove(cacheKey);
+        }
+        if (current == null) {
+            expiryWheel.cancel(cacheKey);
+        }
+        for (String group : removed.getGroups()) {
+            if (current != null && Arrays.asList(current.getGroups()).contains(group)) {
+                continue;
             }
-            
-            // 移除访问次数最低的条目
-            if (leastUsedKey != null) {
-                queryCache.remove(leastUsedKey);
-                cacheTimestamps.remove(leastUsedKey);
-                cacheHits.remove(leastUsedKey);
-                evictions.incrementAndGet();
-                
-                // 从缓存组中移除
-                for (Set<String> keys : groupCache.values()) {
-                    keys.remove(leastUsedKey);
-                }
-                
-                logger.debug("缓存容量达到上限, 移除最少使用的条目: {}", leastUsedKey);
+            Set<QueryKey> keys = groupCache.get(group);
+            if (keys != null) {
+                keys.remove(cacheKey);
+            }
+        }
+    }
+    
+    /**
+     * 取得淘汰策略选中的键当前对应的条目，调用方须持有evictionLock
+     * 写入与登记在同一把锁内完成，此时取得的条目就是被选中的条目
+     */
+    private static Map<QueryKey, CacheEntry> currentEntries(List<QueryKey> keys) {
+        if (keys.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<QueryKey, CacheEntry> entries = new LinkedHashMap<>();
+        for (QueryKey key : keys) {
+            CacheEntry entry = queryCache.get(key);
+            if (entry != null) {
+                entries.put(key, entry);
             }
         }
+        return entries;
+    }
+    
+    private static void evictAll(Map<QueryKey, CacheEntry> victims) {
+        for (Map.Entry<QueryKey, CacheEntry> victim : victims.entrySet()) {
+            evict(victim.getKey(), victim.getValue());
+        }
+    }
+    
+    /**
+     * 移除被淘汰策略选中的条目，选中后该键已被重新写入时保留新条目
+     */
+    private static void evict(QueryKey cacheKey, CacheEntry expected) {
+        if (queryCache.remove(cacheKey, expected)) {
+            afterRemoval(cacheKey, expected, RemovalCause.SIZE);
+            logger.debug("缓存容量达到上限, 淘汰条目: {}", cacheKey);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,240 @@
+package com.czj.student.util.pool;
+
+import com.czj.student.util.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * 查询缓存快照
+ * 停机时把未过期的条目及其缓存组、过期时间写入本地文件，启动后读回；
+ * 过期时间按绝对时间保存，停机期间同样计入。
+ * 文件中记录写入时各缓存组的数据版本，读回时版本不一致或无法判断的缓存组的条目全部丢弃。
+ * 读回时会反序列化参数和结果，目录和文件只允许所有者访问，属于其他用户的快照不读取
+ */
+public final class QueryPoolSnapshot {
+    private static final Logger logger = LoggerFactory.getLogger(QueryPoolSnapshot.class);
+
+    private static final int MAGIC = 0x51505331;
+
+    private static final int FORMAT_VERSION = 2;
+
+    private QueryPoolSnapshot() {
+    }
+
+    /**
+     * 写入快照，先写临时文件再替换，写入中途停止不会留下不完整的快照
+     * 参数或结果不可序列化的条目跳过
+     * @param file 快照文件
+     * @param versions 缓存组数据版本
+     * @return 写入的条目数
+     * @throws IOException 写入失败
+     */
+    public static int write(File file, CacheVersionProvider versions) throws IOException {
+        long now = System.currentTimeMillis();
+        Map<QueryKey, CacheEntry> entries = new HashMap<>(QueryPool.entries());
+
+        // 只记录能取得版本的缓存组，其余缓存组的条目读回时丢弃
+        Map<String, String> groupVersions = new HashMap<>();
+        for (CacheEntry entry : entries.values()) {
+            for (String group : entry.getGroups()) {
+                if (!groupVersions.containsKey(group)) {
+                    groupVersions.put(group, version(versions, group));
+                }
+            }
+        }
+        groupVersions.values().removeIf(Objects::isNull);
+
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (dir != null) {
+            FileUtils.createPrivateDirectories(dir.toPath());
+        }
+        File temp = new File(file.getPath() + ".tmp");
+        FileUtils.createPrivateFile(temp.toPath());
+        int count = 0;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(now);
+            out.writeShort(groupVersions.size());
+            for (Map.Entry<String, String> version : groupVersions.entrySet()) {
+                out.writeUTF(version.getKey());
+                out.writeUTF(version.getValue());
+            }
+            for (Map.Entry<QueryKey, CacheEntry> entry : entries.entrySet()) {
+                if (writeEntry(out, entry.getKey(), entry.getValue(), groupVersions, now)) {
+                    count++;
+                }
+            }
+            out.writeBoolean(false);
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        return count;
+    }
+
+    /**
+     * 读取快照并放入缓存，本地已有的键不覆盖
+     * @param file 快照文件
+     * @param versions 缓存组数据版本
+     * @return 恢复的条目数
+     * @throws IOException 读取失败或格式不正确
+     */
+    public static int read(File file, CacheVersionProvider versions) throws IOException {
+        long now = System.currentTimeMillis();
+        int count = 0;
+        int skipped = 0;
+        Map<String, String> validGroups = new HashMap<>();
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (dir != null) {
+            FileUtils.checkPrivate(dir.toPath());
+        }
+        FileUtils.checkPrivate(file.toPath());
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                throw new IOException("不支持的快照格式: " + file);
+            }
+            in.readLong();
+            int groupCount = in.readUnsignedShort();
+            for (int i = 0; i < groupCount; i++) {
+                String group = in.readUTF();
+                String version = in.readUTF();
+                if (version.equals(version(versions, group))) {
+                    validGroups.put(group, version);
+                }
+            }
+            while (in.readBoolean()) {
+                if (readEntry(in, validGroups.keySet(), now)) {
+                    count++;
+                } else {
+                    skipped++;
+                }
+            }
+        }
+
+        // 读取期间数据可能再次变化，版本不再一致的缓存组整组清除
+        for (Map.Entry<String, String> group : validGroups.entrySet()) {
+            if (!group.getValue().equals(version(versions, group.getKey()))) {
+                QueryPool.clearLocalGroup(group.getKey());
+            }
+        }
+        logger.debug("读取查询缓存快照: {}, 恢复{}条, 丢弃{}条", file, count, skipped);
+        return count;
+    }
+
+    private static boolean writeEntry(DataOutputStream out, QueryKey key, CacheEntry entry,
+                                      Map<String, String> groupVersions, long now) throws IOException {
+        String[] groups = entry.getGroups();
+        if (groups.length == 0 || !entry.isUsable(now)) {
+            return false;
+        }
+        for (String group : groups) {
+            if (!groupVersions.containsKey(group)) {
+                return false;
+            }
+        }
+        Object[] args = new Object[key.getArgCount()];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = key.getArg(i);
+            if (args[i] != null && !(args[i] instanceof Serializable)) {
+                return false;
+            }
+        }
+        List<?> rows = entry.getValue();
+        if (!ListCodec.supports(rows)) {
+            return false;
+        }
+        byte[] argBytes;
+        byte[] rowBytes;
+        try {
+            argBytes = ListCodec.encode(Arrays.asList(args));
+            rowBytes = ListCodec.encode(rows);
+        } catch (IOException e) {
+            logger.debug("快照跳过无法序列化的条目: {}", key, e);
+            return false;
+        }
+
+        Method method = key.getDescriptor().getMethod();
+        out.writeBoolean(true);
+        out.writeUTF(method.getDeclaringClass().getName());
+        out.writeUTF(method.getName());
+        String[] typeNames = MethodDescriptor.typeNames(method);
+        out.writeShort(typeNames.length);
+        for (String typeName : typeNames) {
+            out.writeUTF(typeName);
+        }
+        out.writeShort(groups.length);
+        for (String group : groups) {
+            out.writeUTF(group);
+        }
+        out.writeInt(key.getPage());
+        out.writeInt(key.getSize());
+        out.writeUTF(entry.getEntityTag() != null ? entry.getEntityTag() : "");
+        out.writeLong(entry.getExpireAt());
+        out.writeLong(entry.getStaleUntil());
+        out.writeLong(entry.getRefreshAt());
+        out.writeInt(argBytes.length);
+        out.write(argBytes);
+        out.writeInt(rowBytes.length);
+        out.write(rowBytes);
+        return true;
+    }
+
+    /**
+     * 读取一个条目，先读完全部字段再判断是否恢复，不影响后续条目的读取
+     */
+    private static boolean readEntry(DataInputStream in, Set<String> validGroups, long now) throws IOException {
+        String className = in.readUTF();
+        String methodName = in.readUTF();
+        String[] typeNames = new String[in.readUnsignedShort()];
+        for (int i = 0; i < typeNames.length; i++) {
+            typeNames[i] = in.readUTF();
+        }
+        String[] groups = new String[in.readUnsignedShort()];
+        for (int i = 0; i < groups.length; i++) {
+            groups[i] = in.readUTF();
+        }
+        int page = in.readInt();
+        int size = in.readInt();
+        String entityTag = in.readUTF();
+        long expireAt = in.readLong();
+        long staleUntil = in.readLong();
+        long refreshAt = in.readLong();
+        byte[] argBytes = new byte[in.readInt()];
+        in.readFully(argBytes);
+        byte[] rowBytes = new byte[in.readInt()];
+        in.readFully(rowBytes);
+
+        if (staleUntil <= now || !validGroups.containsAll(Arrays.asList(groups))) {
+            return false;
+        }
+        QueryKey key;
+        List<Object> rows;
+        try {
+            Method method = MethodDescriptor.resolve(className, methodName, typeNames);
+            key = new QueryKey(MethodDescriptor.of(method), ListCodec.decode(argBytes).toArray(), page, size);
+            rows = ListCodec.decode(rowBytes);
+        } catch (ClassNotFoundException | NoSuchMethodException | LinkageError | IllegalStateException e) {
+            // 重新部署后方法或类已变化
+            logger.debug("快照条目无法恢复: {}.{}, {}", className, methodName, e.toString());
+            return false;
+        }
+
+        long refreshAfter = refreshAt == Long.MAX_VALUE ? 0 : Math.max(1, refreshAt - now);
+        return QueryPool.restore(key, rows, expireAt - now, refreshAfter, staleUntil - expireAt, groups,
+                entityTag.isEmpty() ? null : entityTag);
+    }
+
+    private static String version(CacheVersionProvider versions, String group) {
+        try {
+            return versions.getVersion(group);
+        } catch (RuntimeException e) {
+            logger.warn("获取缓存组数据版本失败: {}, {}", group, e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,355 @@
+package com.czj.student.util.pool;
+
+import com.czj.student.model.vo.PageInfo;
+import com.czj.student.util.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 热点分页查询预热
+ * 按分页窗口(查询、页码和每页条数)统计分页查询的请求次数，启动后及缓存组被清除后，
+ * 在单个低优先级线程上通过代理对象重新执行请求最多的查询，
+ * 使缓存失效后的第一个用户不必等待COUNT和排序查询；
+ * 热点查询列表在停机时写入本地文件，供下次启动时预热；
+ * 读回时会反序列化查询参数，文件只允许所有者访问，属于其他用户的文件不读取
+ */
+@Component
+public class QueryWarmer implements ApplicationContextAware, ApplicationListener<ContextRefreshedEvent> {
+    private static final Logger logger = LoggerFactory.getLogger(QueryWarmer.class);
+
+    // 统计的查询数为预热数量的倍数，超出时不再登记新查询，等待衰减时清理
+    private static final int TRACKED_PER_WARMED = 50;
+
+    @Value("${query.warm.enabled:true}")
+    private boolean enabled = true;
+
+    // 每次预热的查询数
+    @Value("${query.warm.topN:20}")
+    private int topN = 20;
+
+    // 缓存组被清除后延迟预热的时间(毫秒)，期间同一缓存组的多次清除只预热一次
+    @Value("${query.warm.delayMillis:500}")
+    private long delayMillis = 500;
+
+    // 热点查询列表文件，为空时使用临时目录下的student_system/query-warm.keys
+    @Value("${query.warm.file:}")
+    private String path;
+
+    // 键为分页窗口的缓存键
+    private final ConcurrentHashMap<QueryKey, Candidate> candidates = new ConcurrentHashMap<>();
+
+    // 已安排预热、尚未执行的缓存组
+    private final Set<String> pendingGroups = ConcurrentHashMap.newKeySet();
+
+    private final AtomicBoolean started = new AtomicBoolean(false);
+
+    private final Consumer<String> groupClearListener = this::onGroupCleared;
+
+    private ApplicationContext applicationContext;
+
+    private ScheduledThreadPoolExecutor executor;
+
+    // 预热线程，其发起的查询不计入统计
+    private volatile Thread warmThread;
+
+    @Override
+    public void setApplicationContext(ApplicationContext applicationContext) {
+        this.applicationContext = applicationContext;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        executor = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "query-warmer");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            warmThread = thread;
+            return thread;
+        });
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        QueryPool.addGroupClearListener(groupClearListener);
+    }
+
+    /**
+     * 启动完成后读取上次停机时的热点查询并预热
+     */
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        if (!enabled || !started.compareAndSet(false, true)) {
+            return;
+        }
+        int count = load(warmFile());
+        if (count > 0) {
+            executor.schedule(() -> warm(null), delayMillis, TimeUnit.MILLISECONDS);
+            logger.info("启动预热: 上次记录的热点分页查询{}个", count);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (!enabled) {
+            return;
+        }
+        QueryPool.removeGroupClearListener(groupClearListener);
+        executor.shutdownNow();
+        save(warmFile());
+    }
+
+    /**
+     * 记录一次分页查询请求
+     * @param pageKey 分页窗口的缓存键
+     * @param args 调用参数
+     * @param cacheGroups 缓存组
+     */
+    public void record(QueryKey pageKey, Object[] args, String[] cacheGroups) {
+        if (!enabled || Thread.currentThread() == warmThread) {
+            return;
+        }
+        Candidate candidate = candidates.get(pageKey);
+        if (candidate == null) {
+            if (candidates.size() >= topN * TRACKED_PER_WARMED) {
+                return;
+            }
+            candidate = candidates.computeIfAbsent(pageKey, k -> new Candidate(pageKey.getDescriptor().getMethod(),
+                    withoutPageInfo(args), pageKey.getPage(), pageKey.getSize(), cacheGroups));
+        }
+        candidate.hits.increment();
+    }
+
+    /**
+     * 每分钟把请求次数减半，使统计偏向近期的热点，并清理不再被请求的查询
+     */
+    @Scheduled(fixedRate = 60000)
+    public void decay() {
+        Iterator<Candidate> iterator = candidates.values().iterator();
+        while (iterator.hasNext()) {
+            Candidate candidate = iterator.next();
+            long hits = candidate.hits.sumThenReset();
+            if (hits <= 1) {
+                iterator.remove();
+            } else {
+                candidate.hits.add(hits / 2);
+            }
+        }
+    }
+
+    /**
+     * @param group 缓存组，为null时不限
+     * @return 请求最多的查询，按请求次数从多到少
+     */
+    List<Candidate> top(String group) {
+        List<Candidate> result = new ArrayList<>();
+        for (Candidate candidate : candidates.values()) {
+            if (group == null || Arrays.asList(candidate.groups).contains(group)) {
+                result.add(candidate);
+            }
+        }
+        result.sort((a, b) -> Long.compare(b.hits.sum(), a.hits.sum()));
+        return result.size() > topN ? new ArrayList<>(result.subList(0, topN)) : result;
+    }
+
+    /**
+     * 缓存组被清除后延迟预热，合并短时间内的多次清除
+     */
+    private void onGroupCleared(String group) {
+        if (pendingGroups.add(group)) {
+            try {
+                executor.schedule(() -> {
+                    pendingGroups.remove(group);
+                    warm(group);
+                }, delayMillis, TimeUnit.MILLISECONDS);
+            } catch (RuntimeException e) {
+                // 停机过程中不再预热
+                pendingGroups.remove(group);
+            }
+        }
+    }
+
+    /**
+     * 依次通过代理对象执行热点查询，经过查询缓存切面写入缓存，已缓存的查询直接命中
+     */
+    private void warm(String group) {
+        List<Candidate> warmed = top(group);
+        int count = 0;
+        for (Candidate candidate : warmed) {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            Method method = candidate.method;
+            try {
+                method.invoke(applicationContext.getBean(method.getDeclaringClass()), candidate.newArgs());
+                count++;
+            } catch (InvocationTargetException e) {
+                logger.debug("预热查询失败: {}", method, e.getCause());
+            } catch (Exception e) {
+                logger.debug("预热查询失败: {}", method, e);
+            }
+        }
+        logger.debug("预热缓存组: {}, 执行{}个查询", group != null ? group : "全部", count);
+    }
+
+    /**
+     * 保存请求最多的查询，参数不可序列化的跳过
+     */
+    private void save(File file) {
+        List<SavedCandidate> saved = new ArrayList<>();
+        for (Candidate candidate : top(null)) {
+            if (isSerializable(candidate.args)) {
+                saved.add(new SavedCandidate(candidate));
+            }
+        }
+        try {
+            File dir = file.getAbsoluteFile().getParentFile();
+            if (dir != null) {
+                FileUtils.createPrivateDirectories(dir.toPath());
+            }
+            byte[] bytes = ListCodec.encode(saved);
+            FileUtils.createPrivateFile(file.toPath());
+            Files.write(file.toPath(), bytes);
+        } catch (IOException e) {
+            logger.warn("保存热点查询列表失败: {}", file, e);
+        }
+    }
+
+    private int load(File file) {
+        if (!file.isFile()) {
+            return 0;
+        }
+        int count = 0;
+        try {
+            File dir = file.getAbsoluteFile().getParentFile();
+            if (dir != null) {
+                FileUtils.checkPrivate(dir.toPath());
+            }
+            FileUtils.checkPrivate(file.toPath());
+            for (Object item : ListCodec.decode(Files.readAllBytes(file.toPath()))) {
+                SavedCandidate saved = (SavedCandidate) item;
+                try {
+                    Method method = MethodDescriptor.resolve(saved.className, saved.methodName, saved.typeNames);
+                    Candidate candidate = new Candidate(method, saved.args, saved.page, saved.size, saved.groups);
+                    candidate.hits.add(saved.hits);
+                    candidates.putIfAbsent(MethodDescriptor.of(method).keyOf(candidate.newArgs())
+                            .withPage(saved.page, saved.size), candidate);
+                    count++;
+                } catch (ClassNotFoundException | NoSuchMethodException e) {
+                    // 重新部署后方法已变化
+                    logger.debug("热点查询无法恢复: {}.{}", saved.className, saved.methodName);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("读取热点查询列表失败: {}", file, e);
+        }
+        return count;
+    }
+
+    private File warmFile() {
+        if (StringUtils.hasText(path)) {
+            return new File(path.trim());
+        }
+        return new File(new File(System.getProperty("java.io.tmpdir"), "student_system"), "query-warm.keys");
+    }
+
+    private static boolean isSerializable(Object[] args) {
+        for (Object arg : args) {
+            if (arg != null && !(arg instanceof Serializable)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Object[] withoutPageInfo(Object[] args) {
+        Object[] copy = args.clone();
+        for (int i = 0; i < copy.length; i++) {
+            if (copy[i] instanceof PageInfo) {
+                copy[i] = null;
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * 待预热的查询，PageInfo参数位置为null，执行时按页码和每页条数新建
+     */
+    static final class Candidate {
+        final Method method;
+        final Object[] args;
+        final int page;
+        final int size;
+        final String[] groups;
+        final LongAdder hits = new LongAdder();
+
+        Candidate(Method method, Object[] args, int page, int size, String[] groups) {
+            this.method = method;
+            this.args = args;
+            this.page = page;
+            this.size = size;
+            this.groups = groups != null ? groups : new String[0];
+        }
+
+        Object[] newArgs() {
+            Object[] result = args.clone();
+            Class<?>[] types = method.getParameterTypes();
+            for (int i = 0; i < types.length; i++) {
+                if (PageInfo.class.isAssignableFrom(types[i])) {
+                    result[i] = new PageInfo<>(page, size);
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * 写入文件的热点查询
+     */
+    private static final class SavedCandidate implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String className;
+        private final String methodName;
+        private final String[] typeNames;
+        private final Object[] args;
+        private final int page;
+        private final int size;
+        private final String[] groups;
+        private final long hits;
+
+        SavedCandidate(Candidate candidate) {
+            this.className = candidate.method.getDeclaringClass().getName();
+            this.methodName = candidate.method.getName();
+            this.typeNames = MethodDescriptor.typeNames(candidate.method);
+            this.args = candidate.args;
+            this.page = candidate.page;
+            this.size = candidate.size;
+            this.groups = candidate.groups;
+            this.hits = candidate.hits.sum();
+        }
+    }
+}
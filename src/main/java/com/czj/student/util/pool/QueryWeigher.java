@@ -0,0 +1,85 @@
+package com.czj.student.util.pool;
+
+import com.czj.student.model.entity.Course;
+import com.czj.student.model.entity.Student;
+import com.czj.student.model.entity.StudentCourse;
+import com.czj.student.model.vo.StudentVO;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 缓存条目权重估算器
+ * 按"行数 × 每行估算字节数"计算缓存列表占用的堆内存，用于按内存预算淘汰
+ */
+public class QueryWeigher {
+
+    // 每个缓存条目的固定开销：键、Map节点、时间戳、分组及淘汰策略节点
+    static final int ENTRY_OVERHEAD = 256;
+
+    // 列表对象及每个元素引用的开销
+    private static final int LIST_OVERHEAD = 40;
+    private static final int REFERENCE_SIZE = 8;
+
+    // 未登记类型的默认行大小
+    private static final int DEFAULT_ROW_SIZE = 256;
+
+    // 各类型每行估算字节数(对象头+字段+字符串/日期等子对象，按常见数据长度估算)
+    private static final Map<Class<?>, Integer> ROW_SIZES = new ConcurrentHashMap<>();
+
+    static {
+        // 10个字段，7个字符串(含18位身份证号和备注)、3个Date、1个Long
+        ROW_SIZES.put(StudentVO.class, 560);
+        // 在StudentVO基础上增加密码和错误次数
+        ROW_SIZES.put(Student.class, 640);
+        // 6个字段，2个字符串、1个BigDecimal、2个Date
+        ROW_SIZES.put(Course.class, 280);
+        // 19个字段，含4个BigDecimal、6个Date和课程/学生冗余字段
+        ROW_SIZES.put(StudentCourse.class, 880);
+        ROW_SIZES.put(String.class, 56);
+        ROW_SIZES.put(Long.class, 16);
+        ROW_SIZES.put(Integer.class, 16);
+    }
+
+    private QueryWeigher() {
+    }
+
+    /**
+     * 登记类型的每行估算字节数
+     * @param type 行类型
+     * @param rowSize 每行字节数
+     */
+    public static void registerRowSize(Class<?> type, int rowSize) {
+        ROW_SIZES.put(type, rowSize);
+    }
+
+    /**
+     * 估算缓存列表占用的字节数
+     * @param rows 查询结果
+     * @return 估算字节数
+     */
+    public static long weigh(List<?> rows) {
+        if (rows == null || rows.isEmpty()) {
+            return ENTRY_OVERHEAD + LIST_OVERHEAD;
+        }
+        Object first = rows.get(0);
+        int rowSize = first == null ? 0 : rowSizeOf(first.getClass());
+        return ENTRY_OVERHEAD + LIST_OVERHEAD + (long) rows.size() * (REFERENCE_SIZE + rowSize);
+    }
+
+    private static int rowSizeOf(Class<?> type) {
+        Integer size = ROW_SIZES.get(type);
+        if (size != null) {
+            return size;
+        }
+        // 匿名子类等情况按父类估算
+        for (Class<?> c = type.getSuperclass(); c != null && c != Object.class; c = c.getSuperclass()) {
+            size = ROW_SIZES.get(c);
+            if (size != null) {
+                return size;
+            }
+        }
+        return DEFAULT_ROW_SIZE;
+    }
+}
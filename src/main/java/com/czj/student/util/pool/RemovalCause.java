@@ -0,0 +1,19 @@
+package com.czj.student.util.pool;
+
+/**
+ * 缓存条目被移除的原因
+ */
+public enum RemovalCause {
+    /**
+     * 超出内存预算被淘汰策略移除
+     */
+    SIZE,
+    /**
+     * 过期
+     */
+    EXPIRED,
+    /**
+     * 写操作或手动清除导致失效
+     */
+    INVALIDATED
+}
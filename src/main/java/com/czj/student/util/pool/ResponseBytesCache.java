@@ -0,0 +1,167 @@
+package com.czj.student.util.pool;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 序列化后的响应缓存
+ * 保存接口响应的JSON字节及gzip压缩后的字节，按请求缓存；
+ * 每个条目记录生成时缓存组的版本，版本变化(缓存组被清除或实体失效)后不再命中，按总字节数LRU淘汰
+ */
+public class ResponseBytesCache {
+
+    // 每个条目的固定开销：键、Map节点及淘汰策略节点
+    private static final int ENTRY_OVERHEAD = 128;
+
+    private final long maxBytes;
+    private final int gzipMinBytes;
+
+    private final ConcurrentHashMap<String, CachedResponse> entries = new ConcurrentHashMap<>();
+
+    // 淘汰策略非线程安全，加锁访问
+    private final LruPolicy<String> policy;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param maxBytes 缓存字节数上限
+     * @param gzipMinBytes JSON达到该字节数时才保存gzip压缩结果
+     */
+    public ResponseBytesCache(long maxBytes, int gzipMinBytes) {
+        this.maxBytes = maxBytes;
+        this.gzipMinBytes = gzipMinBytes;
+        this.policy = new LruPolicy<>(maxBytes);
+    }
+
+    /**
+     * @param key 请求键
+     * @param groupVersion 缓存组当前版本
+     * @return 未过期且版本一致的响应，否则返回null
+     */
+    public CachedResponse get(String key, long groupVersion) {
+        CachedResponse response = entries.get(key);
+        if (response == null || response.groupVersion != groupVersion
+                || response.expireAt <= System.currentTimeMillis()) {
+            if (response != null) {
+                remove(key, response);
+            }
+            misses.incrementAndGet();
+            return null;
+        }
+        synchronized (policy) {
+            policy.recordAccess(key);
+        }
+        hits.incrementAndGet();
+        return response;
+    }
+
+    /**
+     * 保存响应
+     * @param key 请求键
+     * @param json 序列化后的JSON
+     * @param gzip 是否同时保存gzip压缩结果
+     * @param expiration 过期时间(毫秒)
+     * @param groupVersion 执行请求前取得的缓存组版本
+     */
+    public void put(String key, byte[] json, boolean gzip, long expiration, long groupVersion) {
+        byte[] compressed = gzip && json.length >= gzipMinBytes ? gzip(json) : null;
+        CachedResponse response = new CachedResponse(json, compressed,
+                System.currentTimeMillis() + expiration, groupVersion);
+        long weight = ENTRY_OVERHEAD + key.length() * 2L + response.bytes();
+        if (weight > maxBytes) {
+            return;
+        }
+        // 条目与淘汰策略在同一把锁内更新，保持一致
+        synchronized (policy) {
+            entries.put(key, response);
+            List<String> victims = policy.recordInsert(key, weight);
+            for (String victim : victims) {
+                entries.remove(victim);
+            }
+        }
+    }
+
+    public void clear() {
+        synchronized (policy) {
+            entries.clear();
+            policy.clear();
+        }
+    }
+
+    /**
+     * @return 统计快照
+     */
+    public Map<String, Object> snapshot() {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("entries", entries.size());
+        synchronized (policy) {
+            map.put("bytes", policy.weightedSize());
+        }
+        map.put("maxBytes", maxBytes);
+        map.put("hits", hitCount);
+        map.put("misses", total - hitCount);
+        map.put("hitRate", total == 0 ? 0.0 : (double) hitCount / total);
+        return map;
+    }
+
+    private void remove(String key, CachedResponse response) {
+        synchronized (policy) {
+            if (entries.remove(key, response)) {
+                policy.remove(key);
+            }
+        }
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(json.length / 4 + 32);
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(json);
+        } catch (IOException e) {
+            // 内存流不会失败，失败时只保存原始字节
+            return null;
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * 缓存的响应
+     */
+    public static final class CachedResponse {
+
+        private final byte[] json;
+        private final byte[] gzip;
+        private final long expireAt;
+        private final long groupVersion;
+
+        CachedResponse(byte[] json, byte[] gzip, long expireAt, long groupVersion) {
+            this.json = json;
+            this.gzip = gzip;
+            this.expireAt = expireAt;
+            this.groupVersion = groupVersion;
+        }
+
+        public byte[] getJson() {
+            return json;
+        }
+
+        /**
+         * @return gzip压缩后的字节，未压缩时返回null
+         */
+        public byte[] getGzip() {
+            return gzip;
+        }
+
+        long bytes() {
+            return json.length + (gzip != null ? gzip.length : 0);
+        }
+    }
+}
@@ -0,0 +1,379 @@
+package com.czj.student.util.pool;
+
+import com.czj.student.model.entity.StudentCourse;
+import com.czj.student.model.vo.StudentVO;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 缓存行的列式结构
+ * 登记每个字段的读写方法及编码方式，供ColumnarRows按列存储查询结果：
+ * 数值和日期存为基本类型数组，取值重复的字段(性别、专业、学期、成绩等)按字典编码，其余字符串拼接为UTF-8字节数组
+ * @param <T> 行类型
+ */
+public final class RowSchema<T> {
+
+    // 数组对象头
+    private static final int ARRAY_OVERHEAD = 16;
+
+    // 字典中每个值的估算字节数(对象头、字段及常见长度的字符串内容)
+    private static final int DICTIONARY_VALUE_SIZE = 64;
+
+    // 已登记的行类型，按精确类型匹配
+    private static final Map<Class<?>, RowSchema<?>> SCHEMAS = new ConcurrentHashMap<>();
+
+    static {
+        register(builder(StudentVO.class, StudentVO::new)
+                .longField(StudentVO::getSid, StudentVO::setSid)
+                .stringField(StudentVO::getSno, StudentVO::setSno)
+                .stringField(StudentVO::getName, StudentVO::setName)
+                .stringField(StudentVO::getSfzh, StudentVO::setSfzh)
+                .dictField(StudentVO::getGender, StudentVO::setGender)
+                .dictField(StudentVO::getMajor, StudentVO::setMajor)
+                .stringField(StudentVO::getRemark, StudentVO::setRemark)
+                .dateField(StudentVO::getCreatedTime, StudentVO::setCreatedTime)
+                .dateField(StudentVO::getUpdatedTime, StudentVO::setUpdatedTime)
+                .dateField(StudentVO::getLastLoginTime, StudentVO::setLastLoginTime)
+                .build());
+        register(builder(StudentCourse.class, StudentCourse::new)
+                .longField(StudentCourse::getStudentSid, StudentCourse::setStudentSid)
+                .longField(StudentCourse::getCourseCid, StudentCourse::setCourseCid)
+                .dictField(StudentCourse::getSemester, StudentCourse::setSemester)
+                .dictField(StudentCourse::getStatus, StudentCourse::setStatus)
+                .dateField(StudentCourse::getSelectionDate, StudentCourse::setSelectionDate)
+                .dictField(StudentCourse::getRegularScore, StudentCourse::setRegularScore)
+                .dictField(StudentCourse::getExamScore, StudentCourse::setExamScore)
+                .dictField(StudentCourse::getFinalScore, StudentCourse::setFinalScore)
+                .dateField(StudentCourse::getRegularScoreDate, StudentCourse::setRegularScoreDate)
+                .dateField(StudentCourse::getExamScoreDate, StudentCourse::setExamScoreDate)
+                .dateField(StudentCourse::getFinalScoreDate, StudentCourse::setFinalScoreDate)
+                .stringField(StudentCourse::getRemark, StudentCourse::setRemark)
+                .dateField(StudentCourse::getCreatedTime, StudentCourse::setCreatedTime)
+                .dateField(StudentCourse::getUpdatedTime, StudentCourse::setUpdatedTime)
+                .stringField(StudentCourse::getStudentName, StudentCourse::setStudentName)
+                .stringField(StudentCourse::getStudentNo, StudentCourse::setStudentNo)
+                .dictField(StudentCourse::getCourseName, StudentCourse::setCourseName)
+                .dictField(StudentCourse::getCourseNo, StudentCourse::setCourseNo)
+                .dictField(StudentCourse::getCredit, StudentCourse::setCredit)
+                .build());
+    }
+
+    private final Class<T> type;
+    private final Supplier<T> factory;
+    private final List<Field<T>> fields;
+
+    private RowSchema(Class<T> type, Supplier<T> factory, List<Field<T>> fields) {
+        this.type = type;
+        this.factory = factory;
+        this.fields = fields;
+    }
+
+    /**
+     * @param type 行类型
+     * @param factory 创建空行对象
+     * @return 列式结构构建器
+     */
+    public static <T> Builder<T> builder(Class<T> type, Supplier<T> factory) {
+        return new Builder<>(type, factory);
+    }
+
+    /**
+     * 登记行类型的列式结构，已登记的类型会被替换
+     * @param schema 列式结构
+     */
+    public static void register(RowSchema<?> schema) {
+        SCHEMAS.put(schema.type, schema);
+    }
+
+    /**
+     * @param type 行类型
+     * @return 登记的列式结构，未登记时返回null
+     */
+    @SuppressWarnings("unchecked")
+    static <T> RowSchema<T> of(Class<T> type) {
+        return (RowSchema<T>) SCHEMAS.get(type);
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+    /**
+     * 按列编码
+     * @param rows 行列表，元素均为本类型
+     * @return 各字段的列
+     */
+    @SuppressWarnings("unchecked")
+    Column<T>[] encode(List<T> rows) {
+        Column<T>[] columns = new Column[fields.size()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = fields.get(i).encode(rows);
+        }
+        return columns;
+    }
+
+    /**
+     * 还原一行
+     * @param columns 各字段的列
+     * @param row 行号
+     * @return 新创建的行对象
+     */
+    T materialize(Column<T>[] columns, int row) {
+        T target = factory.get();
+        for (Column<T> column : columns) {
+            column.read(row, target);
+        }
+        return target;
+    }
+
+    /**
+     * 字段的编码方式
+     */
+    interface Field<T> {
+        Column<T> encode(List<T> rows);
+    }
+
+    /**
+     * 编码后的一列
+     */
+    interface Column<T> {
+
+        /**
+         * 将第row行的值写入目标对象
+         */
+        void read(int row, T target);
+
+        /**
+         * @return 估算占用的堆内存字节数
+         */
+        long bytes();
+    }
+
+    /**
+     * 列式结构构建器，字段顺序即编码顺序
+     */
+    public static final class Builder<T> {
+
+        private final Class<T> type;
+        private final Supplier<T> factory;
+        private final List<Field<T>> fields = new ArrayList<>();
+
+        private Builder(Class<T> type, Supplier<T> factory) {
+            this.type = type;
+            this.factory = factory;
+        }
+
+        /**
+         * Long字段，存为long数组
+         */
+        public Builder<T> longField(Function<T, Long> getter, BiConsumer<T, Long> setter) {
+            fields.add(rows -> new LongColumn<>(rows, getter, setter));
+            return this;
+        }
+
+        /**
+         * 日期字段，存为毫秒时间戳数组，还原为java.util.Date
+         */
+        public Builder<T> dateField(Function<T, Date> getter, BiConsumer<T, Date> setter) {
+            fields.add(rows -> new LongColumn<>(rows, row -> {
+                Date date = getter.apply(row);
+                return date != null ? date.getTime() : null;
+            }, (row, millis) -> setter.accept(row, millis != null ? new Date(millis) : null)));
+            return this;
+        }
+
+        /**
+         * 取值各不相同的字符串字段，如学号、姓名，内容拼接为一个UTF-8字节数组
+         */
+        public Builder<T> stringField(Function<T, String> getter, BiConsumer<T, String> setter) {
+            fields.add(rows -> new StringColumn<>(rows, getter, setter));
+            return this;
+        }
+
+        /**
+         * 取值重复较多的字段，如性别、专业、学期，按字典编码，相同的值只保存一份
+         * 值须为不可变类型(String、Integer、BigDecimal等)，还原时各行共享字典中的对象
+         */
+        public <V> Builder<T> dictField(Function<T, V> getter, BiConsumer<T, V> setter) {
+            fields.add(rows -> new DictColumn<>(rows, getter, setter));
+            return this;
+        }
+
+        public RowSchema<T> build() {
+            return new RowSchema<>(type, factory, Collections.unmodifiableList(new ArrayList<>(fields)));
+        }
+    }
+
+    private static long bitSetBytes(BitSet bits) {
+        return bits == null ? 0 : 40 + bits.size() / 8;
+    }
+
+    /**
+     * long数组存储，null值记录在位图中
+     */
+    private static final class LongColumn<T> implements Column<T> {
+
+        private final long[] values;
+        private final BitSet nulls;
+        private final BiConsumer<T, Long> setter;
+
+        LongColumn(List<T> rows, Function<T, Long> getter, BiConsumer<T, Long> setter) {
+            this.values = new long[rows.size()];
+            this.setter = setter;
+            BitSet nullRows = null;
+            for (int i = 0; i < values.length; i++) {
+                Long value = getter.apply(rows.get(i));
+                if (value != null) {
+                    values[i] = value;
+                } else {
+                    if (nullRows == null) {
+                        nullRows = new BitSet(values.length);
+                    }
+                    nullRows.set(i);
+                }
+            }
+            this.nulls = nullRows;
+        }
+
+        @Override
+        public void read(int row, T target) {
+            setter.accept(target, nulls != null && nulls.get(row) ? null : values[row]);
+        }
+
+        @Override
+        public long bytes() {
+            return ARRAY_OVERHEAD + 8L * values.length + bitSetBytes(nulls);
+        }
+    }
+
+    /**
+     * 所有行的UTF-8内容拼接为一个字节数组，offsets[i]到offsets[i+1]为第i行
+     */
+    private static final class StringColumn<T> implements Column<T> {
+
+        private final byte[] data;
+        private final int[] offsets;
+        private final BitSet nulls;
+        private final BiConsumer<T, String> setter;
+
+        StringColumn(List<T> rows, Function<T, String> getter, BiConsumer<T, String> setter) {
+            this.offsets = new int[rows.size() + 1];
+            this.setter = setter;
+            BitSet nullRows = null;
+            byte[][] encoded = new byte[rows.size()][];
+            int length = 0;
+            for (int i = 0; i < encoded.length; i++) {
+                String value = getter.apply(rows.get(i));
+                if (value == null) {
+                    if (nullRows == null) {
+                        nullRows = new BitSet(encoded.length);
+                    }
+                    nullRows.set(i);
+                    continue;
+                }
+                encoded[i] = value.getBytes(StandardCharsets.UTF_8);
+                length += encoded[i].length;
+            }
+            this.data = new byte[length];
+            int position = 0;
+            for (int i = 0; i < encoded.length; i++) {
+                offsets[i] = position;
+                if (encoded[i] != null) {
+                    System.arraycopy(encoded[i], 0, data, position, encoded[i].length);
+                    position += encoded[i].length;
+                }
+            }
+            offsets[encoded.length] = position;
+            this.nulls = nullRows;
+        }
+
+        @Override
+        public void read(int row, T target) {
+            if (nulls != null && nulls.get(row)) {
+                setter.accept(target, null);
+                return;
+            }
+            setter.accept(target, new String(data, offsets[row], offsets[row + 1] - offsets[row], StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public long bytes() {
+            return ARRAY_OVERHEAD * 2 + data.length + 4L * offsets.length + bitSetBytes(nulls);
+        }
+    }
+
+    /**
+     * 字典编码，编号按字典大小选用byte、short或int数组，null也作为字典中的一个值
+     */
+    private static final class DictColumn<T, V> implements Column<T> {
+
+        private final Object[] dictionary;
+        private final byte[] byteCodes;
+        private final short[] shortCodes;
+        private final int[] intCodes;
+        private final BiConsumer<T, V> setter;
+
+        DictColumn(List<T> rows, Function<T, V> getter, BiConsumer<T, V> setter) {
+            this.setter = setter;
+            Map<Object, Integer> index = new HashMap<>();
+            List<Object> values = new ArrayList<>();
+            int[] codes = new int[rows.size()];
+            for (int i = 0; i < codes.length; i++) {
+                V value = getter.apply(rows.get(i));
+                Integer code = index.get(value);
+                if (code == null) {
+                    code = values.size();
+                    index.put(value, code);
+                    values.add(value);
+                }
+                codes[i] = code;
+            }
+            this.dictionary = values.toArray();
+            if (dictionary.length <= 1 << Byte.SIZE) {
+                byteCodes = new byte[codes.length];
+                for (int i = 0; i < codes.length; i++) {
+                    byteCodes[i] = (byte) codes[i];
+                }
+                shortCodes = null;
+                intCodes = null;
+            } else if (dictionary.length <= 1 << Short.SIZE) {
+                shortCodes = new short[codes.length];
+                for (int i = 0; i < codes.length; i++) {
+                    shortCodes[i] = (short) codes[i];
+                }
+                byteCodes = null;
+                intCodes = null;
+            } else {
+                intCodes = codes;
+                byteCodes = null;
+                shortCodes = null;
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void read(int row, T target) {
+            int code;
+            if (byteCodes != null) {
+                code = byteCodes[row] & 0xFF;
+            } else if (shortCodes != null) {
+                code = shortCodes[row] & 0xFFFF;
+            } else {
+                code = intCodes[row];
+            }
+            setter.accept(target, (V) dictionary[code]);
+        }
+
+        @Override
+        public long bytes() {
+            long codes = byteCodes != null ? byteCodes.length
+                    : shortCodes != null ? 2L * shortCodes.length : 4L * intCodes.length;
+            return ARRAY_OVERHEAD * 2 + codes + (long) dictionary.length * (4 + DICTIONARY_VALUE_SIZE);
+        }
+    }
+}
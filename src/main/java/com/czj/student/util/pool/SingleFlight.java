@@ -0,0 +1,99 @@
+package com.czj.student.util.pool;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 同键加载合并
+ * 同一个键同时只有一个线程(领头者)执行加载，其余线程等待其完成后使用领头者的结果，
+ * 结果是否写入缓存(如空结果不缓存)都不影响等待者；等待超时或领头者失败时，等待者自行加载
+ * @param <K> 键类型
+ */
+public class SingleFlight<K> {
+    private static final Logger logger = LoggerFactory.getLogger(SingleFlight.class);
+
+    /**
+     * 加载操作，允许抛出原方法的任意异常
+     */
+    @FunctionalInterface
+    public interface Loader<V> {
+        V load() throws Throwable;
+    }
+
+    // 正在进行的加载，完成后移除
+    private final ConcurrentHashMap<K, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    // 统计信息
+    private final AtomicLong coalesced = new AtomicLong(0);
+    private final AtomicLong fallbacks = new AtomicLong(0);
+
+    /**
+     * 执行加载
+     * @param key 键
+     * @param timeoutMillis 等待领头者的最长时间
+     * @param loader 加载操作，领头者应在其中写入缓存
+     * @param follower 等待者把领头者的结果转换为自己的结果(如填充自己的参数对象)，返回null时自行加载
+     * @param <V> 结果类型
+     * @return 加载的结果或由领头者的结果转换的结果
+     */
+    @SuppressWarnings("unchecked")
+    public <V> V execute(K key, long timeoutMillis, Loader<V> loader, Function<V, V> follower) throws Throwable {
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, flight);
+        if (existing == null) {
+            // 领头者：加载并写入缓存后再移除标记，避免后来者在两者之间重复加载
+            try {
+                V result = loader.load();
+                flight.complete(result);
+                return result;
+            } catch (Throwable t) {
+                flight.completeExceptionally(t);
+                throw t;
+            } finally {
+                inFlight.remove(key, flight);
+            }
+        }
+
+        // 等待者：等待领头者完成后使用其结果
+        coalesced.incrementAndGet();
+        try {
+            V leaderResult = (V) existing.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            V result = leaderResult != null ? follower.apply(leaderResult) : null;
+            if (result != null) {
+                return result;
+            }
+        } catch (TimeoutException e) {
+            logger.warn("等待加载超时({}ms)，自行加载: {}", timeoutMillis, key);
+        } catch (ExecutionException e) {
+            logger.debug("领头者加载失败，自行加载: {}", key);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+
+        fallbacks.incrementAndGet();
+        return loader.load();
+    }
+
+    /**
+     * @return 合并到其他线程加载的请求数
+     */
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    /**
+     * @return 等待后仍自行加载的请求数
+     */
+    public long getFallbackCount() {
+        return fallbacks.get();
+    }
+}
@@ -0,0 +1,200 @@
+package com.czj.student.util.pool;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分层时间轮
+ * 按到期时间把键放入不同精度的槽位，推进时只处理经过的槽位，
+ * 高层槽位到期时把其中的键重新放入低层，代价与到期键数量成正比而不是与总键数成正比。
+ * 第0层每槽约1秒，共64槽；往上每层精度乘以64，超出最高层范围的键放入溢出槽。
+ * 非线程安全，由调用方加锁
+ * @param <K> 键类型
+ */
+public class TimerWheel<K> {
+
+    // 每层的槽位数
+    private static final int BUCKETS = 64;
+
+    // 各层每槽时长的位移：约1秒、65秒、70分钟、3天
+    private static final int[] SHIFTS = {10, 16, 22, 28};
+
+    private static final class Node<K> {
+        final K key;
+        long time;
+        Node<K> prev;
+        Node<K> next;
+        // 所在槽位的链表头
+        Node<K> bucket;
+
+        Node(K key) {
+            this.key = key;
+        }
+    }
+
+    // 每层槽位链表的哨兵节点，最后一层只有一个溢出槽
+    private final Node<K>[][] wheel;
+
+    private final Map<K, Node<K>> nodes = new HashMap<>();
+
+    // 上次推进的时间
+    private long currentTime;
+
+    /**
+     * @param now 当前时间(毫秒)
+     */
+    @SuppressWarnings("unchecked")
+    public TimerWheel(long now) {
+        wheel = new Node[SHIFTS.length + 1][];
+        for (int i = 0; i < wheel.length; i++) {
+            wheel[i] = new Node[i < SHIFTS.length ? BUCKETS : 1];
+            for (int j = 0; j < wheel[i].length; j++) {
+                Node<K> sentinel = new Node<>(null);
+                sentinel.prev = sentinel;
+                sentinel.next = sentinel;
+                wheel[i][j] = sentinel;
+            }
+        }
+        currentTime = now;
+    }
+
+    /**
+     * 登记键的到期时间，已登记的键改为新的到期时间
+     * @param key 键
+     * @param time 到期时间(毫秒)
+     */
+    public void schedule(K key, long time) {
+        Node<K> node = nodes.get(key);
+        if (node == null) {
+            node = new Node<>(key);
+            nodes.put(key, node);
+        } else {
+            unlink(node);
+        }
+        node.time = time;
+        link(node);
+    }
+
+    /**
+     * 取消键的到期登记
+     * @param key 键
+     */
+    public void cancel(K key) {
+        Node<K> node = nodes.remove(key);
+        if (node != null) {
+            unlink(node);
+        }
+    }
+
+    /**
+     * 推进到指定时间，返回已到期的键并取消其登记
+     * 到期时间与当前时间处于同一个第0层槽位(约1秒)时，可能延迟到下次推进才返回
+     * @param now 当前时间(毫秒)
+     * @return 到期的键
+     */
+    public List<K> advance(long now) {
+        List<K> expired = new ArrayList<>();
+        long previousTime = currentTime;
+        if (now <= previousTime) {
+            return expired;
+        }
+        currentTime = now;
+
+        for (int level = 0; level < SHIFTS.length; level++) {
+            long previousTicks = previousTime >>> SHIFTS[level];
+            long currentTicks = now >>> SHIFTS[level];
+            if (currentTicks == previousTicks) {
+                // 高层的槽位变化更慢，也不会变化
+                break;
+            }
+            long count = Math.min(currentTicks - previousTicks + 1, BUCKETS);
+            for (long tick = previousTicks; tick < previousTicks + count; tick++) {
+                expireBucket(wheel[level][(int) (tick & (BUCKETS - 1))], now, expired);
+            }
+            if (level == SHIFTS.length - 1) {
+                expireBucket(wheel[SHIFTS.length][0], now, expired);
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * @return 登记的键数量
+     */
+    public int size() {
+        return nodes.size();
+    }
+
+    /**
+     * 取消所有登记
+     */
+    public void clear() {
+        for (Node<K>[] level : wheel) {
+            for (Node<K> sentinel : level) {
+                sentinel.prev = sentinel;
+                sentinel.next = sentinel;
+            }
+        }
+        nodes.clear();
+    }
+
+    /**
+     * 处理一个槽位：到期的键移除，未到期的按新的当前时间重新放入
+     */
+    private void expireBucket(Node<K> sentinel, long now, List<K> expired) {
+        // 先摘下整条链表，重新放入的节点可能回到同一槽位
+        Node<K> node = sentinel.next;
+        sentinel.prev = sentinel;
+        sentinel.next = sentinel;
+        while (node != sentinel) {
+            Node<K> next = node.next;
+            node.prev = null;
+            node.next = null;
+            node.bucket = null;
+            if (node.time <= now) {
+                nodes.remove(node.key);
+                expired.add(node.key);
+            } else {
+                link(node);
+            }
+            node = next;
+        }
+    }
+
+    private void link(Node<K> node) {
+        Node<K> sentinel = findBucket(node.time);
+        node.bucket = sentinel;
+        node.prev = sentinel.prev;
+        node.next = sentinel;
+        sentinel.prev.next = node;
+        sentinel.prev = node;
+    }
+
+    private void unlink(Node<K> node) {
+        if (node.bucket != null) {
+            node.prev.next = node.next;
+            node.next.prev = node.prev;
+            node.prev = null;
+            node.next = null;
+            node.bucket = null;
+        }
+    }
+
+    /**
+     * 按到期时间与当前时间的差选择层，按到期时间选择槽位
+     */
+    private Node<K> findBucket(long time) {
+        // 已过期的键放入当前槽位，下次推进时返回
+        long bucketTime = Math.max(time, currentTime);
+        long delta = bucketTime - currentTime;
+        for (int level = 0; level < SHIFTS.length; level++) {
+            // 每层64个槽位，覆盖范围为每槽时长左移6位
+            if (delta < (1L << (SHIFTS[level] + 6))) {
+                return wheel[level][(int) ((bucketTime >>> SHIFTS[level]) & (BUCKETS - 1))];
+            }
+        }
+        return wheel[SHIFTS.length][0];
+    }
+}
@@ -0,0 +1,247 @@
+package com.czj.student.util.pool;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * W-TinyLFU淘汰策略（按权重计算容量）
+ * 新键先进入窗口区(LRU，约1%容量)，被挤出窗口时与主区的淘汰候选比较访问频率，
+ * 频率更高者留下；主区为分段LRU(试用区+保护区，保护区约占80%)。
+ * 所有操作均为O(1)摊销，频率由{@link FrequencySketch}估算并周期性衰减
+ * @param <K> 缓存键类型
+ */
+public class TinyLfuPolicy<K> implements EvictionPolicy<K> {
+
+    // 窗口区占总容量的比例
+    private static final double WINDOW_RATIO = 0.01;
+
+    // 保护区占主区的比例
+    private static final double PROTECTED_RATIO = 0.8;
+
+    private final long windowMax;
+    private final long mainMax;
+    private final long protectedMax;
+
+    // 三个分段均使用访问顺序的LinkedHashMap，头部为最久未访问的键，值为权重
+    private final LinkedHashMap<K, Long> window = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<K, Long> probation = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<K, Long> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long windowWeight;
+    private long probationWeight;
+    private long protectedWeight;
+
+    private final FrequencySketch sketch;
+
+    /**
+     * @param maximumWeight 最大总权重
+     * @param expectedSize 预计条目数，用于确定频率统计表大小
+     */
+    public TinyLfuPolicy(long maximumWeight, int expectedSize) {
+        if (maximumWeight <= 0) {
+            throw new IllegalArgumentException("maximumWeight must be positive");
+        }
+        this.windowMax = Math.max(1, (long) (maximumWeight * WINDOW_RATIO));
+        this.mainMax = Math.max(0, maximumWeight - windowMax);
+        this.protectedMax = (long) (mainMax * PROTECTED_RATIO);
+        this.sketch = new FrequencySketch(expectedSize);
+    }
+
+    @Override
+    public void recordAccess(K key) {
+        sketch.increment(key);
+        onHit(key);
+    }
+
+    @Override
+    public List<K> recordInsert(K key, long weight) {
+        sketch.increment(key);
+        if (updateWeight(key, weight)) {
+            onHit(key);
+        } else {
+            window.put(key, weight);
+            windowWeight += weight;
+        }
+
+        if (windowWeight <= windowMax && probationWeight + protectedWeight <= mainMax) {
+            return Collections.emptyList();
+        }
+
+        List<K> victims = new ArrayList<>(1);
+        while (windowWeight > windowMax && !window.isEmpty()) {
+            K candidate = firstKey(window);
+            long candidateWeight = window.remove(candidate);
+            windowWeight -= candidateWeight;
+            admit(candidate, candidateWeight, victims);
+        }
+        // 保护区或试用区因权重更新而超限
+        while (probationWeight + protectedWeight > mainMax) {
+            K victim = pollVictim();
+            if (victim == null) {
+                break;
+            }
+            victims.add(victim);
+        }
+        return victims;
+    }
+
+    @Override
+    public void remove(K key) {
+        Long weight = window.remove(key);
+        if (weight != null) {
+            windowWeight -= weight;
+            return;
+        }
+        weight = probation.remove(key);
+        if (weight != null) {
+            probationWeight -= weight;
+            return;
+        }
+        weight = protectedSegment.remove(key);
+        if (weight != null) {
+            protectedWeight -= weight;
+        }
+    }
+
+    @Override
+    public void clear() {
+        window.clear();
+        probation.clear();
+        protectedSegment.clear();
+        windowWeight = 0;
+        probationWeight = 0;
+        protectedWeight = 0;
+    }
+
+    @Override
+    public int size() {
+        return window.size() + probation.size() + protectedSegment.size();
+    }
+
+    @Override
+    public long weightedSize() {
+        return windowWeight + probationWeight + protectedWeight;
+    }
+
+    /**
+     * 已存在的键更新权重
+     * @return 键是否已被跟踪
+     */
+    private boolean updateWeight(K key, long weight) {
+        Long old = window.replace(key, weight);
+        if (old != null) {
+            windowWeight += weight - old;
+            return true;
+        }
+        old = probation.replace(key, weight);
+        if (old != null) {
+            probationWeight += weight - old;
+            return true;
+        }
+        old = protectedSegment.replace(key, weight);
+        if (old != null) {
+            protectedWeight += weight - old;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 处理已存在键的访问
+     */
+    private void onHit(K key) {
+        if (window.get(key) != null || protectedSegment.get(key) != null) {
+            return;
+        }
+        Long weight = probation.remove(key);
+        if (weight != null) {
+            // 试用区再次命中，晋升到保护区
+            probationWeight -= weight;
+            protectedSegment.put(key, weight);
+            protectedWeight += weight;
+            while (protectedWeight > protectedMax && protectedSegment.size() > 1) {
+                // 保护区溢出，最久未访问的键降级回试用区
+                K demoted = firstKey(protectedSegment);
+                long demotedWeight = protectedSegment.remove(demoted);
+                protectedWeight -= demotedWeight;
+                probation.put(demoted, demotedWeight);
+                probationWeight += demotedWeight;
+            }
+        }
+    }
+
+    /**
+     * 窗口区挤出的候选键尝试进入主区，主区空间不足时先确定腾出空间需要淘汰的键，
+     * 候选键的频率高于其中每一个时才淘汰它们并接纳候选键，否则候选键被淘汰、主区不变
+     */
+    private void admit(K candidate, long candidateWeight, List<K> victims) {
+        if (candidateWeight > mainMax) {
+            victims.add(candidate);
+            return;
+        }
+
+        long excess = probationWeight + protectedWeight + candidateWeight - mainMax;
+        if (excess > 0) {
+            int candidateFrequency = sketch.frequency(candidate);
+            List<K> displaced = new ArrayList<>(1);
+            // 试用区在前、保护区在后，各自按最久未访问的顺序
+            long freed = collectVictims(probation, excess, candidateFrequency, displaced);
+            if (freed >= 0 && freed < excess) {
+                long more = collectVictims(protectedSegment, excess - freed, candidateFrequency, displaced);
+                freed = more < 0 ? -1 : freed + more;
+            }
+            if (freed < excess) {
+                victims.add(candidate);
+                return;
+            }
+            for (K victim : displaced) {
+                remove(victim);
+                victims.add(victim);
+            }
+        }
+
+        probation.put(candidate, candidateWeight);
+        probationWeight += candidateWeight;
+    }
+
+    /**
+     * 按最久未访问的顺序收集淘汰候选，直到权重达到needed，只收集不移除
+     * @return 收集到的权重；遇到频率不低于候选键的键时返回-1
+     */
+    private long collectVictims(LinkedHashMap<K, Long> segment, long needed, int candidateFrequency,
+                                List<K> displaced) {
+        long collected = 0;
+        for (Map.Entry<K, Long> entry : segment.entrySet()) {
+            if (collected >= needed) {
+                break;
+            }
+            if (candidateFrequency <= sketch.frequency(entry.getKey())) {
+                return -1;
+            }
+            displaced.add(entry.getKey());
+            collected += entry.getValue();
+        }
+        return collected;
+    }
+
+    /**
+     * 从主区移除最久未访问的键
+     */
+    private K pollVictim() {
+        LinkedHashMap<K, Long> segment = probation.isEmpty() ? protectedSegment : probation;
+        K victim = firstKey(segment);
+        if (victim != null) {
+            remove(victim);
+        }
+        return victim;
+    }
+
+    private static <K> K firstKey(Map<K, Long> segment) {
+        Iterator<K> it = segment.keySet().iterator();
+        return it.hasNext() ? it.next() : null;
+    }
+}
@@ -0,0 +1,50 @@
+package com.czj.student.util.pool.l2;
+
+import java.util.function.Consumer;
+
+/**
+ * 缓存失效通知
+ * 某个节点清除缓存组后广播给其他节点，各节点收到后清除本地缓存；
+ * 同一通道按主题区分不同用途的消息，如缓存组失效、实体失效、存在性过滤器新键；
+ * 实现类须忽略本节点发出的消息
+ */
+public interface InvalidationBus {
+
+    // 缓存组失效通知的主题
+    String GROUP_TOPIC = "group";
+
+    /**
+     * 广播缓存组失效
+     * @param group 缓存组名称
+     */
+    default void publish(String group) {
+        publish(GROUP_TOPIC, group);
+    }
+
+    /**
+     * 开始接收其他节点的缓存组失效通知
+     * @param listener 收到的缓存组名称
+     */
+    default void subscribe(Consumer<String> listener) {
+        subscribe(GROUP_TOPIC, listener);
+    }
+
+    /**
+     * 广播指定主题的消息
+     * @param topic 主题，不能包含'|'
+     * @param message 消息内容
+     */
+    void publish(String topic, String message);
+
+    /**
+     * 开始接收其他节点发出的指定主题的消息，同一主题可以有多个监听器
+     * @param topic 主题
+     * @param listener 收到的消息内容
+     */
+    void subscribe(String topic, Consumer<String> listener);
+
+    /**
+     * 停止接收并释放资源
+     */
+    void close();
+}
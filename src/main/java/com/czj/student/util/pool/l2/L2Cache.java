@@ -0,0 +1,35 @@
+package com.czj.student.util.pool.l2;
+
+/**
+ * 二级缓存
+ * 多个节点共享的查询结果存储，值为编码后的字节；实现类须线程安全，
+ * 访问失败时抛出运行时异常，由调用方降级为只使用本地缓存
+ */
+public interface L2Cache {
+
+    /**
+     * @param key 缓存键
+     * @return 缓存值，不存在或已过期返回null
+     */
+    byte[] get(String key);
+
+    /**
+     * 写入缓存并登记到缓存组
+     * @param key 缓存键
+     * @param value 缓存值
+     * @param ttlMillis 过期时间(毫秒)
+     * @param groups 缓存组
+     */
+    void put(String key, byte[] value, long ttlMillis, String[] groups);
+
+    /**
+     * 删除缓存组中的所有缓存
+     * @param group 缓存组名称
+     */
+    void invalidateGroup(String group);
+
+    /**
+     * 释放连接等资源
+     */
+    void close();
+}
@@ -0,0 +1,65 @@
+package com.czj.student.util.pool.l2;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * 进程内失效通知
+ * 同一个实例上订阅的多个监听器视为不同节点，用于单节点部署和测试；
+ * 发布者通过nodeId区分，不会收到自己发出的消息
+ */
+public class LocalInvalidationBus implements InvalidationBus {
+
+    private static class Subscriber {
+        final String nodeId;
+        final String topic;
+        final Consumer<String> listener;
+
+        Subscriber(String nodeId, String topic, Consumer<String> listener) {
+            this.nodeId = nodeId;
+            this.topic = topic;
+            this.listener = listener;
+        }
+    }
+
+    private final List<Subscriber> subscribers;
+    private final String nodeId;
+
+    public LocalInvalidationBus(String nodeId) {
+        this(nodeId, new CopyOnWriteArrayList<>());
+    }
+
+    private LocalInvalidationBus(String nodeId, List<Subscriber> subscribers) {
+        this.nodeId = nodeId;
+        this.subscribers = subscribers;
+    }
+
+    /**
+     * 创建连接到同一通道的另一个节点
+     * @param otherNodeId 节点ID
+     * @return 共享订阅者列表的通知实例
+     */
+    public LocalInvalidationBus join(String otherNodeId) {
+        return new LocalInvalidationBus(otherNodeId, subscribers);
+    }
+
+    @Override
+    public void publish(String topic, String message) {
+        for (Subscriber subscriber : subscribers) {
+            if (!subscriber.nodeId.equals(nodeId) && subscriber.topic.equals(topic)) {
+                subscriber.listener.accept(message);
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(String topic, Consumer<String> listener) {
+        subscribers.add(new Subscriber(nodeId, topic, listener));
+    }
+
+    @Override
+    public void close() {
+        subscribers.removeIf(subscriber -> subscriber.nodeId.equals(nodeId));
+    }
+}
@@ -0,0 +1,65 @@
+package com.czj.student.util.pool.l2;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 进程内二级缓存
+ * 语义与Redis实现一致，用于单节点部署和测试
+ */
+public class LocalL2Cache implements L2Cache {
+
+    private static class Value {
+        final byte[] bytes;
+        final long expireAt;
+
+        Value(byte[] bytes, long expireAt) {
+            this.bytes = bytes;
+            this.expireAt = expireAt;
+        }
+    }
+
+    private final Map<String, Value> values = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> groups = new ConcurrentHashMap<>();
+
+    @Override
+    public byte[] get(String key) {
+        Value value = values.get(key);
+        if (value == null) {
+            return null;
+        }
+        if (value.expireAt <= System.currentTimeMillis()) {
+            values.remove(key, value);
+            return null;
+        }
+        return value.bytes;
+    }
+
+    @Override
+    public void put(String key, byte[] value, long ttlMillis, String[] cacheGroups) {
+        values.put(key, new Value(value, System.currentTimeMillis() + ttlMillis));
+        if (cacheGroups != null) {
+            for (String group : cacheGroups) {
+                groups.computeIfAbsent(group, k -> Collections.newSetFromMap(new ConcurrentHashMap<>())).add(key);
+            }
+        }
+    }
+
+    @Override
+    public void invalidateGroup(String group) {
+        Set<String> keys = groups.remove(group);
+        if (keys != null) {
+            for (String key : keys) {
+                values.remove(key);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        values.clear();
+        groups.clear();
+    }
+}
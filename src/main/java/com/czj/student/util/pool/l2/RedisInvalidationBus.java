@@ -0,0 +1,131 @@
+package com.czj.student.util.pool.l2;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPubSub;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * 基于Redis发布订阅的失效通知
+ * 消息格式为"节点ID|主题|内容"，只有两段的消息按缓存组失效处理；
+ * 所有主题共用一个频道，订阅在独立的守护线程上阻塞执行，连接断开后自动重连。
+ * 发布订阅不保证送达，断线期间的通知会丢失，由缓存过期时间兜底
+ */
+public class RedisInvalidationBus implements InvalidationBus {
+    private static final Logger logger = LoggerFactory.getLogger(RedisInvalidationBus.class);
+
+    // 订阅断开后的重连间隔
+    private static final long RECONNECT_DELAY_MILLIS = 5000;
+
+    private final JedisPool jedisPool;
+    private final String channel;
+    private final String nodeId;
+
+    // 各主题的监听器
+    private final ConcurrentHashMap<String, List<Consumer<String>>> listeners = new ConcurrentHashMap<>();
+
+    private volatile boolean running;
+    private volatile JedisPubSub pubSub;
+    private Thread subscriberThread;
+
+    /**
+     * @param jedisPool 连接池，由调用方负责关闭
+     * @param channel 通知频道
+     * @param nodeId 本节点ID
+     */
+    public RedisInvalidationBus(JedisPool jedisPool, String channel, String nodeId) {
+        this.jedisPool = jedisPool;
+        this.channel = channel;
+        this.nodeId = nodeId;
+    }
+
+    @Override
+    public void publish(String topic, String message) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            jedis.publish(channel, nodeId + "|" + topic + "|" + message);
+        }
+    }
+
+    @Override
+    public synchronized void subscribe(String topic, Consumer<String> listener) {
+        listeners.computeIfAbsent(topic, k -> new CopyOnWriteArrayList<>()).add(listener);
+        if (running) {
+            return;
+        }
+        running = true;
+        subscriberThread = new Thread(() -> {
+            while (running) {
+                JedisPubSub current = new JedisPubSub() {
+                    @Override
+                    public void onMessage(String ch, String message) {
+                        dispatch(message);
+                    }
+                };
+                pubSub = current;
+                try (Jedis jedis = jedisPool.getResource()) {
+                    jedis.subscribe(current, channel);
+                } catch (RuntimeException e) {
+                    if (!running) {
+                        break;
+                    }
+                    logger.warn("缓存失效通知订阅断开，{}ms后重连: {}", RECONNECT_DELAY_MILLIS, e.getMessage());
+                    try {
+                        Thread.sleep(RECONNECT_DELAY_MILLIS);
+                    } catch (InterruptedException ie) {
+                        break;
+                    }
+                }
+            }
+        }, "cache-invalidation-subscriber");
+        subscriberThread.setDaemon(true);
+        subscriberThread.start();
+        logger.info("订阅缓存失效通知, 频道: {}, 节点: {}", channel, nodeId);
+    }
+
+    /**
+     * 把其他节点发出的消息交给对应主题的监听器
+     */
+    private void dispatch(String message) {
+        int separator = message.indexOf('|');
+        if (separator < 0 || message.substring(0, separator).equals(nodeId)) {
+            return;
+        }
+        String topic = GROUP_TOPIC;
+        String content = message.substring(separator + 1);
+        int topicSeparator = content.indexOf('|');
+        if (topicSeparator >= 0) {
+            topic = content.substring(0, topicSeparator);
+            content = content.substring(topicSeparator + 1);
+        }
+        List<Consumer<String>> topicListeners = listeners.get(topic);
+        if (topicListeners == null) {
+            return;
+        }
+        for (Consumer<String> listener : topicListeners) {
+            try {
+                listener.accept(content);
+            } catch (RuntimeException e) {
+                logger.warn("处理缓存失效通知失败: {}", message, e);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        running = false;
+        JedisPubSub current = pubSub;
+        if (current != null && current.isSubscribed()) {
+            current.unsubscribe();
+        }
+        if (subscriberThread != null) {
+            subscriberThread.interrupt();
+        }
+        listeners.clear();
+    }
+}
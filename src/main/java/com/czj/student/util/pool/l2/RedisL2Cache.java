@@ -0,0 +1,81 @@
+package com.czj.student.util.pool.l2;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.params.SetParams;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+/**
+ * Redis二级缓存
+ * 缓存值以"前缀+缓存键"存储并设置过期时间；
+ * 缓存组用Redis集合记录成员键，集合过期时间按组内最晚过期的成员延长
+ */
+public class RedisL2Cache implements L2Cache {
+
+    private final JedisPool jedisPool;
+    private final String keyPrefix;
+
+    /**
+     * @param jedisPool 连接池，由调用方创建，close时关闭
+     * @param keyPrefix 键前缀，区分不同应用
+     */
+    public RedisL2Cache(JedisPool jedisPool, String keyPrefix) {
+        this.jedisPool = jedisPool;
+        this.keyPrefix = keyPrefix;
+    }
+
+    @Override
+    public byte[] get(String key) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            return jedis.get(valueKey(key));
+        }
+    }
+
+    @Override
+    public void put(String key, byte[] value, long ttlMillis, String[] groups) {
+        byte[] valueKey = valueKey(key);
+        try (Jedis jedis = jedisPool.getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            pipeline.set(valueKey, value, SetParams.setParams().px(ttlMillis));
+            if (groups != null) {
+                for (String group : groups) {
+                    byte[] groupKey = groupKey(group);
+                    pipeline.sadd(groupKey, valueKey);
+                    // 集合至少与成员存活一样久，过期成员的残留键在失效时删除
+                    pipeline.pexpire(groupKey, ttlMillis);
+                }
+            }
+            pipeline.sync();
+        }
+    }
+
+    @Override
+    public void invalidateGroup(String group) {
+        byte[] groupKey = groupKey(group);
+        try (Jedis jedis = jedisPool.getResource()) {
+            Set<byte[]> members = jedis.smembers(groupKey);
+            Pipeline pipeline = jedis.pipelined();
+            for (byte[] member : members) {
+                pipeline.del(member);
+            }
+            pipeline.del(groupKey);
+            pipeline.sync();
+        }
+    }
+
+    @Override
+    public void close() {
+        jedisPool.close();
+    }
+
+    private byte[] valueKey(String key) {
+        return (keyPrefix + "query:" + key).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private byte[] groupKey(String group) {
+        return (keyPrefix + "group:" + group).getBytes(StandardCharsets.UTF_8);
+    }
+}
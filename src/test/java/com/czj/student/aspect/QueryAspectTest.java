@@ -0,0 +1,173 @@
+package com.czj.student.aspect;
+
+import com.czj.student.annotation.CacheQuery;
+import com.czj.student.util.pool.QueryPool;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * 查询缓存切面的提前刷新及陈旧值返回测试类
+ */
+public class QueryAspectTest {
+
+    /**
+     * 被缓存的查询方法，只用于提供注解和缓存键
+     */
+    interface Catalog {
+        @CacheQuery(cacheGroups = "aspect", expiration = 60000, refreshAfter = 100)
+        List<String> refreshAhead(String keyword);
+
+        @CacheQuery(cacheGroups = "aspect", expiration = 100, staleTtl = 60000)
+        List<String> staleWhileRevalidate(String keyword);
+
+        @CacheQuery(cacheGroups = "aspect", expiration = 50, staleTtl = 50)
+        List<String> shortStale(String keyword);
+    }
+
+    private QueryAspect aspect;
+
+    // 各关键字的加载次数
+    private final ConcurrentHashMap<String, AtomicInteger> loads = new ConcurrentHashMap<>();
+
+    // 首次之后的加载在此等待，用于观察刷新进行中的状态
+    private volatile CountDownLatch reloadGate = new CountDownLatch(0);
+
+    @Before
+    public void setUp() {
+        QueryPool.clearAll();
+        aspect = new QueryAspect();
+    }
+
+    @After
+    public void tearDown() {
+        reloadGate.countDown();
+        aspect.destroy();
+        QueryPool.clearAll();
+    }
+
+    @Test(timeout = 10000)
+    public void testRefreshAheadServesOldValueWhileReloading() throws Throwable {
+        aspect.init();
+        Method method = Catalog.class.getMethod("refreshAhead", String.class);
+        assertEquals("计算机#1", query(method, "计算机"));
+
+        // 超过刷新间隔后命中：立即返回旧值，只提交一次异步重新加载
+        Thread.sleep(150);
+        reloadGate = new CountDownLatch(1);
+        assertEquals("计算机#1", query(method, "计算机"));
+        assertEquals("计算机#1", query(method, "计算机"));
+        awaitLoads("计算机", 2);
+
+        reloadGate.countDown();
+        awaitCached(method, "计算机", "计算机#2");
+        assertEquals(2, loads.get("计算机").get());
+    }
+
+    @Test(timeout = 10000)
+    public void testStaleEntryServedUntilStaleUntil() throws Throwable {
+        aspect.init();
+        Method stale = Catalog.class.getMethod("staleWhileRevalidate", String.class);
+        assertEquals("数学#1", query(stale, "数学"));
+
+        // 已过期但在陈旧容忍期内：返回旧值并异步重新加载
+        Thread.sleep(150);
+        assertEquals("数学#1", query(stale, "数学"));
+        awaitCached(stale, "数学", "数学#2");
+
+        // 超过陈旧容忍期：按未命中处理，同步加载新值
+        Method shortStale = Catalog.class.getMethod("shortStale", String.class);
+        assertEquals("物理#1", query(shortStale, "物理"));
+        Thread.sleep(150);
+        assertEquals("物理#2", query(shortStale, "物理"));
+    }
+
+    @Test(timeout = 10000)
+    public void testFullRefreshQueueDropsRefresh() throws Throwable {
+        ReflectionTestUtils.setField(aspect, "refreshThreads", 1);
+        ReflectionTestUtils.setField(aspect, "refreshQueueSize", 1);
+        aspect.init();
+        Method method = Catalog.class.getMethod("refreshAhead", String.class);
+        query(method, "甲");
+        query(method, "乙");
+        query(method, "丙");
+        Thread.sleep(150);
+
+        // 甲的刷新占用唯一的刷新线程，乙的刷新占满队列，丙的刷新被放弃且不阻塞调用方
+        reloadGate = new CountDownLatch(1);
+        query(method, "甲");
+        awaitLoads("甲", 2);
+        query(method, "乙");
+        assertEquals("丙#1", query(method, "丙"));
+        assertEquals(1, loads.get("丙").get());
+
+        // 放弃的刷新允许后续命中再次触发
+        reloadGate.countDown();
+        awaitCached(method, "乙", "乙#2");
+        assertEquals("丙#1", query(method, "丙"));
+        awaitCached(method, "丙", "丙#2");
+    }
+
+    /**
+     * 经切面执行查询，返回结果的第一行
+     */
+    private String query(Method method, String keyword) throws Throwable {
+        List<?> rows = (List<?>) aspect.handleCacheQuery(joinPoint(method, keyword),
+                method.getAnnotation(CacheQuery.class));
+        return (String) rows.get(0);
+    }
+
+    private ProceedingJoinPoint joinPoint(Method method, String keyword) {
+        MethodSignature signature = (MethodSignature) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{MethodSignature.class}, (proxy, m, args) ->
+                        "getMethod".equals(m.getName()) ? method : null);
+        Object[] args = {keyword};
+        return (ProceedingJoinPoint) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{ProceedingJoinPoint.class}, (proxy, m, a) -> {
+                    switch (m.getName()) {
+                        case "getSignature":
+                            return signature;
+                        case "getArgs":
+                            return args.clone();
+                        case "proceed":
+                            return load(keyword);
+                        default:
+                            return m.getName().equals("toString") ? method.getName() : null;
+                    }
+                });
+    }
+
+    private List<String> load(String keyword) throws InterruptedException {
+        int count = loads.computeIfAbsent(keyword, k -> new AtomicInteger()).incrementAndGet();
+        if (count > 1) {
+            reloadGate.await(5, TimeUnit.SECONDS);
+        }
+        return Collections.singletonList(keyword + "#" + count);
+    }
+
+    private void awaitLoads(String keyword, int count) throws InterruptedException {
+        while (loads.get(keyword).get() < count) {
+            Thread.sleep(1);
+        }
+    }
+
+    private void awaitCached(Method method, String keyword, String expected) throws Throwable {
+        while (!expected.equals(query(method, keyword))) {
+            Thread.sleep(5);
+        }
+    }
+}
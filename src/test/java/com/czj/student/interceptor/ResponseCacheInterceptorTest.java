@@ -0,0 +1,78 @@
+package com.czj.student.interceptor;
+
+import com.czj.student.annotation.ResponseCache;
+import com.czj.student.util.pool.QueryPool;
+import com.czj.student.util.pool.ResponseBytesCache;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.method.HandlerMethod;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+/**
+ * 响应缓存拦截器测试类
+ */
+public class ResponseCacheInterceptorTest {
+
+    private ResponseCacheInterceptor interceptor;
+    private ResponseBytesCache cache;
+    private HandlerMethod handler;
+
+    @Before
+    public void setUp() throws Exception {
+        interceptor = new ResponseCacheInterceptor();
+        cache = new ResponseBytesCache(1024 * 1024, 1024);
+        ReflectionTestUtils.setField(interceptor, "responseBytesCache", cache);
+        ReflectionTestUtils.setField(interceptor, "enabled", true);
+        handler = new HandlerMethod(new Pages(), Pages.class.getMethod("page"));
+    }
+
+    @Test
+    public void testEncodedSeparatorsDoNotShareKey() {
+        // 值中编码的&、=不能与拆开后的参数得到相同的键
+        MockHttpServletRequest split = request("/student/page");
+        split.addParameter("keyword", "a");
+        split.addParameter("size", "100");
+        MockHttpServletRequest joined = request("/student/page");
+        joined.addParameter("keyword", "a&size=100");
+        assertNotEquals(ResponseCacheInterceptor.keyOf(split), ResponseCacheInterceptor.keyOf(joined));
+
+        // 参数顺序不同的相同请求共用键
+        MockHttpServletRequest reordered = request("/student/page");
+        reordered.addParameter("size", "100");
+        reordered.addParameter("keyword", "a");
+        assertEquals(ResponseCacheInterceptor.keyOf(split), ResponseCacheInterceptor.keyOf(reordered));
+    }
+
+    @Test
+    public void testVaryOnHitAndMiss() throws Exception {
+        MockHttpServletRequest request = request("/student/page");
+        MockHttpServletResponse miss = new MockHttpServletResponse();
+        assertTrue(interceptor.preHandle(request, miss, handler));
+        assertEquals("Accept-Encoding", miss.getHeader("Vary"));
+
+        String key = (String) request.getAttribute(ResponseCacheInterceptor.KEY_ATTRIBUTE);
+        cache.put(key, "{}".getBytes(StandardCharsets.UTF_8), false, 60000,
+                QueryPool.groupVersion(new String[]{"student"}));
+        MockHttpServletResponse hit = new MockHttpServletResponse();
+        assertFalse(interceptor.preHandle(request("/student/page"), hit, handler));
+        assertEquals("Accept-Encoding", hit.getHeader("Vary"));
+        assertEquals("{}", hit.getContentAsString());
+    }
+
+    private static MockHttpServletRequest request(String uri) {
+        return new MockHttpServletRequest("GET", uri);
+    }
+
+    public static class Pages {
+        @ResponseCache(cacheGroups = {"student"})
+        public String page() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.czj.student.session.pool;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * 会话日志存储测试类
+ */
+public class FileSessionStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testSaveRemoveAndLoad() throws Exception {
+        File file = new File(folder.getRoot(), "sessions.log");
+        FileSessionStore store = new FileSessionStore(file, 10);
+        assertTrue(store.load().isEmpty());
+        store.save(new SessionRecord("XH000001", "S1", "127.0.0.1", 1000L, 1000L, 2000L));
+        store.save(new SessionRecord("XH000002", "S2", null, 0L, 1000L, 1500L));
+        store.save(new SessionRecord("XH000001", "S1", "127.0.0.1", 1000L, 1000L, 3000L));
+        store.remove("XH000002");
+        store.close();
+
+        // 同一学号以最后一次保存为准，删除的学号不再读出
+        Map<String, SessionRecord> loaded = load(file);
+        assertEquals(1, loaded.size());
+        SessionRecord record = loaded.get("XH000001");
+        assertEquals("S1", record.getSessionId());
+        assertEquals("127.0.0.1", record.getIp());
+        assertEquals(1000L, record.getLoginTime());
+        assertEquals(3000L, record.getLastAccessTime());
+    }
+
+    @Test
+    public void testTornTailIgnored() throws Exception {
+        File file = new File(folder.getRoot(), "sessions.log");
+        FileSessionStore store = new FileSessionStore(file, 10);
+        store.load();
+        store.save(new SessionRecord("XH000001", "S1", "127.0.0.1", 1000L, 1000L, 2000L));
+        store.close();
+
+        // 模拟写到一半退出：末尾追加不完整的记录
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(raf.length());
+            raf.writeInt(40);
+            raf.write(new byte[]{1, 0, 8});
+        }
+        Map<String, SessionRecord> loaded = load(file);
+        assertEquals(1, loaded.size());
+        assertEquals("S1", loaded.get("XH000001").getSessionId());
+    }
+
+    @Test
+    public void testWriterSurvivesCompactFailure() throws Exception {
+        File file = new File(folder.getRoot(), "sessions.log");
+        FileSessionStore store = new FileSessionStore(file, 10);
+        store.setCompactRetryMillis(20);
+        store.load();
+
+        // 临时文件的位置被非空目录占用，重写失败
+        File blocker = new File(file.getPath() + ".tmp");
+        assertTrue(new File(blocker, "x").mkdirs());
+        for (int i = 0; i < 1100; i++) {
+            store.save(new SessionRecord("XH000001", "S1", null, 1000L, 1000L, 2000L + i));
+        }
+        Thread.sleep(200);
+
+        // 写入线程仍在运行，之后的修改在重试重写成功后写入
+        store.save(new SessionRecord("XH000002", "S2", null, 1000L, 1000L, 5000L));
+        // 只剩空目录时重写会先删除它
+        assertTrue(new File(blocker, "x").delete());
+        Thread.sleep(200);
+        store.close();
+        assertEquals(0, store.getDroppedCount());
+
+        Map<String, SessionRecord> loaded = load(file);
+        assertEquals(2, loaded.size());
+        assertEquals(3099L, loaded.get("XH000001").getLastAccessTime());
+        assertEquals("S2", loaded.get("XH000002").getSessionId());
+    }
+
+    @Test
+    public void testPendingChangesBounded() throws Exception {
+        File file = new File(folder.getRoot(), "sessions.log");
+        FileSessionStore store = new FileSessionStore(file, 10, 2);
+        // 加载前写入线程未启动，超过上限的修改被丢弃
+        for (int i = 1; i <= 5; i++) {
+            store.save(new SessionRecord("XH00000" + i, "S" + i, null, 1000L, 1000L, 2000L));
+        }
+        assertEquals(3, store.getDroppedCount());
+        store.load();
+        store.close();
+        assertEquals(2, load(file).size());
+    }
+
+    @Test
+    public void testLogIsOwnerOnly() throws Exception {
+        File file = new File(folder.getRoot(), "store/sessions.log");
+        assumeTrue(Files.getFileStore(folder.getRoot().toPath()).supportsFileAttributeView("posix"));
+        FileSessionStore store = new FileSessionStore(file, 10);
+        store.load();
+        store.save(new SessionRecord("XH000001", "S1", "127.0.0.1", 1000L, 1000L, 2000L));
+        store.close();
+
+        assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(file.toPath())));
+        assertEquals("rwx------",
+                PosixFilePermissions.toString(Files.getPosixFilePermissions(file.getParentFile().toPath())));
+    }
+
+    private static Map<String, SessionRecord> load(File file) throws Exception {
+        FileSessionStore store = new FileSessionStore(file, 10);
+        try {
+            Collection<SessionRecord> records = store.load();
+            Map<String, SessionRecord> map = new HashMap<>();
+            for (SessionRecord record : records) {
+                map.put(record.getSno(), record);
+            }
+            return map;
+        } finally {
+            store.close();
+        }
+    }
+}
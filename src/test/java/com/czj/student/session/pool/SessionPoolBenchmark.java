@@ -0,0 +1,103 @@
+package com.czj.student.session.pool;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 会话验证吞吐量基准测试
+ * 对比旧实现(验证和更新访问时间各取一次全局锁)与无锁的validateAndTouch，
+ * 分别以1、2、4...直到CPU核数个线程运行，无锁实现的吞吐量应随线程数增长
+ *
+ * 运行方式：mvn test-compile 后执行本类的main方法，
+ * 或 java -cp target/test-classes:target/classes:依赖 org.openjdk.jmh.Main SessionPoolBenchmark -t 8
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SessionPoolBenchmark {
+
+    private static final int USERS = 1000;
+
+    // 预先生成，避免测量字符串拼接
+    private static final String[] SNOS = new String[USERS];
+    private static final String[] SESSION_IDS = new String[USERS];
+
+    static {
+        for (int i = 0; i < USERS; i++) {
+            SNOS[i] = String.format("XH%06d", i);
+            SESSION_IDS[i] = "SESSION" + i;
+        }
+    }
+
+    private SessionPool pool;
+
+    // 旧实现每个请求两次获取的全局锁
+    private final ReentrantLock globalLock = new ReentrantLock();
+
+    @Setup
+    public void setup() {
+        pool = new SessionPool(USERS, USERS, 0, 1000L, 30 * 60 * 1000L);
+        for (int i = 0; i < USERS; i++) {
+            pool.borrowSession(sno(i), sessionId(i));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public boolean globalLockValidate() {
+        int user = ThreadLocalRandom.current().nextInt(USERS);
+        boolean valid;
+        globalLock.lock();
+        try {
+            valid = pool.validateAndTouch(sno(user), sessionId(user));
+        } finally {
+            globalLock.unlock();
+        }
+        globalLock.lock();
+        try {
+            pool.updateSessionActivity(sno(user));
+        } finally {
+            globalLock.unlock();
+        }
+        return valid;
+    }
+
+    @Benchmark
+    public boolean lockFreeValidate() {
+        int user = ThreadLocalRandom.current().nextInt(USERS);
+        return pool.validateAndTouch(sno(user), sessionId(user));
+    }
+
+    private static String sno(int i) {
+        return SNOS[i];
+    }
+
+    private static String sessionId(int i) {
+        return SESSION_IDS[i];
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; threads <= cores; threads *= 2) {
+            Options options = new OptionsBuilder()
+                    .include(SessionPoolBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
@@ -0,0 +1,331 @@
+package com.czj.student.session.pool;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * 会话池测试类
+ */
+public class SessionPoolTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private SessionPool pool;
+
+    @After
+    public void tearDown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testValidateAndTouch() throws Exception {
+        pool = new SessionPool(10, 5, 0, 1000L, 60000L);
+        UserSession session = pool.borrowSession("XH000001", "S1");
+        long loginAccess = session.getLastAccessTime();
+
+        Thread.sleep(5);
+        assertTrue(pool.validateAndTouch("XH000001", "S1"));
+        assertTrue(session.getLastAccessTime() > loginAccess);
+        // 会话ID不匹配或未登录时验证失败
+        assertFalse(pool.validateAndTouch("XH000001", "S2"));
+        assertFalse(pool.validateAndTouch("XH000002", "S1"));
+
+        // 已登录时其他地方登录失败，登出后可以重新登录
+        try {
+            pool.borrowSession("XH000001", "S2");
+            fail("重复登录应失败");
+        } catch (SessionException e) {
+            assertEquals("该账号已在其他地方登录", e.getMessage());
+        }
+        pool.invalidateSession("XH000001");
+        assertFalse(pool.validateAndTouch("XH000001", "S1"));
+        pool.borrowSession("XH000001", "S2");
+        assertTrue(pool.validateAndTouch("XH000001", "S2"));
+    }
+
+    @Test
+    public void testExpiredSessionReleased() throws Exception {
+        pool = new SessionPool(1, 1, 0, 10L, 50L);
+        pool.borrowSession("XH000001", "S1");
+        Thread.sleep(80);
+
+        // 过期的会话验证失败并释放名额，其他学号可以登录
+        assertFalse(pool.validateAndTouch("XH000001", "S1"));
+        assertEquals(0, pool.getStats().getActiveCount());
+        pool.borrowSession("XH000002", "S2");
+        assertTrue(pool.validateAndTouch("XH000002", "S2"));
+    }
+
+    @Test
+    public void testExpireSessionsByTimerWheel() throws Exception {
+        pool = new SessionPool(10, 5, 0, 1000L, 200L);
+        pool.borrowSession("XH000001", "S1");
+        pool.borrowSession("XH000002", "S2");
+
+        // 持续访问的会话到期时按新的访问时间重新登记，不再访问的会话被清理
+        long end = System.currentTimeMillis() + 1500;
+        while (System.currentTimeMillis() < end) {
+            assertTrue(pool.validateAndTouch("XH000001", "S1"));
+            pool.expireSessions();
+            Thread.sleep(50);
+        }
+        assertEquals(1, pool.getStats().getActiveCount());
+        assertTrue(pool.validateAndTouch("XH000001", "S1"));
+    }
+
+    @Test
+    public void testRecoverSessionsAfterRestart() throws Exception {
+        File file = new File(folder.getRoot(), "sessions.log");
+        pool = new SessionPool(10, 5, 0, 1000L, 60000L);
+        assertEquals(0, pool.recover(new FileSessionStore(file, 10)));
+        pool.borrowSession("XH000001", "S1", "10.0.0.1");
+        pool.borrowSession("XH000002", "S2", "10.0.0.2");
+        pool.invalidateSession("XH000002");
+        pool.shutdown();
+
+        // 重启后已登录的会话仍有效，登出的会话不恢复
+        pool = new SessionPool(10, 5, 0, 1000L, 60000L);
+        assertEquals(1, pool.recover(new FileSessionStore(file, 10)));
+        assertTrue(pool.validateAndTouch("XH000001", "S1"));
+        assertEquals("10.0.0.1", pool.getCurrentLoginIp("XH000001"));
+        assertFalse(pool.validateAndTouch("XH000002", "S2"));
+        assertEquals(1, pool.getStats().getActiveCount());
+    }
+
+    @Test
+    public void testClusterRegistrySingleLogin() throws Exception {
+        // 两个会话池共用一个登记，模拟两个节点
+        SessionRegistry registry = new LocalSessionRegistry();
+        pool = new SessionPool(10, 5, 0, 1000L, 60000L);
+        pool.enableRegistry(registry, 500L);
+        SessionPool other = new SessionPool(10, 5, 0, 1000L, 60000L);
+        other.enableRegistry(registry, 500L);
+        try {
+            pool.borrowSession("XH000001", "S1");
+            try {
+                other.borrowSession("XH000001", "S2");
+                fail("其他节点已登录时应失败");
+            } catch (SessionException e) {
+                assertEquals("该账号已在其他地方登录", e.getMessage());
+            }
+
+            // 本地未缓存的会话在登记中确认后加入活跃池
+            assertTrue(other.validateAndTouch("XH000001", "S1"));
+            assertEquals(1, other.getStats().getActiveCount());
+            assertFalse(other.validateAndTouch("XH000001", "S2"));
+
+            // 登出后其他节点在租约到期后的第一次验证失败，之后可以登录
+            pool.invalidateSession("XH000001");
+            Thread.sleep(600);
+            assertFalse(other.validateAndTouch("XH000001", "S1"));
+            assertEquals(0, other.getStats().getActiveCount());
+            other.borrowSession("XH000001", "S2");
+            assertTrue(other.validateAndTouch("XH000001", "S2"));
+        } finally {
+            other.shutdown();
+        }
+    }
+
+    @Test
+    public void testRegistryOutlivesLocalSession() throws Exception {
+        // 超时1秒，租约400毫秒
+        SessionRegistry registry = new LocalSessionRegistry();
+        pool = new SessionPool(10, 5, 0, 1000L, 1000L);
+        pool.enableRegistry(registry, 400L);
+        SessionPool other = new SessionPool(10, 5, 0, 1000L, 1000L);
+        other.enableRegistry(registry, 400L);
+        try {
+            pool.borrowSession("XH000001", "S1");
+            // 租约期内的访问不续期，本地会话的过期时间随之推后
+            Thread.sleep(300);
+            assertTrue(pool.validateAndTouch("XH000001", "S1"));
+
+            // 登录后超过超时时间，但本地会话在最后访问后仍有效，登记不能先过期
+            Thread.sleep(850);
+            try {
+                other.borrowSession("XH000001", "S2");
+                fail("本地会话有效时其他节点不能登录");
+            } catch (SessionException e) {
+                assertEquals("该账号已在其他地方登录", e.getMessage());
+            }
+            assertTrue(pool.validateAndTouch("XH000001", "S1"));
+        } finally {
+            other.shutdown();
+        }
+    }
+
+    @Test
+    public void testExpiredSessionNotAdopted() throws Exception {
+        // 超时500毫秒，租约200毫秒，登记比本地会话多保留一个租约
+        SessionRegistry registry = new LocalSessionRegistry();
+        pool = new SessionPool(10, 5, 0, 1000L, 500L);
+        pool.enableRegistry(registry, 200L);
+        SessionPool other = new SessionPool(10, 5, 0, 1000L, 500L);
+        other.enableRegistry(registry, 200L);
+        try {
+            // 空闲超过超时时间的会话，其他节点不再接收
+            pool.borrowSession("XH000001", "S1");
+            Thread.sleep(600);
+            assertFalse(other.validateAndTouch("XH000001", "S1"));
+            assertEquals(0, other.getStats().getActiveCount());
+
+            // 本节点过期的会话被清理时删除登记，同一节点可以重新登录
+            pool.borrowSession("XH000001", "S2");
+            Thread.sleep(600);
+            assertFalse(pool.validateAndTouch("XH000001", "S2"));
+            assertFalse(pool.validateAndTouch("XH000001", "S2"));
+            assertFalse(other.validateAndTouch("XH000001", "S2"));
+            other.borrowSession("XH000001", "S3");
+            assertTrue(other.validateAndTouch("XH000001", "S3"));
+        } finally {
+            other.shutdown();
+        }
+    }
+
+    @Test
+    public void testExpiryKeepsRegistryAccessedElsewhere() throws Exception {
+        SessionRegistry registry = new LocalSessionRegistry();
+        pool = new SessionPool(10, 5, 0, 1000L, 500L);
+        pool.enableRegistry(registry, 100L);
+        SessionPool other = new SessionPool(10, 5, 0, 1000L, 500L);
+        other.enableRegistry(registry, 100L);
+        try {
+            pool.borrowSession("XH000001", "S1");
+            // 用户转到其他节点继续访问，登记记录了更晚的访问时间
+            for (int i = 0; i < 6; i++) {
+                Thread.sleep(120);
+                assertTrue(other.validateAndTouch("XH000001", "S1"));
+            }
+            // 本节点的会话已过期，清理时不能删除其他节点仍在使用的登记
+            assertFalse(pool.validateAndTouch("XH000001", "S1"));
+            assertEquals(0, pool.getStats().getActiveCount());
+            Thread.sleep(120);
+            assertTrue(other.validateAndTouch("XH000001", "S1"));
+        } finally {
+            other.shutdown();
+        }
+    }
+
+    @Test
+    public void testAdoptRejectedWhenPoolFull() throws Exception {
+        SessionRegistry registry = new LocalSessionRegistry();
+        pool = new SessionPool(10, 5, 0, 1000L, 60000L);
+        pool.enableRegistry(registry, 500L);
+        SessionPool other = new SessionPool(1, 1, 0, 100L, 60000L);
+        other.enableRegistry(registry, 500L);
+        try {
+            pool.borrowSession("XH000001", "S1");
+            other.borrowSession("XH000002", "S2");
+            // 本地名额已满时拒绝，不返回未缓存的确认结果
+            assertFalse(other.validateAndTouch("XH000001", "S1"));
+            assertEquals(1, other.getStats().getActiveCount());
+            assertTrue(pool.validateAndTouch("XH000001", "S1"));
+
+            other.invalidateSession("XH000002");
+            assertTrue(other.validateAndTouch("XH000001", "S1"));
+            assertEquals(1, other.getStats().getActiveCount());
+        } finally {
+            other.shutdown();
+        }
+    }
+
+    @Test
+    public void testAdmissionQueueRejectsAndTimesOut() throws Exception {
+        // 1个名额，最多1个排队
+        pool = new SessionPool(1, 1, 0, 300L, 60000L, 1);
+        pool.borrowSession("XH000001", "S1");
+
+        // 第一个排队的请求等到截止时间后超时，排队期间第二个请求被直接拒绝
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<?> queued = executor.submit(() -> pool.borrowSession("XH000002", "S2"));
+        while (pool.getStats().getWaitingCount() == 0) {
+            Thread.sleep(1);
+        }
+        try {
+            pool.borrowSession("XH000003", "S3");
+            fail("排队已满时应直接拒绝");
+        } catch (SessionException e) {
+            assertEquals(1, pool.getStats().getRejectedCount());
+        }
+        try {
+            queued.get();
+            fail("等待超时应失败");
+        } catch (ExecutionException e) {
+            assertEquals("获取会话超时", e.getCause().getMessage());
+        }
+        executor.shutdown();
+
+        SessionStats stats = pool.getStats();
+        assertEquals(1, stats.getTimeoutCount());
+        assertTrue(stats.getMaxWaitMillis() >= 250);
+        // 登出释放名额后可以登录，排队期间验证不受影响
+        assertTrue(pool.validateAndTouch("XH000001", "S1"));
+        pool.invalidateSession("XH000001");
+        pool.borrowSession("XH000002", "S2");
+        assertEquals(2, pool.getStats().getAdmittedCount());
+    }
+
+    @Test
+    public void testConcurrentValidateWithLoginChurn() throws Exception {
+        int users = 50;
+        pool = new SessionPool(users, users, 0, 1000L, 60000L);
+        for (int i = 0; i < users; i++) {
+            pool.borrowSession("XH" + i, "S" + i);
+        }
+
+        // 一半学号反复登出登录，另一半学号的验证必须一直成功
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger failures = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch done = new CountDownLatch(8);
+        for (int t = 0; t < 8; t++) {
+            final int thread = t;
+            executor.execute(() -> {
+                try {
+                    int round = 0;
+                    while (running.get()) {
+                        if (thread == 0) {
+                            int user = round++ % (users / 2);
+                            pool.invalidateSession("XH" + user);
+                            pool.borrowSession("XH" + user, "S" + user);
+                        } else {
+                            int user = users / 2 + (round++ % (users / 2));
+                            if (!pool.validateAndTouch("XH" + user, "S" + user)) {
+                                failures.incrementAndGet();
+                            }
+                        }
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        Thread.sleep(300);
+        running.set(false);
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        executor.shutdown();
+
+        assertEquals(0, failures.get());
+        assertEquals(users, pool.getStats().getActiveCount());
+        for (int i = 0; i < users; i++) {
+            assertTrue(pool.validateAndTouch("XH" + i, "S" + i));
+        }
+    }
+}
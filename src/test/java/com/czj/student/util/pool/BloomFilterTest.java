@@ -0,0 +1,109 @@
+package com.czj.student.util.pool;
+
+import com.czj.student.util.pool.l2.LocalInvalidationBus;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * 布隆过滤器及存在性过滤器测试类
+ */
+public class BloomFilterTest {
+
+    @Test
+    public void testNoFalseNegativeAndFppNearTarget() {
+        BloomFilter filter = new BloomFilter(10000, 0.01);
+        for (int i = 0; i < 10000; i++) {
+            filter.put(String.format("XH%06d", i));
+        }
+        for (int i = 0; i < 10000; i++) {
+            assertTrue(filter.mightContain(String.format("XH%06d", i)));
+        }
+
+        // 不存在的键的误判比例接近目标误判率
+        int falsePositives = 0;
+        for (int i = 10000; i < 110000; i++) {
+            if (filter.mightContain(String.format("XH%06d", i))) {
+                falsePositives++;
+            }
+        }
+        double observed = falsePositives / 100000.0;
+        assertTrue("误判率过高: " + observed, observed < 0.02);
+        assertEquals(0.01, filter.expectedFpp(), 0.005);
+    }
+
+    @Test
+    public void testExistenceFilterRebuild() {
+        ExistenceFilter filter = new ExistenceFilter("sno", 100, 0.01);
+
+        // 重建前一律判断为可能存在
+        assertTrue(filter.mightContain("XH000001"));
+
+        // 扫描期间写入的键在重建完成后仍然存在
+        filter.rebuild(consumer -> {
+            filter.put("XH999999");
+            Arrays.asList("XH000001", "XH000002").forEach(consumer);
+        });
+        assertTrue(filter.mightContain("XH000001"));
+        assertTrue(filter.mightContain("XH999999"));
+        assertFalse(filter.mightContain("XH123456"));
+
+        // 实际键数超过最小容量时按实际键数扩容
+        filter.rebuild(consumer -> {
+            for (int i = 0; i < 500; i++) {
+                consumer.accept(String.format("XH%06d", i));
+            }
+        });
+        Map<String, Object> stats = filter.snapshot();
+        assertTrue((Long) stats.get("capacity") >= 500);
+        assertEquals(1L, stats.get("negatives"));
+        assertFalse(filter.isSaturated());
+    }
+
+    @Test
+    public void testLookupVerifiesNegatives() {
+        ExistenceFilter filter = new ExistenceFilter("sno", 100, 0.01);
+        filter.rebuild(consumer -> consumer.accept("XH000001"));
+        AtomicInteger queries = new AtomicInteger();
+
+        // 默认判断为不存在的键不查询数据库
+        assertNull(filter.lookup("XH888888", () -> {
+            queries.incrementAndGet();
+            return "XH888888";
+        }));
+        assertEquals(0, queries.get());
+        assertEquals(1L, filter.snapshot().get("negatives"));
+
+        // 开启确认后，其他节点或直接写库新增的学号仍查询数据库，确认存在后补入过滤器
+        filter.setVerifyNegatives(true);
+        assertEquals("XH777777", filter.lookup("XH777777", () -> {
+            queries.incrementAndGet();
+            return "XH777777";
+        }));
+        assertEquals(1, queries.get());
+        assertTrue(filter.mightContain("XH777777"));
+        assertEquals(1L, filter.snapshot().get("falseNegatives"));
+    }
+
+    @Test
+    public void testPutPublishedToOtherNodes() {
+        LocalInvalidationBus busA = new LocalInvalidationBus("node-a");
+        LocalInvalidationBus busB = busA.join("node-b");
+        ExistenceFilter filterA = new ExistenceFilter("sno", 100, 0.01);
+        ExistenceFilter filterB = new ExistenceFilter("sno", 100, 0.01);
+        filterA.rebuild(consumer -> { });
+        filterB.rebuild(consumer -> { });
+        filterA.setPublisher(key -> busA.publish("existence", key));
+        busB.subscribe("existence", filterB::putRemote);
+        // 其他主题的监听器收不到新键通知
+        busB.subscribe(received -> fail("缓存组失效监听器收到了新键: " + received));
+
+        filterA.put("XH000002");
+        assertTrue(filterB.mightContain("XH000002"));
+        assertFalse(filterB.mightContain("XH000003"));
+    }
+}
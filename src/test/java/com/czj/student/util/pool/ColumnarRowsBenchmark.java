@@ -0,0 +1,82 @@
+package com.czj.student.util.pool;
+
+import com.czj.student.model.vo.StudentVO;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓存命中读取基准测试
+ * 对比堆内列表、每次命中都还原的列式存储及保留还原结果的列式存储，
+ * 结合-prof gc的每次操作分配字节数(gc.alloc.rate.norm)与QueryWeigher估算的条目权重判断列式存储的得失
+ *
+ * 运行方式：mvn test-compile 后执行本类的main方法，
+ * 或 java -cp target/test-classes:target/classes:依赖 org.openjdk.jmh.Main ColumnarRowsBenchmark -prof gc
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ColumnarRowsBenchmark {
+
+    // 每页行数，与分页查询的常用页大小一致
+    @Param({"10", "100"})
+    private int rows;
+
+    private CacheEntry listEntry;
+    private CacheEntry columnarEntry;
+    private CacheEntry decodedEntry;
+
+    @Setup
+    public void setup() {
+        List<StudentVO> page = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            StudentVO vo = new StudentVO();
+            vo.setSid((long) i);
+            vo.setSno(String.format("XH%06d", i));
+            vo.setName("学生" + i);
+            vo.setSfzh(String.format("11010120000101%04d", i));
+            vo.setGender(i % 2 == 0 ? "M" : "F");
+            vo.setMajor(i % 3 == 0 ? "计算机科学与技术" : "软件工程");
+            vo.setCreatedTime(new Date(1600000000000L + i));
+            page.add(vo);
+        }
+        listEntry = new CacheEntry(page, 60000, 0, 0);
+        columnarEntry = new CacheEntry(ColumnarRows.encode(page), 60000, 0, 0);
+        decodedEntry = new CacheEntry(ColumnarRows.encode(page), 60000, 0, 0);
+    }
+
+    @Benchmark
+    public List<?> listHit() {
+        return listEntry.getValue();
+    }
+
+    @Benchmark
+    public List<?> columnarHit() {
+        // 每次命中都重新还原全部行
+        return columnarEntry.getColumnar().toList();
+    }
+
+    @Benchmark
+    public List<?> columnarDecodedHit() {
+        // 保留时长内的命中复用上次还原的行
+        return decodedEntry.getValue();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ColumnarRowsBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,102 @@
+package com.czj.student.util.pool;
+
+import com.czj.student.model.entity.StudentCourse;
+import com.czj.student.model.vo.StudentVO;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 列式存储测试类
+ */
+public class ColumnarRowsTest {
+
+    @Test
+    public void testStudentRoundTripAndSize() {
+        List<StudentVO> rows = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            StudentVO vo = new StudentVO();
+            vo.setSid((long) i);
+            vo.setSno(String.format("XH%06d", i));
+            vo.setName("学生" + i);
+            vo.setSfzh(String.format("11010120000101%04d", i));
+            vo.setGender(i % 2 == 0 ? "M" : "F");
+            vo.setMajor(i % 3 == 0 ? "计算机科学与技术" : "软件工程");
+            vo.setCreatedTime(new Date(1600000000000L + i));
+            // 最后登录时间和备注为null
+            rows.add(vo);
+        }
+
+        ColumnarRows<?> columnar = ColumnarRows.encode(rows);
+        assertNotNull(columnar);
+        assertEquals(1000, columnar.size());
+        // 相比逐行对象的估算大小至少减少3倍
+        assertTrue(columnar.getEstimatedBytes() * 3 < QueryWeigher.weigh(rows));
+
+        List<?> page = columnar.slice(500, 510);
+        assertEquals(10, page.size());
+        for (int i = 0; i < page.size(); i++) {
+            StudentVO expected = rows.get(500 + i);
+            StudentVO actual = (StudentVO) page.get(i);
+            assertNotSame(expected, actual);
+            assertEquals(expected.toString(), actual.toString());
+            assertNull(actual.getLastLoginTime());
+            assertNull(actual.getRemark());
+        }
+        assertTrue(columnar.slice(3, 3).isEmpty());
+    }
+
+    @Test
+    public void testStudentCourseRoundTrip() {
+        StudentCourse first = new StudentCourse();
+        first.setStudentSid(1L);
+        first.setCourseCid(2L);
+        first.setSemester("2024-2025-1");
+        first.setStatus(4);
+        first.setFinalScore(new BigDecimal("88.50"));
+        first.setCourseName("数据结构");
+        first.setStudentNo("XH000001");
+        first.setSelectionDate(new Date(1700000000000L));
+        StudentCourse second = new StudentCourse();
+        second.setStudentSid(3L);
+
+        List<?> decoded = ColumnarRows.encode(Arrays.asList(first, second)).toList();
+        assertEquals(first, decoded.get(0));
+        assertEquals(second, decoded.get(1));
+    }
+
+    @Test
+    public void testUnsupportedRows() {
+        // 未登记的类型、混合类型及空结果不按列存储
+        assertNull(ColumnarRows.encode(Arrays.asList("a", "b")));
+        assertNull(ColumnarRows.encode(Arrays.asList(new StudentVO(), new StudentCourse())));
+        assertNull(ColumnarRows.encode(new ArrayList<>()));
+        assertNull(ColumnarRows.encode(Arrays.asList(new StudentVO(), null)));
+    }
+
+    @Test
+    public void testCacheEntryReusesDecodedRows() {
+        StudentVO vo = new StudentVO();
+        vo.setSid(1L);
+        vo.setSno("XH000001");
+        CacheEntry entry = new CacheEntry(ColumnarRows.encode(Arrays.asList(vo)), 60000, 0, 0);
+
+        // 保留时长内的命中复用同一份行，不再逐次创建对象
+        List<?> first = entry.getValue();
+        assertSame(first, entry.getValue());
+        assertSame(first, entry.slice(0, 1));
+
+        try {
+            CacheEntry.setDecodedTtlMillis(0);
+            assertNotSame(first, entry.getValue());
+        } finally {
+            CacheEntry.setDecodedTtlMillis(1000);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.czj.student.util.pool;
+
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * 总数缓存测试类
+ */
+public class CountCacheTest {
+
+    @Test
+    public void testAdjustUnfilteredAndClearFiltered() {
+        CountCache cache = new CountCache();
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals(100, cache.get("student", null, () -> { loads.incrementAndGet(); return 100; }));
+        assertEquals(30, cache.get("student", "keyword:计算机", () -> { loads.incrementAndGet(); return 30; }));
+        assertEquals(100, cache.get("student", null, () -> { loads.incrementAndGet(); return -1; }));
+        assertEquals(2, loads.get());
+
+        // 没有事务时立即调整：无过滤条件的总数加1，带过滤条件的总数重新查询
+        cache.adjust("student", 1);
+        assertEquals(101, cache.get("student", null, () -> -1));
+        assertEquals(31, cache.get("student", "keyword:计算机", () -> 31));
+
+        // 修改只清除带过滤条件的总数
+        cache.invalidateFiltered("student");
+        assertEquals(101, cache.get("student", null, () -> -1));
+        assertEquals(29, cache.get("student", "keyword:计算机", () -> 29));
+    }
+
+    @Test
+    public void testLoadDuringChangeNotCached() {
+        CountCache cache = new CountCache();
+
+        // 查询期间有新增提交，查询结果不确定是否包含新增的行，不缓存
+        assertEquals(100, cache.get("student", null, () -> {
+            cache.adjust("student", 1);
+            return 100;
+        }));
+        assertEquals(101, cache.get("student", null, () -> 101));
+    }
+
+    @Test
+    public void testFullCacheEvictsLeastRecentlyUsed() {
+        CountCache cache = new CountCache();
+        ReflectionTestUtils.setField(cache, "maxEntries", 2);
+
+        cache.get("student", "keyword:计算机", () -> 30);
+        cache.get("student", "keyword:数学", () -> 20);
+        cache.get("student", "keyword:计算机", () -> -1);
+
+        // 已满时新的过滤条件仍然缓存，淘汰最久未使用的数学
+        assertEquals(10, cache.get("student", "keyword:物理", () -> 10));
+        assertEquals(10, cache.get("student", "keyword:物理", () -> -1));
+        assertEquals(30, cache.get("student", "keyword:计算机", () -> -1));
+        assertEquals(21, cache.get("student", "keyword:数学", () -> 21));
+    }
+}
@@ -0,0 +1,136 @@
+package com.czj.student.util.pool;
+
+import com.czj.student.model.entity.Student;
+import com.czj.student.util.pool.l2.LocalInvalidationBus;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * 单行实体缓存测试类
+ */
+public class EntityCacheTest {
+
+    private final Map<Long, Student> table = new HashMap<>();
+    private final AtomicInteger queries = new AtomicInteger();
+    private EntityCache<Student> cache;
+
+    @Before
+    public void setUp() {
+        for (long sid = 1; sid <= 5; sid++) {
+            table.put(sid, student(sid, String.format("XH%06d", sid)));
+        }
+        cache = new EntityCache<>("student", Student::getSid, Student::getSno, 60000, 100);
+    }
+
+    @Test
+    public void testNaturalKeyIndexAndInvalidate() {
+        assertEquals("XH000002", cache.get(2L, this::selectById).getSno());
+        // 按主键加载后，按学号也能命中
+        assertEquals(Long.valueOf(2), cache.getByNaturalKey("XH000002", this::selectBySno).getSid());
+        assertEquals(1, queries.get());
+
+        // 修改学号后失效，旧学号不再命中，新学号重新加载
+        table.put(2L, student(2L, "XH000099"));
+        cache.invalidate(2L);
+        assertNull(cache.getByNaturalKey("XH000002", this::selectBySno));
+        assertEquals(Long.valueOf(2), cache.getByNaturalKey("XH000099", this::selectBySno).getSid());
+        assertEquals(3, queries.get());
+    }
+
+    @Test
+    public void testGetAllLoadsOnlyMissing() {
+        cache.get(1L, this::selectById);
+        cache.get(3L, this::selectById);
+        queries.set(0);
+
+        List<Long> requested = new ArrayList<>();
+        List<Student> result = cache.getAll(Arrays.asList(3L, 2L, 1L, 9L), ids -> {
+            requested.addAll(ids);
+            queries.incrementAndGet();
+            List<Student> rows = new ArrayList<>();
+            for (Long id : ids) {
+                if (table.containsKey(id)) {
+                    rows.add(table.get(id));
+                }
+            }
+            return rows;
+        });
+
+        // 按请求顺序返回存在的学生，只查询未缓存的主键
+        assertEquals(Arrays.asList(3L, 2L, 1L), Arrays.asList(result.get(0).getSid(), result.get(1).getSid(),
+                result.get(2).getSid()));
+        assertEquals(Arrays.asList(2L, 9L), requested);
+        assertEquals(1, queries.get());
+    }
+
+    @Test
+    public void testInvalidateDuringLoadSkipsStore() {
+        // 加载期间有失效时不缓存加载结果
+        cache.get(4L, id -> {
+            Student stale = selectById(id);
+            cache.invalidate(id);
+            return stale;
+        });
+        queries.set(0);
+        cache.get(4L, this::selectById);
+        assertEquals(1, queries.get());
+    }
+
+    @Test
+    public void testFullCacheEvictsInsteadOfFreezing() {
+        EntityCache<Student> small = new EntityCache<>("student", Student::getSid, Student::getSno, 60000, 2);
+        for (long sid = 1; sid <= 5; sid++) {
+            small.get(sid, this::selectById);
+        }
+        // 写满后新实体仍能进入缓存，条目数不超过上限
+        assertTrue((Integer) small.snapshot().get("entries") <= 2);
+        for (int i = 0; i < 3; i++) {
+            small.get(5L, this::selectById);
+        }
+        queries.set(0);
+        small.get(5L, this::selectById);
+        assertEquals(0, queries.get());
+    }
+
+    @Test
+    public void testInvalidatePublishedToOtherNodes() {
+        LocalInvalidationBus busA = new LocalInvalidationBus("node-a");
+        LocalInvalidationBus busB = busA.join("node-b");
+        EntityCache<Student> cacheB = new EntityCache<>("student", Student::getSid, Student::getSno, 60000, 100);
+        cache.setPublisher(id -> busA.publish("entity", String.valueOf(id)));
+        busB.subscribe("entity", id -> cacheB.invalidateRemote(Long.valueOf(id)));
+        cacheB.get(2L, this::selectById);
+
+        // 节点A修改后，节点B重新加载新数据
+        table.put(2L, student(2L, "XH000099"));
+        cache.invalidate(2L);
+        assertEquals("XH000099", cacheB.get(2L, this::selectById).getSno());
+    }
+
+    private Student selectById(Long sid) {
+        queries.incrementAndGet();
+        return table.get(sid);
+    }
+
+    private Student selectBySno(String sno) {
+        queries.incrementAndGet();
+        for (Student student : table.values()) {
+            if (student.getSno().equals(sno)) {
+                return student;
+            }
+        }
+        return null;
+    }
+
+    private static Student student(long sid, String sno) {
+        Student student = new Student();
+        student.setSid(sid);
+        student.setSno(sno);
+        return student;
+    }
+}
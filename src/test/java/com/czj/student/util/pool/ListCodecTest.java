@@ -0,0 +1,69 @@
+package com.czj.student.util.pool;
+
+import com.czj.student.model.vo.StudentVO;
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * 查询结果编解码测试类
+ */
+public class ListCodecTest {
+
+    @Test
+    public void testAllowedTypesRoundTrip() throws Exception {
+        StudentVO vo = new StudentVO();
+        vo.setSid(1L);
+        vo.setSno("XH000001");
+        Map<String, Object> row = new HashMap<>();
+        row.put("count", 3L);
+        row.put("score", new BigDecimal("90.5"));
+        row.put("time", new Timestamp(1000L));
+        row.put("date", new Date(2000L));
+        row.put("local", LocalDateTime.of(2024, 1, 1, 8, 0));
+        List<Object> rows = Arrays.asList(vo, row, "a", 1, new long[]{1L}, Collections.singletonList(2));
+
+        List<Object> decoded = ListCodec.decode(ListCodec.encode(rows));
+        assertEquals("XH000001", ((StudentVO) decoded.get(0)).getSno());
+        assertEquals(row, decoded.get(1));
+        assertEquals(6, decoded.size());
+    }
+
+    @Test
+    public void testRejectsTypesOutsideAllowList() throws Exception {
+        // 二级缓存或本地文件被写入了白名单以外的类型，解码失败而不是实例化该类型
+        byte[] bytes = ListCodec.encode(Collections.singletonList(new Planted()));
+        try {
+            ListCodec.decode(bytes);
+            fail("白名单以外的类型应拒绝解码");
+        } catch (IllegalStateException e) {
+            assertFalse(Planted.created);
+        }
+        assertFalse(ListCodec.supports(Collections.singletonList(new Planted())));
+        assertFalse(ListCodec.isAllowed("java.util.concurrent.ConcurrentHashMap"));
+        assertFalse(ListCodec.isAllowed("[Lorg.apache.commons.collections.Transformer;"));
+        assertTrue(ListCodec.isAllowed("[Ljava.lang.Object;"));
+    }
+
+    private static final class Planted implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        static volatile boolean created;
+
+        private Object readResolve() {
+            created = true;
+            return this;
+        }
+    }
+}
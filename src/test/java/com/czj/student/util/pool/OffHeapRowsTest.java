@@ -0,0 +1,52 @@
+package com.czj.student.util.pool;
+
+import com.czj.student.model.vo.StudentVO;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 堆外压缩存储测试类
+ */
+public class OffHeapRowsTest {
+
+    @Test
+    public void testSliceAcrossChunks() throws Exception {
+        List<StudentVO> rows = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            StudentVO vo = new StudentVO();
+            vo.setSid((long) i);
+            vo.setSno("XH" + i);
+            vo.setMajor("计算机科学与技术");
+            rows.add(vo);
+        }
+
+        OffHeapRows offHeap = OffHeapRows.encode(rows);
+        assertEquals(1000, offHeap.size());
+        // 重复内容较多，压缩后应明显小于行数 × 估算行大小
+        assertTrue(offHeap.getStoredBytes() < 1000 * 560);
+
+        // 跨越块边界的分页
+        List<Object> page = offHeap.slice(60, 70);
+        assertEquals(10, page.size());
+        for (int i = 0; i < page.size(); i++) {
+            assertEquals(Long.valueOf(60 + i), ((StudentVO) page.get(i)).getSid());
+        }
+
+        // 最后一块不满
+        List<Object> tail = offHeap.slice(990, 1000);
+        assertEquals(Long.valueOf(999), ((StudentVO) tail.get(9)).getSid());
+        assertEquals(1000, offHeap.toList().size());
+        assertTrue(offHeap.slice(5, 5).isEmpty());
+    }
+
+    @Test
+    public void testSupports() {
+        assertTrue(ListCodec.supports(Arrays.asList("a", "b")));
+        assertFalse(ListCodec.supports(Arrays.asList("a", new Object())));
+    }
+}
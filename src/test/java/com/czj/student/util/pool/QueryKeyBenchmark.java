@@ -0,0 +1,108 @@
+package com.czj.student.util.pool;
+
+import com.czj.student.model.vo.PageInfo;
+import com.czj.student.service.StudentService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓存键生成及查找基准测试
+ * 对比旧实现(反射拼接字符串 + methodCache二次查找)与方法描述符 + QueryKey单次查找
+ *
+ * 运行方式：mvn test-compile 后执行本类的main方法，
+ * 或 java -cp target/test-classes:target/classes:依赖 org.openjdk.jmh.Main QueryKeyBenchmark -prof gc
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QueryKeyBenchmark {
+
+    private Method method;
+    private Object[] args;
+
+    // 旧实现：方法签名字符串 -> UUID缓存键 -> 结果
+    private final ConcurrentHashMap<String, String> legacyMethodCache = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, List<?>> legacyQueryCache = new ConcurrentHashMap<>();
+
+    // 新实现：QueryKey -> 结果
+    private final ConcurrentHashMap<QueryKey, List<?>> queryCache = new ConcurrentHashMap<>();
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        method = StudentService.class.getMethod("queryStudentsByPage", PageInfo.class, String.class);
+        args = new Object[]{new PageInfo<>(1, 10), "计算机"};
+
+        // 填充一批其他查询，使Map规模接近实际
+        for (int i = 0; i < 1000; i++) {
+            Object[] other = new Object[]{new PageInfo<>(1, 10), "keyword" + i};
+            String uuid = UUID.randomUUID().toString().replace("-", "");
+            legacyMethodCache.put(legacyMethodKey(method, other), uuid);
+            legacyQueryCache.put(uuid, Collections.emptyList());
+            queryCache.put(MethodDescriptor.of(method).keyOf(other), Collections.emptyList());
+        }
+
+        String uuid = UUID.randomUUID().toString().replace("-", "");
+        legacyMethodCache.put(legacyMethodKey(method, args), uuid);
+        legacyQueryCache.put(uuid, Collections.emptyList());
+        queryCache.put(MethodDescriptor.of(method).keyOf(args), Collections.emptyList());
+    }
+
+    @Benchmark
+    public List<?> legacyLookup() {
+        String cacheKey = legacyMethodCache.get(legacyMethodKey(method, args));
+        return cacheKey == null ? null : legacyQueryCache.get(cacheKey);
+    }
+
+    @Benchmark
+    public List<?> queryKeyLookup() {
+        return queryCache.get(MethodDescriptor.of(method).keyOf(args));
+    }
+
+    /**
+     * 原QueryPool.generateMethodKey的实现
+     */
+    private static String legacyMethodKey(Method method, Object[] args) {
+        String className = method.getDeclaringClass().getName();
+        String methodName = method.getName();
+
+        StringBuilder key = new StringBuilder(className)
+            .append(".")
+            .append(methodName)
+            .append("(");
+
+        for (int i = 0; i < args.length; i++) {
+            Object arg = args[i];
+            if (arg instanceof PageInfo) {
+                continue;
+            }
+            if (i > 0) {
+                key.append(",");
+            }
+            key.append(arg == null ? "null" : arg.toString());
+        }
+
+        key.append(")");
+        return key.toString();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(QueryKeyBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,76 @@
+package com.czj.student.util.pool;
+
+import com.czj.student.model.vo.PageInfo;
+import com.czj.student.service.StudentService;
+import com.czj.student.util.pool.l2.LocalInvalidationBus;
+import com.czj.student.util.pool.l2.LocalL2Cache;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 二级缓存及跨节点失效测试类
+ */
+public class QueryPoolL2Test {
+
+    private static final String[] GROUPS = {"student"};
+
+    private LocalInvalidationBus bus;
+    private QueryKey key;
+
+    @Before
+    public void setUp() throws Exception {
+        QueryPool.clearAll();
+        bus = new LocalInvalidationBus("node-a");
+        QueryPool.enableL2(new LocalL2Cache(), bus);
+        key = MethodDescriptor.of(StudentService.class.getMethod("queryStudentsByPage", PageInfo.class, String.class))
+                .keyOf(new Object[]{new PageInfo<>(1, 10), "计算机"});
+    }
+
+    @After
+    public void tearDown() {
+        QueryPool.disableL2();
+        QueryPool.clearAll();
+    }
+
+    @Test
+    public void testLoadFromL2AfterLocalMiss() {
+        QueryPool.putResult(key, Arrays.asList("a", "b", "c"), 60000, GROUPS);
+
+        // 模拟另一个节点：本地没有，二级缓存命中后写入本地
+        QueryPool.clearAll();
+        assertNull(QueryPool.getList(key));
+        CacheEntry entry = QueryPool.getFromL2(key, 60000, 0, 0, GROUPS, null, QueryPool.ANY_VERSION);
+        assertNotNull(entry);
+        assertEquals(Arrays.asList("a", "b", "c"), entry.getValue());
+        assertNotNull(QueryPool.getList(key));
+    }
+
+    @Test
+    public void testRemoteInvalidationClearsLocal() {
+        QueryPool.putResult(key, Arrays.asList("a", "b"), 60000, GROUPS);
+
+        // 其他节点清除缓存组后，本节点的本地缓存被清除
+        bus.join("node-b").publish("student");
+        assertNull(QueryPool.getList(key));
+    }
+
+    @Test
+    public void testClearGroupNotifiesOtherNodes() {
+        List<String> received = new ArrayList<>();
+        bus.join("node-b").subscribe(received::add);
+        QueryPool.putResult(key, Arrays.asList("a", "b"), 60000, GROUPS);
+
+        QueryPool.clearCacheGroup("student");
+
+        // 二级缓存同时被清除，其他节点收到通知
+        assertEquals(Arrays.asList("student"), received);
+        assertNull(QueryPool.getFromL2(key, 60000, 0, 0, GROUPS, null, QueryPool.ANY_VERSION));
+    }
+}
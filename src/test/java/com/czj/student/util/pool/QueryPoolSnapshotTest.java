@@ -0,0 +1,97 @@
+package com.czj.student.util.pool;
+
+import com.czj.student.model.vo.PageInfo;
+import com.czj.student.service.StudentService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * 查询缓存快照测试类
+ */
+public class QueryPoolSnapshotTest {
+
+    private static final String[] GROUPS = {"student"};
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private QueryKey key;
+
+    @Before
+    public void setUp() throws Exception {
+        QueryPool.clearAll();
+        key = MethodDescriptor.of(StudentService.class.getMethod("queryStudentsByPage", PageInfo.class, String.class))
+                .keyOf(new Object[]{new PageInfo<>(1, 10), "计算机"});
+    }
+
+    @After
+    public void tearDown() {
+        QueryPool.clearAll();
+    }
+
+    @Test
+    public void testRestoreWithSameVersion() throws Exception {
+        QueryPool.putResult(key, Arrays.asList("a", "b"), 60000, 0, 5000, GROUPS, null);
+        long expireAt = QueryPool.getEntry(key).getExpireAt();
+        File file = folder.newFile("query-pool.snapshot");
+        assertEquals(1, QueryPoolSnapshot.write(file, group -> "v1"));
+
+        // 模拟重启：本地缓存清空后读回，过期时间保持不变
+        QueryPool.clearAll();
+        assertEquals(1, QueryPoolSnapshot.read(file, group -> "v1"));
+        CacheEntry entry = QueryPool.getEntry(key);
+        assertNotNull(entry);
+        assertEquals(Arrays.asList("a", "b"), entry.getValue());
+        assertEquals(expireAt, entry.getExpireAt(), 1000);
+        assertEquals(entry.getExpireAt() + 5000, entry.getStaleUntil());
+    }
+
+    @Test
+    public void testSnapshotIsPrivate() throws Exception {
+        assumeTrue(Files.getFileStore(folder.getRoot().toPath()).supportsFileAttributeView("posix"));
+        QueryPool.putResult(key, Arrays.asList("a", "b"), 60000, GROUPS);
+        File file = new File(folder.getRoot(), "student_system/query-pool.snapshot");
+        assertEquals(1, QueryPoolSnapshot.write(file, group -> "v1"));
+        assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(file.toPath())));
+        assertEquals("rwx------",
+                PosixFilePermissions.toString(Files.getPosixFilePermissions(file.getParentFile().toPath())));
+
+        // 其他用户可写的快照可能被替换，不读取
+        Files.setPosixFilePermissions(file.toPath(), PosixFilePermissions.fromString("rw-rw-rw-"));
+        QueryPool.clearAll();
+        try {
+            QueryPoolSnapshot.read(file, group -> "v1");
+            fail("其他用户可写的快照应拒绝读取");
+        } catch (IOException e) {
+            assertNull(QueryPool.getEntry(key));
+        }
+    }
+
+    @Test
+    public void testDiscardChangedOrUnknownVersion() throws Exception {
+        QueryPool.putResult(key, Arrays.asList("a", "b"), 60000, GROUPS);
+        File file = folder.newFile("query-pool.snapshot");
+        QueryPoolSnapshot.write(file, group -> "v1");
+
+        // 停机期间数据变化
+        QueryPool.clearAll();
+        assertEquals(0, QueryPoolSnapshot.read(file, group -> "v2"));
+        assertNull(QueryPool.getEntry(key));
+
+        // 写入时无法取得版本的缓存组不写入快照
+        QueryPool.putResult(key, Arrays.asList("a", "b"), 60000, GROUPS);
+        assertEquals(0, QueryPoolSnapshot.write(file, group -> null));
+    }
+}
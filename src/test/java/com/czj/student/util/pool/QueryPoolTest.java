@@ -0,0 +1,215 @@
+package com.czj.student.util.pool;
+
+import com.czj.student.model.vo.PageInfo;
+import com.czj.student.model.vo.StudentVO;
+import com.czj.student.service.StudentService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * 查询缓存池测试类
+ */
+public class QueryPoolTest {
+
+    private static final String[] GROUPS = {"student"};
+
+    private MethodDescriptor descriptor;
+
+    @Before
+    public void setUp() throws Exception {
+        QueryPool.clearAll();
+        descriptor = MethodDescriptor.of(StudentService.class.getMethod("queryStudentsByPage", PageInfo.class, String.class));
+    }
+
+    @After
+    public void tearDown() {
+        QueryPool.clearAll();
+    }
+
+    @Test
+    public void testInvalidateEntity() {
+        QueryKey all = key(null);
+        QueryKey computer = key("计算机");
+        QueryKey math = key("数学");
+        QueryKey untagged = key("物理");
+        QueryPool.putResult(all, Arrays.asList(student(1L, "张三", "计算机"), student(2L, "李四", "数学")),
+                60000, 0, 0, GROUPS, "sid");
+        QueryPool.putResult(computer, Collections.singletonList(student(1L, "张三", "计算机")), 60000, 0, 0, GROUPS, "sid");
+        QueryPool.putResult(math, Collections.singletonList(student(2L, "李四", "数学")), 60000, 0, 0, GROUPS, "sid");
+        QueryPool.putResult(untagged, Collections.emptyList(), 60000, GROUPS);
+
+        // 修改学生3(不在任何缓存结果中)的专业：英语 -> 计算机
+        QueryPool.invalidateEntity("student", "sid", 3L,
+                Arrays.asList(student(3L, "王五", "英语"), student(3L, "王五", "计算机")));
+
+        // 全部学生的第一页不含学生3，保留；计算机关键字可能新增匹配，清除；数学不受影响，保留；未打标签的条目清除
+        assertNotNull(QueryPool.getList(all));
+        assertNull(QueryPool.getList(computer));
+        assertNotNull(QueryPool.getList(math));
+        assertNull(QueryPool.getList(untagged));
+
+        // 修改学生2：包含该学生的条目都被清除
+        QueryPool.invalidateEntity("student", "sid", 2L, Collections.emptyList());
+        assertNull(QueryPool.getList(all));
+        assertNull(QueryPool.getList(math));
+    }
+
+    @Test
+    public void testInvalidateEntityWithoutId() {
+        QueryKey all = key(null);
+        QueryPool.putResult(all, Collections.singletonList(student(1L, "张三", "计算机")), 60000, 0, 0, GROUPS, "sid");
+
+        // 无法确定实体时清除整个缓存组
+        QueryPool.invalidateEntity("student", "sid", null, Collections.emptyList());
+        assertNull(QueryPool.getList(all));
+    }
+
+    @Test
+    public void testPageWindowsShareTotal() {
+        QueryKey query = descriptor.keyOf(new Object[]{new PageInfo<>(1, 10), null});
+        QueryPool.putPage(query, new PageInfo<StudentVO>(1, 2).of(
+                Arrays.asList(student(5L, "赵一", "计算机"), student(4L, "钱二", "数学")), 5), 60000, 0, 0, GROUPS, "sid",
+                QueryPool.groupVersion(GROUPS));
+        QueryPool.putPage(query, new PageInfo<StudentVO>(2, 2).of(
+                Arrays.asList(student(3L, "孙三", "英语"), student(2L, "李四", "数学")), 5), 60000, 0, 0, GROUPS, "sid",
+                QueryPool.groupVersion(GROUPS));
+
+        // 每一页返回自己的行，总数共用
+        PageInfo<StudentVO> page2 = QueryPool.getPagedResult(query, new PageInfo<>(2, 2));
+        assertNotNull(page2);
+        assertEquals(Long.valueOf(3L), page2.getRows().get(0).getSid());
+        assertEquals(5, page2.getTotal());
+        assertEquals(3, page2.getPages());
+        PageInfo<StudentVO> page1 = QueryPool.getPagedResult(query, new PageInfo<>(1, 2));
+        assertEquals(Long.valueOf(5L), page1.getRows().get(0).getSid());
+
+        // 未缓存的页及不同的每页条数不命中
+        assertNull(QueryPool.getPagedResult(query, new PageInfo<>(3, 2)));
+        assertNull(QueryPool.getPagedResult(query, new PageInfo<>(1, 4)));
+
+        // 修改第2页中的学生只清除第2页，总数和第1页保留
+        QueryPool.invalidateEntity("student", "sid", 3L, Collections.singletonList(student(3L, "孙三", "英语")));
+        assertNull(QueryPool.getPagedResult(query, new PageInfo<>(2, 2)));
+        assertNotNull(QueryPool.getPagedResult(query, new PageInfo<>(1, 2)));
+    }
+    @Test
+    public void testLoadStartedBeforeClearIsNotStored() {
+        QueryKey computer = key("计算机");
+        long version = QueryPool.groupVersion(GROUPS);
+
+        // 查询执行期间缓存组被清除，查询结果可能是清除前的旧数据，不写入
+        QueryPool.clearCacheGroup("student");
+        QueryPool.putResult(computer, Collections.singletonList(student(1L, "张三", "计算机")), 60000, 0, 0,
+                GROUPS, "sid", version);
+        assertNull(QueryPool.getList(computer));
+
+        // 清除后开始的查询正常写入
+        QueryPool.putResult(computer, Collections.singletonList(student(1L, "张三", "计算机")), 60000, 0, 0,
+                GROUPS, "sid", QueryPool.groupVersion(GROUPS));
+        assertNotNull(QueryPool.getList(computer));
+    }
+
+    @Test
+    public void testRegionsEvictIndependently() {
+        // 容量很小的LRU区域，写满后只淘汰本区域的条目
+        String[] noisy = {"noisy"};
+        QueryPool.configureRegion(new CacheRegion("noisy", 4096, 4096, 16, 1000,
+                CacheRegion.Policy.LRU, CacheRegion.Backend.HEAP, false), "noisy");
+        QueryKey computer = key("计算机");
+        QueryPool.putResult(computer, Collections.singletonList(student(1L, "张三", "计算机")), 60000, GROUPS);
+        for (int i = 0; i < 200; i++) {
+            QueryPool.putResult(key("noisy" + i), Arrays.asList("第" + i + "行", "数据", "数据"), 60000, noisy);
+        }
+
+        assertNotNull(QueryPool.getList(computer));
+        assertNull(QueryPool.getList(key("noisy0")));
+        assertNotNull(QueryPool.getList(key("noisy199")));
+        // 过期时间不超过区域上限
+        assertTrue(QueryPool.getEntry(key("noisy199")).getExpireAt() <= System.currentTimeMillis() + 1000);
+        @SuppressWarnings("unchecked")
+        Map<String, Object> stats = (Map<String, Object>) QueryPool.getRegionStats().get("noisy");
+        assertTrue((Long) stats.get("weightedBytes") <= 4096);
+    }
+
+    @Test
+    public void testMetricsByGroup() {
+        // 使用单独的缓存组，不受其他测试累计的统计影响
+        String[] groups = {"metrics"};
+        QueryKey computer = key("计算机");
+        QueryKey math = key("数学");
+        QueryPool.putResult(computer, Collections.singletonList(student(1L, "张三", "计算机")), 60000, groups);
+        QueryPool.putResult(math, Collections.singletonList(student(2L, "李四", "数学")), 60000, groups);
+        QueryPool.recordLoad(computer, groups, 3_000_000L, true);
+        QueryPool.getList(computer);
+        QueryPool.getList(computer);
+        // 合并加载的等待者读取结果不计入命中
+        assertNotNull(QueryPool.peekList(computer));
+
+        CacheMetrics metrics = QueryPool.getGroupMetrics().get("metrics");
+        assertEquals(2, metrics.getHits());
+        assertEquals(1, metrics.getLoads());
+        assertEquals(2, metrics.getEntries());
+        assertTrue(metrics.getBytes() > 0);
+        // 3毫秒落在(2,5]的桶中
+        assertEquals(1, metrics.getLatencyCounts()[2]);
+
+        QueryPool.clearCacheGroup("metrics");
+        assertEquals(0, metrics.getEntries());
+        assertEquals(0, metrics.getBytes());
+        assertEquals(2, metrics.getRemovals(RemovalCause.INVALIDATED));
+
+        String text = PrometheusFormatter.format(QueryPool.getMethodMetrics(), QueryPool.getGroupMetrics());
+        assertTrue(text.contains("query_cache_removals_total{group=\"metrics\",cause=\"invalidated\"} 2"));
+        assertTrue(text.contains("query_cache_load_duration_seconds_bucket{group=\"metrics\",le=\"+Inf\"} 1"));
+    }
+
+    @Test
+    public void testReputDuringRemovalStaysInGroup() throws Exception {
+        // 多个线程反复写入同一个键，同时反复按实体失效该键；移除旧条目的清理不能撤销新条目的登记
+        QueryKey computer = key("计算机");
+        List<StudentVO> rows = Collections.singletonList(student(1L, "张三", "计算机"));
+        long deadline = System.currentTimeMillis() + 500;
+        Runnable writer = () -> {
+            while (System.currentTimeMillis() < deadline) {
+                QueryPool.putResult(computer, rows, 60000, 0, 0, GROUPS, "sid");
+            }
+        };
+        Runnable invalidator = () -> {
+            while (System.currentTimeMillis() < deadline) {
+                QueryPool.invalidateEntity("student", "sid", 1L, Collections.emptyList());
+            }
+        };
+        Thread[] threads = {new Thread(writer), new Thread(writer), new Thread(invalidator), new Thread(invalidator)};
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // 仍在缓存中的条目必须能被清除缓存组找到，且不再占用内存预算
+        QueryPool.clearCacheGroup("student");
+        assertNull(QueryPool.getList(computer));
+        assertEquals(0, QueryPool.getWeightedSize());
+    }
+
+    private QueryKey key(String keyword) {
+        return descriptor.keyOf(new Object[]{new PageInfo<>(1, 10), keyword}).withPage(1, 10);
+    }
+
+    private static StudentVO student(Long sid, String name, String major) {
+        StudentVO vo = new StudentVO();
+        vo.setSid(sid);
+        vo.setName(name);
+        vo.setMajor(major);
+        return vo;
+    }
+}
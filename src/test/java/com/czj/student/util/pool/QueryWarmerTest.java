@@ -0,0 +1,90 @@
+package com.czj.student.util.pool;
+
+import com.czj.student.model.vo.PageInfo;
+import com.czj.student.service.StudentService;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * 热点分页查询预热测试类
+ */
+public class QueryWarmerTest {
+
+    private static final String[] GROUPS = {"student"};
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private QueryWarmer warmer;
+    private MethodDescriptor descriptor;
+
+    @Before
+    public void setUp() throws Exception {
+        warmer = new QueryWarmer();
+        descriptor = MethodDescriptor.of(StudentService.class.getMethod("queryStudentsByPage", PageInfo.class, String.class));
+    }
+
+    @Test
+    public void testTopByRequestsPerPage() {
+        request(1, null, 5);
+        request(2, null, 2);
+        request(1, "计算机", 3);
+
+        List<QueryWarmer.Candidate> top = warmer.top("student");
+        assertEquals(3, top.size());
+        assertEquals(1, top.get(0).page);
+        assertNull(top.get(0).args[1]);
+        assertEquals("计算机", top.get(1).args[1]);
+        assertEquals(2, top.get(2).page);
+        assertTrue(warmer.top("course").isEmpty());
+
+        // 执行时按记录的页码新建PageInfo
+        Object[] args = top.get(2).newArgs();
+        assertEquals(2, ((PageInfo<?>) args[0]).getPage());
+        assertNull(((PageInfo<?>) args[0]).getUuid());
+    }
+
+    @Test
+    public void testDecayRemovesColdQueries() {
+        request(1, null, 4);
+        request(2, null, 1);
+
+        warmer.decay();
+        List<QueryWarmer.Candidate> top = warmer.top(null);
+        assertEquals(1, top.size());
+        assertEquals(2, top.get(0).hits.sum());
+    }
+
+    @Test
+    public void testSavedKeysArePrivate() throws Exception {
+        assumeTrue(Files.getFileStore(folder.getRoot().toPath()).supportsFileAttributeView("posix"));
+        request(1, "计算机", 3);
+        File file = new File(folder.getRoot(), "student_system/query-warm.keys");
+        ReflectionTestUtils.invokeMethod(warmer, "save", file);
+        assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(file.toPath())));
+        assertEquals(1, (int) ReflectionTestUtils.invokeMethod(new QueryWarmer(), "load", file));
+
+        // 其他用户可写的文件可能被替换，不读取
+        Files.setPosixFilePermissions(file.toPath(), PosixFilePermissions.fromString("rw-rw-rw-"));
+        assertEquals(0, (int) ReflectionTestUtils.invokeMethod(new QueryWarmer(), "load", file));
+    }
+
+    private void request(int page, String keyword, int times) {
+        for (int i = 0; i < times; i++) {
+            PageInfo<?> pageInfo = new PageInfo<>(page, 10);
+            Object[] args = {pageInfo, keyword};
+            warmer.record(descriptor.keyOf(args).withPage(page, 10), args, GROUPS);
+        }
+    }
+}
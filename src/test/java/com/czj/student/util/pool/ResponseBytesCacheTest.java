@@ -0,0 +1,61 @@
+package com.czj.student.util.pool;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * 响应缓存测试类
+ */
+public class ResponseBytesCacheTest {
+
+    @Test
+    public void testVersionAndGzip() throws Exception {
+        ResponseBytesCache cache = new ResponseBytesCache(1024 * 1024, 64);
+        StringBuilder json = new StringBuilder("{\"code\":200,\"data\":[");
+        for (int i = 0; i < 100; i++) {
+            json.append("{\"sid\":").append(i).append(",\"major\":\"软件工程\"},");
+        }
+        byte[] bytes = json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+        cache.put("/api/students/page?page=1", bytes, true, 60000, 3);
+
+        ResponseBytesCache.CachedResponse cached = cache.get("/api/students/page?page=1", 3);
+        assertArrayEquals(bytes, cached.getJson());
+        assertTrue(cached.getGzip().length < bytes.length);
+        assertArrayEquals(bytes, gunzip(cached.getGzip()));
+
+        // 缓存组版本变化后不再命中
+        assertNull(cache.get("/api/students/page?page=1", 4));
+        assertNull(cache.get("/api/students/page?page=1", 3));
+    }
+
+    @Test
+    public void testEvictsByBytes() {
+        ResponseBytesCache cache = new ResponseBytesCache(4096, 1024);
+        byte[] body = new byte[500];
+        for (int i = 0; i < 20; i++) {
+            cache.put("/page?page=" + i, body, true, 60000, 0);
+        }
+        // 小于gzipMinBytes的响应不压缩，超出上限时淘汰最久未访问的
+        assertNull(cache.get("/page?page=19", 0).getGzip());
+        assertNull(cache.get("/page?page=0", 0));
+        assertTrue((Long) cache.snapshot().get("bytes") <= 4096);
+    }
+
+    private static byte[] gunzip(byte[] gzip) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+            byte[] buffer = new byte[1024];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                out.write(buffer, 0, n);
+            }
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,182 @@
+package com.czj.student.util.pool;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * 同键加载合并测试类
+ */
+public class SingleFlightTest {
+
+    private static final String KEY = "student:1";
+
+    private SingleFlight<String> singleFlight;
+    private AtomicInteger loads;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        singleFlight = new SingleFlight<>();
+        loads = new AtomicInteger();
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testConcurrentMissesLoadOnce() throws Exception {
+        int followers = 7;
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i <= followers; i++) {
+            results.add(submit(() -> {
+                loads.incrementAndGet();
+                // 等所有等待者都合并到本次加载后再返回
+                awaitCoalesced(followers);
+                return "张三";
+            }));
+        }
+
+        for (Future<String> result : results) {
+            assertEquals("张三", result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+        assertEquals(followers, singleFlight.getCoalescedCount());
+        assertEquals(0, singleFlight.getFallbackCount());
+    }
+
+    @Test
+    public void testFollowerLoadsWhenLeaderFails() throws Exception {
+        Future<String> leader = submit(() -> {
+            loads.incrementAndGet();
+            awaitCoalesced(1);
+            throw new IllegalStateException("数据库不可用");
+        });
+        awaitLoads(1);
+
+        String follower = execute(5000, () -> {
+            loads.incrementAndGet();
+            return "李四";
+        });
+
+        assertEquals("李四", follower);
+        try {
+            leader.get(5, TimeUnit.SECONDS);
+            fail("领头者应抛出加载异常");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        assertEquals(2, loads.get());
+        assertEquals(1, singleFlight.getFallbackCount());
+    }
+
+    @Test
+    public void testFollowerLoadsAfterTimeout() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> leader = submit(() -> {
+            loads.incrementAndGet();
+            release.await(5, TimeUnit.SECONDS);
+            return "旧值";
+        });
+        awaitLoads(1);
+
+        // 领头者迟迟未完成，等待者超时后自行加载
+        String follower = execute(50, () -> {
+            loads.incrementAndGet();
+            return "王五";
+        });
+        release.countDown();
+
+        assertEquals("王五", follower);
+        assertEquals("旧值", leader.get(5, TimeUnit.SECONDS));
+        assertEquals(2, loads.get());
+        assertEquals(1, singleFlight.getFallbackCount());
+    }
+
+    @Test
+    public void testFollowerUsesUncachedResult() throws Exception {
+        // 领头者的结果未写入缓存(如空结果或加载期间缓存组被清除)，等待者仍使用该结果而不再查询
+        Future<String> leader = submit(() -> {
+            loads.incrementAndGet();
+            awaitCoalesced(1);
+            return "";
+        });
+        awaitLoads(1);
+
+        String follower = execute(5000, () -> {
+            loads.incrementAndGet();
+            return "赵六";
+        });
+
+        assertEquals("", follower);
+        assertEquals("", leader.get(5, TimeUnit.SECONDS));
+        assertEquals(1, loads.get());
+        assertEquals(0, singleFlight.getFallbackCount());
+    }
+
+    @Test
+    public void testFollowerLoadsWhenLeaderReturnsNull() throws Exception {
+        Future<String> leader = submit(() -> {
+            loads.incrementAndGet();
+            awaitCoalesced(1);
+            return null;
+        });
+        awaitLoads(1);
+
+        String follower = execute(5000, () -> {
+            loads.incrementAndGet();
+            return "孙七";
+        });
+
+        assertEquals("孙七", follower);
+        assertNull(leader.get(5, TimeUnit.SECONDS));
+        assertEquals(2, loads.get());
+        assertEquals(1, singleFlight.getFallbackCount());
+    }
+
+    private Future<String> submit(SingleFlight.Loader<String> loader) {
+        return executor.submit(() -> execute(5000, loader));
+    }
+
+    /**
+     * 执行加载，等待者直接使用领头者的结果
+     */
+    private String execute(long timeoutMillis, SingleFlight.Loader<String> loader) throws Exception {
+        try {
+            return singleFlight.execute(KEY, timeoutMillis, loader, leaderResult -> leaderResult);
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    private void awaitCoalesced(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (singleFlight.getCoalescedCount() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+
+    private void awaitLoads(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (loads.get() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+}
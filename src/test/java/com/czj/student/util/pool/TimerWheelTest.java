@@ -0,0 +1,70 @@
+package com.czj.student.util.pool;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * 分层时间轮测试类
+ */
+public class TimerWheelTest {
+
+    private static final long START = 1_700_000_000_000L;
+
+    @Test
+    public void testExpireInOrder() {
+        TimerWheel<String> wheel = new TimerWheel<>(START);
+        wheel.schedule("a", START + 5_000);
+        wheel.schedule("b", START + 30 * 60 * 1000);
+        wheel.schedule("c", START + 10L * 24 * 60 * 60 * 1000);
+
+        assertTrue(wheel.advance(START + 2_000).isEmpty());
+        assertEquals(Collections.singletonList("a"), wheel.advance(START + 7_000));
+        assertTrue(wheel.advance(START + 29 * 60 * 1000).isEmpty());
+        assertEquals(Collections.singletonList("b"), wheel.advance(START + 31 * 60 * 1000));
+        assertEquals(1, wheel.size());
+        assertEquals(Collections.singletonList("c"), wheel.advance(START + 11L * 24 * 60 * 60 * 1000));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void testRescheduleAndCancel() {
+        TimerWheel<String> wheel = new TimerWheel<>(START);
+        wheel.schedule("a", START + 5_000);
+        wheel.schedule("b", START + 5_000);
+        wheel.schedule("a", START + 120_000);
+        wheel.cancel("b");
+
+        assertTrue(wheel.advance(START + 10_000).isEmpty());
+        assertEquals(Collections.singletonList("a"), wheel.advance(START + 125_000));
+    }
+
+    @Test
+    public void testRandomAgainstSortedMap() {
+        // 随机到期时间、按随机步长推进，与逐个比较的结果一致，且每个键最多延迟一个第0层槽位
+        Random random = new Random(42);
+        TimerWheel<Integer> wheel = new TimerWheel<>(START);
+        Map<Integer, Long> expected = new HashMap<>();
+        for (int i = 0; i < 5000; i++) {
+            long time = START + (long) (random.nextDouble() * 4 * 60 * 60 * 1000);
+            wheel.schedule(i, time);
+            expected.put(i, time);
+        }
+
+        long now = START;
+        while (!expected.isEmpty()) {
+            now += 1 + random.nextInt(90_000);
+            for (Integer key : wheel.advance(now)) {
+                Long time = expected.remove(key);
+                assertNotNull(time);
+                assertTrue(time <= now);
+            }
+            for (Long time : expected.values()) {
+                assertTrue("键未按时到期", time > now - 1024);
+            }
+        }
+        assertEquals(0, wheel.size());
+    }
+}
@@ -0,0 +1,134 @@
+package com.czj.student.util.pool;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * W-TinyLFU淘汰策略测试类
+ */
+public class TinyLfuPolicyTest {
+
+    @Test
+    public void testSizeBounded() {
+        TinyLfuPolicy<String> policy = new TinyLfuPolicy<>(100, 100);
+        Set<String> cached = new HashSet<>();
+
+        for (int i = 0; i < 1000; i++) {
+            String key = "key" + i;
+            cached.add(key);
+            List<String> victims = policy.recordInsert(key, 1);
+            cached.removeAll(victims);
+        }
+
+        // 跟踪的键数量与实际缓存的键数量一致且不超过容量
+        assertEquals(100, policy.size());
+        assertEquals(100, cached.size());
+    }
+
+    @Test
+    public void testHotKeysSurviveScan() {
+        TinyLfuPolicy<String> policy = new TinyLfuPolicy<>(100, 100);
+        Set<String> cached = new HashSet<>();
+
+        // 热点键多次访问
+        for (int i = 0; i < 50; i++) {
+            String key = "hot" + i;
+            cached.add(key);
+            cached.removeAll(policy.recordInsert(key, 1));
+        }
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 50; i++) {
+                policy.recordAccess("hot" + i);
+            }
+        }
+
+        // 一次性扫描大量冷数据
+        for (int i = 0; i < 1000; i++) {
+            String key = "cold" + i;
+            cached.add(key);
+            cached.removeAll(policy.recordInsert(key, 1));
+        }
+
+        // 热点键不应被冷数据挤出
+        for (int i = 0; i < 50; i++) {
+            assertTrue("热点键被淘汰: hot" + i, cached.contains("hot" + i));
+        }
+    }
+
+    @Test
+    public void testRejectedCandidateEvictsNothing() {
+        // 窗口1，主区99
+        TinyLfuPolicy<String> policy = new TinyLfuPolicy<>(100, 100);
+        policy.recordInsert("k0", 1);
+        policy.recordInsert("k1", 1);
+        // k1在窗口区内被多次访问，进入主区后是第二个淘汰候选
+        for (int i = 0; i < 5; i++) {
+            policy.recordAccess("k1");
+        }
+        for (int i = 2; i < 100; i++) {
+            assertTrue(policy.recordInsert("k" + i, 1).isEmpty());
+        }
+
+        // 候选键比第一个淘汰候选k0热、比第二个k1冷，不能只淘汰k0后再被拒绝
+        policy.recordAccess("c");
+        policy.recordAccess("c");
+        List<String> victims = policy.recordInsert("c", 2);
+        assertEquals(Arrays.asList("k99", "c"), victims);
+        assertEquals(99, policy.size());
+        assertEquals(99, policy.weightedSize());
+    }
+
+    @Test
+    public void testWeightBounded() {
+        TinyLfuPolicy<String> policy = new TinyLfuPolicy<>(10000, 100);
+        Set<String> cached = new HashSet<>();
+
+        // 大小不一的条目，总权重不超过预算
+        for (int i = 0; i < 500; i++) {
+            String key = "key" + i;
+            cached.add(key);
+            cached.removeAll(policy.recordInsert(key, i % 10 == 0 ? 2000 : 50));
+            assertTrue(policy.weightedSize() <= 10000);
+        }
+        assertEquals(cached.size(), policy.size());
+
+        // 超过整个预算的条目直接被拒绝
+        List<String> victims = policy.recordInsert("huge", 20000);
+        assertTrue(victims.contains("huge"));
+        assertTrue(policy.weightedSize() <= 10000);
+    }
+
+    @Test
+    public void testRemove() {
+        TinyLfuPolicy<String> policy = new TinyLfuPolicy<>(10, 10);
+        policy.recordInsert("a", 1);
+        policy.recordInsert("b", 1);
+        policy.recordAccess("b");
+
+        policy.remove("a");
+        policy.remove("b");
+        assertEquals(0, policy.size());
+    }
+
+    @Test
+    public void testFrequencyDecay() {
+        FrequencySketch sketch = new FrequencySketch(16);
+        for (int i = 0; i < 10; i++) {
+            sketch.increment("hot");
+        }
+        int before = sketch.frequency("hot");
+        assertTrue(before >= 10);
+
+        // 其他键的访问累计到采样窗口后，计数减半
+        for (int i = 0; i < 200; i++) {
+            sketch.increment("other" + i);
+        }
+        assertTrue(sketch.frequency("hot") < before);
+    }
+}